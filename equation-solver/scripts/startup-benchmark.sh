@@ -0,0 +1,73 @@
+#!/usr/bin/env bash
+# Measures time to first evaluation for each build flavour that has been built.
+#
+#   mvn package                   -> jar     target/equation-solver-1.0-SNAPSHOT.jar
+#   mvn -Pcds package             -> cds     target/cds/application.jar + application.jsa (Spring AOT + AppCDS)
+#   mvn -Pnative native:compile   -> native  target/equation-solver (GraalVM)
+#
+# Each flavour is started RUNS times on a free port. The clock starts at launch and stops
+# when a stored equation has been evaluated successfully, so it covers JVM start, context
+# refresh, the first request and the first evaluation.
+#
+# Usage: scripts/startup-benchmark.sh [runs]   (run from the equation-solver directory)
+
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+TARGET=target
+BASE="http://localhost:$PORT/api/equations"
+
+flavour_command() {
+    case "$1" in
+        jar)    [ -f "$TARGET/equation-solver-1.0-SNAPSHOT.jar" ] \
+                    && echo "java -jar $TARGET/equation-solver-1.0-SNAPSHOT.jar" ;;
+        cds)    [ -f "$TARGET/cds/application.jsa" ] \
+                    && echo "java -XX:SharedArchiveFile=$TARGET/cds/application.jsa -Dspring.aot.enabled=true -jar $TARGET/cds/application.jar" ;;
+        native) [ -x "$TARGET/equation-solver" ] \
+                    && echo "$TARGET/equation-solver" ;;
+    esac
+}
+
+now_millis() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+first_evaluate_millis() {
+    local command=$1
+    local start pid id
+    start=$(now_millis)
+    $command --server.port="$PORT" >/dev/null 2>&1 &
+    pid=$!
+    trap 'kill $pid 2>/dev/null || true' RETURN
+    
+    until id=$(curl -sf -X POST "$BASE/store" -H 'Content-Type: application/json' \
+            -d '{"equation": "3x + 2y - z"}' 2>/dev/null | sed -n 's/.*"equationId":\([0-9]*\).*/\1/p') \
+            && [ -n "$id" ]; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "failed to start" >&2
+            return 1
+        fi
+        sleep 0.01
+    done
+    curl -sf -X POST "$BASE/$id/evaluate" -H 'Content-Type: application/json' \
+        -d '{"variables": {"x": 2, "y": 3, "z": 1}}' >/dev/null
+    echo $(( $(now_millis) - start ))
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+}
+
+printf '%-8s %10s %10s %10s\n' flavour min median max
+for flavour in jar cds native; do
+    command=$(flavour_command "$flavour") || true
+    if [ -z "$command" ]; then
+        printf '%-8s %s\n' "$flavour" "not built"
+        continue
+    fi
+    times=()
+    for _ in $(seq "$RUNS"); do
+        times+=("$(first_evaluate_millis "$command")")
+    done
+    sorted=($(printf '%s\n' "${times[@]}" | sort -n))
+    printf '%-8s %8sms %8sms %8sms\n' "$flavour" "${sorted[0]}" "${sorted[$(( RUNS / 2 ))]}" "${sorted[$(( RUNS - 1 ))]}"
+done
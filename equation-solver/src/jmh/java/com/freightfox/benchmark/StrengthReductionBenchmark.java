@@ -0,0 +1,166 @@
+package com.freightfox.benchmark;
+
+import com.freightfox.model.ExpressionNode;
+import com.freightfox.util.CompiledExpression;
+import com.freightfox.util.ExpressionParser;
+import com.freightfox.util.StrengthReduction;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each strength-reduction rewrite against the operation it replaces, plus a
+ * whole equation evaluated as a tree (plain {@code Math.pow}) and as a
+ * compiled, reduced program.
+ *
+ * <p>Every benchmark walks the same array of inputs, so the results are
+ * nanoseconds per {@value #SIZE} operations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StrengthReductionBenchmark {
+    
+    private static final int SIZE = 1024;
+    private static final String EQUATION = "x^2 + 3*x^3 - y^0.5 + x/4";
+    
+    private final double[] inputs = new double[SIZE];
+    private ExpressionNode tree;
+    private CompiledExpression compiled;
+    
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < SIZE; i++) {
+            inputs[i] = 0.5 + random.nextDouble() * 10;
+        }
+        tree = ExpressionParser.parseExpression(EQUATION);
+        compiled = CompiledExpression.compile(tree);
+    }
+    
+    @Benchmark
+    public double squareWithPow() {
+        double sum = 0;
+        for (double x : inputs) {
+            sum += Math.pow(x, 2);
+        }
+        return sum;
+    }
+    
+    @Benchmark
+    public double squareReduced() {
+        double sum = 0;
+        for (double x : inputs) {
+            sum += StrengthReduction.powi(x, 2);
+        }
+        return sum;
+    }
+    
+    @Benchmark
+    public double cubeWithPow() {
+        double sum = 0;
+        for (double x : inputs) {
+            sum += Math.pow(x, 3);
+        }
+        return sum;
+    }
+    
+    @Benchmark
+    public double cubeReduced() {
+        double sum = 0;
+        for (double x : inputs) {
+            sum += StrengthReduction.powi(x, 3);
+        }
+        return sum;
+    }
+    
+    @Benchmark
+    public double seventhPowerWithPow() {
+        double sum = 0;
+        for (double x : inputs) {
+            sum += Math.pow(x, 7);
+        }
+        return sum;
+    }
+    
+    @Benchmark
+    public double seventhPowerBySquaring() {
+        double sum = 0;
+        for (double x : inputs) {
+            sum += StrengthReduction.powi(x, 7);
+        }
+        return sum;
+    }
+    
+    @Benchmark
+    public double squareRootWithPow() {
+        double sum = 0;
+        for (double x : inputs) {
+            sum += Math.pow(x, 0.5);
+        }
+        return sum;
+    }
+    
+    @Benchmark
+    public double squareRootReduced() {
+        double sum = 0;
+        for (double x : inputs) {
+            sum += StrengthReduction.sqrt(x);
+        }
+        return sum;
+    }
+    
+    @Benchmark
+    public double divideByConstant() {
+        double sum = 0;
+        double divisor = divisor();
+        for (double x : inputs) {
+            sum += x / divisor;
+        }
+        return sum;
+    }
+    
+    @Benchmark
+    public double multiplyByReciprocal() {
+        double sum = 0;
+        double reciprocal = 1.0 / divisor();
+        for (double x : inputs) {
+            sum += x * reciprocal;
+        }
+        return sum;
+    }
+    
+    @Benchmark
+    public double equationAsTree() {
+        double sum = 0;
+        for (double x : inputs) {
+            sum += tree.evaluate(Map.of("x", x, "y", x));
+        }
+        return sum;
+    }
+    
+    @Benchmark
+    public double equationCompiled() {
+        double sum = 0;
+        double[] values = new double[2];
+        double[] stack = new double[compiled.getMaxStack()];
+        for (double x : inputs) {
+            values[0] = x;
+            values[1] = x;
+            sum += compiled.evaluate(values, stack);
+        }
+        return sum;
+    }
+    
+    /**
+     * A power of two the JIT cannot see as a constant, as with a divisor read from a stored equation.
+     */
+    private double divisor() {
+        return inputs.length / 256.0;
+    }
+}
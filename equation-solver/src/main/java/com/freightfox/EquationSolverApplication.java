@@ -1,5 +1,7 @@
 package com.freightfox;
 
+import com.freightfox.model.*;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
@@ -7,11 +9,29 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * Main Spring Boot application class for the Equation Solver.
  * This application provides REST APIs to store and evaluate algebraic equations
  * using postfix notation and expression trees.
+ *
+ * <p>The models are registered for reflection so that Jackson can bind them in
+ * a native image. AOT processing finds controller request and response types
+ * by itself, but not the ones read and written directly, such as subscription
+ * events and cluster or replication traffic.
  */
 @SpringBootApplication
+@RegisterReflectionForBinding({
+    AggregateRequest.class, AggregationResult.class, ApproximationRequest.class, ApproximationStatus.class,
+    BatchSolveRequest.class, BatchSolveResponse.class, ChangeLogEntry.class, ChangeLogResponse.class,
+    DecimalModeRequest.class, DecimalModeStatus.class, DerivativeResponse.class, Distribution.class,
+    Equation.class, EquationResult.class, EvaluateEquationRequest.class, EvaluateEquationResponse.class,
+    EvaluateGradientResponse.class, EvaluateManyRequest.class, EvaluateManyResponse.class,
+    EvaluateRangeRequest.class, EvaluateRangeResponse.class, EvaluationSession.class, ExpressionCost.class,
+    FileJobRequest.class, FileJobStatus.class, GetAllEquationsResponse.class, GradientResult.class,
+    GridAxis.class, IntegrateRequest.class, IntegrationResult.class, Interval.class, JobRequest.class,
+    JobStatus.class, PublishVariablesResponse.class, ReplicationStatus.class, SimulateRequest.class,
+    SimulationResult.class, SolveEquationRequest.class, SolveEquationResponse.class, SolveResult.class,
+    StoreEquationRequest.class, StoreEquationResponse.class, StoreStatus.class, WarmupSample.class
+})
 public class EquationSolverApplication {
-
+    
     public static void main(String[] args) {
         SpringApplication.run(EquationSolverApplication.class, args);
     }
-} 
\ No newline at end of file
+} 
@@ -0,0 +1,97 @@
+package com.freightfox.controller;
+
+import com.freightfox.exception.InvalidExpressionException;
+import com.freightfox.model.EquationTransfer;
+import com.freightfox.service.ClusterMembership;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+import java.util.SortedSet;
+
+/**
+ * Internal endpoints cluster nodes use to manage membership and move equations.
+ * Not meant for clients.
+ */
+@RestController
+@RequestMapping("/internal/cluster")
+@ConditionalOnProperty(name = "equation.cluster.enabled", havingValue = "true")
+public class ClusterController {
+    
+    private final ClusterMembership membership;
+    
+    public ClusterController(ClusterMembership membership) {
+        this.membership = membership;
+    }
+    
+    /**
+     * Lists the members of the cluster as this node sees them.
+     *
+     * @return Member base URLs
+     */
+    @GetMapping("/members")
+    public ResponseEntity<Map<String, SortedSet<String>>> getMembers() {
+        return ResponseEntity.ok(Map.of("members", membership.getMembers()));
+    }
+    
+    /**
+     * Registers a joining node.
+     *
+     * @param request Body with the node's base URL under "url" and its node index under "index"
+     * @return All members, including the new one
+     */
+    @PostMapping("/members")
+    public ResponseEntity<Map<String, SortedSet<String>>> addMember(@RequestBody Map<String, String> request) {
+        String url = request.get("url");
+        if (url == null || url.isBlank()) {
+            throw new InvalidExpressionException("Member URL is required");
+        }
+        Long index;
+        try {
+            index = request.get("index") != null ? Long.valueOf(request.get("index")) : null;
+        } catch (NumberFormatException e) {
+            throw new InvalidExpressionException("Node index must be a number");
+        }
+        return ResponseEntity.ok(Map.of("members", membership.addMember(url, index)));
+    }
+    
+    /**
+     * Removes a leaving node.
+     *
+     * @param url The node's base URL
+     * @return Empty response
+     */
+    @DeleteMapping("/members")
+    public ResponseEntity<Void> removeMember(@RequestParam String url) {
+        membership.removeMember(url);
+        return ResponseEntity.noContent().build();
+    }
+    
+    /**
+     * Receives an equation this node now owns.
+     *
+     * @param id The equation ID
+     * @param transfer The equation text and version number, with its decimal mode and approximation, if any
+     * @return Empty response
+     */
+    @PutMapping("/equations/{id}")
+    public ResponseEntity<Void> receiveEquation(@PathVariable Long id, @RequestBody EquationTransfer transfer) {
+        if (transfer.getEquation() == null || transfer.getEquation().isBlank()) {
+            throw new InvalidExpressionException("Equation is required");
+        }
+        membership.receiveEquation(id, transfer);
+        return ResponseEntity.noContent().build();
+    }
+    
+    @ExceptionHandler(InvalidExpressionException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidExpressionException(InvalidExpressionException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage()));
+    }
+    
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalStateException(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+    }
+}
@@ -0,0 +1,362 @@
+package com.freightfox.controller;
+
+import com.fasterxml.jackson.core.JacksonException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.freightfox.exception.DeadlineExceededException;
+import com.freightfox.exception.EquationNotFoundException;
+import com.freightfox.exception.ServerBusyException;
+import com.freightfox.model.EquationResult;
+import com.freightfox.model.EvaluateManyRequest;
+import com.freightfox.model.EvaluateManyResponse;
+import com.freightfox.model.GetAllEquationsResponse;
+import com.freightfox.service.AdmissionControl;
+import com.freightfox.service.ClusterMembership;
+import com.freightfox.service.EquationService;
+import com.freightfox.service.EquationServiceImpl;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Routes equation requests to the cluster node that owns the equation.
+ *
+ * <p>Requests for one equation, or for a session or job (whose ID starts
+ * with its equation's ID), are relayed byte for byte to the owner and its
+ * response, headers included, is streamed back as it arrives. A relayed
+ * request waits for the owner's reply for as long as its own
+ * {@code timeoutMillis} allows, plus a margin. Listing all equations and
+ * evaluating many equations fan out to the owners and merge the results. Everything else, and any request that
+ * has already been routed once, is served by this node.
+ */
+@Component
+@ConditionalOnProperty(name = "equation.cluster.enabled", havingValue = "true")
+public class ClusterRoutingFilter extends OncePerRequestFilter {
+    
+    private static final String BASE_PATH = "/api/equations";
+    private static final Pattern EQUATION_PATH = Pattern.compile("^/api/equations/(\\d{1,18})(/.*)?$");
+    private static final Pattern SESSION_PATH =
+            Pattern.compile("^/api/equations/(?:sessions|file-jobs|jobs)/(\\d{1,18})-[^/]+(?:/events)?$");
+    private static final long RELAY_MARGIN_MILLIS = 5_000;
+    // Describe the connection to this node, not the owner's response
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of(
+            "connection", "content-length", "keep-alive", "transfer-encoding", "upgrade");
+    
+    private final ClusterMembership membership;
+    private final EquationService equationService;
+    private final AdmissionControl admissionControl;
+    private final ObjectMapper objectMapper;
+    
+    public ClusterRoutingFilter(ClusterMembership membership, EquationService equationService,
+                                AdmissionControl admissionControl, ObjectMapper objectMapper) {
+        this.membership = membership;
+        this.equationService = equationService;
+        this.admissionControl = admissionControl;
+        this.objectMapper = objectMapper;
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getHeader(ClusterMembership.HOP_HEADER) != null
+                || !pathOf(request).startsWith(BASE_PATH);
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = pathOf(request);
+        String method = request.getMethod();
+        
+        Matcher matcher = EQUATION_PATH.matcher(path);
+        if (!matcher.matches()) {
+            matcher = SESSION_PATH.matcher(path);
+        }
+        if (matcher.matches()) {
+            String owner = membership.ownerOf(Long.parseLong(matcher.group(1)));
+            if (owner.equals(membership.getSelfUrl())) {
+                chain.doFilter(request, response);
+            } else {
+                relay(owner, request, response);
+            }
+            return;
+        }
+        
+        if ("GET".equals(method) && (path.equals(BASE_PATH) || path.equals(BASE_PATH + "/"))) {
+            listAll(response);
+        } else if ("POST".equals(method) && path.equals(BASE_PATH + "/evaluate-many")) {
+            evaluateMany(request, response, chain);
+        } else {
+            chain.doFilter(request, response);
+        }
+    }
+    
+    /**
+     * Relays a request to another node unchanged and streams its response back.
+     */
+    private void relay(String owner, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String query = request.getQueryString();
+        byte[] body = request.getInputStream().readAllBytes();
+        HttpRequest.Builder forwarded = membership.request(owner, pathOf(request) + (query != null ? "?" + query : ""))
+                .method(request.getMethod(), body.length == 0
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body))
+                .timeout(relayTimeout(body));
+        for (String header : List.of(HttpHeaders.CONTENT_TYPE, HttpHeaders.ACCEPT)) {
+            String value = request.getHeader(header);
+            if (value != null) {
+                forwarded.header(header, value);
+            }
+        }
+        
+        HttpResponse<InputStream> reply;
+        try {
+            reply = membership.getClient().send(forwarded.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writeError(response, HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while forwarding to " + owner);
+            return;
+        } catch (IOException e) {
+            writeError(response, HttpStatus.SERVICE_UNAVAILABLE, "Node " + owner + " is unavailable");
+            return;
+        }
+        response.setStatus(reply.statusCode());
+        reply.headers().map().forEach((name, values) -> {
+            if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                values.forEach(value -> response.addHeader(name, value));
+            }
+        });
+        // Copied as it arrives, so event streams reach the client event by event
+        try (InputStream input = reply.body()) {
+            OutputStream output = response.getOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+                output.flush();
+            }
+        }
+    }
+    
+    /**
+     * Returns how long to wait for the owner: the request's own {@code timeoutMillis},
+     * or the owner's default deadline, plus a margin for the owner to report it.
+     */
+    private Duration relayTimeout(byte[] body) {
+        long millis = EquationServiceImpl.DEFAULT_DEADLINE_MILLIS;
+        if (body.length > 0) {
+            try {
+                JsonNode timeout = objectMapper.readTree(body).get("timeoutMillis");
+                if (timeout != null && timeout.canConvertToLong() && timeout.asLong() > 0) {
+                    millis = timeout.asLong();
+                }
+            } catch (IOException e) {
+                // The owner reports the malformed body
+            }
+        }
+        return Duration.ofMillis(millis + RELAY_MARGIN_MILLIS);
+    }
+    
+    /**
+     * Lists the equations of every member, ordered by ID.
+     */
+    private void listAll(HttpServletResponse response) throws IOException {
+        List<GetAllEquationsResponse.EquationResponse> merged = new ArrayList<>();
+        equationService.getAllEquations().forEach(eq ->
+                merged.add(new GetAllEquationsResponse.EquationResponse(String.valueOf(eq.getId()), eq.getEquation())));
+        
+        List<CompletableFuture<HttpResponse<byte[]>>> replies = new ArrayList<>();
+        for (String member : membership.getMembers()) {
+            if (!member.equals(membership.getSelfUrl())) {
+                replies.add(membership.getClient().sendAsync(membership.request(member, BASE_PATH).GET().build(),
+                        HttpResponse.BodyHandlers.ofByteArray()));
+            }
+        }
+        for (CompletableFuture<HttpResponse<byte[]>> future : replies) {
+            HttpResponse<byte[]> reply = await(future, response);
+            if (reply == null) {
+                return;
+            }
+            merged.addAll(objectMapper.readValue(reply.body(), GetAllEquationsResponse.class).getEquations());
+        }
+        
+        merged.sort(Comparator.comparingLong(eq -> Long.parseLong(eq.getEquationId())));
+        writeJson(response, HttpStatus.OK, new GetAllEquationsResponse(merged));
+    }
+    
+    /**
+     * Splits an evaluate-many request by owner, evaluates the parts concurrently
+     * and reassembles the results in request order.
+     */
+    private void evaluateMany(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        byte[] body = request.getInputStream().readAllBytes();
+        EvaluateManyRequest parsed;
+        try {
+            parsed = objectMapper.readValue(body, EvaluateManyRequest.class);
+        } catch (JacksonException e) {
+            parsed = new EvaluateManyRequest();
+        }
+        List<Long> ids = parsed.getEquationIds();
+        if (ids == null || ids.isEmpty() || parsed.getVariables() == null || ids.contains(null)) {
+            // Let the controller report the validation error
+            chain.doFilter(new CachedBodyRequest(request, body), response);
+            return;
+        }
+        
+        Map<String, List<Integer>> positionsByOwner = new LinkedHashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            positionsByOwner.computeIfAbsent(membership.ownerOf(ids.get(i)), key -> new ArrayList<>()).add(i);
+        }
+        
+        Map<String, CompletableFuture<HttpResponse<byte[]>>> remote = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Integer>> entry : positionsByOwner.entrySet()) {
+            if (!entry.getKey().equals(membership.getSelfUrl())) {
+                EvaluateManyRequest part = new EvaluateManyRequest(
+                        entry.getValue().stream().map(ids::get).toList(), parsed.getVariables());
+                remote.put(entry.getKey(), membership.getClient().sendAsync(
+                        membership.request(entry.getKey(), BASE_PATH + "/evaluate-many")
+                                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(part)))
+                                .build(),
+                        HttpResponse.BodyHandlers.ofByteArray()));
+            }
+        }
+        
+        EquationResult[] results = new EquationResult[ids.size()];
+        List<Integer> local = positionsByOwner.get(membership.getSelfUrl());
+        if (local != null) {
+            List<Long> localIds = local.stream().map(ids::get).toList();
+            try {
+                long cost = 0;
+                for (Long id : localIds) {
+                    cost += equationService.getEvaluationCost(id);
+                }
+                List<EquationResult> part;
+                try (AdmissionControl.Permit permit = admissionControl.admit(cost)) {
+                    part = equationService.evaluateMany(localIds, parsed.getVariables());
+                }
+                for (int i = 0; i < local.size(); i++) {
+                    results[local.get(i)] = part.get(i);
+                }
+            } catch (EquationNotFoundException e) {
+                writeError(response, HttpStatus.NOT_FOUND, e.getMessage());
+                return;
+            } catch (ServerBusyException e) {
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                writeError(response, HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+                return;
+            } catch (DeadlineExceededException e) {
+                writeError(response, HttpStatus.GATEWAY_TIMEOUT, e.getMessage());
+                return;
+            }
+        }
+        for (Map.Entry<String, CompletableFuture<HttpResponse<byte[]>>> entry : remote.entrySet()) {
+            HttpResponse<byte[]> reply = await(entry.getValue(), response);
+            if (reply == null) {
+                return;
+            }
+            if (reply.statusCode() != HttpStatus.OK.value()) {
+                response.setStatus(reply.statusCode());
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.getOutputStream().write(reply.body());
+                return;
+            }
+            List<EquationResult> part = objectMapper.readValue(reply.body(), EvaluateManyResponse.class).getResults();
+            List<Integer> positions = positionsByOwner.get(entry.getKey());
+            for (int i = 0; i < positions.size(); i++) {
+                results[positions.get(i)] = part.get(i);
+            }
+        }
+        
+        writeJson(response, HttpStatus.OK, new EvaluateManyResponse(parsed.getVariables(), Arrays.asList(results)));
+    }
+    
+    /**
+     * Waits for a reply from another node, writing a 503 and returning null if it failed.
+     */
+    private HttpResponse<byte[]> await(CompletableFuture<HttpResponse<byte[]>> future, HttpServletResponse response)
+            throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            writeError(response, HttpStatus.SERVICE_UNAVAILABLE, "Cluster member unavailable: " + e.getCause().getMessage());
+            return null;
+        }
+    }
+    
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        writeJson(response, status, Map.of("error", message));
+    }
+    
+    private void writeJson(HttpServletResponse response, HttpStatus status, Object body) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+    
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+    
+    /**
+     * Request wrapper that replays a body this filter has already consumed.
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+        
+        private final byte[] body;
+        
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+        
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return input.read();
+                }
+                
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+                
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+                
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
+}
@@ -1,17 +1,36 @@
 package com.freightfox.controller;
 
+import com.freightfox.exception.DeadlineExceededException;
 import com.freightfox.exception.EquationNotFoundException;
 import com.freightfox.exception.InvalidExpressionException;
+import com.freightfox.exception.JobNotFoundException;
+import com.freightfox.exception.ReadOnlyReplicaException;
+import com.freightfox.exception.ServerBusyException;
+import com.freightfox.exception.SessionNotFoundException;
+import com.freightfox.exception.SolverException;
 import com.freightfox.model.*;
+import com.freightfox.service.AdmissionControl;
 import com.freightfox.service.EquationService;
+import com.freightfox.util.GridAggregator;
+import com.freightfox.util.Integrator;
+import com.freightfox.util.RootFinder;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * REST controller for equation operations.
@@ -22,11 +41,22 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class EquationController {
     
+    private static final long SUBSCRIPTION_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+    private static final Set<String> FINISHED_JOB_STATES = Set.of(JobStatus.COMPLETED, JobStatus.FAILED,
+            JobStatus.CANCELLED);
+    // Admission cost of an operation relative to one evaluation of the equation
+    private static final long GRADIENT_COST_FACTOR = 2;
+    private static final long RANGE_COST_FACTOR = 2;
+    private static final long SOLVE_ITERATION_COST_FACTOR = 2;
+    private static final long RETRY_AFTER_SECONDS = 1;
+    
     private final EquationService equationService;
+    private final AdmissionControl admissionControl;
     
     @Autowired
-    public EquationController(EquationService equationService) {
+    public EquationController(EquationService equationService, AdmissionControl admissionControl) {
         this.equationService = equationService;
+        this.admissionControl = admissionControl;
     }
     
     /**
@@ -39,6 +69,11 @@ public class EquationController {
     public ResponseEntity<StoreEquationResponse> storeEquation(@Valid @RequestBody StoreEquationRequest request) {
         try {
             Long equationId = equationService.storeEquation(request.getEquation());
+            if (equationService.isStoreAsync()) {
+                // Parsed in the background; GET /{id}/status reports when it is ready
+                StoreEquationResponse response = new StoreEquationResponse("Equation accepted for processing", equationId);
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+            }
             StoreEquationResponse response = new StoreEquationResponse("Equation stored successfully", equationId);
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
         } catch (InvalidExpressionException e) {
@@ -81,6 +116,49 @@ public class EquationController {
         }
     }
     
+    /**
+     * Replaces the text of a stored equation, keeping its ID.
+     * 
+     * @param id The equation ID
+     * @param request The new equation
+     * @return The equation as now stored, with its new version number
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<Equation> updateEquation(
+            @PathVariable Long id,
+            @Valid @RequestBody StoreEquationRequest request) {
+        return ResponseEntity.ok(equationService.updateEquation(id, request.getEquation()));
+    }
+    
+    /**
+     * Reports whether a stored equation is ready to use.
+     * 
+     * @param id The equation ID
+     * @return The store status, with the parse error if it failed
+     */
+    @GetMapping("/{id}/status")
+    public ResponseEntity<StoreStatus> getStoreStatus(@PathVariable Long id) {
+        return ResponseEntity.ok(equationService.getStoreStatus(id));
+    }
+    
+    /**
+     * Evaluates several equations against one set of variable values.
+     * 
+     * @param request The equation IDs and variable values
+     * @return One result per equation, in request order
+     */
+    @PostMapping("/evaluate-many")
+    public ResponseEntity<EvaluateManyResponse> evaluateMany(@Valid @RequestBody EvaluateManyRequest request) {
+        long cost = 0;
+        for (Long id : request.getEquationIds()) {
+            cost += equationService.getEvaluationCost(id);
+        }
+        try (AdmissionControl.Permit permit = admissionControl.admit(cost)) {
+            List<EquationResult> results = equationService.evaluateMany(request.getEquationIds(), request.getVariables());
+            return ResponseEntity.ok(new EvaluateManyResponse(request.getVariables(), results));
+        }
+    }
+    
     /**
      * Evaluates an equation with given variable values.
      * 
@@ -92,19 +170,431 @@ public class EquationController {
     public ResponseEntity<EvaluateEquationResponse> evaluateEquation(
             @PathVariable Long id,
             @Valid @RequestBody EvaluateEquationRequest request) {
-        try {
-            double result = equationService.evaluateEquation(id, request.getVariables());
-            Equation equation = equationService.getEquationById(id);
-            
-            EvaluateEquationResponse response = new EvaluateEquationResponse(
-                id, equation.getEquation(), request.getVariables(), result);
-            
-            return ResponseEntity.ok(response);
+        try (AdmissionControl.Permit permit = admissionControl.admit(equationService.getEvaluationCost(id))) {
+            return ResponseEntity.ok(equationService.evaluateVersioned(id, request.getVariables()));
         } catch (EquationNotFoundException | InvalidExpressionException e) {
             throw e;
         }
     }
     
+    /**
+     * Differentiates an equation and stores the derivative as a new equation.
+     *
+     * @param id The equation ID
+     * @param variable The variable to differentiate by
+     * @return The stored derivative
+     */
+    @GetMapping("/{id}/derivative")
+    public ResponseEntity<DerivativeResponse> getDerivative(
+            @PathVariable Long id,
+            @RequestParam("var") String variable) {
+        Long derivativeId = equationService.storeDerivative(id, variable);
+        Equation derivative = equationService.getEquationById(derivativeId);
+        
+        DerivativeResponse response = new DerivativeResponse(
+            id, variable, derivativeId, derivative.getEquation());
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Evaluates an equation together with its partial derivatives.
+     *
+     * @param id The equation ID
+     * @param request The variable values
+     * @return The evaluation result and gradient
+     */
+    @PostMapping("/{id}/gradient")
+    public ResponseEntity<EvaluateGradientResponse> evaluateGradient(
+            @PathVariable Long id,
+            @Valid @RequestBody EvaluateEquationRequest request) {
+        try (AdmissionControl.Permit permit = admissionControl.admit(GRADIENT_COST_FACTOR * equationService.getEvaluationCost(id))) {
+            return ResponseEntity.ok(equationService.evaluateGradient(id, request.getVariables()));
+        }
+    }
+    
+    /**
+     * Solves an equation for one variable given the others.
+     *
+     * @param id The equation ID
+     * @param request The unknown variable, fixed variable values and solver options
+     * @return The root and how it was found
+     */
+    @PostMapping("/{id}/solve")
+    public ResponseEntity<SolveEquationResponse> solveEquation(
+            @PathVariable Long id,
+            @Valid @RequestBody SolveEquationRequest request) {
+        try (AdmissionControl.Permit permit = admissionControl.admit(solveCost(id, request))) {
+            return ResponseEntity.ok(equationService.solveEquation(id, request));
+        }
+    }
+    
+    /**
+     * Solves an equation for one variable over many parameter rows.
+     *
+     * @param id The equation ID
+     * @param request The unknown variable, shared and per-row variable values and solver options
+     * @return One result per row, in row order
+     */
+    @PostMapping("/{id}/solve-batch")
+    public ResponseEntity<BatchSolveResponse> solveBatch(
+            @PathVariable Long id,
+            @Valid @RequestBody BatchSolveRequest request) {
+        try (AdmissionControl.Permit permit = admissionControl.admit(solveCost(id, request) * request.getRows().size())) {
+            return ResponseEntity.ok(equationService.solveBatch(id, request));
+        }
+    }
+    
+    /**
+     * Computes a guaranteed enclosing range of an equation over a box of inputs.
+     *
+     * @param id The equation ID
+     * @param request The range of each variable as [lo, hi]
+     * @return The enclosing range and whether the box can divide by zero
+     */
+    @PostMapping("/{id}/range")
+    public ResponseEntity<EvaluateRangeResponse> evaluateRange(
+            @PathVariable Long id,
+            @Valid @RequestBody EvaluateRangeRequest request) {
+        Map<String, Interval> ranges = new HashMap<>();
+        for (Map.Entry<String, double[]> entry : request.getVariables().entrySet()) {
+            double[] bounds = entry.getValue();
+            if (bounds == null || bounds.length != 2 || !(bounds[0] <= bounds[1])) {
+                throw new InvalidExpressionException(
+                    "Range for variable '" + entry.getKey() + "' must be [lo, hi] with lo <= hi");
+            }
+            ranges.put(entry.getKey(), new Interval(bounds[0], bounds[1]));
+        }
+        
+        try (AdmissionControl.Permit permit = admissionControl.admit(RANGE_COST_FACTOR * equationService.getEvaluationCost(id))) {
+            return ResponseEntity.ok(equationService.evaluateRange(id, ranges));
+        }
+    }
+    
+    /**
+     * Samples uncertain inputs and summarizes the distribution of an equation's result.
+     *
+     * @param id The equation ID
+     * @param request Input distributions, fixed variable values, sample count and summary options
+     * @return Moments, percentiles and a histogram of the finite results
+     */
+    @PostMapping("/{id}/simulate")
+    public ResponseEntity<SimulationResult> simulate(
+            @PathVariable Long id,
+            @Valid @RequestBody SimulateRequest request) {
+        try (AdmissionControl.Permit permit = admissionControl.admit(evaluationsCost(id, request.getSamples()))) {
+            return ResponseEntity.ok(equationService.simulate(id, request));
+        }
+    }
+    
+    /**
+     * Integrates an equation over one variable between two limits.
+     *
+     * @param id The equation ID
+     * @param request The variable, limits, fixed variable values and accuracy options
+     * @return The integral with its error estimate
+     */
+    @PostMapping("/{id}/integrate")
+    public ResponseEntity<IntegrationResult> integrate(
+            @PathVariable Long id,
+            @Valid @RequestBody IntegrateRequest request) {
+        int maxSubintervals = request.getMaxSubintervals() != null
+                ? request.getMaxSubintervals() : Integrator.DEFAULT_MAX_SUBINTERVALS;
+        long evaluations = (long) maxSubintervals * Integrator.POINTS_PER_SUBINTERVAL;
+        try (AdmissionControl.Permit permit = admissionControl.admit(evaluationsCost(id, evaluations))) {
+            return ResponseEntity.ok(equationService.integrate(id, request));
+        }
+    }
+    
+    /**
+     * Computes the sum, mean and extremes of an equation over a lattice of inputs.
+     *
+     * @param id The equation ID
+     * @param request The axes of the lattice and fixed variable values
+     * @return The aggregates and where the extremes occur
+     */
+    @PostMapping("/{id}/aggregate")
+    public ResponseEntity<AggregationResult> aggregate(
+            @PathVariable Long id,
+            @Valid @RequestBody AggregateRequest request) {
+        long points = 1;
+        for (GridAxis axis : request.getAxes().values()) {
+            points = Math.min(GridAggregator.MAX_POINTS, points * axis.getPoints());
+        }
+        try (AdmissionControl.Permit permit = admissionControl.admit(evaluationsCost(id, points))) {
+            return ResponseEntity.ok(equationService.aggregate(id, request));
+        }
+    }
+    
+    /**
+     * Starts evaluating an equation over every row of a CSV file in the job directory.
+     *
+     * @param id The equation ID
+     * @param request Input and output paths, relative to the job directory
+     * @return The job's status, which runs in the background
+     */
+    @PostMapping("/{id}/file-jobs")
+    public ResponseEntity<FileJobStatus> startFileJob(
+            @PathVariable Long id,
+            @Valid @RequestBody FileJobRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(equationService.startFileJob(id, request));
+    }
+    
+    /**
+     * Reports the progress of a CSV evaluation job.
+     *
+     * @param jobId The job ID
+     * @return Rows processed so far and the average rate
+     */
+    @GetMapping("/file-jobs/{jobId}")
+    public ResponseEntity<FileJobStatus> getFileJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(equationService.getFileJob(jobId));
+    }
+    
+    /**
+     * Queues a batch solve, simulation, integration, aggregation or CSV file evaluation
+     * to run in the background.
+     *
+     * @param id The equation ID
+     * @param request The kind of job, its priority and timeout, and the work itself
+     * @return The job's initial status
+     */
+    @PostMapping("/{id}/jobs")
+    public ResponseEntity<JobStatus> submitJob(
+            @PathVariable Long id,
+            @Valid @RequestBody JobRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(equationService.submitJob(id, request));
+    }
+    
+    /**
+     * Reports the progress of a background job, with its result once it has finished.
+     *
+     * @param jobId The job ID
+     * @return The job status
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<JobStatus> getJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(equationService.getJob(jobId));
+    }
+    
+    /**
+     * Streams a background job as server-sent events: a "progress" event a few times a
+     * second while it runs, then one "result" event with its final status, after which
+     * the stream ends.
+     *
+     * @param jobId The job ID
+     * @return The event stream
+     */
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamJob(@PathVariable String jobId) {
+        SseEmitter emitter = new SseEmitter(SUBSCRIPTION_TIMEOUT_MILLIS);
+        equationService.watchJob(jobId, status -> {
+            boolean finished = FINISHED_JOB_STATES.contains(status.getStatus());
+            try {
+                emitter.send(SseEmitter.event().name(finished ? "result" : "progress").data(status));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (finished) {
+                emitter.complete();
+            }
+        });
+        return emitter;
+    }
+    
+    /**
+     * Cancels a background job; a running job stops at its next check.
+     *
+     * @param jobId The job ID
+     * @return The job status after the cancellation was requested
+     */
+    @DeleteMapping("/jobs/{jobId}")
+    public ResponseEntity<JobStatus> cancelJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(equationService.cancelJob(jobId));
+    }
+    
+    /**
+     * Starts answering a single-variable equation from a lookup table over a range.
+     *
+     * @param id The equation ID
+     * @param request The range, error bound and interpolation
+     * @return The status of the table, which is built in the background
+     */
+    @PutMapping("/{id}/approximation")
+    public ResponseEntity<ApproximationStatus> approximate(
+            @PathVariable Long id,
+            @Valid @RequestBody ApproximationRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(equationService.approximate(id, request));
+    }
+    
+    /**
+     * Reports the status of an equation's lookup table.
+     *
+     * @param id The equation ID
+     * @return The status, with the table size and measured error once ready
+     */
+    @GetMapping("/{id}/approximation")
+    public ResponseEntity<ApproximationStatus> getApproximation(@PathVariable Long id) {
+        return ResponseEntity.ok(equationService.getApproximation(id));
+    }
+    
+    /**
+     * Returns an equation to exact evaluation.
+     *
+     * @param id The equation ID
+     * @return Empty response
+     */
+    @DeleteMapping("/{id}/approximation")
+    public ResponseEntity<Void> removeApproximation(@PathVariable Long id) {
+        equationService.removeApproximation(id);
+        return ResponseEntity.noContent().build();
+    }
+    
+    /**
+     * Switches an equation to exact decimal evaluation at a fixed scale.
+     *
+     * @param id The equation ID
+     * @param request The scale and rounding mode
+     * @return The decimal mode now in use
+     */
+    @PutMapping("/{id}/decimal-mode")
+    public ResponseEntity<DecimalModeStatus> setDecimalMode(
+            @PathVariable Long id,
+            @Valid @RequestBody DecimalModeRequest request) {
+        return ResponseEntity.ok(equationService.setDecimalMode(id, request));
+    }
+    
+    /**
+     * Reports an equation's decimal mode.
+     *
+     * @param id The equation ID
+     * @return The scale and rounding mode
+     */
+    @GetMapping("/{id}/decimal-mode")
+    public ResponseEntity<DecimalModeStatus> getDecimalMode(@PathVariable Long id) {
+        return ResponseEntity.ok(equationService.getDecimalMode(id));
+    }
+    
+    /**
+     * Returns an equation to floating-point evaluation.
+     *
+     * @param id The equation ID
+     * @return Empty response
+     */
+    @DeleteMapping("/{id}/decimal-mode")
+    public ResponseEntity<Void> removeDecimalMode(@PathVariable Long id) {
+        equationService.removeDecimalMode(id);
+        return ResponseEntity.noContent().build();
+    }
+    
+    /**
+     * Opens an incremental evaluation session for an equation.
+     *
+     * @param id The equation ID
+     * @param request Optional initial variable values
+     * @return The new session and its result if all variables are bound
+     */
+    @PostMapping("/{id}/sessions")
+    public ResponseEntity<EvaluationSession> createSession(
+            @PathVariable Long id,
+            @RequestBody(required = false) EvaluateEquationRequest request) {
+        EvaluationSession session;
+        try (AdmissionControl.Permit permit = admissionControl.admit(equationService.getEvaluationCost(id))) {
+            session = equationService.createSession(id, request != null ? request.getVariables() : null);
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(session);
+    }
+    
+    /**
+     * Updates variables in a session, recomputing only the affected subtrees.
+     *
+     * @param sessionId The session ID
+     * @param request The variables that changed
+     * @return The session after the update
+     */
+    @PatchMapping("/sessions/{sessionId}")
+    public ResponseEntity<EvaluationSession> updateSession(
+            @PathVariable String sessionId,
+            @Valid @RequestBody EvaluateEquationRequest request) {
+        return ResponseEntity.ok(equationService.updateSession(sessionId, request.getVariables()));
+    }
+    
+    /**
+     * Reads the current state of a session.
+     *
+     * @param sessionId The session ID
+     * @return The session
+     */
+    @GetMapping("/sessions/{sessionId}")
+    public ResponseEntity<EvaluationSession> getSession(@PathVariable String sessionId) {
+        return ResponseEntity.ok(equationService.getSession(sessionId));
+    }
+    
+    /**
+     * Closes a session.
+     *
+     * @param sessionId The session ID
+     * @return Empty response
+     */
+    @DeleteMapping("/sessions/{sessionId}")
+    public ResponseEntity<Void> closeSession(@PathVariable String sessionId) {
+        equationService.closeSession(sessionId);
+        return ResponseEntity.noContent().build();
+    }
+    
+    /**
+     * Streams result changes of a set of equations as server-sent events.
+     * The first event carries the current results; later events carry the
+     * equations affected by each coalesced burst of published variables.
+     *
+     * @param ids The equation IDs to watch
+     * @return The event stream
+     */
+    @GetMapping(value = "/subscribe", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestParam List<Long> ids) {
+        SseEmitter emitter = new SseEmitter(SUBSCRIPTION_TIMEOUT_MILLIS);
+        String subscriptionId = equationService.subscribe(ids, results -> {
+            try {
+                emitter.send(SseEmitter.event().name("results").data(results));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        emitter.onCompletion(() -> equationService.unsubscribe(subscriptionId));
+        emitter.onTimeout(() -> equationService.unsubscribe(subscriptionId));
+        emitter.onError(e -> equationService.unsubscribe(subscriptionId));
+        return emitter;
+    }
+    
+    /**
+     * Publishes variable values to the environment subscriptions are evaluated against.
+     *
+     * @param request The variables that changed
+     * @return The equations the change affects
+     */
+    @PostMapping("/variables")
+    public ResponseEntity<PublishVariablesResponse> publishVariables(@Valid @RequestBody EvaluateEquationRequest request) {
+        Set<Long> affected = equationService.publishVariables(request.getVariables());
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(new PublishVariablesResponse(request.getVariables(), affected));
+    }
+    
+    /**
+     * Admission cost of many evaluations, saturating rather than overflowing for large counts.
+     */
+    private long evaluationsCost(Long id, long evaluations) {
+        return Math.min(equationService.getEvaluationCost(id), Long.MAX_VALUE / evaluations) * evaluations;
+    }
+    
+    /**
+     * Admission cost of one solve: a value and a derivative per iteration, up to the iteration cap.
+     */
+    private long solveCost(Long id, SolveEquationRequest request) {
+        int maxIterations = request.getMaxIterations() != null
+            ? request.getMaxIterations() : RootFinder.DEFAULT_MAX_ITERATIONS;
+        return SOLVE_ITERATION_COST_FACTOR * maxIterations * equationService.getEvaluationCost(id);
+    }
+    
     /**
      * Exception handler for EquationNotFoundException.
      * 
@@ -117,6 +607,47 @@ public class EquationController {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
     
+    /**
+     * Exception handler for ReadOnlyReplicaException.
+     * Redirects the write to the primary, preserving method and body.
+     * 
+     * @param e The exception
+     * @param request The rejected request
+     * @return Redirect response
+     */
+    @ExceptionHandler(ReadOnlyReplicaException.class)
+    public ResponseEntity<Map<String, String>> handleReadOnlyReplicaException(
+            ReadOnlyReplicaException e, HttpServletRequest request) {
+        String query = request.getQueryString();
+        URI location = URI.create(e.getPrimaryUrl() + request.getRequestURI() + (query != null ? "?" + query : ""));
+        Map<String, String> error = Map.of("error", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TEMPORARY_REDIRECT).location(location).body(error);
+    }
+    
+    /**
+     * Exception handler for SessionNotFoundException.
+     * 
+     * @param e The exception
+     * @return Error response
+     */
+    @ExceptionHandler(SessionNotFoundException.class)
+    public ResponseEntity<Map<String, String>> handleSessionNotFoundException(SessionNotFoundException e) {
+        Map<String, String> error = Map.of("error", e.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+    
+    /**
+     * Exception handler for JobNotFoundException.
+     * 
+     * @param e The exception
+     * @return Error response
+     */
+    @ExceptionHandler(JobNotFoundException.class)
+    public ResponseEntity<Map<String, String>> handleJobNotFoundException(JobNotFoundException e) {
+        Map<String, String> error = Map.of("error", e.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+    
     /**
      * Exception handler for InvalidExpressionException.
      * 
@@ -129,6 +660,44 @@ public class EquationController {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
     
+    /**
+     * Exception handler for SolverException.
+     * 
+     * @param e The exception
+     * @return Error response
+     */
+    @ExceptionHandler(SolverException.class)
+    public ResponseEntity<Map<String, String>> handleSolverException(SolverException e) {
+        Map<String, String> error = Map.of("error", e.getMessage());
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(error);
+    }
+    
+    /**
+     * Exception handler for ServerBusyException.
+     * 
+     * @param e The exception
+     * @return Error response asking the client to retry
+     */
+    @ExceptionHandler(ServerBusyException.class)
+    public ResponseEntity<Map<String, String>> handleServerBusyException(ServerBusyException e) {
+        Map<String, String> error = Map.of("error", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(RETRY_AFTER_SECONDS))
+                .body(error);
+    }
+    
+    /**
+     * Exception handler for DeadlineExceededException.
+     * 
+     * @param e The exception
+     * @return Error response
+     */
+    @ExceptionHandler(DeadlineExceededException.class)
+    public ResponseEntity<Map<String, String>> handleDeadlineExceededException(DeadlineExceededException e) {
+        Map<String, String> error = Map.of("error", e.getMessage());
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(error);
+    }
+    
     /**
      * Exception handler for validation errors.
      * 
@@ -0,0 +1,63 @@
+package com.freightfox.controller;
+
+import com.freightfox.model.ChangeLogResponse;
+import com.freightfox.model.ReplicationStatus;
+import com.freightfox.service.EquationService;
+import com.freightfox.service.ReplicaFollower;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Internal endpoints for log shipping between a primary and its replicas.
+ */
+@RestController
+@RequestMapping("/internal/replication")
+public class ReplicationController {
+    
+    private static final int MAX_LIMIT = 10_000;
+    private static final long MAX_WAIT_MILLIS = 30_000;
+    
+    private final EquationService equationService;
+    private final ObjectProvider<ReplicaFollower> follower;
+    
+    public ReplicationController(EquationService equationService, ObjectProvider<ReplicaFollower> follower) {
+        this.equationService = equationService;
+        this.follower = follower;
+    }
+    
+    /**
+     * Reads the change log after a sequence number, long-polling if there is nothing new.
+     *
+     * @param after The last sequence the caller has applied
+     * @param limit Maximum number of entries to return
+     * @param waitMillis How long to wait for a new entry
+     * @return The entries and the latest sequence number
+     */
+    @GetMapping("/log")
+    public ResponseEntity<ChangeLogResponse> readLog(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "1000") int limit,
+            @RequestParam(defaultValue = "0") long waitMillis) {
+        return ResponseEntity.ok(equationService.readChangeLog(Math.max(0, after),
+                Math.max(1, Math.min(limit, MAX_LIMIT)), Math.max(0, Math.min(waitMillis, MAX_WAIT_MILLIS))));
+    }
+    
+    /**
+     * Reports replication lag on a replica.
+     *
+     * @return The replication status, or 404 on a node that is not a replica
+     */
+    @GetMapping("/status")
+    public ResponseEntity<?> getStatus() {
+        ReplicaFollower replica = follower.getIfAvailable();
+        if (replica == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "This node is not a replica"));
+        }
+        ReplicationStatus status = replica.getStatus();
+        return ResponseEntity.ok(status);
+    }
+}
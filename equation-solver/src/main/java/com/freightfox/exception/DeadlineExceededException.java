@@ -0,0 +1,15 @@
+package com.freightfox.exception;
+
+/**
+ * Exception thrown when an evaluation runs past its deadline.
+ */
+public class DeadlineExceededException extends RuntimeException {
+    
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+    
+    public DeadlineExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,15 @@
+package com.freightfox.exception;
+
+/**
+ * Exception thrown when a job with the specified ID is not found.
+ */
+public class JobNotFoundException extends RuntimeException {
+    
+    public JobNotFoundException(String message) {
+        super(message);
+    }
+    
+    public JobNotFoundException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
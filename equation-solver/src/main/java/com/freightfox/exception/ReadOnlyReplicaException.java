@@ -0,0 +1,24 @@
+package com.freightfox.exception;
+
+/**
+ * Exception thrown when a write reaches a read-only replica.
+ * Carries the primary's base URL so the request can be redirected there.
+ */
+public class ReadOnlyReplicaException extends RuntimeException {
+    
+    private final String primaryUrl;
+    
+    public ReadOnlyReplicaException(String message, String primaryUrl) {
+        super(message);
+        this.primaryUrl = primaryUrl;
+    }
+    
+    public ReadOnlyReplicaException(String message, String primaryUrl, Throwable cause) {
+        super(message, cause);
+        this.primaryUrl = primaryUrl;
+    }
+    
+    public String getPrimaryUrl() {
+        return primaryUrl;
+    }
+}
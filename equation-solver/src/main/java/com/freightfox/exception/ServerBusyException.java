@@ -0,0 +1,15 @@
+package com.freightfox.exception;
+
+/**
+ * Exception thrown when admission control sheds a request because the evaluation budget is exhausted.
+ */
+public class ServerBusyException extends RuntimeException {
+    
+    public ServerBusyException(String message) {
+        super(message);
+    }
+    
+    public ServerBusyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
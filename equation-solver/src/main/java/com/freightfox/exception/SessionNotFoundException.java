@@ -0,0 +1,15 @@
+package com.freightfox.exception;
+
+/**
+ * Exception thrown when an evaluation session with the specified ID is not found.
+ */
+public class SessionNotFoundException extends RuntimeException {
+    
+    public SessionNotFoundException(String message) {
+        super(message);
+    }
+    
+    public SessionNotFoundException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,15 @@
+package com.freightfox.exception;
+
+/**
+ * Exception thrown when a root-finding method cannot find a solution.
+ */
+public class SolverException extends RuntimeException {
+    
+    public SolverException(String message) {
+        super(message);
+    }
+    
+    public SolverException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
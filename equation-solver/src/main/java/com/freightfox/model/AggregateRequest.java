@@ -0,0 +1,65 @@
+package com.freightfox.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Request model for aggregating an equation over a lattice of inputs.
+ * Variables in {@code axes} range over the lattice; those in {@code variables} are fixed.
+ */
+public class AggregateRequest {
+    
+    @NotEmpty(message = "At least one axis is required")
+    private Map<String, @Valid @NotNull GridAxis> axes;
+    
+    private Map<String, Double> variables = new HashMap<>();
+    
+    @Positive(message = "Timeout must be positive")
+    @Max(value = 600000, message = "Timeout cannot exceed 600000 ms")
+    private Long timeoutMillis;
+    
+    public AggregateRequest() {}
+    
+    public AggregateRequest(Map<String, GridAxis> axes, Map<String, Double> variables) {
+        this.axes = axes;
+        this.variables = variables;
+    }
+    
+    // Getters and Setters
+    public Map<String, GridAxis> getAxes() {
+        return axes;
+    }
+    
+    public void setAxes(Map<String, GridAxis> axes) {
+        this.axes = axes;
+    }
+    
+    public Map<String, Double> getVariables() {
+        return variables;
+    }
+    
+    public void setVariables(Map<String, Double> variables) {
+        this.variables = variables;
+    }
+    
+    public Long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+    
+    public void setTimeoutMillis(Long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+    
+    @Override
+    public String toString() {
+        return "AggregateRequest{" +
+                "axes=" + axes +
+                ", variables=" + variables +
+                '}';
+    }
+}
@@ -0,0 +1,146 @@
+package com.freightfox.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Map;
+
+/**
+ * Response model for an equation aggregated over a lattice of inputs.
+ * Points that could not be evaluated or were not finite are counted in
+ * {@code failed} and left out. {@code argmin} and {@code argmax} give the axis
+ * values of the first point, in lattice order, with the extreme value.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AggregationResult {
+    
+    @JsonProperty("equationId")
+    private Long equationId;
+    
+    @JsonProperty("version")
+    private Long version;
+    
+    @JsonProperty("points")
+    private long points;
+    
+    @JsonProperty("failed")
+    private long failed;
+    
+    @JsonProperty("sum")
+    private Double sum;
+    
+    @JsonProperty("mean")
+    private Double mean;
+    
+    @JsonProperty("min")
+    private Double min;
+    
+    @JsonProperty("max")
+    private Double max;
+    
+    @JsonProperty("argmin")
+    private Map<String, Double> argmin;
+    
+    @JsonProperty("argmax")
+    private Map<String, Double> argmax;
+    
+    public AggregationResult() {}
+    
+    public AggregationResult(long points, long failed) {
+        this.points = points;
+        this.failed = failed;
+    }
+    
+    // Getters and Setters
+    public Long getEquationId() {
+        return equationId;
+    }
+    
+    public void setEquationId(Long equationId) {
+        this.equationId = equationId;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public long getPoints() {
+        return points;
+    }
+    
+    public void setPoints(long points) {
+        this.points = points;
+    }
+    
+    public long getFailed() {
+        return failed;
+    }
+    
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+    
+    public Double getSum() {
+        return sum;
+    }
+    
+    public void setSum(Double sum) {
+        this.sum = sum;
+    }
+    
+    public Double getMean() {
+        return mean;
+    }
+    
+    public void setMean(Double mean) {
+        this.mean = mean;
+    }
+    
+    public Double getMin() {
+        return min;
+    }
+    
+    public void setMin(Double min) {
+        this.min = min;
+    }
+    
+    public Double getMax() {
+        return max;
+    }
+    
+    public void setMax(Double max) {
+        this.max = max;
+    }
+    
+    public Map<String, Double> getArgmin() {
+        return argmin;
+    }
+    
+    public void setArgmin(Map<String, Double> argmin) {
+        this.argmin = argmin;
+    }
+    
+    public Map<String, Double> getArgmax() {
+        return argmax;
+    }
+    
+    public void setArgmax(Map<String, Double> argmax) {
+        this.argmax = argmax;
+    }
+    
+    @Override
+    public String toString() {
+        return "AggregationResult{" +
+                "equationId=" + equationId +
+                ", version=" + version +
+                ", points=" + points +
+                ", failed=" + failed +
+                ", sum=" + sum +
+                ", min=" + min +
+                ", max=" + max +
+                '}';
+    }
+}
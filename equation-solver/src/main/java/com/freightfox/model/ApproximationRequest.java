@@ -0,0 +1,76 @@
+package com.freightfox.model;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * Request model for answering a single-variable equation from a lookup table over a range.
+ */
+public class ApproximationRequest {
+    
+    @NotNull(message = "Range minimum is required")
+    private Double min;
+    
+    @NotNull(message = "Range maximum is required")
+    private Double max;
+    
+    @NotNull(message = "Maximum error is required")
+    @Positive(message = "Maximum error must be positive")
+    private Double maxError;
+    
+    @Pattern(regexp = "LINEAR|CUBIC", message = "Interpolation must be LINEAR or CUBIC")
+    private String interpolation = "CUBIC";
+    
+    public ApproximationRequest() {}
+    
+    public ApproximationRequest(Double min, Double max, Double maxError, String interpolation) {
+        this.min = min;
+        this.max = max;
+        this.maxError = maxError;
+        this.interpolation = interpolation;
+    }
+    
+    // Getters and Setters
+    public Double getMin() {
+        return min;
+    }
+    
+    public void setMin(Double min) {
+        this.min = min;
+    }
+    
+    public Double getMax() {
+        return max;
+    }
+    
+    public void setMax(Double max) {
+        this.max = max;
+    }
+    
+    public Double getMaxError() {
+        return maxError;
+    }
+    
+    public void setMaxError(Double maxError) {
+        this.maxError = maxError;
+    }
+    
+    public String getInterpolation() {
+        return interpolation;
+    }
+    
+    public void setInterpolation(String interpolation) {
+        this.interpolation = interpolation;
+    }
+    
+    @Override
+    public String toString() {
+        return "ApproximationRequest{" +
+                "min=" + min +
+                ", max=" + max +
+                ", maxError=" + maxError +
+                ", interpolation='" + interpolation + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,149 @@
+package com.freightfox.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Model class describing the lookup table of an equation and whether it is in use.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ApproximationStatus {
+    
+    public static final String BUILDING = "BUILDING";
+    public static final String READY = "READY";
+    public static final String FAILED = "FAILED";
+    
+    @JsonProperty("equationId")
+    private Long equationId;
+    
+    @JsonProperty("variable")
+    private String variable;
+    
+    @JsonProperty("min")
+    private Double min;
+    
+    @JsonProperty("max")
+    private Double max;
+    
+    @JsonProperty("maxError")
+    private Double maxError;
+    
+    @JsonProperty("interpolation")
+    private String interpolation;
+    
+    @JsonProperty("status")
+    private String status;
+    
+    @JsonProperty("intervals")
+    private Integer intervals;
+    
+    @JsonProperty("measuredError")
+    private Double measuredError;
+    
+    @JsonProperty("error")
+    private String error;
+    
+    public ApproximationStatus() {}
+    
+    public ApproximationStatus(Long equationId, String variable, ApproximationRequest request, String status) {
+        this.equationId = equationId;
+        this.variable = variable;
+        this.min = request.getMin();
+        this.max = request.getMax();
+        this.maxError = request.getMaxError();
+        this.interpolation = request.getInterpolation();
+        this.status = status;
+    }
+    
+    // Getters and Setters
+    public Long getEquationId() {
+        return equationId;
+    }
+    
+    public void setEquationId(Long equationId) {
+        this.equationId = equationId;
+    }
+    
+    public String getVariable() {
+        return variable;
+    }
+    
+    public void setVariable(String variable) {
+        this.variable = variable;
+    }
+    
+    public Double getMin() {
+        return min;
+    }
+    
+    public void setMin(Double min) {
+        this.min = min;
+    }
+    
+    public Double getMax() {
+        return max;
+    }
+    
+    public void setMax(Double max) {
+        this.max = max;
+    }
+    
+    public Double getMaxError() {
+        return maxError;
+    }
+    
+    public void setMaxError(Double maxError) {
+        this.maxError = maxError;
+    }
+    
+    public String getInterpolation() {
+        return interpolation;
+    }
+    
+    public void setInterpolation(String interpolation) {
+        this.interpolation = interpolation;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public void setStatus(String status) {
+        this.status = status;
+    }
+    
+    public Integer getIntervals() {
+        return intervals;
+    }
+    
+    public void setIntervals(Integer intervals) {
+        this.intervals = intervals;
+    }
+    
+    public Double getMeasuredError() {
+        return measuredError;
+    }
+    
+    public void setMeasuredError(Double measuredError) {
+        this.measuredError = measuredError;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+    
+    @Override
+    public String toString() {
+        return "ApproximationStatus{" +
+                "equationId=" + equationId +
+                ", variable='" + variable + '\'' +
+                ", status='" + status + '\'' +
+                ", intervals=" + intervals +
+                ", measuredError=" + measuredError +
+                '}';
+    }
+}
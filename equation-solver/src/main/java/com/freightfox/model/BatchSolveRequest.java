@@ -0,0 +1,42 @@
+package com.freightfox.model;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Request model for solving an equation over many parameter rows.
+ * Values in {@code variables} are shared by every row; each row adds or
+ * overrides values for that row only.
+ */
+public class BatchSolveRequest extends SolveEquationRequest {
+    
+    @NotEmpty(message = "Rows cannot be empty")
+    @Size(max = 1000000, message = "A batch cannot contain more than 1000000 rows")
+    private List<Map<String, Double>> rows;
+    
+    public BatchSolveRequest() {}
+    
+    public BatchSolveRequest(String variable, Map<String, Double> variables, List<Map<String, Double>> rows) {
+        super(variable, variables);
+        this.rows = rows;
+    }
+    
+    // Getters and Setters
+    public List<Map<String, Double>> getRows() {
+        return rows;
+    }
+    
+    public void setRows(List<Map<String, Double>> rows) {
+        this.rows = rows;
+    }
+    
+    @Override
+    public String toString() {
+        return "BatchSolveRequest{" +
+                "base=" + super.toString() +
+                ", rows=" + (rows == null ? 0 : rows.size()) +
+                '}';
+    }
+}
@@ -0,0 +1,177 @@
+package com.freightfox.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+/**
+ * Response model for solving an equation over many parameter rows.
+ */
+public class BatchSolveResponse {
+    
+    @JsonProperty("equationId")
+    private Long equationId;
+    
+    @JsonProperty("equation")
+    private String equation;
+    
+    @JsonProperty("variable")
+    private String variable;
+    
+    @JsonProperty("solved")
+    private Integer solved;
+    
+    @JsonProperty("failed")
+    private Integer failed;
+    
+    @JsonProperty("results")
+    private List<RowResult> results;
+    
+    @JsonProperty("version")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long version;
+    
+    public BatchSolveResponse() {}
+    
+    public BatchSolveResponse(Long equationId, String equation, String variable, List<SolveResult> results) {
+        this.equationId = equationId;
+        this.equation = equation;
+        this.variable = variable;
+        this.results = results.stream().map(RowResult::new).toList();
+        this.solved = (int) results.stream().filter(SolveResult::isSolved).count();
+        this.failed = results.size() - solved;
+    }
+    
+    // Getters and Setters
+    public Long getEquationId() {
+        return equationId;
+    }
+    
+    public void setEquationId(Long equationId) {
+        this.equationId = equationId;
+    }
+    
+    public String getEquation() {
+        return equation;
+    }
+    
+    public void setEquation(String equation) {
+        this.equation = equation;
+    }
+    
+    public String getVariable() {
+        return variable;
+    }
+    
+    public void setVariable(String variable) {
+        this.variable = variable;
+    }
+    
+    public Integer getSolved() {
+        return solved;
+    }
+    
+    public void setSolved(Integer solved) {
+        this.solved = solved;
+    }
+    
+    public Integer getFailed() {
+        return failed;
+    }
+    
+    public void setFailed(Integer failed) {
+        this.failed = failed;
+    }
+    
+    public List<RowResult> getResults() {
+        return results;
+    }
+    
+    public void setResults(List<RowResult> results) {
+        this.results = results;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    /**
+     * Inner class for the result of one row.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class RowResult {
+        
+        @JsonProperty("root")
+        private Double root;
+        
+        @JsonProperty("residual")
+        private Double residual;
+        
+        @JsonProperty("iterations")
+        private Integer iterations;
+        
+        @JsonProperty("method")
+        private String method;
+        
+        @JsonProperty("error")
+        private String error;
+        
+        public RowResult() {}
+        
+        public RowResult(SolveResult result) {
+            if (result.isSolved()) {
+                this.root = result.getRoot();
+                this.residual = result.getResidual();
+                this.iterations = result.getIterations();
+                this.method = result.getMethod();
+            } else {
+                this.error = result.getError();
+            }
+        }
+        
+        // Getters and Setters
+        public Double getRoot() {
+            return root;
+        }
+        
+        public void setRoot(Double root) {
+            this.root = root;
+        }
+        
+        public Double getResidual() {
+            return residual;
+        }
+        
+        public void setResidual(Double residual) {
+            this.residual = residual;
+        }
+        
+        public Integer getIterations() {
+            return iterations;
+        }
+        
+        public void setIterations(Integer iterations) {
+            this.iterations = iterations;
+        }
+        
+        public String getMethod() {
+            return method;
+        }
+        
+        public void setMethod(String method) {
+            this.method = method;
+        }
+        
+        public String getError() {
+            return error;
+        }
+        
+        public void setError(String error) {
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.freightfox.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Model class representing one change to the equation store, as shipped to replicas.
+ * A store entry carries the version number the equation was given. A decimal
+ * mode or approximation entry carries the new setting, or none when it was removed.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChangeLogEntry {
+    
+    public static final String STORE = "store";
+    public static final String REMOVE = "remove";
+    public static final String DECIMAL_MODE = "decimalMode";
+    public static final String APPROXIMATION = "approximation";
+    
+    @JsonProperty("sequence")
+    private long sequence;
+    
+    @JsonProperty("type")
+    private String type;
+    
+    @JsonProperty("equationId")
+    private Long equationId;
+    
+    @JsonProperty("equation")
+    private String equation;
+    
+    @JsonProperty("version")
+    private Long version;
+    
+    @JsonProperty("decimalMode")
+    private DecimalModeRequest decimalMode;
+    
+    @JsonProperty("approximation")
+    private ApproximationRequest approximation;
+    
+    @JsonProperty("timestamp")
+    private long timestamp;
+    
+    public ChangeLogEntry() {}
+    
+    public ChangeLogEntry(long sequence, String type, Long equationId, String equation, long timestamp) {
+        this.sequence = sequence;
+        this.type = type;
+        this.equationId = equationId;
+        this.equation = equation;
+        this.timestamp = timestamp;
+    }
+    
+    // Getters and Setters
+    public long getSequence() {
+        return sequence;
+    }
+    
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+    
+    public String getType() {
+        return type;
+    }
+    
+    public void setType(String type) {
+        this.type = type;
+    }
+    
+    public Long getEquationId() {
+        return equationId;
+    }
+    
+    public void setEquationId(Long equationId) {
+        this.equationId = equationId;
+    }
+    
+    public String getEquation() {
+        return equation;
+    }
+    
+    public void setEquation(String equation) {
+        this.equation = equation;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public DecimalModeRequest getDecimalMode() {
+        return decimalMode;
+    }
+    
+    public void setDecimalMode(DecimalModeRequest decimalMode) {
+        this.decimalMode = decimalMode;
+    }
+    
+    public ApproximationRequest getApproximation() {
+        return approximation;
+    }
+    
+    public void setApproximation(ApproximationRequest approximation) {
+        this.approximation = approximation;
+    }
+    
+    public long getTimestamp() {
+        return timestamp;
+    }
+    
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
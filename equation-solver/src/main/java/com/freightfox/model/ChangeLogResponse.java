@@ -0,0 +1,52 @@
+package com.freightfox.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+/**
+ * Response model for reading the change log.
+ */
+public class ChangeLogResponse {
+    
+    @JsonProperty("entries")
+    private List<ChangeLogEntry> entries;
+    
+    @JsonProperty("lastSequence")
+    private long lastSequence;
+    
+    @JsonProperty("epoch")
+    private String epoch;
+    
+    public ChangeLogResponse() {}
+    
+    public ChangeLogResponse(List<ChangeLogEntry> entries, long lastSequence, String epoch) {
+        this.entries = entries;
+        this.lastSequence = lastSequence;
+        this.epoch = epoch;
+    }
+    
+    // Getters and Setters
+    public List<ChangeLogEntry> getEntries() {
+        return entries;
+    }
+    
+    public void setEntries(List<ChangeLogEntry> entries) {
+        this.entries = entries;
+    }
+    
+    public long getLastSequence() {
+        return lastSequence;
+    }
+    
+    public void setLastSequence(long lastSequence) {
+        this.lastSequence = lastSequence;
+    }
+    
+    public String getEpoch() {
+        return epoch;
+    }
+    
+    public void setEpoch(String epoch) {
+        this.epoch = epoch;
+    }
+}
@@ -1,5 +1,6 @@
 package com.freightfox.model;
 
+import java.math.BigDecimal;
 import java.util.Map;
 
 /**
@@ -18,9 +19,24 @@ public class ConstantNode extends ExpressionNode {
         return value;
     }
     
+    @Override
+    public Interval evaluateInterval(Map<String, Interval> variables) {
+        return Interval.of(value);
+    }
+    
+    /**
+     * Prints the constant in a form the parser accepts back: plain decimal
+     * notation, with negative values written as a subtraction from zero.
+     * NaN and infinities have no such form; the parser never produces them
+     * and the simplifier never folds to them, and they print as Java does.
+     */
     @Override
     public String toString() {
-        return String.valueOf(value);
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return String.valueOf(value);
+        }
+        String digits = BigDecimal.valueOf(Math.abs(value)).toPlainString();
+        return value < 0 ? "(0 - " + digits + ")" : digits;
     }
     
     public double getValue() {
@@ -0,0 +1,53 @@
+package com.freightfox.model;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+
+/**
+ * Request model for evaluating an equation in exact decimal fixed point.
+ */
+public class DecimalModeRequest {
+    
+    @NotNull(message = "Scale is required")
+    @Min(value = 0, message = "Scale must be at least 0")
+    @Max(value = 18, message = "Scale must be at most 18")
+    private Integer scale;
+    
+    @Pattern(regexp = "UP|DOWN|CEILING|FLOOR|HALF_UP|HALF_DOWN|HALF_EVEN|UNNECESSARY",
+            message = "Rounding must be UP, DOWN, CEILING, FLOOR, HALF_UP, HALF_DOWN, HALF_EVEN or UNNECESSARY")
+    private String rounding = "HALF_EVEN";
+    
+    public DecimalModeRequest() {}
+    
+    public DecimalModeRequest(Integer scale, String rounding) {
+        this.scale = scale;
+        this.rounding = rounding;
+    }
+    
+    // Getters and Setters
+    public Integer getScale() {
+        return scale;
+    }
+    
+    public void setScale(Integer scale) {
+        this.scale = scale;
+    }
+    
+    public String getRounding() {
+        return rounding;
+    }
+    
+    public void setRounding(String rounding) {
+        this.rounding = rounding;
+    }
+    
+    @Override
+    public String toString() {
+        return "DecimalModeRequest{" +
+                "scale=" + scale +
+                ", rounding='" + rounding + '\'' +
+                '}';
+    }
+}
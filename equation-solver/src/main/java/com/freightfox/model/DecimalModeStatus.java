@@ -0,0 +1,62 @@
+package com.freightfox.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Model class describing the decimal fixed-point mode of an equation.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DecimalModeStatus {
+    
+    @JsonProperty("equationId")
+    private Long equationId;
+    
+    @JsonProperty("scale")
+    private Integer scale;
+    
+    @JsonProperty("rounding")
+    private String rounding;
+    
+    public DecimalModeStatus() {}
+    
+    public DecimalModeStatus(Long equationId, Integer scale, String rounding) {
+        this.equationId = equationId;
+        this.scale = scale;
+        this.rounding = rounding;
+    }
+    
+    // Getters and Setters
+    public Long getEquationId() {
+        return equationId;
+    }
+    
+    public void setEquationId(Long equationId) {
+        this.equationId = equationId;
+    }
+    
+    public Integer getScale() {
+        return scale;
+    }
+    
+    public void setScale(Integer scale) {
+        this.scale = scale;
+    }
+    
+    public String getRounding() {
+        return rounding;
+    }
+    
+    public void setRounding(String rounding) {
+        this.rounding = rounding;
+    }
+    
+    @Override
+    public String toString() {
+        return "DecimalModeStatus{" +
+                "equationId=" + equationId +
+                ", scale=" + scale +
+                ", rounding='" + rounding + '\'' +
+                '}';
+    }
+}
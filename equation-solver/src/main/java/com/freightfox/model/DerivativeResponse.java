@@ -0,0 +1,73 @@
+package com.freightfox.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Response model for differentiating an equation.
+ */
+public class DerivativeResponse {
+    
+    @JsonProperty("sourceEquationId")
+    private Long sourceEquationId;
+    
+    @JsonProperty("variable")
+    private String variable;
+    
+    @JsonProperty("equationId")
+    private Long equationId;
+    
+    @JsonProperty("equation")
+    private String equation;
+    
+    public DerivativeResponse() {}
+    
+    public DerivativeResponse(Long sourceEquationId, String variable, Long equationId, String equation) {
+        this.sourceEquationId = sourceEquationId;
+        this.variable = variable;
+        this.equationId = equationId;
+        this.equation = equation;
+    }
+    
+    // Getters and Setters
+    public Long getSourceEquationId() {
+        return sourceEquationId;
+    }
+    
+    public void setSourceEquationId(Long sourceEquationId) {
+        this.sourceEquationId = sourceEquationId;
+    }
+    
+    public String getVariable() {
+        return variable;
+    }
+    
+    public void setVariable(String variable) {
+        this.variable = variable;
+    }
+    
+    public Long getEquationId() {
+        return equationId;
+    }
+    
+    public void setEquationId(Long equationId) {
+        this.equationId = equationId;
+    }
+    
+    public String getEquation() {
+        return equation;
+    }
+    
+    public void setEquation(String equation) {
+        this.equation = equation;
+    }
+    
+    @Override
+    public String toString() {
+        return "DerivativeResponse{" +
+                "sourceEquationId=" + sourceEquationId +
+                ", variable='" + variable + '\'' +
+                ", equationId=" + equationId +
+                ", equation='" + equation + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,120 @@
+package com.freightfox.model;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+
+/**
+ * Model class describing the uncertainty of one input variable.
+ * {@code NORMAL} uses {@code mean} and {@code stdDev}; {@code UNIFORM} uses
+ * {@code min} and {@code max}; {@code TRIANGULAR} uses {@code min},
+ * {@code mode} and {@code max}.
+ */
+public class Distribution {
+    
+    public static final String NORMAL = "NORMAL";
+    public static final String UNIFORM = "UNIFORM";
+    public static final String TRIANGULAR = "TRIANGULAR";
+    
+    @NotNull(message = "Distribution type is required")
+    @Pattern(regexp = "NORMAL|UNIFORM|TRIANGULAR", message = "Distribution type must be NORMAL, UNIFORM or TRIANGULAR")
+    private String type;
+    
+    private Double mean;
+    
+    private Double stdDev;
+    
+    private Double min;
+    
+    private Double max;
+    
+    private Double mode;
+    
+    public Distribution() {}
+    
+    public Distribution(String type) {
+        this.type = type;
+    }
+    
+    public static Distribution normal(double mean, double stdDev) {
+        Distribution distribution = new Distribution(NORMAL);
+        distribution.setMean(mean);
+        distribution.setStdDev(stdDev);
+        return distribution;
+    }
+    
+    public static Distribution uniform(double min, double max) {
+        Distribution distribution = new Distribution(UNIFORM);
+        distribution.setMin(min);
+        distribution.setMax(max);
+        return distribution;
+    }
+    
+    public static Distribution triangular(double min, double mode, double max) {
+        Distribution distribution = new Distribution(TRIANGULAR);
+        distribution.setMin(min);
+        distribution.setMode(mode);
+        distribution.setMax(max);
+        return distribution;
+    }
+    
+    // Getters and Setters
+    public String getType() {
+        return type;
+    }
+    
+    public void setType(String type) {
+        this.type = type;
+    }
+    
+    public Double getMean() {
+        return mean;
+    }
+    
+    public void setMean(Double mean) {
+        this.mean = mean;
+    }
+    
+    public Double getStdDev() {
+        return stdDev;
+    }
+    
+    public void setStdDev(Double stdDev) {
+        this.stdDev = stdDev;
+    }
+    
+    public Double getMin() {
+        return min;
+    }
+    
+    public void setMin(Double min) {
+        this.min = min;
+    }
+    
+    public Double getMax() {
+        return max;
+    }
+    
+    public void setMax(Double max) {
+        this.max = max;
+    }
+    
+    public Double getMode() {
+        return mode;
+    }
+    
+    public void setMode(Double mode) {
+        this.mode = mode;
+    }
+    
+    @Override
+    public String toString() {
+        return "Distribution{" +
+                "type='" + type + '\'' +
+                ", mean=" + mean +
+                ", stdDev=" + stdDev +
+                ", min=" + min +
+                ", max=" + max +
+                ", mode=" + mode +
+                '}';
+    }
+}
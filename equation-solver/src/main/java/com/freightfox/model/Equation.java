@@ -1,5 +1,6 @@
 package com.freightfox.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
@@ -13,6 +14,14 @@ public class Equation {
     @JsonProperty("equation")
     private String equation;
     
+    @JsonProperty("cost")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ExpressionCost cost;
+    
+    @JsonProperty("version")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long version;
+    
     public Equation() {}
     
     public Equation(Long id, String equation) {
@@ -20,6 +29,19 @@ public class Equation {
         this.equation = equation;
     }
     
+    public Equation(Long id, String equation, ExpressionCost cost) {
+        this.id = id;
+        this.equation = equation;
+        this.cost = cost;
+    }
+    
+    public Equation(Long id, String equation, ExpressionCost cost, Long version) {
+        this.id = id;
+        this.equation = equation;
+        this.cost = cost;
+        this.version = version;
+    }
+    
     // Getters and Setters
     public Long getId() {
         return id;
@@ -37,11 +59,28 @@ public class Equation {
         this.equation = equation;
     }
     
+    public ExpressionCost getCost() {
+        return cost;
+    }
+    
+    public void setCost(ExpressionCost cost) {
+        this.cost = cost;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
     @Override
     public String toString() {
         return "Equation{" +
                 "id=" + id +
                 ", equation='" + equation + '\'' +
+                ", version=" + version +
                 '}';
     }
 } 
\ No newline at end of file
@@ -0,0 +1,77 @@
+package com.freightfox.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Model class representing the outcome of evaluating one equation in a group.
+ * Exactly one of result and error is set, and version is set whenever the
+ * equation was found.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EquationResult {
+    
+    @JsonProperty("equationId")
+    private Long equationId;
+    
+    @JsonProperty("version")
+    private Long version;
+    
+    @JsonProperty("result")
+    private Double result;
+    
+    @JsonProperty("error")
+    private String error;
+    
+    public EquationResult() {}
+    
+    public EquationResult(Long equationId, Long version, Double result, String error) {
+        this.equationId = equationId;
+        this.version = version;
+        this.result = result;
+        this.error = error;
+    }
+    
+    // Getters and Setters
+    public Long getEquationId() {
+        return equationId;
+    }
+    
+    public void setEquationId(Long equationId) {
+        this.equationId = equationId;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public Double getResult() {
+        return result;
+    }
+    
+    public void setResult(Double result) {
+        this.result = result;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+    
+    @Override
+    public String toString() {
+        return "EquationResult{" +
+                "equationId=" + equationId +
+                ", version=" + version +
+                ", result=" + result +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
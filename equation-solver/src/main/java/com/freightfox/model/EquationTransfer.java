@@ -0,0 +1,77 @@
+package com.freightfox.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Model class representing an equation handed from one cluster node to its new
+ * owner, with its version number and the settings that go with it.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EquationTransfer {
+    
+    @JsonProperty("equation")
+    private String equation;
+    
+    @JsonProperty("version")
+    private Long version;
+    
+    @JsonProperty("decimalMode")
+    private DecimalModeRequest decimalMode;
+    
+    @JsonProperty("approximation")
+    private ApproximationRequest approximation;
+    
+    public EquationTransfer() {}
+    
+    public EquationTransfer(String equation, Long version, DecimalModeRequest decimalMode,
+                            ApproximationRequest approximation) {
+        this.equation = equation;
+        this.version = version;
+        this.decimalMode = decimalMode;
+        this.approximation = approximation;
+    }
+    
+    // Getters and Setters
+    public String getEquation() {
+        return equation;
+    }
+    
+    public void setEquation(String equation) {
+        this.equation = equation;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public DecimalModeRequest getDecimalMode() {
+        return decimalMode;
+    }
+    
+    public void setDecimalMode(DecimalModeRequest decimalMode) {
+        this.decimalMode = decimalMode;
+    }
+    
+    public ApproximationRequest getApproximation() {
+        return approximation;
+    }
+    
+    public void setApproximation(ApproximationRequest approximation) {
+        this.approximation = approximation;
+    }
+    
+    @Override
+    public String toString() {
+        return "EquationTransfer{" +
+                "equation='" + equation + '\'' +
+                ", version=" + version +
+                ", decimalMode=" + decimalMode +
+                ", approximation=" + approximation +
+                '}';
+    }
+}
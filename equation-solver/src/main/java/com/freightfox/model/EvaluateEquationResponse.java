@@ -1,5 +1,6 @@
 package com.freightfox.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.Map;
 
@@ -20,6 +21,14 @@ public class EvaluateEquationResponse {
     @JsonProperty("result")
     private Double result;
     
+    @JsonProperty("version")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long version;
+    
+    @JsonProperty("decimalResult")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String decimalResult;
+    
     public EvaluateEquationResponse() {}
     
     public EvaluateEquationResponse(Long equationId, String equation, Map<String, Double> variables, Double result) {
@@ -62,6 +71,22 @@ public class EvaluateEquationResponse {
         this.result = result;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public String getDecimalResult() {
+        return decimalResult;
+    }
+    
+    public void setDecimalResult(String decimalResult) {
+        this.decimalResult = decimalResult;
+    }
+    
     @Override
     public String toString() {
         return "EvaluateEquationResponse{" +
@@ -69,6 +94,8 @@ public class EvaluateEquationResponse {
                 ", equation='" + equation + '\'' +
                 ", variables=" + variables +
                 ", result=" + result +
+                ", version=" + version +
+                ", decimalResult='" + decimalResult + '\'' +
                 '}';
     }
 } 
\ No newline at end of file
@@ -0,0 +1,102 @@
+package com.freightfox.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Map;
+
+/**
+ * Response model for evaluating an equation together with its gradient.
+ */
+public class EvaluateGradientResponse {
+    
+    @JsonProperty("equationId")
+    private Long equationId;
+    
+    @JsonProperty("equation")
+    private String equation;
+    
+    @JsonProperty("variables")
+    private Map<String, Double> variables;
+    
+    @JsonProperty("result")
+    private Double result;
+    
+    @JsonProperty("gradient")
+    private Map<String, Double> gradient;
+    
+    @JsonProperty("version")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long version;
+    
+    public EvaluateGradientResponse() {}
+    
+    public EvaluateGradientResponse(Long equationId, String equation, Map<String, Double> variables,
+                                    Double result, Map<String, Double> gradient) {
+        this.equationId = equationId;
+        this.equation = equation;
+        this.variables = variables;
+        this.result = result;
+        this.gradient = gradient;
+    }
+    
+    // Getters and Setters
+    public Long getEquationId() {
+        return equationId;
+    }
+    
+    public void setEquationId(Long equationId) {
+        this.equationId = equationId;
+    }
+    
+    public String getEquation() {
+        return equation;
+    }
+    
+    public void setEquation(String equation) {
+        this.equation = equation;
+    }
+    
+    public Map<String, Double> getVariables() {
+        return variables;
+    }
+    
+    public void setVariables(Map<String, Double> variables) {
+        this.variables = variables;
+    }
+    
+    public Double getResult() {
+        return result;
+    }
+    
+    public void setResult(Double result) {
+        this.result = result;
+    }
+    
+    public Map<String, Double> getGradient() {
+        return gradient;
+    }
+    
+    public void setGradient(Map<String, Double> gradient) {
+        this.gradient = gradient;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    @Override
+    public String toString() {
+        return "EvaluateGradientResponse{" +
+                "equationId=" + equationId +
+                ", equation='" + equation + '\'' +
+                ", variables=" + variables +
+                ", result=" + result +
+                ", gradient=" + gradient +
+                ", version=" + version +
+                '}';
+    }
+}
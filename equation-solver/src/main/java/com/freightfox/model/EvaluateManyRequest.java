@@ -0,0 +1,50 @@
+package com.freightfox.model;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Request model for evaluating several equations against one set of variable values.
+ */
+public class EvaluateManyRequest {
+    
+    @NotEmpty(message = "Equation IDs cannot be empty")
+    private List<Long> equationIds;
+    
+    @NotNull(message = "Variables map cannot be null")
+    private Map<String, Double> variables;
+    
+    public EvaluateManyRequest() {}
+    
+    public EvaluateManyRequest(List<Long> equationIds, Map<String, Double> variables) {
+        this.equationIds = equationIds;
+        this.variables = variables;
+    }
+    
+    // Getters and Setters
+    public List<Long> getEquationIds() {
+        return equationIds;
+    }
+    
+    public void setEquationIds(List<Long> equationIds) {
+        this.equationIds = equationIds;
+    }
+    
+    public Map<String, Double> getVariables() {
+        return variables;
+    }
+    
+    public void setVariables(Map<String, Double> variables) {
+        this.variables = variables;
+    }
+    
+    @Override
+    public String toString() {
+        return "EvaluateManyRequest{" +
+                "equationIds=" + equationIds +
+                ", variables=" + variables +
+                '}';
+    }
+}
@@ -0,0 +1,41 @@
+package com.freightfox.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Response model for evaluating several equations against one set of variable values.
+ */
+public class EvaluateManyResponse {
+    
+    @JsonProperty("variables")
+    private Map<String, Double> variables;
+    
+    @JsonProperty("results")
+    private List<EquationResult> results;
+    
+    public EvaluateManyResponse() {}
+    
+    public EvaluateManyResponse(Map<String, Double> variables, List<EquationResult> results) {
+        this.variables = variables;
+        this.results = results;
+    }
+    
+    // Getters and Setters
+    public Map<String, Double> getVariables() {
+        return variables;
+    }
+    
+    public void setVariables(Map<String, Double> variables) {
+        this.variables = variables;
+    }
+    
+    public List<EquationResult> getResults() {
+        return results;
+    }
+    
+    public void setResults(List<EquationResult> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,36 @@
+package com.freightfox.model;
+
+import jakarta.validation.constraints.NotNull;
+import java.util.Map;
+
+/**
+ * Request model for evaluating an equation over ranges of variable values.
+ * Each variable maps to a two-element array {@code [lo, hi]}.
+ */
+public class EvaluateRangeRequest {
+    
+    @NotNull(message = "Variables map cannot be null")
+    private Map<String, double[]> variables;
+    
+    public EvaluateRangeRequest() {}
+    
+    public EvaluateRangeRequest(Map<String, double[]> variables) {
+        this.variables = variables;
+    }
+    
+    // Getters and Setters
+    public Map<String, double[]> getVariables() {
+        return variables;
+    }
+    
+    public void setVariables(Map<String, double[]> variables) {
+        this.variables = variables;
+    }
+    
+    @Override
+    public String toString() {
+        return "EvaluateRangeRequest{" +
+                "variables=" + variables.keySet() +
+                '}';
+    }
+}
@@ -0,0 +1,113 @@
+package com.freightfox.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Map;
+
+/**
+ * Response model for evaluating an equation over ranges of variable values.
+ */
+public class EvaluateRangeResponse {
+    
+    @JsonProperty("equationId")
+    private Long equationId;
+    
+    @JsonProperty("equation")
+    private String equation;
+    
+    @JsonProperty("variables")
+    private Map<String, double[]> variables;
+    
+    @JsonProperty("range")
+    private double[] range;
+    
+    @JsonProperty("bounded")
+    private Boolean bounded;
+    
+    @JsonProperty("divisionByZeroPossible")
+    private Boolean divisionByZeroPossible;
+    
+    @JsonProperty("undefinedPossible")
+    private Boolean undefinedPossible;
+    
+    @JsonProperty("version")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long version;
+    
+    public EvaluateRangeResponse() {}
+    
+    public EvaluateRangeResponse(Long equationId, String equation, Map<String, double[]> variables, Interval range) {
+        this.equationId = equationId;
+        this.equation = equation;
+        this.variables = variables;
+        this.range = new double[] {range.getLo(), range.getHi()};
+        this.bounded = range.isBounded();
+        this.divisionByZeroPossible = range.isDivisionByZeroPossible();
+        this.undefinedPossible = range.isUndefinedPossible();
+    }
+    
+    // Getters and Setters
+    public Long getEquationId() {
+        return equationId;
+    }
+    
+    public void setEquationId(Long equationId) {
+        this.equationId = equationId;
+    }
+    
+    public String getEquation() {
+        return equation;
+    }
+    
+    public void setEquation(String equation) {
+        this.equation = equation;
+    }
+    
+    public Map<String, double[]> getVariables() {
+        return variables;
+    }
+    
+    public void setVariables(Map<String, double[]> variables) {
+        this.variables = variables;
+    }
+    
+    public double[] getRange() {
+        return range;
+    }
+    
+    public void setRange(double[] range) {
+        this.range = range;
+    }
+    
+    public Boolean getBounded() {
+        return bounded;
+    }
+    
+    public void setBounded(Boolean bounded) {
+        this.bounded = bounded;
+    }
+    
+    public Boolean getDivisionByZeroPossible() {
+        return divisionByZeroPossible;
+    }
+    
+    public void setDivisionByZeroPossible(Boolean divisionByZeroPossible) {
+        this.divisionByZeroPossible = divisionByZeroPossible;
+    }
+    
+    public Boolean getUndefinedPossible() {
+        return undefinedPossible;
+    }
+    
+    public void setUndefinedPossible(Boolean undefinedPossible) {
+        this.undefinedPossible = undefinedPossible;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
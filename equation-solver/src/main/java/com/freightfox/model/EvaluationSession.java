@@ -0,0 +1,140 @@
+package com.freightfox.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Model class representing the state of an incremental evaluation session.
+ * A session keeps evaluating the equation version it was opened on; it is
+ * stale once that equation has been updated or removed.
+ */
+public class EvaluationSession {
+    
+    @JsonProperty("sessionId")
+    private String sessionId;
+    
+    @JsonProperty("equationId")
+    private Long equationId;
+    
+    @JsonProperty("version")
+    private Long version;
+    
+    @JsonProperty("stale")
+    private boolean stale;
+    
+    @JsonProperty("variables")
+    private Map<String, Double> variables;
+    
+    @JsonProperty("missingVariables")
+    private List<String> missingVariables;
+    
+    @JsonProperty("result")
+    private Double result;
+    
+    @JsonProperty("recomputedNodes")
+    private Integer recomputedNodes;
+    
+    @JsonProperty("totalNodes")
+    private Integer totalNodes;
+    
+    public EvaluationSession() {}
+    
+    public EvaluationSession(String sessionId, Long equationId, Long version, Map<String, Double> variables,
+                             List<String> missingVariables, Double result,
+                             Integer recomputedNodes, Integer totalNodes) {
+        this.sessionId = sessionId;
+        this.equationId = equationId;
+        this.version = version;
+        this.variables = variables;
+        this.missingVariables = missingVariables;
+        this.result = result;
+        this.recomputedNodes = recomputedNodes;
+        this.totalNodes = totalNodes;
+    }
+    
+    // Getters and Setters
+    public String getSessionId() {
+        return sessionId;
+    }
+    
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+    
+    public Long getEquationId() {
+        return equationId;
+    }
+    
+    public void setEquationId(Long equationId) {
+        this.equationId = equationId;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public boolean isStale() {
+        return stale;
+    }
+    
+    public void setStale(boolean stale) {
+        this.stale = stale;
+    }
+    
+    public Map<String, Double> getVariables() {
+        return variables;
+    }
+    
+    public void setVariables(Map<String, Double> variables) {
+        this.variables = variables;
+    }
+    
+    public List<String> getMissingVariables() {
+        return missingVariables;
+    }
+    
+    public void setMissingVariables(List<String> missingVariables) {
+        this.missingVariables = missingVariables;
+    }
+    
+    public Double getResult() {
+        return result;
+    }
+    
+    public void setResult(Double result) {
+        this.result = result;
+    }
+    
+    public Integer getRecomputedNodes() {
+        return recomputedNodes;
+    }
+    
+    public void setRecomputedNodes(Integer recomputedNodes) {
+        this.recomputedNodes = recomputedNodes;
+    }
+    
+    public Integer getTotalNodes() {
+        return totalNodes;
+    }
+    
+    public void setTotalNodes(Integer totalNodes) {
+        this.totalNodes = totalNodes;
+    }
+    
+    @Override
+    public String toString() {
+        return "EvaluationSession{" +
+                "sessionId='" + sessionId + '\'' +
+                ", equationId=" + equationId +
+                ", version=" + version +
+                ", stale=" + stale +
+                ", variables=" + variables +
+                ", result=" + result +
+                '}';
+    }
+}
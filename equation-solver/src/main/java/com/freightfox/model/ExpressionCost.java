@@ -0,0 +1,102 @@
+package com.freightfox.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Arrays;
+
+/**
+ * Model class describing how expensive an equation is to evaluate.
+ * Computed once when the equation is stored.
+ */
+public class ExpressionCost {
+    
+    /** Relative cost of {@code ^}, which calls {@link Math#pow} instead of a single instruction. */
+    public static final int POW_WEIGHT = 20;
+    
+    @JsonProperty("nodeCount")
+    private int nodeCount;
+    
+    @JsonProperty("depth")
+    private int depth;
+    
+    @JsonProperty("powCount")
+    private int powCount;
+    
+    public ExpressionCost() {}
+    
+    public ExpressionCost(int nodeCount, int depth, int powCount) {
+        this.nodeCount = nodeCount;
+        this.depth = depth;
+        this.powCount = powCount;
+    }
+    
+    /**
+     * Measures an expression tree.
+     * 
+     * @param root The root node of the expression tree
+     * @return The node count, depth and number of powers
+     */
+    public static ExpressionCost of(ExpressionNode root) {
+        int nodeCount = 0;
+        int powCount = 0;
+        int[] depths = new int[16];
+        int top = -1;
+        for (ExpressionNode node : ExpressionNode.postOrder(root)) {
+            nodeCount++;
+            int depth = 1;
+            if (node instanceof OperatorNode operator) {
+                depth = Math.max(depths[top--], depths[top--]) + 1;
+                if (operator.getOperator().equals("^")) {
+                    powCount++;
+                }
+            }
+            if (++top == depths.length) {
+                depths = Arrays.copyOf(depths, depths.length * 2);
+            }
+            depths[top] = depth;
+        }
+        return new ExpressionCost(nodeCount, depths[0], powCount);
+    }
+    
+    /**
+     * Work units for one evaluation: one per node, with powers weighted up.
+     */
+    @JsonProperty("units")
+    public long getUnits() {
+        return nodeCount + (long) (POW_WEIGHT - 1) * powCount;
+    }
+    
+    // Getters and Setters
+    public int getNodeCount() {
+        return nodeCount;
+    }
+    
+    public void setNodeCount(int nodeCount) {
+        this.nodeCount = nodeCount;
+    }
+    
+    public int getDepth() {
+        return depth;
+    }
+    
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+    
+    public int getPowCount() {
+        return powCount;
+    }
+    
+    public void setPowCount(int powCount) {
+        this.powCount = powCount;
+    }
+    
+    @Override
+    public String toString() {
+        return "ExpressionCost{" +
+                "nodeCount=" + nodeCount +
+                ", depth=" + depth +
+                ", powCount=" + powCount +
+                '}';
+    }
+}
@@ -1,6 +1,10 @@
 package com.freightfox.model;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 /**
  * Abstract base class for expression tree nodes.
@@ -15,10 +19,67 @@ public abstract class ExpressionNode {
      */
     public abstract double evaluate(Map<String, Double> variables);
     
+    /**
+     * Evaluates the expression node over ranges of variable values.
+     * The result encloses every value the expression can take for inputs in the box.
+     * 
+     * @param variables Map of variable names to their ranges
+     * @return The enclosing range of the result
+     */
+    public abstract Interval evaluateInterval(Map<String, Interval> variables);
+    
     /**
      * Returns a string representation of the expression.
      * 
      * @return String representation
      */
     public abstract String toString();
+    
+    /**
+     * Returns the nodes of a tree children-first, left before right.
+     * The walk keeps its own stack, so it is safe on trees far deeper than
+     * the call stack allows; every recursive-looking tree pass builds on it.
+     * 
+     * @param root The root node of the tree
+     * @return The nodes in postfix order
+     */
+    public static Iterable<ExpressionNode> postOrder(ExpressionNode root) {
+        return () -> new PostOrderIterator(root);
+    }
+    
+    private static final class PostOrderIterator implements Iterator<ExpressionNode> {
+        
+        private final Deque<ExpressionNode> nodes = new ArrayDeque<>();
+        // Parallel to nodes: whether an operator's children have already been pushed
+        private final Deque<Boolean> expanded = new ArrayDeque<>();
+        
+        PostOrderIterator(ExpressionNode root) {
+            nodes.push(root);
+            expanded.push(false);
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return !nodes.isEmpty();
+        }
+        
+        @Override
+        public ExpressionNode next() {
+            if (nodes.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            while (true) {
+                ExpressionNode node = nodes.pop();
+                if (expanded.pop() || !(node instanceof OperatorNode operator)) {
+                    return node;
+                }
+                nodes.push(operator);
+                expanded.push(true);
+                nodes.push(operator.getRight());
+                expanded.push(false);
+                nodes.push(operator.getLeft());
+                expanded.push(false);
+            }
+        }
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.freightfox.model;
+
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * Request model for evaluating an equation over a CSV file.
+ * Both paths are relative to the configured job directory.
+ */
+public class FileJobRequest {
+    
+    @NotBlank(message = "Input path cannot be empty")
+    private String inputPath;
+    
+    @NotBlank(message = "Output path cannot be empty")
+    private String outputPath;
+    
+    public FileJobRequest() {}
+    
+    public FileJobRequest(String inputPath, String outputPath) {
+        this.inputPath = inputPath;
+        this.outputPath = outputPath;
+    }
+    
+    // Getters and Setters
+    public String getInputPath() {
+        return inputPath;
+    }
+    
+    public void setInputPath(String inputPath) {
+        this.inputPath = inputPath;
+    }
+    
+    public String getOutputPath() {
+        return outputPath;
+    }
+    
+    public void setOutputPath(String outputPath) {
+        this.outputPath = outputPath;
+    }
+    
+    @Override
+    public String toString() {
+        return "FileJobRequest{" +
+                "inputPath='" + inputPath + '\'' +
+                ", outputPath='" + outputPath + '\'' +
+                '}';
+    }
+}
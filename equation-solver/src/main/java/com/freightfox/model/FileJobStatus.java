@@ -0,0 +1,182 @@
+package com.freightfox.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Model class describing the progress of a CSV evaluation job.
+ * Counts grow as chunks finish; {@code rowsPerSecond} is the average since the job started.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FileJobStatus {
+    
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+    public static final String CANCELLED = "CANCELLED";
+    
+    @JsonProperty("jobId")
+    private String jobId;
+    
+    @JsonProperty("equationId")
+    private Long equationId;
+    
+    @JsonProperty("version")
+    private Long version;
+    
+    @JsonProperty("inputPath")
+    private String inputPath;
+    
+    @JsonProperty("outputPath")
+    private String outputPath;
+    
+    @JsonProperty("status")
+    private String status;
+    
+    @JsonProperty("rowsProcessed")
+    private long rowsProcessed;
+    
+    @JsonProperty("failedRows")
+    private long failedRows;
+    
+    @JsonProperty("bytesRead")
+    private long bytesRead;
+    
+    @JsonProperty("totalBytes")
+    private long totalBytes;
+    
+    @JsonProperty("elapsedMillis")
+    private long elapsedMillis;
+    
+    @JsonProperty("rowsPerSecond")
+    private double rowsPerSecond;
+    
+    @JsonProperty("error")
+    private String error;
+    
+    public FileJobStatus() {}
+    
+    public FileJobStatus(String jobId, Long equationId, FileJobRequest request, String status) {
+        this.jobId = jobId;
+        this.equationId = equationId;
+        this.inputPath = request.getInputPath();
+        this.outputPath = request.getOutputPath();
+        this.status = status;
+    }
+    
+    // Getters and Setters
+    public String getJobId() {
+        return jobId;
+    }
+    
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+    
+    public Long getEquationId() {
+        return equationId;
+    }
+    
+    public void setEquationId(Long equationId) {
+        this.equationId = equationId;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public String getInputPath() {
+        return inputPath;
+    }
+    
+    public void setInputPath(String inputPath) {
+        this.inputPath = inputPath;
+    }
+    
+    public String getOutputPath() {
+        return outputPath;
+    }
+    
+    public void setOutputPath(String outputPath) {
+        this.outputPath = outputPath;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public void setStatus(String status) {
+        this.status = status;
+    }
+    
+    public long getRowsProcessed() {
+        return rowsProcessed;
+    }
+    
+    public void setRowsProcessed(long rowsProcessed) {
+        this.rowsProcessed = rowsProcessed;
+    }
+    
+    public long getFailedRows() {
+        return failedRows;
+    }
+    
+    public void setFailedRows(long failedRows) {
+        this.failedRows = failedRows;
+    }
+    
+    public long getBytesRead() {
+        return bytesRead;
+    }
+    
+    public void setBytesRead(long bytesRead) {
+        this.bytesRead = bytesRead;
+    }
+    
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+    
+    public void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+    
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+    
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+    
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+    
+    public void setRowsPerSecond(double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+    
+    @Override
+    public String toString() {
+        return "FileJobStatus{" +
+                "jobId='" + jobId + '\'' +
+                ", status='" + status + '\'' +
+                ", rowsProcessed=" + rowsProcessed +
+                ", rowsPerSecond=" + rowsPerSecond +
+                '}';
+    }
+}
@@ -0,0 +1,33 @@
+package com.freightfox.model;
+
+import java.util.Map;
+
+/**
+ * Result of evaluating an equation together with its partial derivatives.
+ */
+public class GradientResult {
+    
+    private final double value;
+    private final Map<String, Double> gradient;
+    
+    public GradientResult(double value, Map<String, Double> gradient) {
+        this.value = value;
+        this.gradient = gradient;
+    }
+    
+    public double getValue() {
+        return value;
+    }
+    
+    public Map<String, Double> getGradient() {
+        return gradient;
+    }
+    
+    @Override
+    public String toString() {
+        return "GradientResult{" +
+                "value=" + value +
+                ", gradient=" + gradient +
+                '}';
+    }
+}
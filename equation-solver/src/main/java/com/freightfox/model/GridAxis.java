@@ -0,0 +1,63 @@
+package com.freightfox.model;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * Model class for evenly spaced values of one variable, from {@code min} to
+ * {@code max} inclusive. A single point takes the value {@code min}.
+ */
+public class GridAxis {
+    
+    @NotNull(message = "Axis min is required")
+    private Double min;
+    
+    @NotNull(message = "Axis max is required")
+    private Double max;
+    
+    @NotNull(message = "Axis point count is required")
+    @Positive(message = "Axis point count must be positive")
+    private Integer points;
+    
+    public GridAxis() {}
+    
+    public GridAxis(Double min, Double max, Integer points) {
+        this.min = min;
+        this.max = max;
+        this.points = points;
+    }
+    
+    // Getters and Setters
+    public Double getMin() {
+        return min;
+    }
+    
+    public void setMin(Double min) {
+        this.min = min;
+    }
+    
+    public Double getMax() {
+        return max;
+    }
+    
+    public void setMax(Double max) {
+        this.max = max;
+    }
+    
+    public Integer getPoints() {
+        return points;
+    }
+    
+    public void setPoints(Integer points) {
+        this.points = points;
+    }
+    
+    @Override
+    public String toString() {
+        return "GridAxis{" +
+                "min=" + min +
+                ", max=" + max +
+                ", points=" + points +
+                '}';
+    }
+}
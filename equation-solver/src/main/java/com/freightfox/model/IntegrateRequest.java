@@ -0,0 +1,113 @@
+package com.freightfox.model;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Request model for integrating an equation over one variable with the other variables fixed.
+ */
+public class IntegrateRequest {
+    
+    @NotBlank(message = "Variable to integrate over cannot be empty")
+    private String variable;
+    
+    @NotNull(message = "Lower limit is required")
+    private Double lower;
+    
+    @NotNull(message = "Upper limit is required")
+    private Double upper;
+    
+    private Map<String, Double> variables = new HashMap<>();
+    
+    @Positive(message = "Tolerance must be positive")
+    private Double tolerance;
+    
+    @Positive(message = "Max subintervals must be positive")
+    @Max(value = 100000, message = "Max subintervals cannot exceed 100000")
+    private Integer maxSubintervals;
+    
+    @Positive(message = "Timeout must be positive")
+    @Max(value = 600000, message = "Timeout cannot exceed 600000 ms")
+    private Long timeoutMillis;
+    
+    public IntegrateRequest() {}
+    
+    public IntegrateRequest(String variable, Double lower, Double upper, Map<String, Double> variables) {
+        this.variable = variable;
+        this.lower = lower;
+        this.upper = upper;
+        this.variables = variables;
+    }
+    
+    // Getters and Setters
+    public String getVariable() {
+        return variable;
+    }
+    
+    public void setVariable(String variable) {
+        this.variable = variable;
+    }
+    
+    public Double getLower() {
+        return lower;
+    }
+    
+    public void setLower(Double lower) {
+        this.lower = lower;
+    }
+    
+    public Double getUpper() {
+        return upper;
+    }
+    
+    public void setUpper(Double upper) {
+        this.upper = upper;
+    }
+    
+    public Map<String, Double> getVariables() {
+        return variables;
+    }
+    
+    public void setVariables(Map<String, Double> variables) {
+        this.variables = variables;
+    }
+    
+    public Double getTolerance() {
+        return tolerance;
+    }
+    
+    public void setTolerance(Double tolerance) {
+        this.tolerance = tolerance;
+    }
+    
+    public Integer getMaxSubintervals() {
+        return maxSubintervals;
+    }
+    
+    public void setMaxSubintervals(Integer maxSubintervals) {
+        this.maxSubintervals = maxSubintervals;
+    }
+    
+    public Long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+    
+    public void setTimeoutMillis(Long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+    
+    @Override
+    public String toString() {
+        return "IntegrateRequest{" +
+                "variable='" + variable + '\'' +
+                ", lower=" + lower +
+                ", upper=" + upper +
+                ", variables=" + variables +
+                ", tolerance=" + tolerance +
+                '}';
+    }
+}
@@ -0,0 +1,144 @@
+package com.freightfox.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Response model for a definite integral of an equation over one variable.
+ * {@code converged} is false when the subinterval cap was reached before the
+ * error estimate fell within the tolerance; the value is then the best found.
+ */
+public class IntegrationResult {
+    
+    @JsonProperty("equationId")
+    private Long equationId;
+    
+    @JsonProperty("version")
+    private Long version;
+    
+    @JsonProperty("variable")
+    private String variable;
+    
+    @JsonProperty("lower")
+    private double lower;
+    
+    @JsonProperty("upper")
+    private double upper;
+    
+    @JsonProperty("value")
+    private double value;
+    
+    @JsonProperty("errorEstimate")
+    private double errorEstimate;
+    
+    @JsonProperty("subintervals")
+    private int subintervals;
+    
+    @JsonProperty("evaluations")
+    private long evaluations;
+    
+    @JsonProperty("converged")
+    private boolean converged;
+    
+    public IntegrationResult() {}
+    
+    public IntegrationResult(double value, double errorEstimate, int subintervals, long evaluations, boolean converged) {
+        this.value = value;
+        this.errorEstimate = errorEstimate;
+        this.subintervals = subintervals;
+        this.evaluations = evaluations;
+        this.converged = converged;
+    }
+    
+    // Getters and Setters
+    public Long getEquationId() {
+        return equationId;
+    }
+    
+    public void setEquationId(Long equationId) {
+        this.equationId = equationId;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public String getVariable() {
+        return variable;
+    }
+    
+    public void setVariable(String variable) {
+        this.variable = variable;
+    }
+    
+    public double getLower() {
+        return lower;
+    }
+    
+    public void setLower(double lower) {
+        this.lower = lower;
+    }
+    
+    public double getUpper() {
+        return upper;
+    }
+    
+    public void setUpper(double upper) {
+        this.upper = upper;
+    }
+    
+    public double getValue() {
+        return value;
+    }
+    
+    public void setValue(double value) {
+        this.value = value;
+    }
+    
+    public double getErrorEstimate() {
+        return errorEstimate;
+    }
+    
+    public void setErrorEstimate(double errorEstimate) {
+        this.errorEstimate = errorEstimate;
+    }
+    
+    public int getSubintervals() {
+        return subintervals;
+    }
+    
+    public void setSubintervals(int subintervals) {
+        this.subintervals = subintervals;
+    }
+    
+    public long getEvaluations() {
+        return evaluations;
+    }
+    
+    public void setEvaluations(long evaluations) {
+        this.evaluations = evaluations;
+    }
+    
+    public boolean isConverged() {
+        return converged;
+    }
+    
+    public void setConverged(boolean converged) {
+        this.converged = converged;
+    }
+    
+    @Override
+    public String toString() {
+        return "IntegrationResult{" +
+                "equationId=" + equationId +
+                ", version=" + version +
+                ", variable='" + variable + '\'' +
+                ", value=" + value +
+                ", errorEstimate=" + errorEstimate +
+                ", converged=" + converged +
+                '}';
+    }
+}
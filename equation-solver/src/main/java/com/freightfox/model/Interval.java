@@ -0,0 +1,219 @@
+package com.freightfox.model;
+
+/**
+ * Closed interval of doubles used for range evaluation.
+ * Every operation returns an interval that encloses all results of applying
+ * the operator to points from the operand intervals. Flags record whether
+ * some point in the input box would divide by zero or produce an undefined
+ * (NaN) result, since those cannot be represented by the bounds themselves.
+ */
+public final class Interval {
+    
+    public static final Interval ENTIRE = new Interval(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    
+    private final double lo;
+    private final double hi;
+    private final boolean divisionByZero;
+    private final boolean undefined;
+    
+    public Interval(double lo, double hi) {
+        this(lo, hi, false, false);
+    }
+    
+    private Interval(double lo, double hi, boolean divisionByZero, boolean undefined) {
+        if (lo > hi) {
+            throw new IllegalArgumentException("Interval lower bound " + lo + " exceeds upper bound " + hi);
+        }
+        this.lo = lo;
+        this.hi = hi;
+        this.divisionByZero = divisionByZero;
+        this.undefined = undefined;
+    }
+    
+    /**
+     * Creates a degenerate interval containing a single value.
+     *
+     * @param value The value
+     * @return The interval [value, value]
+     */
+    public static Interval of(double value) {
+        return new Interval(value, value);
+    }
+    
+    public double getLo() {
+        return lo;
+    }
+    
+    public double getHi() {
+        return hi;
+    }
+    
+    public boolean isDivisionByZeroPossible() {
+        return divisionByZero;
+    }
+    
+    public boolean isUndefinedPossible() {
+        return undefined;
+    }
+    
+    public boolean isBounded() {
+        return Double.isFinite(lo) && Double.isFinite(hi);
+    }
+    
+    public boolean contains(double value) {
+        return lo <= value && value <= hi;
+    }
+    
+    public Interval add(Interval other) {
+        return combine(down(lo + other.lo), up(hi + other.hi), other, false, false);
+    }
+    
+    public Interval subtract(Interval other) {
+        return combine(down(lo - other.hi), up(hi - other.lo), other, false, false);
+    }
+    
+    public Interval multiply(Interval other) {
+        double a = product(lo, other.lo);
+        double b = product(lo, other.hi);
+        double c = product(hi, other.lo);
+        double d = product(hi, other.hi);
+        return combine(down(min(a, b, c, d)), up(max(a, b, c, d)), other, false, false);
+    }
+    
+    /**
+     * Divides by another interval. When the divisor contains zero the result is
+     * the hull of the extended division, which is unbounded on at least one side.
+     *
+     * @param other The divisor
+     * @return The enclosing interval of the quotient
+     */
+    public Interval divide(Interval other) {
+        if (!other.contains(0)) {
+            return multiply(new Interval(down(1 / other.hi), up(1 / other.lo))).combine(other, false, false);
+        }
+        double inf = Double.POSITIVE_INFINITY;
+        if (contains(0) || (other.lo < 0 && other.hi > 0) || (other.lo == 0 && other.hi == 0)) {
+            return combine(-inf, inf, other, true, false);
+        }
+        // The divisor touches zero at one end only, so the quotient is unbounded on one side
+        if (hi < 0) {
+            return other.lo == 0
+                ? combine(-inf, up(hi / other.hi), other, true, false)
+                : combine(down(hi / other.lo), inf, other, true, false);
+        }
+        return other.lo == 0
+            ? combine(down(lo / other.hi), inf, other, true, false)
+            : combine(-inf, up(lo / other.lo), other, true, false);
+    }
+    
+    /**
+     * Raises to a power. Integer point exponents use the exact monotonicity of
+     * odd and even powers; other exponents need a non-negative base, where
+     * {@code x^y} is monotone in each argument and the corners bound the result.
+     *
+     * @param exponent The exponent
+     * @return The enclosing interval of the power
+     */
+    public Interval pow(Interval exponent) {
+        if (exponent.lo == exponent.hi && exponent.lo == Math.rint(exponent.lo) && Double.isFinite(exponent.lo)) {
+            return integerPow(exponent.lo).combine(exponent, false, false);
+        }
+        if (hi < 0) {
+            return combine(Double.NaN, Double.NaN, exponent, false, true);
+        }
+        boolean negativeBase = lo < 0;
+        double base = Math.max(lo, 0);
+        double a = Math.pow(base, exponent.lo);
+        double b = Math.pow(base, exponent.hi);
+        double c = Math.pow(hi, exponent.lo);
+        double d = Math.pow(hi, exponent.hi);
+        double low = down(min(a, b, c, d));
+        double high = up(max(a, b, c, d));
+        if (exponent.contains(0)) {
+            // x^0 = 1 even where the corners run to 0 or infinity
+            low = Math.min(low, 1);
+            high = Math.max(high, 1);
+        }
+        return combine(low, high, exponent, false, negativeBase);
+    }
+    
+    private Interval integerPow(double n) {
+        if (n == 0) {
+            return flagged(1, 1, false, false);
+        }
+        if (n < 0) {
+            // x^-n = 1 / x^n, except that pow returns infinity at zero instead of failing
+            Interval reciprocal = Interval.of(1).divide(integerPow(-n));
+            return flagged(reciprocal.lo, reciprocal.hi, false, false);
+        }
+        double a = Math.pow(lo, n);
+        double b = Math.pow(hi, n);
+        boolean even = n % 2 == 0;
+        if (!even || lo >= 0) {
+            return flagged(down(a), up(b), false, false);
+        }
+        if (hi <= 0) {
+            return flagged(down(b), up(a), false, false);
+        }
+        return flagged(0, up(Math.max(a, b)), false, false);
+    }
+    
+    /**
+     * Returns the smallest interval enclosing both intervals.
+     *
+     * @param other The other interval
+     * @return The hull
+     */
+    public Interval hull(Interval other) {
+        return combine(Math.min(lo, other.lo), Math.max(hi, other.hi), other, false, false);
+    }
+    
+    private Interval combine(Interval other, boolean divisionByZero, boolean undefined) {
+        return combine(lo, hi, other, divisionByZero, undefined);
+    }
+    
+    private Interval combine(double low, double high, Interval other, boolean divisionByZero, boolean undefined) {
+        boolean nan = Double.isNaN(low) || Double.isNaN(high);
+        return new Interval(
+            nan ? Double.NEGATIVE_INFINITY : low,
+            nan ? Double.POSITIVE_INFINITY : high,
+            this.divisionByZero || other.divisionByZero || divisionByZero,
+            this.undefined || other.undefined || undefined || nan);
+    }
+    
+    private Interval flagged(double low, double high, boolean divisionByZero, boolean undefined) {
+        return combine(low, high, this, divisionByZero, undefined);
+    }
+    
+    /**
+     * Rounds a computed lower bound outward by one ulp so that floating-point
+     * rounding can never make the interval miss a true result.
+     */
+    private static double down(double x) {
+        return Double.isFinite(x) ? Math.nextDown(x) : x;
+    }
+    
+    private static double up(double x) {
+        return Double.isFinite(x) ? Math.nextUp(x) : x;
+    }
+    
+    /**
+     * Multiplies bounds with the interval convention that 0 * infinity = 0.
+     */
+    private static double product(double a, double b) {
+        return a == 0 || b == 0 ? 0 : a * b;
+    }
+    
+    private static double min(double a, double b, double c, double d) {
+        return Math.min(Math.min(a, b), Math.min(c, d));
+    }
+    
+    private static double max(double a, double b, double c, double d) {
+        return Math.max(Math.max(a, b), Math.max(c, d));
+    }
+    
+    @Override
+    public String toString() {
+        return "[" + lo + ", " + hi + "]";
+    }
+}
@@ -0,0 +1,132 @@
+package com.freightfox.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * Request model for running a batch solve, simulation, integration, aggregation or
+ * CSV file evaluation as a background job. The field named after {@code kind} holds
+ * the work itself; its own timeout is replaced by the job's.
+ */
+public class JobRequest {
+    
+    public static final String SOLVE_BATCH = "SOLVE_BATCH";
+    public static final String SIMULATE = "SIMULATE";
+    public static final String INTEGRATE = "INTEGRATE";
+    public static final String AGGREGATE = "AGGREGATE";
+    public static final String FILE = "FILE";
+    
+    public static final String INTERACTIVE = "INTERACTIVE";
+    public static final String BULK = "BULK";
+    
+    @NotNull(message = "Job kind is required")
+    @Pattern(regexp = "SOLVE_BATCH|SIMULATE|INTEGRATE|AGGREGATE|FILE",
+            message = "Job kind must be SOLVE_BATCH, SIMULATE, INTEGRATE, AGGREGATE or FILE")
+    private String kind;
+    
+    @Pattern(regexp = "INTERACTIVE|BULK", message = "Priority must be INTERACTIVE or BULK")
+    private String priority = BULK;
+    
+    @Positive(message = "Timeout must be positive")
+    @Max(value = 86400000, message = "Timeout cannot exceed 86400000 ms")
+    private Long timeoutMillis;
+    
+    @Valid
+    private BatchSolveRequest solveBatch;
+    
+    @Valid
+    private SimulateRequest simulate;
+    
+    @Valid
+    private IntegrateRequest integrate;
+    
+    @Valid
+    private AggregateRequest aggregate;
+    
+    @Valid
+    private FileJobRequest file;
+    
+    public JobRequest() {}
+    
+    public JobRequest(String kind, String priority) {
+        this.kind = kind;
+        this.priority = priority;
+    }
+    
+    // Getters and Setters
+    public String getKind() {
+        return kind;
+    }
+    
+    public void setKind(String kind) {
+        this.kind = kind;
+    }
+    
+    public String getPriority() {
+        return priority;
+    }
+    
+    public void setPriority(String priority) {
+        this.priority = priority;
+    }
+    
+    public Long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+    
+    public void setTimeoutMillis(Long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+    
+    public BatchSolveRequest getSolveBatch() {
+        return solveBatch;
+    }
+    
+    public void setSolveBatch(BatchSolveRequest solveBatch) {
+        this.solveBatch = solveBatch;
+    }
+    
+    public SimulateRequest getSimulate() {
+        return simulate;
+    }
+    
+    public void setSimulate(SimulateRequest simulate) {
+        this.simulate = simulate;
+    }
+    
+    public IntegrateRequest getIntegrate() {
+        return integrate;
+    }
+    
+    public void setIntegrate(IntegrateRequest integrate) {
+        this.integrate = integrate;
+    }
+    
+    public AggregateRequest getAggregate() {
+        return aggregate;
+    }
+    
+    public void setAggregate(AggregateRequest aggregate) {
+        this.aggregate = aggregate;
+    }
+    
+    public FileJobRequest getFile() {
+        return file;
+    }
+    
+    public void setFile(FileJobRequest file) {
+        this.file = file;
+    }
+    
+    @Override
+    public String toString() {
+        return "JobRequest{" +
+                "kind='" + kind + '\'' +
+                ", priority='" + priority + '\'' +
+                ", timeoutMillis=" + timeoutMillis +
+                '}';
+    }
+}
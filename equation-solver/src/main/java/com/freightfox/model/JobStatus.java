@@ -0,0 +1,173 @@
+package com.freightfox.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Model class describing a background job. {@code completedSteps} counts rows,
+ * blocks or subintervals depending on the kind, and {@code totalSteps} is present
+ * when the count is known in advance. A finished job carries its result or error
+ * until it expires.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class JobStatus {
+    
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+    public static final String CANCELLED = "CANCELLED";
+    
+    @JsonProperty("jobId")
+    private String jobId;
+    
+    @JsonProperty("equationId")
+    private Long equationId;
+    
+    @JsonProperty("version")
+    private Long version;
+    
+    @JsonProperty("kind")
+    private String kind;
+    
+    @JsonProperty("priority")
+    private String priority;
+    
+    @JsonProperty("status")
+    private String status;
+    
+    @JsonProperty("completedSteps")
+    private long completedSteps;
+    
+    @JsonProperty("totalSteps")
+    private Long totalSteps;
+    
+    @JsonProperty("queuedMillis")
+    private long queuedMillis;
+    
+    @JsonProperty("elapsedMillis")
+    private long elapsedMillis;
+    
+    @JsonProperty("result")
+    private Object result;
+    
+    @JsonProperty("error")
+    private String error;
+    
+    public JobStatus() {}
+    
+    public JobStatus(String jobId, Long equationId, String kind, String priority, String status) {
+        this.jobId = jobId;
+        this.equationId = equationId;
+        this.kind = kind;
+        this.priority = priority;
+        this.status = status;
+    }
+    
+    // Getters and Setters
+    public String getJobId() {
+        return jobId;
+    }
+    
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+    
+    public Long getEquationId() {
+        return equationId;
+    }
+    
+    public void setEquationId(Long equationId) {
+        this.equationId = equationId;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public String getKind() {
+        return kind;
+    }
+    
+    public void setKind(String kind) {
+        this.kind = kind;
+    }
+    
+    public String getPriority() {
+        return priority;
+    }
+    
+    public void setPriority(String priority) {
+        this.priority = priority;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public void setStatus(String status) {
+        this.status = status;
+    }
+    
+    public long getCompletedSteps() {
+        return completedSteps;
+    }
+    
+    public void setCompletedSteps(long completedSteps) {
+        this.completedSteps = completedSteps;
+    }
+    
+    public Long getTotalSteps() {
+        return totalSteps;
+    }
+    
+    public void setTotalSteps(Long totalSteps) {
+        this.totalSteps = totalSteps;
+    }
+    
+    public long getQueuedMillis() {
+        return queuedMillis;
+    }
+    
+    public void setQueuedMillis(long queuedMillis) {
+        this.queuedMillis = queuedMillis;
+    }
+    
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+    
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+    
+    public Object getResult() {
+        return result;
+    }
+    
+    public void setResult(Object result) {
+        this.result = result;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+    
+    @Override
+    public String toString() {
+        return "JobStatus{" +
+                "jobId='" + jobId + '\'' +
+                ", kind='" + kind + '\'' +
+                ", status='" + status + '\'' +
+                ", completedSteps=" + completedSteps +
+                '}';
+    }
+}
@@ -1,5 +1,8 @@
 package com.freightfox.model;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.Map;
 
 /**
@@ -19,9 +22,24 @@ public class OperatorNode extends ExpressionNode {
     
     @Override
     public double evaluate(Map<String, Double> variables) {
-        double leftValue = left.evaluate(variables);
-        double rightValue = right.evaluate(variables);
-        
+        // Operands live on an explicit stack so that deep chains cannot overflow the call stack
+        double[] stack = new double[16];
+        int top = -1;
+        for (ExpressionNode node : postOrder(this)) {
+            if (node instanceof OperatorNode operator) {
+                double rightValue = stack[top--];
+                stack[top] = operator.apply(stack[top], rightValue);
+            } else {
+                if (++top == stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[top] = node.evaluate(variables);
+            }
+        }
+        return stack[0];
+    }
+    
+    private double apply(double leftValue, double rightValue) {
         return switch (operator) {
             case "+" -> leftValue + rightValue;
             case "-" -> leftValue - rightValue;
@@ -37,9 +55,48 @@ public class OperatorNode extends ExpressionNode {
         };
     }
     
+    @Override
+    public Interval evaluateInterval(Map<String, Interval> variables) {
+        Deque<Interval> stack = new ArrayDeque<>();
+        for (ExpressionNode node : postOrder(this)) {
+            if (!(node instanceof OperatorNode operator)) {
+                stack.push(node.evaluateInterval(variables));
+                continue;
+            }
+            Interval rightRange = stack.pop();
+            Interval leftRange = stack.pop();
+            stack.push(switch (operator.operator) {
+                case "+" -> leftRange.add(rightRange);
+                case "-" -> leftRange.subtract(rightRange);
+                case "*" -> leftRange.multiply(rightRange);
+                case "/" -> leftRange.divide(rightRange);
+                case "^" -> leftRange.pow(rightRange);
+                default -> throw new IllegalArgumentException("Unknown operator: " + operator.operator);
+            });
+        }
+        return stack.pop();
+    }
+    
     @Override
     public String toString() {
-        return "(" + left.toString() + " " + operator + " " + right.toString() + ")";
+        // Printed from a work stack of nodes and literal text; concatenating child
+        // strings would also copy quadratically many characters on deep chains
+        StringBuilder text = new StringBuilder();
+        Deque<Object> work = new ArrayDeque<>();
+        work.push(this);
+        while (!work.isEmpty()) {
+            Object item = work.pop();
+            if (item instanceof OperatorNode node) {
+                work.push(")");
+                work.push(node.right);
+                work.push(" " + node.operator + " ");
+                work.push(node.left);
+                work.push("(");
+            } else {
+                text.append(item);
+            }
+        }
+        return text.toString();
     }
     
     public String getOperator() {
@@ -0,0 +1,41 @@
+package com.freightfox.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Response model for publishing variable values to subscribers.
+ */
+public class PublishVariablesResponse {
+    
+    @JsonProperty("variables")
+    private Map<String, Double> variables;
+    
+    @JsonProperty("affectedEquations")
+    private Set<Long> affectedEquations;
+    
+    public PublishVariablesResponse() {}
+    
+    public PublishVariablesResponse(Map<String, Double> variables, Set<Long> affectedEquations) {
+        this.variables = variables;
+        this.affectedEquations = affectedEquations;
+    }
+    
+    // Getters and Setters
+    public Map<String, Double> getVariables() {
+        return variables;
+    }
+    
+    public void setVariables(Map<String, Double> variables) {
+        this.variables = variables;
+    }
+    
+    public Set<Long> getAffectedEquations() {
+        return affectedEquations;
+    }
+    
+    public void setAffectedEquations(Set<Long> affectedEquations) {
+        this.affectedEquations = affectedEquations;
+    }
+}
@@ -0,0 +1,36 @@
+package com.freightfox.model;
+
+import java.util.Map;
+
+/**
+ * Expression node standing for another stored equation, written {@code @id}.
+ * References are replaced by the referenced equation's tree before an
+ * equation is compiled, so they are never evaluated.
+ */
+public class ReferenceNode extends ExpressionNode {
+    
+    private final long equationId;
+    
+    public ReferenceNode(long equationId) {
+        this.equationId = equationId;
+    }
+    
+    @Override
+    public double evaluate(Map<String, Double> variables) {
+        throw new IllegalArgumentException("Reference to equation " + equationId + " has not been inlined");
+    }
+    
+    @Override
+    public Interval evaluateInterval(Map<String, Interval> variables) {
+        throw new IllegalArgumentException("Reference to equation " + equationId + " has not been inlined");
+    }
+    
+    @Override
+    public String toString() {
+        return "@" + equationId;
+    }
+    
+    public long getEquationId() {
+        return equationId;
+    }
+}
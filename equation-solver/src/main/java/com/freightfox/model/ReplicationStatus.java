@@ -0,0 +1,84 @@
+package com.freightfox.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Model class describing how far a replica trails its primary.
+ */
+public class ReplicationStatus {
+    
+    @JsonProperty("primaryUrl")
+    private String primaryUrl;
+    
+    @JsonProperty("appliedSequence")
+    private long appliedSequence;
+    
+    @JsonProperty("primarySequence")
+    private long primarySequence;
+    
+    @JsonProperty("lagMillis")
+    private long lagMillis;
+    
+    @JsonProperty("millisSinceContact")
+    private long millisSinceContact;
+    
+    public ReplicationStatus() {}
+    
+    public ReplicationStatus(String primaryUrl, long appliedSequence, long primarySequence,
+                             long lagMillis, long millisSinceContact) {
+        this.primaryUrl = primaryUrl;
+        this.appliedSequence = appliedSequence;
+        this.primarySequence = primarySequence;
+        this.lagMillis = lagMillis;
+        this.millisSinceContact = millisSinceContact;
+    }
+    
+    /**
+     * Number of primary changes not yet applied here.
+     */
+    @JsonProperty("sequenceLag")
+    public long getSequenceLag() {
+        return Math.max(0, primarySequence - appliedSequence);
+    }
+    
+    // Getters and Setters
+    public String getPrimaryUrl() {
+        return primaryUrl;
+    }
+    
+    public void setPrimaryUrl(String primaryUrl) {
+        this.primaryUrl = primaryUrl;
+    }
+    
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+    
+    public void setAppliedSequence(long appliedSequence) {
+        this.appliedSequence = appliedSequence;
+    }
+    
+    public long getPrimarySequence() {
+        return primarySequence;
+    }
+    
+    public void setPrimarySequence(long primarySequence) {
+        this.primarySequence = primarySequence;
+    }
+    
+    public long getLagMillis() {
+        return lagMillis;
+    }
+    
+    public void setLagMillis(long lagMillis) {
+        this.lagMillis = lagMillis;
+    }
+    
+    public long getMillisSinceContact() {
+        return millisSinceContact;
+    }
+    
+    public void setMillisSinceContact(long millisSinceContact) {
+        this.millisSinceContact = millisSinceContact;
+    }
+}
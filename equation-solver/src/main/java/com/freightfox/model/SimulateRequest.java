@@ -0,0 +1,118 @@
+package com.freightfox.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Request model for propagating input uncertainty through an equation by Monte Carlo sampling.
+ * Variables in {@code variables} are fixed; those in {@code distributions} are drawn per sample.
+ */
+public class SimulateRequest {
+    
+    public static final int DEFAULT_BINS = 20;
+    public static final List<Double> DEFAULT_PERCENTILES = List.of(5.0, 25.0, 50.0, 75.0, 95.0);
+    
+    @NotEmpty(message = "At least one distribution is required")
+    private Map<String, @Valid @NotNull Distribution> distributions;
+    
+    private Map<String, Double> variables = new HashMap<>();
+    
+    @NotNull(message = "Sample count is required")
+    @Positive(message = "Sample count must be positive")
+    @Max(value = 100000000, message = "Sample count cannot exceed 100000000")
+    private Long samples;
+    
+    private Long seed;
+    
+    @Positive(message = "Bin count must be positive")
+    @Max(value = 1000, message = "Bin count cannot exceed 1000")
+    private Integer bins = DEFAULT_BINS;
+    
+    private List<Double> percentiles = DEFAULT_PERCENTILES;
+    
+    @Positive(message = "Timeout must be positive")
+    @Max(value = 600000, message = "Timeout cannot exceed 600000 ms")
+    private Long timeoutMillis;
+    
+    public SimulateRequest() {}
+    
+    public SimulateRequest(Map<String, Distribution> distributions, Map<String, Double> variables, Long samples) {
+        this.distributions = distributions;
+        this.variables = variables;
+        this.samples = samples;
+    }
+    
+    // Getters and Setters
+    public Map<String, Distribution> getDistributions() {
+        return distributions;
+    }
+    
+    public void setDistributions(Map<String, Distribution> distributions) {
+        this.distributions = distributions;
+    }
+    
+    public Map<String, Double> getVariables() {
+        return variables;
+    }
+    
+    public void setVariables(Map<String, Double> variables) {
+        this.variables = variables;
+    }
+    
+    public Long getSamples() {
+        return samples;
+    }
+    
+    public void setSamples(Long samples) {
+        this.samples = samples;
+    }
+    
+    public Long getSeed() {
+        return seed;
+    }
+    
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+    
+    public Integer getBins() {
+        return bins;
+    }
+    
+    public void setBins(Integer bins) {
+        this.bins = bins;
+    }
+    
+    public List<Double> getPercentiles() {
+        return percentiles;
+    }
+    
+    public void setPercentiles(List<Double> percentiles) {
+        this.percentiles = percentiles;
+    }
+    
+    public Long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+    
+    public void setTimeoutMillis(Long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+    
+    @Override
+    public String toString() {
+        return "SimulateRequest{" +
+                "distributions=" + distributions +
+                ", variables=" + variables +
+                ", samples=" + samples +
+                ", seed=" + seed +
+                ", bins=" + bins +
+                '}';
+    }
+}
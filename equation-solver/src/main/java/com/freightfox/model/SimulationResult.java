@@ -0,0 +1,215 @@
+package com.freightfox.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Map;
+
+/**
+ * Response model summarizing the output distribution of a Monte Carlo simulation.
+ * Samples that could not be evaluated, such as divisions by zero, or that were
+ * not finite are counted in {@code failed} and left out of every statistic.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SimulationResult {
+    
+    @JsonProperty("equationId")
+    private Long equationId;
+    
+    @JsonProperty("version")
+    private Long version;
+    
+    @JsonProperty("seed")
+    private Long seed;
+    
+    @JsonProperty("samples")
+    private long samples;
+    
+    @JsonProperty("failed")
+    private long failed;
+    
+    @JsonProperty("mean")
+    private Double mean;
+    
+    @JsonProperty("variance")
+    private Double variance;
+    
+    @JsonProperty("stdDev")
+    private Double stdDev;
+    
+    @JsonProperty("min")
+    private Double min;
+    
+    @JsonProperty("max")
+    private Double max;
+    
+    @JsonProperty("percentiles")
+    private Map<String, Double> percentiles;
+    
+    @JsonProperty("histogram")
+    private Histogram histogram;
+    
+    public SimulationResult() {}
+    
+    public SimulationResult(Long seed, long samples, long failed) {
+        this.seed = seed;
+        this.samples = samples;
+        this.failed = failed;
+    }
+    
+    // Getters and Setters
+    public Long getEquationId() {
+        return equationId;
+    }
+    
+    public void setEquationId(Long equationId) {
+        this.equationId = equationId;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public Long getSeed() {
+        return seed;
+    }
+    
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+    
+    public long getSamples() {
+        return samples;
+    }
+    
+    public void setSamples(long samples) {
+        this.samples = samples;
+    }
+    
+    public long getFailed() {
+        return failed;
+    }
+    
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+    
+    public Double getMean() {
+        return mean;
+    }
+    
+    public void setMean(Double mean) {
+        this.mean = mean;
+    }
+    
+    public Double getVariance() {
+        return variance;
+    }
+    
+    public void setVariance(Double variance) {
+        this.variance = variance;
+    }
+    
+    public Double getStdDev() {
+        return stdDev;
+    }
+    
+    public void setStdDev(Double stdDev) {
+        this.stdDev = stdDev;
+    }
+    
+    public Double getMin() {
+        return min;
+    }
+    
+    public void setMin(Double min) {
+        this.min = min;
+    }
+    
+    public Double getMax() {
+        return max;
+    }
+    
+    public void setMax(Double max) {
+        this.max = max;
+    }
+    
+    public Map<String, Double> getPercentiles() {
+        return percentiles;
+    }
+    
+    public void setPercentiles(Map<String, Double> percentiles) {
+        this.percentiles = percentiles;
+    }
+    
+    public Histogram getHistogram() {
+        return histogram;
+    }
+    
+    public void setHistogram(Histogram histogram) {
+        this.histogram = histogram;
+    }
+    
+    @Override
+    public String toString() {
+        return "SimulationResult{" +
+                "equationId=" + equationId +
+                ", version=" + version +
+                ", samples=" + samples +
+                ", failed=" + failed +
+                ", mean=" + mean +
+                ", stdDev=" + stdDev +
+                '}';
+    }
+    
+    /**
+     * Inner class for equal-width bins from {@code min} to {@code min + counts.length * binWidth}.
+     */
+    public static class Histogram {
+        
+        @JsonProperty("min")
+        private double min;
+        
+        @JsonProperty("binWidth")
+        private double binWidth;
+        
+        @JsonProperty("counts")
+        private long[] counts;
+        
+        public Histogram() {}
+        
+        public Histogram(double min, double binWidth, long[] counts) {
+            this.min = min;
+            this.binWidth = binWidth;
+            this.counts = counts;
+        }
+        
+        // Getters and Setters
+        public double getMin() {
+            return min;
+        }
+        
+        public void setMin(double min) {
+            this.min = min;
+        }
+        
+        public double getBinWidth() {
+            return binWidth;
+        }
+        
+        public void setBinWidth(double binWidth) {
+            this.binWidth = binWidth;
+        }
+        
+        public long[] getCounts() {
+            return counts;
+        }
+        
+        public void setCounts(long[] counts) {
+            this.counts = counts;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.freightfox.model;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Request model for solving an equation for one variable.
+ */
+public class SolveEquationRequest {
+    
+    @NotBlank(message = "Variable to solve for cannot be empty")
+    private String variable;
+    
+    private Map<String, Double> variables = new HashMap<>();
+    
+    private Double target;
+    
+    private Double initialGuess;
+    
+    private Double lowerBound;
+    
+    private Double upperBound;
+    
+    @Positive(message = "Tolerance must be positive")
+    private Double tolerance;
+    
+    @Positive(message = "Max iterations must be positive")
+    @Max(value = 10000, message = "Max iterations cannot exceed 10000")
+    private Integer maxIterations;
+    
+    @Positive(message = "Timeout must be positive")
+    @Max(value = 600000, message = "Timeout cannot exceed 600000 ms")
+    private Long timeoutMillis;
+    
+    public SolveEquationRequest() {}
+    
+    public SolveEquationRequest(String variable, Map<String, Double> variables) {
+        this.variable = variable;
+        this.variables = variables;
+    }
+    
+    // Getters and Setters
+    public String getVariable() {
+        return variable;
+    }
+    
+    public void setVariable(String variable) {
+        this.variable = variable;
+    }
+    
+    public Map<String, Double> getVariables() {
+        return variables;
+    }
+    
+    public void setVariables(Map<String, Double> variables) {
+        this.variables = variables;
+    }
+    
+    public Double getTarget() {
+        return target;
+    }
+    
+    public void setTarget(Double target) {
+        this.target = target;
+    }
+    
+    public Double getInitialGuess() {
+        return initialGuess;
+    }
+    
+    public void setInitialGuess(Double initialGuess) {
+        this.initialGuess = initialGuess;
+    }
+    
+    public Double getLowerBound() {
+        return lowerBound;
+    }
+    
+    public void setLowerBound(Double lowerBound) {
+        this.lowerBound = lowerBound;
+    }
+    
+    public Double getUpperBound() {
+        return upperBound;
+    }
+    
+    public void setUpperBound(Double upperBound) {
+        this.upperBound = upperBound;
+    }
+    
+    public Double getTolerance() {
+        return tolerance;
+    }
+    
+    public void setTolerance(Double tolerance) {
+        this.tolerance = tolerance;
+    }
+    
+    public Integer getMaxIterations() {
+        return maxIterations;
+    }
+    
+    public void setMaxIterations(Integer maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+    
+    public Long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+    
+    public void setTimeoutMillis(Long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+    
+    @Override
+    public String toString() {
+        return "SolveEquationRequest{" +
+                "variable='" + variable + '\'' +
+                ", variables=" + variables +
+                ", target=" + target +
+                ", initialGuess=" + initialGuess +
+                ", lowerBound=" + lowerBound +
+                ", upperBound=" + upperBound +
+                ", tolerance=" + tolerance +
+                ", maxIterations=" + maxIterations +
+                ", timeoutMillis=" + timeoutMillis +
+                '}';
+    }
+}
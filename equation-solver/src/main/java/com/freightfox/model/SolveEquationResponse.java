@@ -0,0 +1,141 @@
+package com.freightfox.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Map;
+
+/**
+ * Response model for solving an equation for one variable.
+ */
+public class SolveEquationResponse {
+    
+    @JsonProperty("equationId")
+    private Long equationId;
+    
+    @JsonProperty("equation")
+    private String equation;
+    
+    @JsonProperty("variable")
+    private String variable;
+    
+    @JsonProperty("variables")
+    private Map<String, Double> variables;
+    
+    @JsonProperty("root")
+    private Double root;
+    
+    @JsonProperty("residual")
+    private Double residual;
+    
+    @JsonProperty("iterations")
+    private Integer iterations;
+    
+    @JsonProperty("method")
+    private String method;
+    
+    @JsonProperty("version")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long version;
+    
+    public SolveEquationResponse() {}
+    
+    public SolveEquationResponse(Long equationId, String equation, String variable,
+                                 Map<String, Double> variables, SolveResult result) {
+        this.equationId = equationId;
+        this.equation = equation;
+        this.variable = variable;
+        this.variables = variables;
+        this.root = result.getRoot();
+        this.residual = result.getResidual();
+        this.iterations = result.getIterations();
+        this.method = result.getMethod();
+    }
+    
+    // Getters and Setters
+    public Long getEquationId() {
+        return equationId;
+    }
+    
+    public void setEquationId(Long equationId) {
+        this.equationId = equationId;
+    }
+    
+    public String getEquation() {
+        return equation;
+    }
+    
+    public void setEquation(String equation) {
+        this.equation = equation;
+    }
+    
+    public String getVariable() {
+        return variable;
+    }
+    
+    public void setVariable(String variable) {
+        this.variable = variable;
+    }
+    
+    public Map<String, Double> getVariables() {
+        return variables;
+    }
+    
+    public void setVariables(Map<String, Double> variables) {
+        this.variables = variables;
+    }
+    
+    public Double getRoot() {
+        return root;
+    }
+    
+    public void setRoot(Double root) {
+        this.root = root;
+    }
+    
+    public Double getResidual() {
+        return residual;
+    }
+    
+    public void setResidual(Double residual) {
+        this.residual = residual;
+    }
+    
+    public Integer getIterations() {
+        return iterations;
+    }
+    
+    public void setIterations(Integer iterations) {
+        this.iterations = iterations;
+    }
+    
+    public String getMethod() {
+        return method;
+    }
+    
+    public void setMethod(String method) {
+        this.method = method;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    @Override
+    public String toString() {
+        return "SolveEquationResponse{" +
+                "equationId=" + equationId +
+                ", equation='" + equation + '\'' +
+                ", variable='" + variable + '\'' +
+                ", variables=" + variables +
+                ", root=" + root +
+                ", residual=" + residual +
+                ", iterations=" + iterations +
+                ", method='" + method + '\'' +
+                ", version=" + version +
+                '}';
+    }
+}
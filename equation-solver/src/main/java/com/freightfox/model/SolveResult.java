@@ -0,0 +1,73 @@
+package com.freightfox.model;
+
+/**
+ * Result of solving an equation for one variable.
+ */
+public class SolveResult {
+    
+    public static final String NEWTON = "newton";
+    public static final String BRENT = "brent";
+    
+    private final double root;
+    private final double residual;
+    private final int iterations;
+    private final String method;
+    private final String error;
+    
+    public SolveResult(double root, double residual, int iterations, String method) {
+        this(root, residual, iterations, method, null);
+    }
+    
+    private SolveResult(double root, double residual, int iterations, String method, String error) {
+        this.root = root;
+        this.residual = residual;
+        this.iterations = iterations;
+        this.method = method;
+        this.error = error;
+    }
+    
+    /**
+     * Creates a result for a solve that did not find a root.
+     * 
+     * @param error Why the solve failed
+     * @return A failed result
+     */
+    public static SolveResult failed(String error) {
+        return new SolveResult(Double.NaN, Double.NaN, 0, null, error);
+    }
+    
+    public double getRoot() {
+        return root;
+    }
+    
+    public double getResidual() {
+        return residual;
+    }
+    
+    public int getIterations() {
+        return iterations;
+    }
+    
+    public String getMethod() {
+        return method;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public boolean isSolved() {
+        return error == null;
+    }
+    
+    @Override
+    public String toString() {
+        return "SolveResult{" +
+                "root=" + root +
+                ", residual=" + residual +
+                ", iterations=" + iterations +
+                ", method='" + method + '\'' +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
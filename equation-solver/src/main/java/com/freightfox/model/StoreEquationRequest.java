@@ -9,8 +9,8 @@ import jakarta.validation.constraints.Pattern;
 public class StoreEquationRequest {
     
     @NotBlank(message = "Equation cannot be empty")
-    @Pattern(regexp = "^[a-zA-Z0-9\\s\\+\\-\\*\\/\\(\\)\\^]+$", 
-             message = "Equation contains invalid characters. Only letters, numbers, spaces, and operators (+, -, *, /, ^, ()) are allowed.")
+    @Pattern(regexp = "^[a-zA-Z0-9\\.\\s\\+\\-\\*\\/\\(\\)\\^\\@]+$", 
+             message = "Equation contains invalid characters. Only letters, numbers, decimal points, spaces, operators (+, -, *, /, ^, ()) and equation references (@id) are allowed.")
     private String equation;
     
     public StoreEquationRequest() {}
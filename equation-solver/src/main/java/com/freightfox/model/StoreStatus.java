@@ -0,0 +1,66 @@
+package com.freightfox.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Model class reporting whether a stored equation is ready to evaluate.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StoreStatus {
+    
+    public static final String PENDING = "PENDING";
+    public static final String READY = "READY";
+    public static final String FAILED = "FAILED";
+    
+    @JsonProperty("equationId")
+    private Long equationId;
+    
+    @JsonProperty("status")
+    private String status;
+    
+    @JsonProperty("error")
+    private String error;
+    
+    public StoreStatus() {}
+    
+    public StoreStatus(Long equationId, String status, String error) {
+        this.equationId = equationId;
+        this.status = status;
+        this.error = error;
+    }
+    
+    // Getters and Setters
+    public Long getEquationId() {
+        return equationId;
+    }
+    
+    public void setEquationId(Long equationId) {
+        this.equationId = equationId;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public void setStatus(String status) {
+        this.status = status;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+    
+    @Override
+    public String toString() {
+        return "StoreStatus{" +
+                "equationId=" + equationId +
+                ", status='" + status + '\'' +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
@@ -21,6 +21,15 @@ public class VariableNode extends ExpressionNode {
         return variables.get(variableName);
     }
     
+    @Override
+    public Interval evaluateInterval(Map<String, Interval> variables) {
+        Interval range = variables.get(variableName);
+        if (range == null) {
+            throw new IllegalArgumentException("Variable '" + variableName + "' not found in provided ranges");
+        }
+        return range;
+    }
+    
     @Override
     public String toString() {
         return variableName;
@@ -0,0 +1,48 @@
+package com.freightfox.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Map;
+
+/**
+ * Model class for one recorded evaluation, replayed to warm up a fresh instance.
+ */
+public class WarmupSample {
+    
+    @JsonProperty("equation")
+    private String equation;
+    
+    @JsonProperty("variables")
+    private Map<String, Double> variables;
+    
+    public WarmupSample() {}
+    
+    public WarmupSample(String equation, Map<String, Double> variables) {
+        this.equation = equation;
+        this.variables = variables;
+    }
+    
+    // Getters and Setters
+    public String getEquation() {
+        return equation;
+    }
+    
+    public void setEquation(String equation) {
+        this.equation = equation;
+    }
+    
+    public Map<String, Double> getVariables() {
+        return variables;
+    }
+    
+    public void setVariables(Map<String, Double> variables) {
+        this.variables = variables;
+    }
+    
+    @Override
+    public String toString() {
+        return "WarmupSample{" +
+                "equation='" + equation + '\'' +
+                ", variables=" + variables +
+                '}';
+    }
+}
@@ -0,0 +1,89 @@
+package com.freightfox.service;
+
+import com.freightfox.exception.ServerBusyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits how much evaluation work runs at once.
+ *
+ * <p>Every request is charged its estimated cost in work units before it runs
+ * and the units are returned when it finishes. When the budget is spent, a
+ * request queues for a short while in arrival order and is then shed, so one
+ * huge expression or batch cannot tie up every worker. A request costing more
+ * than the whole budget is charged the whole budget and so runs alone.
+ */
+@Service
+public class AdmissionControl {
+    
+    /** Budget per processor when none is configured: about a few milliseconds of evaluation each. */
+    private static final long DEFAULT_UNITS_PER_PROCESSOR = 5_000_000;
+    
+    private final int budget;
+    private final long queueTimeoutMillis;
+    private final Semaphore units;
+    
+    public AdmissionControl(
+            @Value("${equation.admission.budget:0}") long budget,
+            @Value("${equation.admission.queue-timeout-millis:100}") long queueTimeoutMillis) {
+        if (budget < 0 || queueTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Admission budget and queue timeout must be non-negative");
+        }
+        long resolved = budget > 0 ? budget : DEFAULT_UNITS_PER_PROCESSOR * Runtime.getRuntime().availableProcessors();
+        this.budget = (int) Math.min(resolved, Integer.MAX_VALUE);
+        this.queueTimeoutMillis = queueTimeoutMillis;
+        // Fair, so that a large request waiting for units is not overtaken indefinitely by small ones
+        this.units = new Semaphore(this.budget, true);
+    }
+    
+    /**
+     * Charges a request's cost against the budget, waiting briefly if it is spent.
+     *
+     * @param cost Estimated work units of the request
+     * @return A permit that returns the units when closed
+     * @throws ServerBusyException if the units do not become available in time
+     */
+    public Permit admit(long cost) {
+        int charged = (int) Math.max(1, Math.min(cost, budget));
+        try {
+            if (!units.tryAcquire(charged, queueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new ServerBusyException("Server is busy; retry shortly");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServerBusyException("Interrupted while waiting for admission", e);
+        }
+        return new Permit(charged);
+    }
+    
+    public int getBudget() {
+        return budget;
+    }
+    
+    public int getAvailableUnits() {
+        return units.availablePermits();
+    }
+    
+    /**
+     * Units held by an admitted request. Closing it more than once has no further effect.
+     */
+    public final class Permit implements AutoCloseable {
+        
+        private int charged;
+        
+        private Permit(int charged) {
+            this.charged = charged;
+        }
+        
+        @Override
+        public void close() {
+            if (charged > 0) {
+                units.release(charged);
+                charged = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.freightfox.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.freightfox.model.Equation;
+import com.freightfox.model.EquationTransfer;
+import com.freightfox.util.ConsistentHashRing;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Membership and partitioning for cluster mode.
+ *
+ * <p>Equation IDs are assigned to nodes by a consistent-hash ring keyed on
+ * node base URLs. New IDs carry this node's index in their low bits, so IDs
+ * from different nodes never collide. The index must be configured, and a node
+ * whose index another member already uses is refused when it joins. IDs are
+ * drawn only from the part of
+ * the ID space this node owns, so storing never needs a remote call. When a
+ * node joins or leaves, every node hands the equations it no longer owns to
+ * their new owner. Equations may not reference other equations in cluster mode,
+ * since a reference would only resolve on the node that owns its target.
+ */
+@Service
+@ConditionalOnProperty(name = "equation.cluster.enabled", havingValue = "true")
+public class ClusterMembership {
+    
+    /**
+     * Marks a request already routed by a node, so it is served where it lands.
+     */
+    public static final String HOP_HEADER = "X-Equation-Cluster-Hop";
+    
+    private static final int NODE_INDEX_BITS = 10;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    
+    private final EquationServiceImpl equationService;
+    private final ObjectMapper objectMapper;
+    private final String selfUrl;
+    private final long nodeIndex;
+    private final List<String> seeds;
+    private final AtomicLong sequence = new AtomicLong(1);
+    private final Map<String, Long> nodeIndexes = new ConcurrentHashMap<>();
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+    private volatile ConsistentHashRing ring;
+    
+    public ClusterMembership(
+            EquationServiceImpl equationService,
+            ObjectMapper objectMapper,
+            @Value("${equation.cluster.self-url}") String selfUrl,
+            @Value("${equation.cluster.node-index:-1}") long nodeIndex,
+            @Value("${equation.cluster.seeds:}") List<String> seeds) {
+        this.equationService = equationService;
+        this.objectMapper = objectMapper;
+        this.selfUrl = normalize(selfUrl);
+        this.nodeIndex = nodeIndex;
+        if (nodeIndex < 0) {
+            throw new IllegalArgumentException("equation.cluster.node-index is required in cluster mode");
+        }
+        if (nodeIndex >= 1 << NODE_INDEX_BITS) {
+            throw new IllegalArgumentException("Node index must be below " + (1 << NODE_INDEX_BITS));
+        }
+        nodeIndexes.put(this.selfUrl, nodeIndex);
+        this.seeds = seeds.stream().filter(seed -> !seed.isBlank()).map(ClusterMembership::normalize).toList();
+        this.ring = new ConsistentHashRing(List.of(this.selfUrl), ConsistentHashRing.DEFAULT_VIRTUAL_NODES);
+        equationService.setIdAllocator(this::allocateId);
+        equationService.setReferencesAllowed(false);
+    }
+    
+    public String getSelfUrl() {
+        return selfUrl;
+    }
+    
+    public SortedSet<String> getMembers() {
+        return ring.getNodes();
+    }
+    
+    /**
+     * Returns the node that owns an equation ID.
+     *
+     * @param id The equation ID
+     * @return The owner's base URL
+     */
+    public String ownerOf(long id) {
+        return ring.ownerOf(id);
+    }
+    
+    public HttpClient getClient() {
+        return client;
+    }
+    
+    /**
+     * Builds a request to another node, marked so that it is not routed again.
+     *
+     * @param node The node's base URL
+     * @param pathAndQuery Path and query string to request
+     * @return A request builder with the hop header and timeout set
+     */
+    public HttpRequest.Builder request(String node, String pathAndQuery) {
+        return HttpRequest.newBuilder(URI.create(node + pathAndQuery))
+                .timeout(REQUEST_TIMEOUT)
+                .header(HOP_HEADER, selfUrl);
+    }
+    
+    /**
+     * Hands out the next ID that this node owns. Candidates owned by other
+     * nodes are skipped, which costs about one try per cluster member.
+     */
+    private long allocateId() {
+        while (true) {
+            long id = (sequence.getAndIncrement() << NODE_INDEX_BITS) | nodeIndex;
+            ConsistentHashRing current = ring;
+            if (!current.contains(selfUrl) || selfUrl.equals(current.ownerOf(id))) {
+                return id;
+            }
+        }
+    }
+    
+    /**
+     * Announces this node to the seeds and to every member they report.
+     * Unreachable seeds are skipped, so the first node of a cluster starts alone.
+     *
+     * @throws IllegalStateException if a member already uses this node's index, which stops startup
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void join() {
+        Deque<String> toAnnounce = new ArrayDeque<>(seeds);
+        Set<String> announced = new HashSet<>(Set.of(selfUrl));
+        while (!toAnnounce.isEmpty()) {
+            String node = toAnnounce.poll();
+            if (!announced.add(node)) {
+                continue;
+            }
+            try {
+                HttpRequest request = request(node, "/internal/cluster/members")
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                objectMapper.writeValueAsString(Map.of("url", selfUrl, "index", String.valueOf(nodeIndex)))))
+                        .build();
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() == 409) {
+                    throw new IllegalStateException("Node " + node + " refused this node: " + response.body());
+                }
+                if (response.statusCode() == 200) {
+                    Map<String, List<String>> body = objectMapper.readValue(response.body(), new TypeReference<>() { });
+                    for (String member : body.getOrDefault("members", List.of())) {
+                        addMember(member, null);
+                        toAnnounce.add(member);
+                    }
+                }
+            } catch (IOException e) {
+                // The node is not up; it will announce itself when it starts
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Hands every local equation to its new owner and tells the other members to
+     * drop this node. Runs before the web server stops, so routed requests still succeed.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public synchronized void leave() {
+        ConsistentHashRing remaining = ring.withoutNode(selfUrl);
+        if (remaining.isEmpty()) {
+            return;
+        }
+        ring = remaining;
+        rebalance();
+        for (String member : remaining.getNodes()) {
+            try {
+                HttpRequest request = request(member,
+                        "/internal/cluster/members?url=" + URLEncoder.encode(selfUrl, StandardCharsets.UTF_8))
+                        .DELETE()
+                        .build();
+                client.send(request, HttpResponse.BodyHandlers.discarding());
+            } catch (IOException e) {
+                // An unreachable member has already gone
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Adds a member and moves the equations it now owns to it.
+     *
+     * @param url The member's base URL
+     * @param index The member's node index, or null if it is not known here
+     * @return All members after the change
+     * @throws IllegalStateException if another member already uses the index
+     */
+    public synchronized SortedSet<String> addMember(String url, Long index) {
+        String member = normalize(url);
+        if (index != null) {
+            for (Map.Entry<String, Long> entry : nodeIndexes.entrySet()) {
+                if (entry.getValue().equals(index) && !entry.getKey().equals(member)) {
+                    throw new IllegalStateException("Node index " + index + " is already used by " + entry.getKey());
+                }
+            }
+            nodeIndexes.put(member, index);
+        }
+        if (!ring.contains(member)) {
+            ring = ring.withNode(member);
+            rebalance();
+        }
+        return ring.getNodes();
+    }
+    
+    /**
+     * Removes a member. Its equations are pushed here by the member itself as it leaves.
+     *
+     * @param url The member's base URL
+     */
+    public synchronized void removeMember(String url) {
+        String member = normalize(url);
+        if (!member.equals(selfUrl)) {
+            ring = ring.withoutNode(member);
+            nodeIndexes.remove(member);
+        }
+    }
+    
+    /**
+     * Stores an equation handed over by another node under its existing ID, with the
+     * version number, decimal mode and approximation it had there.
+     *
+     * @param id The equation ID
+     * @param transfer The equation and its settings
+     * @throws InvalidExpressionException if the equation or one of its settings is invalid
+     */
+    public void receiveEquation(Long id, EquationTransfer transfer) {
+        equationService.importEquation(id, transfer);
+    }
+    
+    /**
+     * Transfers every local equation owned by another node, with its decimal
+     * mode and approximation. An equation whose
+     * transfer fails stays here and is retried on the next membership change.
+     */
+    private void rebalance() {
+        for (Equation equation : equationService.getAllEquations()) {
+            String owner = ring.ownerOf(equation.getId());
+            EquationTransfer transfer = equationService.exportEquation(equation.getId());
+            if (owner.equals(selfUrl) || transfer == null) {
+                continue;
+            }
+            try {
+                HttpRequest request = request(owner, "/internal/cluster/equations/" + equation.getId())
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(transfer)))
+                        .build();
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() / 100 == 2) {
+                    equationService.removeEquation(equation.getId());
+                }
+            } catch (IOException e) {
+                // Keep the equation until a later rebalance reaches the owner
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    private static String normalize(String url) {
+        String trimmed = url.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+}
@@ -1,8 +1,11 @@
 package com.freightfox.service;
 
 import com.freightfox.model.*;
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Service interface for equation operations.
@@ -10,14 +13,33 @@ import java.util.Map;
 public interface EquationService {
     
     /**
-     * Stores an equation and returns its ID.
+     * Stores an equation and returns its ID. When stores are asynchronous the
+     * ID is returned before the equation is parsed, and an invalid equation is
+     * reported by {@link #getStoreStatus} and by later lookups instead.
      * 
      * @param equation The equation string to store
      * @return The ID of the stored equation
      * @throws InvalidExpressionException if the equation is invalid
+     * @throws ServerBusyException if the store queue is full
      */
     Long storeEquation(String equation);
     
+    /**
+     * Whether stores return before the equation is parsed and compiled.
+     * 
+     * @return True if stores are asynchronous
+     */
+    boolean isStoreAsync();
+    
+    /**
+     * Reports whether a stored equation is ready, still being processed, or failed.
+     * 
+     * @param id The equation ID
+     * @return The store status
+     * @throws EquationNotFoundException if no equation was stored under the ID
+     */
+    StoreStatus getStoreStatus(Long id);
+    
     /**
      * Retrieves all stored equations.
      * 
@@ -34,6 +56,31 @@ public interface EquationService {
      */
     Equation getEquationById(Long id);
     
+    /**
+     * Replaces the text of a stored equation, keeping its ID. The new version is
+     * parsed and compiled before it is published in one step. Evaluations that
+     * started on the previous version finish on it. Equations that reference this
+     * one are recompiled. Caches built from the previous version, such as
+     * derivatives, lookup tables and decimal modes, are dropped.
+     * 
+     * @param id The equation ID
+     * @param equation The new equation string
+     * @return The equation as now stored, with its new version number
+     * @throws EquationNotFoundException if the equation is not found
+     * @throws InvalidExpressionException if the equation is invalid or its references would form a cycle
+     */
+    Equation updateEquation(Long id, String equation);
+    
+    /**
+     * Returns the work units of one evaluation of an equation, from the cost
+     * model computed when it was stored.
+     * 
+     * @param id The equation ID
+     * @return Work units of one evaluation
+     * @throws EquationNotFoundException if the equation is not found
+     */
+    long getEvaluationCost(Long id);
+    
     /**
      * Evaluates an equation with given variable values.
      * 
@@ -44,4 +91,336 @@ public interface EquationService {
      * @throws InvalidExpressionException if the expression cannot be evaluated
      */
     double evaluateEquation(Long id, Map<String, Double> variables);
+    
+    /**
+     * Evaluates an equation and reports which version of it was evaluated.
+     * In decimal mode, the exact decimal result is included.
+     * 
+     * @param id The equation ID
+     * @param variables Map of variable names to their values
+     * @return The result, with the equation text and version it came from
+     * @throws EquationNotFoundException if the equation is not found
+     * @throws InvalidExpressionException if the expression cannot be evaluated
+     */
+    EvaluateEquationResponse evaluateVersioned(Long id, Map<String, Double> variables);
+    
+    /**
+     * Symbolically differentiates an equation and stores the simplified derivative
+     * as a new equation. Repeated requests for the same variable return the same ID.
+     * 
+     * @param id The equation ID
+     * @param variable The variable to differentiate by
+     * @return The ID of the stored derivative
+     * @throws EquationNotFoundException if the equation is not found
+     * @throws InvalidExpressionException if the derivative cannot be expressed
+     */
+    Long storeDerivative(Long id, String variable);
+    
+    /**
+     * Evaluates an equation and all of its partial derivatives in one pass.
+     * 
+     * @param id The equation ID
+     * @param variables Map of variable names to their values
+     * @return The value and the partial derivative for each variable, with the equation text and version they came from
+     * @throws EquationNotFoundException if the equation is not found
+     * @throws InvalidExpressionException if the expression cannot be evaluated
+     */
+    EvaluateGradientResponse evaluateGradient(Long id, Map<String, Double> variables);
+    
+    /**
+     * Solves an equation for one variable with the other variables fixed.
+     * 
+     * @param id The equation ID
+     * @param request The unknown variable, fixed variable values and solver options
+     * @return The root and how it was found, with the equation text and version solved
+     * @throws EquationNotFoundException if the equation is not found
+     * @throws InvalidExpressionException if the variables do not match the equation
+     * @throws SolverException if no root is found
+     * @throws DeadlineExceededException if the request's deadline passes first
+     */
+    SolveEquationResponse solveEquation(Long id, SolveEquationRequest request);
+    
+    /**
+     * Solves an equation for one variable over many parameter rows in parallel.
+     * 
+     * @param id The equation ID
+     * @param request The unknown variable, shared and per-row variable values and solver options
+     * @return One result per row, in row order, with the equation text and version solved; rows without a root carry an error
+     * @throws EquationNotFoundException if the equation is not found
+     * @throws InvalidExpressionException if a row is missing a variable
+     * @throws DeadlineExceededException if the request's deadline passes first
+     */
+    BatchSolveResponse solveBatch(Long id, BatchSolveRequest request);
+    
+    /**
+     * Evaluates an equation over a box of variable ranges.
+     * 
+     * @param id The equation ID
+     * @param ranges Map of variable names to their ranges
+     * @return A range guaranteed to enclose every value of the equation over the box, with the equation text and version
+     * @throws EquationNotFoundException if the equation is not found
+     * @throws InvalidExpressionException if a range is missing or malformed
+     */
+    EvaluateRangeResponse evaluateRange(Long id, Map<String, Interval> ranges);
+    
+    /**
+     * Estimates the distribution of an equation's result by sampling uncertain inputs.
+     * 
+     * @param id The equation ID
+     * @param request Input distributions, fixed variable values, sample count and summary options
+     * @return Moments, percentiles and a histogram of the finite results
+     * @throws EquationNotFoundException if the equation is not found
+     * @throws InvalidExpressionException if a variable or distribution is missing or malformed
+     * @throws DeadlineExceededException if the request's deadline passes first
+     */
+    SimulationResult simulate(Long id, SimulateRequest request);
+    
+    /**
+     * Integrates an equation over one variable with the other variables fixed.
+     * 
+     * @param id The equation ID
+     * @param request The variable, limits, fixed variable values and accuracy options
+     * @return The integral with its error estimate
+     * @throws EquationNotFoundException if the equation is not found
+     * @throws InvalidExpressionException if a variable is missing or the equation is not finite over the range
+     * @throws DeadlineExceededException if the request's deadline passes first
+     */
+    IntegrationResult integrate(Long id, IntegrateRequest request);
+    
+    /**
+     * Aggregates an equation over a lattice of inputs.
+     * 
+     * @param id The equation ID
+     * @param request The axes of the lattice and fixed variable values
+     * @return The sum, mean and extremes over the lattice, with where the extremes occur
+     * @throws EquationNotFoundException if the equation is not found
+     * @throws InvalidExpressionException if an axis or variable is missing or malformed
+     * @throws DeadlineExceededException if the request's deadline passes first
+     */
+    AggregationResult aggregate(Long id, AggregateRequest request);
+    
+    /**
+     * Starts evaluating an equation over every row of a CSV file in the job directory.
+     * 
+     * @param id The equation ID
+     * @param request Input and output paths, relative to the job directory
+     * @return The job's initial status
+     * @throws EquationNotFoundException if the equation is not found
+     * @throws InvalidExpressionException if file jobs are disabled or a path is outside the job directory
+     */
+    FileJobStatus startFileJob(Long id, FileJobRequest request);
+    
+    /**
+     * Reports the progress of a CSV evaluation job.
+     * 
+     * @param jobId The job ID
+     * @return The job's status and counts so far
+     * @throws JobNotFoundException if the job is not found
+     */
+    FileJobStatus getFileJob(String jobId);
+    
+    /**
+     * Queues a batch solve, simulation, integration, aggregation or CSV file evaluation
+     * to run in the background.
+     * 
+     * @param id The equation ID
+     * @param request The kind of job, its priority and timeout, and the work itself
+     * @return The job's initial status
+     * @throws EquationNotFoundException if the equation is not found
+     * @throws InvalidExpressionException if the request lacks the work for its kind
+     * @throws ServerBusyException if the job queue is full
+     */
+    JobStatus submitJob(Long id, JobRequest request);
+    
+    /**
+     * Reports the progress of a background job, with its result once it has finished.
+     * 
+     * @param jobId The job ID
+     * @return The job status
+     * @throws JobNotFoundException if the job is not found or has expired
+     */
+    JobStatus getJob(String jobId);
+    
+    /**
+     * Cancels a background job; a running job stops at its next check.
+     * 
+     * @param jobId The job ID
+     * @return The job status after the cancellation was requested
+     * @throws JobNotFoundException if the job is not found or has expired
+     */
+    JobStatus cancelJob(String jobId);
+    
+    /**
+     * Watches a background job. The listener receives the job's status while it
+     * runs and then its final status, after which it is dropped.
+     * 
+     * @param jobId The job ID
+     * @param listener Callback receiving status updates
+     * @throws JobNotFoundException if the job is not found or has expired
+     */
+    void watchJob(String jobId, Consumer<JobStatus> listener);
+    
+    /**
+     * Opens a stateful evaluation session that caches subtree values between updates.
+     * 
+     * @param id The equation ID
+     * @param variables Initial variable values, may be empty
+     * @return The session state, including the result if all variables are bound
+     * @throws EquationNotFoundException if the equation is not found
+     */
+    EvaluationSession createSession(Long id, Map<String, Double> variables);
+    
+    /**
+     * Updates variables in a session and recomputes only the affected subtrees.
+     * 
+     * @param sessionId The session ID
+     * @param variables The variables that changed
+     * @return The session state after the update
+     * @throws SessionNotFoundException if the session is not found
+     * @throws InvalidExpressionException if the expression cannot be evaluated
+     */
+    EvaluationSession updateSession(String sessionId, Map<String, Double> variables);
+    
+    /**
+     * Reads the current state of a session.
+     * 
+     * @param sessionId The session ID
+     * @return The session state
+     * @throws SessionNotFoundException if the session is not found
+     */
+    EvaluationSession getSession(String sessionId);
+    
+    /**
+     * Closes a session and releases its cached values.
+     * 
+     * @param sessionId The session ID
+     * @throws SessionNotFoundException if the session is not found
+     */
+    void closeSession(String sessionId);
+    
+    /**
+     * Starts building a lookup table for a single-variable equation over a range.
+     * The table is built in the background. Once it is verified to be within
+     * the error bound, evaluations inside the range are answered by
+     * interpolation. Evaluations outside the range, and all evaluations before
+     * then, stay exact. A new request replaces the previous table.
+     * 
+     * @param id The equation ID
+     * @param request The range, error bound and interpolation
+     * @return The status of the table, still building
+     * @throws EquationNotFoundException if the equation is not found
+     * @throws InvalidExpressionException if the equation does not have exactly one variable
+     */
+    ApproximationStatus approximate(Long id, ApproximationRequest request);
+    
+    /**
+     * Reports whether an equation's lookup table is building, in use or failed.
+     * 
+     * @param id The equation ID
+     * @return The status of the table
+     * @throws EquationNotFoundException if the equation or its table is not found
+     */
+    ApproximationStatus getApproximation(Long id);
+    
+    /**
+     * Drops an equation's lookup table, returning it to exact evaluation.
+     * 
+     * @param id The equation ID
+     * @throws EquationNotFoundException if the equation or its table is not found
+     */
+    void removeApproximation(Long id);
+    
+    /**
+     * Switches an equation to exact decimal evaluation at a fixed scale.
+     * Constants and values are read as their shortest decimal form and
+     * rounded to the scale, and products, quotients and powers are rounded
+     * to it with the given mode. A new request replaces the previous mode.
+     * 
+     * @param id The equation ID
+     * @param request The scale and rounding mode
+     * @return The decimal mode now in use
+     * @throws EquationNotFoundException if the equation is not found
+     * @throws InvalidExpressionException if the equation has an exponent that is not a whole-number constant
+     */
+    DecimalModeStatus setDecimalMode(Long id, DecimalModeRequest request);
+    
+    /**
+     * Reports an equation's decimal mode.
+     * 
+     * @param id The equation ID
+     * @return The scale and rounding mode
+     * @throws EquationNotFoundException if the equation or its decimal mode is not found
+     */
+    DecimalModeStatus getDecimalMode(Long id);
+    
+    /**
+     * Returns an equation to floating-point evaluation.
+     * 
+     * @param id The equation ID
+     * @throws EquationNotFoundException if the equation or its decimal mode is not found
+     */
+    void removeDecimalMode(Long id);
+    
+    /**
+     * Evaluates an equation in its decimal mode.
+     * 
+     * @param id The equation ID
+     * @param variables Map of variable names to their values
+     * @return The exact decimal result, or null if the equation has no decimal mode
+     * @throws EquationNotFoundException if the equation is not found
+     * @throws InvalidExpressionException if a variable is missing, a value is not finite, or a division is by zero
+     */
+    BigDecimal evaluateDecimal(Long id, Map<String, Double> variables);
+    
+    /**
+     * Evaluates several equations against one set of variable values.
+     * Subexpressions shared between the equations are evaluated once.
+     * 
+     * @param ids The equation IDs, in the order results should be returned
+     * @param variables Map of variable names to their values
+     * @return One result per ID; equations that cannot be evaluated carry an error
+     * @throws EquationNotFoundException if any equation is not found
+     */
+    List<EquationResult> evaluateMany(List<Long> ids, Map<String, Double> variables);
+    
+    /**
+     * Subscribes to result changes of a set of equations. The listener first
+     * receives the results under the current published variables, then the new
+     * results of whichever subscribed equations a later publish affects.
+     * A listener that throws is unsubscribed.
+     * 
+     * @param ids The equation IDs to watch
+     * @param listener Callback receiving changed results
+     * @return The subscription ID
+     * @throws EquationNotFoundException if any equation is not found
+     */
+    String subscribe(List<Long> ids, Consumer<List<EquationResult>> listener);
+    
+    /**
+     * Cancels a subscription. Unknown IDs are ignored.
+     * 
+     * @param subscriptionId The subscription ID
+     */
+    void unsubscribe(String subscriptionId);
+    
+    /**
+     * Publishes variable values to the shared environment that subscriptions are
+     * evaluated against. Only equations referencing a changed variable are
+     * re-evaluated, and bursts of publishes are coalesced before subscribers are notified.
+     * 
+     * @param updates Map of variable names to their new values
+     * @return IDs of the stored equations affected by the change
+     */
+    Set<Long> publishVariables(Map<String, Double> updates);
+    
+    /**
+     * Reads changes to the equation store after a sequence number, for replicas
+     * to apply in order. Waits up to the given time if there are none yet.
+     * 
+     * @param afterSequence The last sequence the reader has applied
+     * @param limit Maximum number of entries to return
+     * @param waitMillis How long to wait for a new change; zero returns immediately
+     * @return The entries, the latest sequence number in the log and the log's epoch
+     */
+    ChangeLogResponse readChangeLog(long afterSequence, int limit, long waitMillis);
 } 
\ No newline at end of file
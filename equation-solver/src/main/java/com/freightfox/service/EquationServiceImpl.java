@@ -1,13 +1,54 @@
 package com.freightfox.service;
 
+import com.freightfox.exception.DeadlineExceededException;
 import com.freightfox.exception.EquationNotFoundException;
 import com.freightfox.exception.InvalidExpressionException;
+import com.freightfox.exception.JobNotFoundException;
+import com.freightfox.exception.ReadOnlyReplicaException;
+import com.freightfox.exception.SessionNotFoundException;
 import com.freightfox.model.*;
+import com.freightfox.util.BatchSolver;
+import com.freightfox.util.ChangeLog;
+import com.freightfox.util.CompiledExpression;
+import com.freightfox.util.CsvEvaluator;
+import com.freightfox.util.Deadline;
+import com.freightfox.util.ExpressionDifferentiator;
+import com.freightfox.util.EvaluationBatcher;
 import com.freightfox.util.ExpressionParser;
+import com.freightfox.util.ExpressionRebalancer;
+import com.freightfox.util.FixedPointExpression;
+import com.freightfox.util.GridAggregator;
+import com.freightfox.util.IncrementalEvaluator;
+import com.freightfox.util.Integrator;
+import com.freightfox.util.LookupTable;
+import com.freightfox.util.MonteCarloSimulator;
+import com.freightfox.util.ReferenceInliner;
+import com.freightfox.util.RootFinder;
+import com.freightfox.util.SharedExpressionProgram;
+import com.freightfox.util.TrafficSample;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.stream.IntStream;
 
 /**
  * Implementation of the EquationService interface.
@@ -16,63 +57,1792 @@ import java.util.concurrent.atomic.AtomicLong;
 @Service
 public class EquationServiceImpl implements EquationService {
     
-    private final Map<Long, Equation> equations = new ConcurrentHashMap<>();
-    private final Map<Long, ExpressionNode> expressionTrees = new ConcurrentHashMap<>();
+    // Current version of each equation; an update publishes a new one with a single put
+    private final Map<Long, Version> versions = new ConcurrentHashMap<>();
+    private final Map<String, Long> derivatives = new ConcurrentHashMap<>();
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Map<List<Version>, SharedExpressionProgram> sharedPrograms = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<Version>, SharedExpressionProgram> eldest) {
+                    return size() > SHARED_PROGRAM_CACHE_SIZE;
+                }
+            });
+    private final Map<String, Set<Long>> equationsByVariable = new ConcurrentHashMap<>();
+    // Equations each equation references, and the reverse edges: equations that reference it
+    private final Map<Long, Set<Long>> equationReferences = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> dependents = new ConcurrentHashMap<>();
+    private final Map<String, Double> publishedVariables = new ConcurrentHashMap<>();
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final Set<Long> pendingNotifications = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService publisher = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "equation-publisher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<Long, EvaluationBatcher> batchers = new ConcurrentHashMap<>();
+    private final Map<Long, Approximation> approximations = new ConcurrentHashMap<>();
+    private final Map<Long, DecimalMode> decimalModes = new ConcurrentHashMap<>();
+    private final ExecutorService approximationBuilder = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "equation-approximation");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, FileJob> fileJobs = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, FileJob> eldest) {
+                    return size() > FILE_JOB_HISTORY;
+                }
+            });
     private final AtomicLong idCounter = new AtomicLong(1);
+    private volatile LongSupplier idAllocator = idCounter::getAndIncrement;
+    private volatile boolean referencesAllowed = true;
+    private final ChangeLog changeLog = new ChangeLog();
+    private final TrafficSample trafficSample = new TrafficSample(TRAFFIC_SAMPLE_SIZE, TRAFFIC_SAMPLE_EVERY);
+    private volatile String primaryUrl;
+    private final Map<Long, StorePipeline.Job> pendingStores = new ConcurrentHashMap<>();
+    private final Map<Long, String> failedStores = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+                    return size() > FAILED_STORE_HISTORY;
+                }
+            });
+    
+    private final boolean batchingEnabled;
+    private final long batchWindowMicros;
+    private final int maxBatchSize;
+    private final StorePipeline storePipeline;
+    private final Path jobDirectory;
+    // A service that runs its own scheduler creates it on first use; read through jobScheduler()
+    private JobScheduler jobScheduler;
+    private final boolean ownsJobScheduler;
+    private boolean shutDown;
+    
+    /** Deadline for requests that accept a {@code timeoutMillis} but were given none. */
+    public static final long DEFAULT_DEADLINE_MILLIS = 30_000;
+    
+    private static final long SESSION_IDLE_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+    private static final long PUBLISH_COALESCE_MILLIS = 50;
+    private static final int SHARED_PROGRAM_CACHE_SIZE = 256;
+    private static final int EVALUATE_MANY_CHUNK_SIZE = 64;
+    private static final int TRAFFIC_SAMPLE_SIZE = 1024;
+    private static final int TRAFFIC_SAMPLE_EVERY = 16;
+    private static final int FAILED_STORE_HISTORY = 1024;
+    private static final int FILE_JOB_HISTORY = 256;
+    
+    /**
+     * Creates a service that evaluates every request on its caller's thread.
+     */
+    public EquationServiceImpl() {
+        this(false, 0, 1);
+    }
+    
+    /**
+     * Creates a service, optionally coalescing concurrent evaluations of the same equation.
+     * 
+     * @param batchingEnabled Whether concurrent evaluations are batched
+     * @param batchWindowMicros How long the first request of a batch waits for others
+     * @param maxBatchSize Number of requests that closes a batch early
+     */
+    public EquationServiceImpl(boolean batchingEnabled, long batchWindowMicros, int maxBatchSize) {
+        this(batchingEnabled, batchWindowMicros, maxBatchSize, false, 1, 1, "");
+    }
+    
+    /**
+     * Creates a service, optionally batching evaluations, storing equations in the background
+     * and running file jobs, with a job scheduler of its own. The scheduler's threads are
+     * started by the first job and stopped by {@link #shutdownPublisher}.
+     * 
+     * @param batchingEnabled Whether concurrent evaluations are batched
+     * @param batchWindowMicros How long the first request of a batch waits for others
+     * @param maxBatchSize Number of requests that closes a batch early
+     * @param asyncStore Whether stores return an ID before the equation is parsed and compiled
+     * @param storeQueueCapacity Stores that may wait for the background pipeline
+     * @param storeBatchSize Stores the pipeline takes from its queue at a time
+     * @param jobDirectory Directory that file jobs read from and write to; blank disables file jobs
+     */
+    public EquationServiceImpl(boolean batchingEnabled, long batchWindowMicros, int maxBatchSize,
+                               boolean asyncStore, int storeQueueCapacity, int storeBatchSize, String jobDirectory) {
+        this(batchingEnabled, batchWindowMicros, maxBatchSize, asyncStore, storeQueueCapacity, storeBatchSize,
+                jobDirectory, null);
+    }
+    
+    /**
+     * Creates a service, optionally batching evaluations, storing equations in the background
+     * and running file jobs.
+     * 
+     * @param batchingEnabled Whether concurrent evaluations are batched
+     * @param batchWindowMicros How long the first request of a batch waits for others
+     * @param maxBatchSize Number of requests that closes a batch early
+     * @param asyncStore Whether stores return an ID before the equation is parsed and compiled
+     * @param storeQueueCapacity Stores that may wait for the background pipeline
+     * @param storeBatchSize Stores the pipeline takes from its queue at a time
+     * @param jobDirectory Directory that file jobs read from and write to; blank disables file jobs
+     * @param jobScheduler Runs background jobs, including file jobs; null for one of the service's own
+     */
+    @Autowired
+    public EquationServiceImpl(
+            @Value("${equation.batching.enabled:false}") boolean batchingEnabled,
+            @Value("${equation.batching.window-micros:200}") long batchWindowMicros,
+            @Value("${equation.batching.max-size:64}") int maxBatchSize,
+            @Value("${equation.store.async:false}") boolean asyncStore,
+            @Value("${equation.store.queue-capacity:10000}") int storeQueueCapacity,
+            @Value("${equation.store.batch-size:64}") int storeBatchSize,
+            @Value("${equation.jobs.directory:}") String jobDirectory,
+            JobScheduler jobScheduler) {
+        if (batchWindowMicros < 0 || maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batch window must be non-negative and batch size positive");
+        }
+        if (storeQueueCapacity < 1 || storeBatchSize < 1) {
+            throw new IllegalArgumentException("Store queue capacity and batch size must be positive");
+        }
+        this.batchingEnabled = batchingEnabled;
+        this.batchWindowMicros = batchWindowMicros;
+        this.maxBatchSize = maxBatchSize;
+        this.storePipeline = asyncStore ? new StorePipeline(storeQueueCapacity, storeBatchSize, this::processStore) : null;
+        this.jobDirectory = jobDirectory.isBlank() ? null : Path.of(jobDirectory).toAbsolutePath().normalize();
+        this.jobScheduler = jobScheduler;
+        this.ownsJobScheduler = jobScheduler == null;
+    }
     
     @Override
     public Long storeEquation(String equation) {
+        checkWritable();
+        if (storePipeline != null) {
+            // Reserve the ID now; the pipeline or the first reader parses and compiles it
+            Long id = idAllocator.getAsLong();
+            StorePipeline.Job job = new StorePipeline.Job(id, equation);
+            pendingStores.put(id, job);
+            try {
+                storePipeline.submit(job);
+            } catch (RuntimeException e) {
+                pendingStores.remove(id);
+                throw e;
+            }
+            return id;
+        }
+        return storeNow(equation);
+    }
+    
+    @Override
+    public boolean isStoreAsync() {
+        return storePipeline != null;
+    }
+    
+    @Override
+    public StoreStatus getStoreStatus(Long id) {
+        if (versions.containsKey(id)) {
+            return new StoreStatus(id, StoreStatus.READY, null);
+        }
+        if (pendingStores.containsKey(id)) {
+            return new StoreStatus(id, StoreStatus.PENDING, null);
+        }
+        String error = failedStores.get(id);
+        if (error != null) {
+            return new StoreStatus(id, StoreStatus.FAILED, error);
+        }
+        // The job may have finished between the checks above
+        if (versions.containsKey(id)) {
+            return new StoreStatus(id, StoreStatus.READY, null);
+        }
+        throw new EquationNotFoundException("Equation with ID " + id + " not found");
+    }
+    
+    /**
+     * Parses and stores an equation on the calling thread.
+     */
+    private Long storeNow(String equation) {
+        // Parse and validate the expression, inlining the equations it references
+        Inlined inlined = inline(null, equation);
+        
+        // Generate new ID
+        Long id = idAllocator.getAsLong();
+        
+        register(id, equation, inlined, true, null);
+        return id;
+    }
+    
+    /**
+     * Parses, compiles and registers a queued store. Runs on the pipeline
+     * worker, or inline on a reader that claimed the job first.
+     */
+    private void processStore(StorePipeline.Job job) {
         try {
-            // Parse and validate the expression
-            ExpressionNode expressionTree = ExpressionParser.parseExpression(equation);
-            
-            // Generate new ID
-            Long id = idCounter.getAndIncrement();
+            register(job.id, job.equation, inline(null, job.equation), true, null);
+            job.done.complete(null);
+        } catch (RuntimeException e) {
+            // Record the failure before the ID stops being pending, so status never reports it missing
+            failedStores.put(job.id, e.getMessage());
+            job.done.completeExceptionally(e);
+        } finally {
+            pendingStores.remove(job.id);
+        }
+    }
+    
+    /**
+     * Makes sure a queued store of this ID has been processed, compiling it
+     * inline if the pipeline has not started on it yet.
+     * 
+     * @param id The equation ID
+     * @throws InvalidExpressionException if the queued equation failed to parse
+     * @throws DeadlineExceededException if the pipeline takes too long to finish it
+     */
+    private void awaitStored(Long id) {
+        StorePipeline.Job job = pendingStores.get(id);
+        if (job != null) {
+            if (job.claim()) {
+                processStore(job);
+            }
+            try {
+                job.done.get(DEFAULT_DEADLINE_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                // Reported below from the failure record
+            } catch (TimeoutException e) {
+                throw new DeadlineExceededException("Equation with ID " + id + " is still being stored");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DeadlineExceededException("Interrupted while waiting for equation with ID " + id);
+            }
+        }
+        if (!versions.containsKey(id)) {
+            String error = failedStores.get(id);
+            if (error != null) {
+                throw new InvalidExpressionException(error);
+            }
+        }
+    }
+    
+    /**
+     * Looks up a stored equation, waiting for it if it is still being stored.
+     */
+    private Equation findEquation(Long id) {
+        return findVersion(id).equation();
+    }
+    
+    /**
+     * Looks up the current version of a stored equation, waiting for it if it
+     * is still being stored. The caller works on that version throughout, even
+     * if the equation is updated meanwhile.
+     */
+    private Version findVersion(Long id) {
+        awaitStored(id);
+        Version version = versions.get(id);
+        if (version == null) {
+            throw new EquationNotFoundException("Equation with ID " + id + " not found");
+        }
+        return version;
+    }
+    
+    /**
+     * Stores an equation under an ID and version number chosen elsewhere,
+     * replacing any equation with that ID. Used when equations move between
+     * cluster nodes and when replicas apply changes, so the version a client
+     * sees does not depend on the node that answers. Equations that reference
+     * it are recompiled. Since the sender's text is authoritative, a decimal
+     * mode or approximation that cannot be kept for it is dropped.
+     * 
+     * @param id The equation ID
+     * @param equation The equation string
+     * @param version The version number the sender gave it, or null to number it after the current one
+     * @throws InvalidExpressionException if the equation is invalid or its references would form a cycle
+     */
+    void putEquation(Long id, String equation, Long version) {
+        register(id, equation, inline(id, equation), false, version);
+        recompileDependents(id);
+    }
+    
+    /**
+     * Returns the version number of an equation, for replicas applying stores
+     * that may arrive out of order.
+     * 
+     * @param id The equation ID
+     * @return The current version number, or null if the equation is not stored here
+     */
+    Long findVersionNumber(Long id) {
+        Version version = versions.get(id);
+        return version != null ? version.equation().getVersion() : null;
+    }
+    
+    /**
+     * Returns an equation with its decimal mode and approximation, for handing
+     * it to another cluster node.
+     * 
+     * @param id The equation ID
+     * @return The equation and its settings, or null if it is not stored here
+     */
+    EquationTransfer exportEquation(Long id) {
+        Version version = versions.get(id);
+        if (version == null) {
+            return null;
+        }
+        DecimalMode decimalMode = decimalModes.get(id);
+        Approximation approximation = approximations.get(id);
+        return new EquationTransfer(version.equation().getEquation(), version.equation().getVersion(),
+                decimalMode != null && decimalMode.version() == version ? new DecimalModeRequest(
+                        decimalMode.status().getScale(), decimalMode.status().getRounding()) : null,
+                approximation != null && approximation.version() == version ? approximation.request() : null);
+    }
+    
+    /**
+     * Stores an equation handed over by another cluster node under its existing
+     * ID and version number, with exactly the decimal mode and approximation it
+     * had there.
+     * 
+     * @param id The equation ID
+     * @param transfer The equation and its settings
+     * @throws InvalidExpressionException if the equation or one of its settings is invalid
+     */
+    void importEquation(Long id, EquationTransfer transfer) {
+        putEquation(id, transfer.getEquation(), transfer.getVersion());
+        if (transfer.getDecimalMode() != null) {
+            installDecimalMode(id, transfer.getDecimalMode());
+        } else {
+            dropDecimalMode(id);
+        }
+        if (transfer.getApproximation() != null) {
+            installApproximation(id, transfer.getApproximation());
+        } else {
+            dropApproximation(id);
+        }
+    }
+    
+    /**
+     * Recompiles every equation that references this one, directly or through
+     * others, each after the equations it references. A dependent whose
+     * references can no longer be resolved, or whose decimal mode or
+     * approximation cannot be kept, keeps its previous version.
+     */
+    private void recompileDependents(Long id) {
+        synchronized (dependents) {
+            for (Long dependent : dependentsInOrder(id)) {
+                Version current = versions.get(dependent);
+                if (current == null) {
+                    continue;
+                }
+                String equation = current.equation().getEquation();
+                try {
+                    install(dependent, equation, inline(dependent, equation), true, null);
+                } catch (InvalidExpressionException e) {
+                    // Keeps the previous version
+                }
+            }
+        }
+    }
+    
+    /**
+     * Lists the equations that depend on one, directly or through others, so that
+     * each comes after every equation it references.
+     */
+    private List<Long> dependentsInOrder(Long id) {
+        // Reverse postorder of a depth-first walk along the dependents edges
+        List<Long> finished = new ArrayList<>();
+        Set<Long> visited = new HashSet<>();
+        Deque<Map.Entry<Long, Iterator<Long>>> path = new ArrayDeque<>();
+        visited.add(id);
+        path.push(Map.entry(id, List.copyOf(dependents.getOrDefault(id, Set.of())).iterator()));
+        while (!path.isEmpty()) {
+            Iterator<Long> next = path.peek().getValue();
+            if (next.hasNext()) {
+                Long dependent = next.next();
+                if (visited.add(dependent)) {
+                    path.push(Map.entry(dependent, List.copyOf(dependents.getOrDefault(dependent, Set.of())).iterator()));
+                }
+            } else {
+                finished.add(path.pop().getKey());
+            }
+        }
+        Collections.reverse(finished);
+        return finished.subList(1, finished.size());
+    }
+    
+    /**
+     * Removes an equation and everything derived from it on this node.
+     * 
+     * @param id The equation ID
+     * @return True if the equation was stored here
+     */
+    boolean removeEquation(Long id) {
+        boolean removed = unregister(id);
+        if (removed) {
+            changeLog.append(ChangeLogEntry.REMOVE, id, null);
+        }
+        return removed;
+    }
+    
+    private boolean unregister(Long id) {
+        Version removed = versions.remove(id);
+        // Equations referencing this one keep their inlined copy and the edge, and are recompiled if it returns
+        Set<Long> references = equationReferences.remove(id);
+        if (references != null) {
+            for (Long reference : references) {
+                dependents.getOrDefault(reference, Set.of()).remove(id);
+            }
+        }
+        if (removed != null) {
+            for (String variable : removed.compiled().getVariables()) {
+                equationsByVariable.getOrDefault(variable, Set.of()).remove(id);
+            }
+        }
+        invalidate(id);
+        approximations.remove(id);
+        decimalModes.remove(id);
+        derivatives.values().removeIf(id::equals);
+        return removed != null;
+    }
+    
+    /**
+     * Drops everything cached for an equation's previous versions. Decimal modes
+     * and approximations are settings rather than caches, and are carried over
+     * by {@link #install}.
+     */
+    private void invalidate(Long id) {
+        batchers.remove(id);
+        derivatives.keySet().removeIf(key -> key.startsWith(id + ":"));
+        sharedPrograms.keySet().removeIf(key -> key.stream().anyMatch(version -> version.equation().getId().equals(id)));
+    }
+    
+    /**
+     * Replaces how new equation IDs are chosen. Cluster mode uses this to hand
+     * out IDs that this node owns.
+     * 
+     * @param idAllocator Supplier of unused IDs
+     */
+    void setIdAllocator(LongSupplier idAllocator) {
+        this.idAllocator = idAllocator;
+    }
+    
+    /**
+     * Allows or refuses equations that reference other stored equations.
+     * Cluster mode refuses them: a reference resolves only against this node,
+     * while the referenced equation may be owned, updated or moved elsewhere.
+     * 
+     * @param referencesAllowed Whether {@code @id} references may be stored
+     */
+    void setReferencesAllowed(boolean referencesAllowed) {
+        this.referencesAllowed = referencesAllowed;
+    }
+    
+    /**
+     * Makes this node a read-only replica. Stores are refused with a pointer to
+     * the primary; replicated changes are applied through {@link #putEquation}
+     * and {@link #removeEquation}.
+     * 
+     * @param primaryUrl Base URL of the primary
+     */
+    void setReadOnly(String primaryUrl) {
+        this.primaryUrl = primaryUrl;
+    }
+    
+    /**
+     * Returns a sample of recent evaluations, which warm-up replays after a restart.
+     * 
+     * @return Recorded evaluations, oldest first
+     */
+    List<WarmupSample> getTrafficSample() {
+        return trafficSample.snapshot();
+    }
+    
+    /**
+     * Returns the variables an equation references, in slot order.
+     * 
+     * @param id The equation ID
+     * @return The variable names
+     * @throws EquationNotFoundException if the equation is not found
+     */
+    String[] getVariableNames(Long id) {
+        return findVersion(id).compiled().getVariables();
+    }
+    
+    private void checkWritable() {
+        if (primaryUrl != null) {
+            throw new ReadOnlyReplicaException("This node is a read-only replica; store equations on the primary", primaryUrl);
+        }
+    }
+    
+    @Override
+    public ChangeLogResponse readChangeLog(long afterSequence, int limit, long waitMillis) {
+        try {
+            List<ChangeLogEntry> entries = changeLog.readAfter(afterSequence, limit, waitMillis);
+            return new ChangeLogResponse(entries, changeLog.getLastSequence(), changeLog.getEpoch());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ChangeLogResponse(List.of(), changeLog.getLastSequence(), changeLog.getEpoch());
+        }
+    }
+    
+    private static ExpressionNode parse(String equation) {
+        try {
+            // Long generated sums and products would otherwise be as deep as they are long
+            return ExpressionRebalancer.rebalance(ExpressionParser.parseExpression(equation));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidExpressionException("Invalid equation: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Parses an equation and inlines the stored equations it references.
+     * 
+     * @param id The ID the equation replaces, or null for a new equation
+     * @param equation The equation string
+     * @return The inlined tree and the IDs it references
+     * @throws InvalidExpressionException if the equation is invalid, a reference is not stored,
+     *         or the references would form a cycle
+     */
+    private Inlined inline(Long id, String equation) {
+        ExpressionNode source = parse(equation);
+        Set<Long> references = ReferenceInliner.references(source);
+        if (references.isEmpty()) {
+            return new Inlined(source, references, List.of());
+        }
+        if (!referencesAllowed) {
+            throw new InvalidExpressionException("Invalid equation: equation references are not supported in cluster mode");
+        }
+        // Cycles are checked when the equation is installed, under the same lock as its edges
+        List<Version> sources = new ArrayList<>();
+        try {
+            ExpressionNode tree = ReferenceInliner.inline(source, reference -> {
+                Version version = referencedVersion(reference);
+                sources.add(version);
+                return version.tree();
+            });
+            return new Inlined(tree, references, sources);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidExpressionException("Invalid equation: " + e.getMessage(), e);
+        }
+    }
+    
+    private Version referencedVersion(long id) {
+        awaitStored(id);
+        Version version = versions.get(id);
+        if (version == null) {
+            throw new InvalidExpressionException("Invalid equation: referenced equation with ID " + id + " not found");
+        }
+        return version;
+    }
+    
+    /**
+     * Throws if an equation would reference itself, or anything that already depends on it.
+     * Called while holding the lock on {@link #dependents}.
+     */
+    private void checkNotCircular(Long id, Set<Long> references) {
+        if (references.isEmpty()) {
+            return;
+        }
+        List<Long> dependentIds = dependentsInOrder(id);
+        for (Long reference : references) {
+            if (reference.equals(id) || dependentIds.contains(reference)) {
+                throw new InvalidExpressionException("Invalid equation: reference to equation " + reference
+                        + " would be circular");
+            }
+        }
+    }
+    
+    private Version register(Long id, String equation, Inlined inlined, boolean keepModes, Long number) {
+        Version published = install(id, equation, inlined, keepModes, number);
+        ChangeLogEntry entry = new ChangeLogEntry(0, ChangeLogEntry.STORE, id, equation, 0);
+        entry.setVersion(published.equation().getVersion());
+        changeLog.append(entry);
+        return published;
+    }
+    
+    /**
+     * Compiles an equation and publishes it as the next version under its ID.
+     * Everything derived from the text is built first and swapped in with one
+     * put, so readers see either the previous version or this one, whole.
+     * Caches built from the previous version are dropped afterwards, while its
+     * decimal mode is recompiled and its approximation rebuilt for the new one.
+     *
+     * @param keepModes Whether to refuse the equation, rather than drop a mode, if a mode cannot be kept
+     * @param number The version number to publish it as, or null for one more than the current version
+     * @throws InvalidExpressionException if a mode cannot be kept and {@code keepModes} is set,
+     *         or if the references would form a cycle
+     */
+    private Version install(Long id, String equation, Inlined inlined, boolean keepModes, Long number) {
+        while (true) {
+            Version published = tryInstall(id, equation, inlined, keepModes, number);
+            if (published != null) {
+                return published;
+            }
+            // A referenced equation changed after it was inlined; inline its new version
+            inlined = inline(id, equation);
+        }
+    }
+    
+    /**
+     * Does the work of {@link #install}. The cycle check, the dependents edges and
+     * the swap happen under the lock on {@link #dependents}, so two updates cannot
+     * both pass the check and close a cycle between them.
+     *
+     * @return The published version, or null if a referenced equation changed since it was inlined
+     */
+    private Version tryInstall(Long id, String equation, Inlined inlined, boolean keepModes, Long number) {
+        ExpressionNode expressionTree = inlined.tree();
+        CompiledExpression compiled = CompiledExpression.compile(expressionTree);
+        ExpressionCost cost = ExpressionCost.of(expressionTree);
+        
+        DecimalMode decimalMode = decimalModes.get(id);
+        FixedPointExpression decimalProgram = null;
+        if (decimalMode != null) {
+            try {
+                decimalProgram = FixedPointExpression.compile(expressionTree, compiled.getVariables(),
+                        decimalMode.status().getScale(), RoundingMode.valueOf(decimalMode.status().getRounding()));
+            } catch (IllegalArgumentException e) {
+                if (keepModes) {
+                    throw new InvalidExpressionException("Equation " + id
+                            + " has a decimal mode that cannot be kept: " + e.getMessage(), e);
+                }
+            }
+        }
+        Approximation approximation = approximations.get(id);
+        if (approximation != null && compiled.getVariables().length != 1 && keepModes) {
+            throw new InvalidExpressionException("Equation " + id
+                    + " has an approximation, so it must keep exactly one variable");
+        }
+        
+        Version[] previous = new Version[1];
+        Version published;
+        synchronized (dependents) {
+            for (Version source : inlined.sources()) {
+                if (versions.get(source.equation().getId()) != source) {
+                    return null;
+                }
+            }
+            checkNotCircular(id, inlined.references());
+            for (String variable : compiled.getVariables()) {
+                equationsByVariable.computeIfAbsent(variable, key -> ConcurrentHashMap.newKeySet()).add(id);
+            }
+            for (Long reference : inlined.references()) {
+                dependents.computeIfAbsent(reference, key -> ConcurrentHashMap.newKeySet()).add(id);
+            }
             
-            // Store the equation and its expression tree
-            equations.put(id, new Equation(id, equation));
-            expressionTrees.put(id, expressionTree);
+            published = versions.compute(id, (key, current) -> {
+                previous[0] = current;
+                long next = number != null ? number : current != null ? current.equation().getVersion() + 1 : 1;
+                return new Version(new Equation(id, equation, cost, next), expressionTree, compiled);
+            });
             
-            return id;
+            Set<Long> oldReferences = inlined.references().isEmpty()
+                    ? equationReferences.remove(id) : equationReferences.put(id, inlined.references());
+            if (oldReferences != null) {
+                for (Long reference : oldReferences) {
+                    if (!inlined.references().contains(reference)) {
+                        dependents.getOrDefault(reference, Set.of()).remove(id);
+                    }
+                }
+            }
+        }
+        if (previous[0] != null) {
+            Set<String> variables = Set.of(compiled.getVariables());
+            for (String variable : previous[0].compiled().getVariables()) {
+                if (!variables.contains(variable)) {
+                    equationsByVariable.getOrDefault(variable, Set.of()).remove(id);
+                }
+            }
+            invalidate(id);
+            carryModes(id, previous[0], published, decimalMode, decimalProgram);
+        }
+        return published;
+    }
+    
+    /**
+     * Moves an equation's decimal mode and approximation from the version it
+     * replaced to the newly published one. Both are set only against the current
+     * version, so one set for the previous version after {@link #tryInstall}
+     * looked is moved here too, and one set for the new version is kept.
+     *
+     * @param decimalMode The mode {@link #tryInstall} compiled {@code decimalProgram} for, or null
+     */
+    private void carryModes(Long id, Version previous, Version published, DecimalMode decimalMode,
+                            FixedPointExpression decimalProgram) {
+        decimalModes.computeIfPresent(id, (key, current) -> {
+            if (current.version() != previous) {
+                return current;
+            }
+            FixedPointExpression program = current == decimalMode ? decimalProgram
+                    : compileDecimalQuietly(published, current.status());
+            return program != null ? new DecimalMode(published, current.status(), program) : null;
+        });
+        Approximation[] rebuilt = new Approximation[1];
+        approximations.computeIfPresent(id, (key, current) -> {
+            if (current.version() != previous) {
+                return current;
+            }
+            if (published.compiled().getVariables().length != 1) {
+                return null;
+            }
+            rebuilt[0] = building(published, current.request());
+            return rebuilt[0];
+        });
+        if (rebuilt[0] != null) {
+            startBuilding(rebuilt[0]);
+        }
+    }
+    
+    private static FixedPointExpression compileDecimalQuietly(Version version, DecimalModeStatus status) {
+        try {
+            return FixedPointExpression.compile(version.tree(), version.compiled().getVariables(), status.getScale(),
+                    RoundingMode.valueOf(status.getRounding()));
         } catch (IllegalArgumentException e) {
-            throw new InvalidExpressionException("Invalid equation: " + e.getMessage(), e);
+            return null;
         }
     }
     
     @Override
     public List<Equation> getAllEquations() {
-        return new ArrayList<>(equations.values());
+        List<Equation> all = new ArrayList<>(versions.size());
+        for (Version version : versions.values()) {
+            all.add(version.equation());
+        }
+        return all;
     }
     
     @Override
     public Equation getEquationById(Long id) {
-        Equation equation = equations.get(id);
-        if (equation == null) {
-            throw new EquationNotFoundException("Equation with ID " + id + " not found");
-        }
-        return equation;
+        return findEquation(id);
+    }
+    
+    @Override
+    public Equation updateEquation(Long id, String equation) {
+        checkWritable();
+        findVersion(id);
+        // Parsed and compiled on the caller's thread; readers keep using the current version until the swap
+        Version published = register(id, equation, inline(id, equation), true, null);
+        recompileDependents(id);
+        return published.equation();
+    }
+    
+    @Override
+    public long getEvaluationCost(Long id) {
+        return getEquationById(id).getCost().getUnits();
     }
     
     @Override
     public double evaluateEquation(Long id, Map<String, Double> variables) {
-        // Check if equation exists
-        if (!equations.containsKey(id)) {
-            throw new EquationNotFoundException("Equation with ID " + id + " not found");
+        return evaluate(findVersion(id), variables);
+    }
+    
+    @Override
+    public EvaluateEquationResponse evaluateVersioned(Long id, Map<String, Double> variables) {
+        // Both results come from the one version, whatever is published meanwhile
+        Version version = findVersion(id);
+        Equation equation = version.equation();
+        BigDecimal decimal = evaluateDecimal(version, variables);
+        double result = decimal != null ? decimal.doubleValue() : evaluate(version, variables);
+        
+        EvaluateEquationResponse response = new EvaluateEquationResponse(id, equation.getEquation(), variables, result);
+        response.setVersion(equation.getVersion());
+        if (decimal != null) {
+            response.setDecimalResult(decimal.toPlainString());
         }
+        return response;
+    }
+    
+    private double evaluate(Version version, Map<String, Double> variables) {
+        Long id = version.equation().getId();
+        Equation equation = version.equation();
         
-        // Get the expression tree
-        ExpressionNode expressionTree = expressionTrees.get(id);
-        if (expressionTree == null) {
-            throw new InvalidExpressionException("Expression tree not found for equation ID " + id);
+        // The compiled program: powers are strength-reduced and polynomials run in Horner form
+        CompiledExpression compiled = version.compiled();
+        try {
+            Approximation approximation = approximations.get(id);
+            if (approximation != null && approximation.version() == version && approximation.table() != null) {
+                Double x = variables.get(approximation.status().getVariable());
+                if (x != null && approximation.table().covers(x)) {
+                    double result = approximation.table().evaluate(x);
+                    trafficSample.record(equation.getEquation(), variables);
+                    return result;
+                }
+            }
+            if (batchingEnabled) {
+                double result = evaluateBatched(version, variables);
+                trafficSample.record(equation.getEquation(), variables);
+                return result;
+            }
+            double result = compiled.evaluate(compiled.bind(variables));
+            trafficSample.record(equation.getEquation(), variables);
+            return result;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidExpressionException("Error evaluating equation: " + e.getMessage(), e);
+        } catch (ArithmeticException e) {
+            throw new InvalidExpressionException("Arithmetic error: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Evaluates through the equation's batcher so that concurrent callers share one columnar pass.
+     */
+    private double evaluateBatched(Version version, Map<String, Double> variables) {
+        Long id = version.equation().getId();
+        CompiledExpression compiled = version.compiled();
+        double[] values = compiled.bind(variables);
+        EvaluationBatcher batcher = batchers.get(id);
+        if (batcher == null || batcher.getCompiled() != compiled) {
+            if (versions.get(id) != version) {
+                // Superseded while this call ran: finish on its own version without a batcher
+                return compiled.evaluate(values);
+            }
+            batcher = batchers.compute(id, (key, current) -> current != null && current.getCompiled() == compiled
+                    ? current : new EvaluationBatcher(compiled, batchWindowMicros, maxBatchSize));
+        }
+        try {
+            return batcher.submit(values).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
         }
+    }
+    
+    @Override
+    public Long storeDerivative(Long id, String variable) {
+        checkWritable();
+        if (variable == null || !variable.matches("[a-zA-Z]")) {
+            throw new InvalidExpressionException("Variable must be a single letter: " + variable);
+        }
+        Version version = findVersion(id);
+        ExpressionNode expressionTree = version.tree();
+        
+        // Keyed by version too, so a derivative of an older version is never handed out for a newer one
+        return derivatives.computeIfAbsent(id + ":" + version.equation().getVersion() + ":" + variable, key -> {
+            try {
+                ExpressionNode derivative = ExpressionDifferentiator.differentiate(expressionTree, variable);
+                checkFinite(derivative);
+                // Stored synchronously, since the caller expects the derivative to be usable at once
+                return storeNow(derivative.toString());
+            } catch (IllegalArgumentException e) {
+                throw new InvalidExpressionException("Cannot differentiate equation: " + e.getMessage(), e);
+            }
+        });
+    }
+    
+    /**
+     * Rejects a derived tree holding a constant that its printed form could not
+     * carry back through the parser.
+     */
+    private static void checkFinite(ExpressionNode tree) {
+        for (ExpressionNode node : ExpressionNode.postOrder(tree)) {
+            if (node instanceof ConstantNode constant && !Double.isFinite(constant.getValue())) {
+                throw new InvalidExpressionException("Cannot differentiate equation: derivative has a non-finite constant "
+                        + constant.getValue());
+            }
+        }
+    }
+    
+    @Override
+    public EvaluateGradientResponse evaluateGradient(Long id, Map<String, Double> variables) {
+        Version version = findVersion(id);
+        CompiledExpression compiled = version.compiled();
         
         try {
-            // Evaluate the expression tree
-            return expressionTree.evaluate(variables);
+            String[] names = compiled.getVariables();
+            double[] gradient = new double[names.length];
+            double value = compiled.evaluateGradient(compiled.bind(variables), gradient);
+            
+            Map<String, Double> partials = new LinkedHashMap<>();
+            for (int i = 0; i < names.length; i++) {
+                partials.put(names[i], gradient[i]);
+            }
+            EvaluateGradientResponse response = new EvaluateGradientResponse(
+                    id, version.equation().getEquation(), variables, value, partials);
+            response.setVersion(version.equation().getVersion());
+            return response;
         } catch (IllegalArgumentException e) {
             throw new InvalidExpressionException("Error evaluating equation: " + e.getMessage(), e);
         } catch (ArithmeticException e) {
             throw new InvalidExpressionException("Arithmetic error: " + e.getMessage(), e);
         }
     }
+    
+    @Override
+    public SolveEquationResponse solveEquation(Long id, SolveEquationRequest request) {
+        Version version = findVersion(id);
+        CompiledExpression compiled = version.compiled();
+        
+        try {
+            RootFinder finder = newRootFinder(compiled, request);
+            finder.setDeadline(deadlineOf(request));
+            double[] parameters = bindParameters(compiled, request.getVariable(), request.getVariables());
+            double target = request.getTarget() != null ? request.getTarget() : 0.0;
+            
+            SolveResult result = finder.solve(parameters, target,
+                    request.getInitialGuess(), request.getLowerBound(), request.getUpperBound());
+            SolveEquationResponse response = new SolveEquationResponse(
+                    id, version.equation().getEquation(), request.getVariable(), request.getVariables(), result);
+            response.setVersion(version.equation().getVersion());
+            return response;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidExpressionException("Error solving equation: " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public BatchSolveResponse solveBatch(Long id, BatchSolveRequest request) {
+        Version version = findVersion(id);
+        List<SolveResult> results = solveBatch(version, request, deadlineOf(request));
+        BatchSolveResponse response = new BatchSolveResponse(
+                id, version.equation().getEquation(), request.getVariable(), results);
+        response.setVersion(version.equation().getVersion());
+        return response;
+    }
+    
+    private List<SolveResult> solveBatch(Version version, BatchSolveRequest request, Deadline deadline) {
+        CompiledExpression compiled = version.compiled();
+        
+        try {
+            // Fail fast on a bad variable before fanning out
+            newRootFinder(compiled, request);
+            
+            double[][] rows = bindRows(compiled, request.getVariable(), request.getVariables(), request.getRows());
+            double target = request.getTarget() != null ? request.getTarget() : 0.0;
+            
+            SolveResult[] results = BatchSolver.solve(() -> newRootFinder(compiled, request), rows, target,
+                    request.getInitialGuess(), request.getLowerBound(), request.getUpperBound(), deadline);
+            return Arrays.asList(results);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidExpressionException("Error solving equation: " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public EvaluateRangeResponse evaluateRange(Long id, Map<String, Interval> ranges) {
+        Version version = findVersion(id);
+        CompiledExpression compiled = version.compiled();
+        
+        String[] names = compiled.getVariables();
+        Interval[] slots = new Interval[names.length];
+        for (int i = 0; i < names.length; i++) {
+            slots[i] = ranges.get(names[i]);
+            if (slots[i] == null) {
+                throw new InvalidExpressionException("Variable '" + names[i] + "' not found in provided ranges");
+            }
+        }
+        Interval range = compiled.evaluateInterval(slots);
+        
+        Map<String, double[]> bounds = new LinkedHashMap<>();
+        ranges.forEach((name, interval) -> bounds.put(name, new double[] {interval.getLo(), interval.getHi()}));
+        EvaluateRangeResponse response = new EvaluateRangeResponse(id, version.equation().getEquation(), bounds, range);
+        response.setVersion(version.equation().getVersion());
+        return response;
+    }
+    
+    @Override
+    public SimulationResult simulate(Long id, SimulateRequest request) {
+        return simulate(findVersion(id), request, deadlineOf(request.getTimeoutMillis()));
+    }
+    
+    private SimulationResult simulate(Version version, SimulateRequest request, Deadline deadline) {
+        CompiledExpression compiled = version.compiled();
+        
+        long seed = request.getSeed() != null ? request.getSeed() : new SplittableRandom().nextLong();
+        int bins = request.getBins() != null ? request.getBins() : SimulateRequest.DEFAULT_BINS;
+        List<Double> percentiles = request.getPercentiles() != null
+                ? request.getPercentiles() : SimulateRequest.DEFAULT_PERCENTILES;
+        try {
+            SimulationResult result = MonteCarloSimulator.simulate(compiled, request.getDistributions(),
+                    request.getVariables(), request.getSamples(), seed, bins, percentiles, deadline);
+            result.setEquationId(version.equation().getId());
+            result.setVersion(version.equation().getVersion());
+            return result;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidExpressionException("Error simulating equation: " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public IntegrationResult integrate(Long id, IntegrateRequest request) {
+        return integrate(findVersion(id), request, deadlineOf(request.getTimeoutMillis()));
+    }
+    
+    private IntegrationResult integrate(Version version, IntegrateRequest request, Deadline deadline) {
+        CompiledExpression compiled = version.compiled();
+        
+        try {
+            double[] parameters = bindParameters(compiled, request.getVariable(), request.getVariables());
+            IntegrationResult result = Integrator.integrate(compiled, request.getVariable(), parameters,
+                    request.getLower(), request.getUpper(),
+                    request.getTolerance() != null ? request.getTolerance() : Integrator.DEFAULT_TOLERANCE,
+                    request.getMaxSubintervals() != null
+                            ? request.getMaxSubintervals() : Integrator.DEFAULT_MAX_SUBINTERVALS,
+                    deadline);
+            result.setEquationId(version.equation().getId());
+            result.setVersion(version.equation().getVersion());
+            result.setVariable(request.getVariable());
+            result.setLower(request.getLower());
+            result.setUpper(request.getUpper());
+            return result;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidExpressionException("Error integrating equation: " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public AggregationResult aggregate(Long id, AggregateRequest request) {
+        return aggregate(findVersion(id), request, deadlineOf(request.getTimeoutMillis()));
+    }
+    
+    private AggregationResult aggregate(Version version, AggregateRequest request, Deadline deadline) {
+        CompiledExpression compiled = version.compiled();
+        
+        try {
+            AggregationResult result = GridAggregator.aggregate(compiled, request.getAxes(), request.getVariables(),
+                    deadline);
+            result.setEquationId(version.equation().getId());
+            result.setVersion(version.equation().getVersion());
+            return result;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidExpressionException("Error aggregating equation: " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public FileJobStatus startFileJob(Long id, FileJobRequest request) {
+        JobStatus status = submitFileJob(id, request, JobRequest.BULK, null);
+        return fileJobs.get(status.getJobId()).snapshot(status);
+    }
+    
+    @Override
+    public FileJobStatus getFileJob(String jobId) {
+        FileJob job = fileJobs.get(jobId);
+        if (job == null) {
+            throw new JobNotFoundException("Job " + jobId + " not found");
+        }
+        return job.snapshot(jobScheduler().get(jobId));
+    }
+    
+    private JobStatus submitFileJob(Long id, FileJobRequest request, String priority, Long timeoutMillis) {
+        Version version = findVersion(id);
+        CompiledExpression compiled = version.compiled();
+        Path input = resolveJobPath(request.getInputPath(), true);
+        Path output = resolveJobPath(request.getOutputPath(), false);
+        if (input.equals(output)) {
+            throw new InvalidExpressionException("Output path must differ from the input path");
+        }
+        
+        long totalBytes;
+        try {
+            totalBytes = Files.size(input);
+        } catch (IOException e) {
+            throw new InvalidExpressionException("Cannot read input file: " + request.getInputPath(), e);
+        }
+        // Prefixed with the equation ID, like sessions, so a cluster can route it to the equation's owner
+        FileJob job = new FileJob(id + "-" + UUID.randomUUID(), request, totalBytes);
+        fileJobs.put(job.jobId, job);
+        return jobScheduler().submit(job.jobId, id, version.equation().getVersion(), JobRequest.FILE, priority, null,
+                timeoutMillis, deadline -> {
+            job.run(compiled, input, output, deadline);
+            return job.counts();
+        });
+    }
+    
+    @Override
+    public JobStatus submitJob(Long id, JobRequest request) {
+        // Jobs run on the version current when they were submitted, like any other request
+        Version version = findVersion(id);
+        Long number = version.equation().getVersion();
+        String kind = request.getKind();
+        String priority = request.getPriority() != null ? request.getPriority() : JobRequest.BULK;
+        Long timeout = request.getTimeoutMillis();
+        String jobId = id + "-" + UUID.randomUUID();
+        
+        switch (kind) {
+            case JobRequest.SOLVE_BATCH -> {
+                BatchSolveRequest solve = workOf(kind, "solveBatch", request.getSolveBatch());
+                return jobScheduler().submit(jobId, id, number, kind, priority, (long) solve.getRows().size(), timeout,
+                        deadline -> solveBatch(version, solve, deadline));
+            }
+            case JobRequest.SIMULATE -> {
+                SimulateRequest simulate = workOf(kind, "simulate", request.getSimulate());
+                // Each block of samples is visited twice, once for moments and once for the histogram
+                long blocks = (simulate.getSamples() + MonteCarloSimulator.BLOCK_SIZE - 1) / MonteCarloSimulator.BLOCK_SIZE;
+                return jobScheduler().submit(jobId, id, number, kind, priority, 2 * blocks, timeout,
+                        deadline -> simulate(version, simulate, deadline));
+            }
+            case JobRequest.INTEGRATE -> {
+                IntegrateRequest integrate = workOf(kind, "integrate", request.getIntegrate());
+                return jobScheduler().submit(jobId, id, number, kind, priority, null, timeout,
+                        deadline -> integrate(version, integrate, deadline));
+            }
+            case JobRequest.AGGREGATE -> {
+                AggregateRequest aggregate = workOf(kind, "aggregate", request.getAggregate());
+                return jobScheduler().submit(jobId, id, number, kind, priority, latticeBlocks(aggregate), timeout,
+                        deadline -> aggregate(version, aggregate, deadline));
+            }
+            case JobRequest.FILE -> {
+                return submitFileJob(id, workOf(kind, "file", request.getFile()), priority, timeout);
+            }
+            default -> throw new InvalidExpressionException("Unknown job kind: " + kind);
+        }
+    }
+    
+    @Override
+    public JobStatus getJob(String jobId) {
+        return jobScheduler().get(jobId);
+    }
+    
+    @Override
+    public JobStatus cancelJob(String jobId) {
+        return jobScheduler().cancel(jobId);
+    }
+    
+    @Override
+    public void watchJob(String jobId, Consumer<JobStatus> listener) {
+        jobScheduler().watch(jobId, listener);
+    }
+    
+    private static <T> T workOf(String kind, String field, T work) {
+        if (work == null) {
+            throw new InvalidExpressionException("A " + kind + " job needs a '" + field + "' request");
+        }
+        return work;
+    }
+    
+    /**
+     * Counts the blocks an aggregation will evaluate, or null if an axis is incomplete.
+     */
+    private static Long latticeBlocks(AggregateRequest request) {
+        long points = 1;
+        for (GridAxis axis : request.getAxes().values()) {
+            if (axis == null || axis.getPoints() == null || axis.getPoints() < 1) {
+                return null;
+            }
+            points = Math.min(points * axis.getPoints(), GridAggregator.MAX_POINTS + 1);
+        }
+        return (points + GridAggregator.BLOCK_SIZE - 1) / GridAggregator.BLOCK_SIZE;
+    }
+    
+    /**
+     * Resolves a path against the job directory, refusing anything that leads outside it.
+     */
+    private Path resolveJobPath(String path, boolean mustExist) {
+        if (jobDirectory == null) {
+            throw new InvalidExpressionException("File jobs are disabled; set equation.jobs.directory to enable them");
+        }
+        try {
+            Path base = jobDirectory.toRealPath();
+            Path resolved = base.resolve(path).normalize();
+            // Symbolic links are followed before the check, so they cannot lead out either
+            Path real = mustExist ? resolved.toRealPath() : resolved.getParent().toRealPath().resolve(resolved.getFileName());
+            if (!real.startsWith(base) || real.equals(base)) {
+                throw new InvalidExpressionException("Path must be inside the job directory: " + path);
+            }
+            if (mustExist && !Files.isRegularFile(real)) {
+                throw new InvalidExpressionException("Not a file: " + path);
+            }
+            return real;
+        } catch (IOException e) {
+            throw new InvalidExpressionException("File not found: " + path, e);
+        }
+    }
+    
+    @Override
+    public EvaluationSession createSession(Long id, Map<String, Double> variables) {
+        Version version = findVersion(id);
+        evictIdleSessions();
+        
+        Session session = new Session(version, IncrementalEvaluator.of(version.tree()));
+        // Prefixed with the equation ID so a cluster can route the session to the equation's owner
+        String sessionId = id + "-" + UUID.randomUUID();
+        sessions.put(sessionId, session);
+        
+        if (variables != null) {
+            session.evaluator.setAll(variables);
+        }
+        return snapshot(sessionId, session);
+    }
+    
+    @Override
+    public EvaluationSession updateSession(String sessionId, Map<String, Double> variables) {
+        Session session = findSession(sessionId);
+        session.evaluator.setAll(variables);
+        return snapshot(sessionId, session);
+    }
+    
+    @Override
+    public EvaluationSession getSession(String sessionId) {
+        return snapshot(sessionId, findSession(sessionId));
+    }
+    
+    @Override
+    public void closeSession(String sessionId) {
+        if (sessions.remove(sessionId) == null) {
+            throw new SessionNotFoundException("Session " + sessionId + " not found");
+        }
+    }
+    
+    private Session findSession(String sessionId) {
+        Session session = sessions.get(sessionId);
+        if (session == null) {
+            throw new SessionNotFoundException("Session " + sessionId + " not found");
+        }
+        session.lastAccess = System.currentTimeMillis();
+        return session;
+    }
+    
+    private void evictIdleSessions() {
+        long cutoff = System.currentTimeMillis() - SESSION_IDLE_TIMEOUT_MILLIS;
+        sessions.values().removeIf(session -> session.lastAccess < cutoff);
+    }
+    
+    /**
+     * Reads a consistent view of a session, computing the result if every variable is bound.
+     */
+    private EvaluationSession snapshot(String sessionId, Session session) {
+        IncrementalEvaluator evaluator = session.evaluator;
+        synchronized (evaluator) {
+            List<String> missing = evaluator.getMissingVariables();
+            Double result = null;
+            if (missing.isEmpty()) {
+                try {
+                    result = evaluator.result();
+                } catch (ArithmeticException e) {
+                    throw new InvalidExpressionException("Arithmetic error: " + e.getMessage(), e);
+                }
+            }
+            Equation equation = session.version.equation();
+            EvaluationSession snapshot = new EvaluationSession(sessionId, equation.getId(), equation.getVersion(),
+                    evaluator.getBindings(), missing, result, evaluator.getLastRecomputed(), evaluator.size());
+            snapshot.setStale(versions.get(equation.getId()) != session.version);
+            return snapshot;
+        }
+    }
+    
+    @Override
+    public ApproximationStatus approximate(Long id, ApproximationRequest request) {
+        checkWritable();
+        return installApproximation(id, request);
+    }
+    
+    /**
+     * Starts building a lookup table for the current version of an equation and
+     * records the change for replicas. Replicas apply recorded changes through here.
+     */
+    ApproximationStatus installApproximation(Long id, ApproximationRequest request) {
+        if (request.getMin() >= request.getMax()) {
+            throw new InvalidExpressionException("Range must have min below max");
+        }
+        while (true) {
+            Version version = findVersion(id);
+            if (version.compiled().getVariables().length != 1) {
+                throw new InvalidExpressionException("Only equations of exactly one variable can be approximated");
+            }
+            ApproximationStatus status = buildApproximation(version, request);
+            if (status != null) {
+                ChangeLogEntry entry = new ChangeLogEntry(0, ChangeLogEntry.APPROXIMATION, id, null, 0);
+                entry.setApproximation(request);
+                changeLog.append(entry);
+                return status;
+            }
+            // The equation was updated meanwhile; build for its new version
+        }
+    }
+    
+    /**
+     * Starts building a lookup table for a version of a one-variable equation,
+     * unless an update has replaced that version meanwhile.
+     *
+     * @return The status while building, or null if {@code version} was no longer current
+     */
+    private ApproximationStatus buildApproximation(Version version, ApproximationRequest request) {
+        Long id = version.equation().getId();
+        Approximation building = building(version, request);
+        // Checked under the entry's lock, which carryModes also takes once the new version is published
+        boolean[] installed = new boolean[1];
+        approximations.compute(id, (key, current) -> {
+            installed[0] = versions.get(id) == version;
+            return installed[0] ? building : current;
+        });
+        if (!installed[0]) {
+            return null;
+        }
+        startBuilding(building);
+        return building.status();
+    }
+    
+    /**
+     * Placeholder for a table being built; exact evaluation carries on until the finished table is swapped in.
+     */
+    private static Approximation building(Version version, ApproximationRequest request) {
+        Long id = version.equation().getId();
+        String variable = version.compiled().getVariables()[0];
+        return new Approximation(version, request,
+                new ApproximationStatus(id, variable, request, ApproximationStatus.BUILDING), null);
+    }
+    
+    private void startBuilding(Approximation building) {
+        Version version = building.version();
+        ApproximationRequest request = building.request();
+        Long id = version.equation().getId();
+        CompiledExpression compiled = version.compiled();
+        approximationBuilder.execute(() -> {
+            ApproximationStatus status = new ApproximationStatus(id, compiled.getVariables()[0], request,
+                    ApproximationStatus.READY);
+            LookupTable table = null;
+            try {
+                table = LookupTable.build(compiled, request.getMin(), request.getMax(), request.getMaxError(),
+                        LookupTable.Interpolation.valueOf(request.getInterpolation()));
+                status.setIntervals(table.getIntervals());
+                status.setMeasuredError(table.getMeasuredError());
+            } catch (IllegalArgumentException e) {
+                status.setStatus(ApproximationStatus.FAILED);
+                status.setError(e.getMessage());
+            }
+            Approximation finished = new Approximation(version, request, status, table);
+            // Only if nothing replaced or removed the request meanwhile
+            approximations.replace(id, building, finished);
+        });
+    }
+    
+    @Override
+    public ApproximationStatus getApproximation(Long id) {
+        getExpressionTree(id);
+        Approximation approximation = approximations.get(id);
+        if (approximation == null) {
+            throw new EquationNotFoundException("Equation with ID " + id + " has no approximation");
+        }
+        return approximation.status();
+    }
+    
+    @Override
+    public void removeApproximation(Long id) {
+        checkWritable();
+        getExpressionTree(id);
+        if (!dropApproximation(id)) {
+            throw new EquationNotFoundException("Equation with ID " + id + " has no approximation");
+        }
+    }
+    
+    /**
+     * Removes an equation's approximation, if any, and records the change for replicas.
+     *
+     * @return True if there was one
+     */
+    boolean dropApproximation(Long id) {
+        if (approximations.remove(id) == null) {
+            return false;
+        }
+        changeLog.append(new ChangeLogEntry(0, ChangeLogEntry.APPROXIMATION, id, null, 0));
+        return true;
+    }
+    
+    @Override
+    public DecimalModeStatus setDecimalMode(Long id, DecimalModeRequest request) {
+        checkWritable();
+        return installDecimalMode(id, request);
+    }
+    
+    /**
+     * Compiles a decimal mode for the current version of an equation and records
+     * the change for replicas. Replicas apply recorded changes through here.
+     */
+    DecimalModeStatus installDecimalMode(Long id, DecimalModeRequest request) {
+        DecimalModeStatus status = new DecimalModeStatus(id, request.getScale(), request.getRounding());
+        while (true) {
+            Version version = findVersion(id);
+            FixedPointExpression program;
+            try {
+                program = FixedPointExpression.compile(version.tree(), version.compiled().getVariables(),
+                        request.getScale(), RoundingMode.valueOf(request.getRounding()));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidExpressionException("Error enabling decimal mode: " + e.getMessage(), e);
+            }
+            // Only against the current version: an update that has already swapped would never carry it over
+            boolean[] installed = new boolean[1];
+            decimalModes.compute(id, (key, current) -> {
+                installed[0] = versions.get(id) == version;
+                return installed[0] ? new DecimalMode(version, status, program) : current;
+            });
+            if (installed[0]) {
+                ChangeLogEntry entry = new ChangeLogEntry(0, ChangeLogEntry.DECIMAL_MODE, id, null, 0);
+                entry.setDecimalMode(new DecimalModeRequest(request.getScale(), request.getRounding()));
+                changeLog.append(entry);
+                return status;
+            }
+        }
+    }
+    
+    @Override
+    public DecimalModeStatus getDecimalMode(Long id) {
+        getExpressionTree(id);
+        DecimalMode mode = decimalModes.get(id);
+        if (mode == null) {
+            throw new EquationNotFoundException("Equation with ID " + id + " has no decimal mode");
+        }
+        return mode.status();
+    }
+    
+    @Override
+    public void removeDecimalMode(Long id) {
+        checkWritable();
+        getExpressionTree(id);
+        if (!dropDecimalMode(id)) {
+            throw new EquationNotFoundException("Equation with ID " + id + " has no decimal mode");
+        }
+    }
+    
+    /**
+     * Removes an equation's decimal mode, if any, and records the change for replicas.
+     *
+     * @return True if there was one
+     */
+    boolean dropDecimalMode(Long id) {
+        if (decimalModes.remove(id) == null) {
+            return false;
+        }
+        changeLog.append(new ChangeLogEntry(0, ChangeLogEntry.DECIMAL_MODE, id, null, 0));
+        return true;
+    }
+    
+    @Override
+    public BigDecimal evaluateDecimal(Long id, Map<String, Double> variables) {
+        return evaluateDecimal(findVersion(id), variables);
+    }
+    
+    private BigDecimal evaluateDecimal(Version version, Map<String, Double> variables) {
+        DecimalMode mode = decimalModes.get(version.equation().getId());
+        // A mode set for another version compiled a different tree
+        if (mode == null || mode.version() != version) {
+            return null;
+        }
+        try {
+            FixedPointExpression program = mode.program();
+            BigDecimal result = program.evaluate(version.compiled().bind(variables), new long[program.getMaxStack()]);
+            trafficSample.record(version.equation().getEquation(), variables);
+            return result;
+        } catch (IllegalArgumentException e) {
+            throw new InvalidExpressionException("Error evaluating equation: " + e.getMessage(), e);
+        } catch (ArithmeticException e) {
+            throw new InvalidExpressionException("Arithmetic error: " + e.getMessage(), e);
+        }
+    }
+    
+    @Override
+    public List<EquationResult> evaluateMany(List<Long> ids, Map<String, Double> variables) {
+        List<Version> pinned = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            pinned.add(findVersion(id));
+        }
+        
+        // Large groups are split into chunks that are merged and evaluated in parallel
+        Deadline deadline = Deadline.after(DEFAULT_DEADLINE_MILLIS);
+        int chunks = (ids.size() + EVALUATE_MANY_CHUNK_SIZE - 1) / EVALUATE_MANY_CHUNK_SIZE;
+        EquationResult[] results = new EquationResult[ids.size()];
+        IntStream chunkRange = IntStream.range(0, chunks);
+        (chunks > 1 ? chunkRange.parallel() : chunkRange).forEach(chunk -> {
+            deadline.check();
+            int start = chunk * EVALUATE_MANY_CHUNK_SIZE;
+            List<Long> chunkIds = ids.subList(start, Math.min(ids.size(), start + EVALUATE_MANY_CHUNK_SIZE));
+            List<Version> chunkVersions = List.copyOf(pinned.subList(start, start + chunkIds.size()));
+            // Compiled outside the cache lock; a chunk compiled twice keeps whichever landed first
+            SharedExpressionProgram program = sharedPrograms.get(chunkVersions);
+            if (program == null) {
+                SharedExpressionProgram compiled = SharedExpressionProgram.compile(
+                        chunkVersions.stream().map(Version::tree).toList());
+                SharedExpressionProgram existing = sharedPrograms.putIfAbsent(chunkVersions, compiled);
+                program = existing != null ? existing : compiled;
+            }
+            
+            double[] values = new double[chunkIds.size()];
+            String[] errors = new String[chunkIds.size()];
+            program.evaluate(variables, values, errors);
+            for (int i = 0; i < values.length; i++) {
+                results[start + i] = new EquationResult(chunkIds.get(i), chunkVersions.get(i).equation().getVersion(),
+                        errors[i] == null ? values[i] : null, errors[i]);
+            }
+        });
+        return Arrays.asList(results);
+    }
+    
+    @Override
+    public String subscribe(List<Long> ids, Consumer<List<EquationResult>> listener) {
+        Set<Long> subscribed = new LinkedHashSet<>();
+        for (Long id : ids) {
+            getExpressionTree(id);
+            subscribed.add(id);
+        }
+        
+        String subscriptionId = UUID.randomUUID().toString();
+        Subscription subscription = new Subscription(Set.copyOf(subscribed), listener);
+        subscriptions.put(subscriptionId, subscription);
+        
+        // Start the subscriber off with the results under the current environment
+        notify(subscriptionId, subscription, subscribed.stream().map(this::evaluatePublished).toList());
+        return subscriptionId;
+    }
+    
+    @Override
+    public void unsubscribe(String subscriptionId) {
+        subscriptions.remove(subscriptionId);
+    }
+    
+    @Override
+    public Set<Long> publishVariables(Map<String, Double> updates) {
+        Set<Long> affected = new TreeSet<>();
+        for (Map.Entry<String, Double> entry : updates.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            Double previous = publishedVariables.put(entry.getKey(), entry.getValue());
+            if (previous == null || Double.compare(previous, entry.getValue()) != 0) {
+                affected.addAll(equationsByVariable.getOrDefault(entry.getKey(), Set.of()));
+            }
+        }
+        
+        // Bursts of updates inside the window are merged into one notification per subscriber
+        pendingNotifications.addAll(affected);
+        if (!affected.isEmpty() && flushScheduled.compareAndSet(false, true)) {
+            publisher.schedule(this::flushNotifications, PUBLISH_COALESCE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        return affected;
+    }
+    
+    private void flushNotifications() {
+        flushScheduled.set(false);
+        Set<Long> dirty = new HashSet<>();
+        for (Iterator<Long> it = pendingNotifications.iterator(); it.hasNext(); ) {
+            dirty.add(it.next());
+            it.remove();
+        }
+        
+        // Each dirty equation is evaluated once, however many subscribers watch it
+        Map<Long, EquationResult> results = new HashMap<>();
+        subscriptions.forEach((subscriptionId, subscription) -> {
+            List<EquationResult> changed = subscription.equationIds.stream()
+                    .filter(dirty::contains)
+                    .map(id -> results.computeIfAbsent(id, this::evaluatePublished))
+                    .toList();
+            if (!changed.isEmpty()) {
+                notify(subscriptionId, subscription, changed);
+            }
+        });
+    }
+    
+    private void notify(String subscriptionId, Subscription subscription, List<EquationResult> results) {
+        try {
+            subscription.listener.accept(results);
+        } catch (RuntimeException e) {
+            // The subscriber has gone away
+            subscriptions.remove(subscriptionId);
+        }
+    }
+    
+    private EquationResult evaluatePublished(Long id) {
+        Version version = versions.get(id);
+        if (version == null) {
+            return new EquationResult(id, null, null, "Equation with ID " + id + " not found");
+        }
+        CompiledExpression compiled = version.compiled();
+        Long number = version.equation().getVersion();
+        try {
+            return new EquationResult(id, number, compiled.evaluate(compiled.bind(publishedVariables)), null);
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            return new EquationResult(id, number, null, e.getMessage());
+        }
+    }
+    
+    @PreDestroy
+    void shutdownPublisher() {
+        publisher.shutdownNow();
+        approximationBuilder.shutdownNow();
+        if (storePipeline != null) {
+            storePipeline.shutdown();
+        }
+        synchronized (this) {
+            shutDown = true;
+            if (ownsJobScheduler && jobScheduler != null) {
+                jobScheduler.shutdown();
+            }
+        }
+    }
+    
+    /**
+     * Returns the job scheduler, starting the service's own on first use.
+     */
+    private synchronized JobScheduler jobScheduler() {
+        if (jobScheduler == null) {
+            if (shutDown) {
+                throw new IllegalStateException("Equation service is shut down");
+            }
+            jobScheduler = new JobScheduler();
+        }
+        return jobScheduler;
+    }
+    
+    private static Deadline deadlineOf(SolveEquationRequest request) {
+        return deadlineOf(request.getTimeoutMillis());
+    }
+    
+    private static Deadline deadlineOf(Long timeoutMillis) {
+        return Deadline.after(timeoutMillis != null ? timeoutMillis : DEFAULT_DEADLINE_MILLIS);
+    }
+    
+    private static RootFinder newRootFinder(CompiledExpression compiled, SolveEquationRequest request) {
+        return new RootFinder(compiled, request.getVariable(),
+                request.getTolerance() != null ? request.getTolerance() : RootFinder.DEFAULT_TOLERANCE,
+                request.getMaxIterations() != null ? request.getMaxIterations() : RootFinder.DEFAULT_MAX_ITERATIONS);
+    }
+    
+    /**
+     * Binds each parameter row on top of the shared variables. The shared values
+     * are resolved to slots once; each row only patches the slots it names.
+     * 
+     * @param compiled The compiled equation
+     * @param unknown The variable being solved for
+     * @param shared Values shared by every row
+     * @param rows Per-row values
+     * @return One slot-ordered array per row
+     * @throws IllegalArgumentException if a row leaves a variable unbound
+     */
+    private static double[][] bindRows(CompiledExpression compiled, String unknown,
+                                       Map<String, Double> shared, List<Map<String, Double>> rows) {
+        String[] names = compiled.getVariables();
+        double[] base = new double[names.length];
+        boolean[] bound = new boolean[names.length];
+        bound[compiled.slotOf(unknown)] = true;
+        if (shared != null) {
+            for (Map.Entry<String, Double> entry : shared.entrySet()) {
+                int slot = compiled.slotOf(entry.getKey());
+                if (slot >= 0 && entry.getValue() != null) {
+                    base[slot] = entry.getValue();
+                    bound[slot] = true;
+                }
+            }
+        }
+        
+        double[][] bindings = new double[rows.size()][];
+        for (int r = 0; r < bindings.length; r++) {
+            double[] values = base.clone();
+            Map<String, Double> row = rows.get(r) != null ? rows.get(r) : Map.of();
+            for (int slot = 0; slot < names.length; slot++) {
+                Double value = row.get(names[slot]);
+                if (value != null) {
+                    values[slot] = value;
+                } else if (!bound[slot]) {
+                    throw new IllegalArgumentException(
+                            "Variable '" + names[slot] + "' not found in provided values for row " + r);
+                }
+            }
+            bindings[r] = values;
+        }
+        return bindings;
+    }
+    
+    /**
+     * Binds the known variables of an equation, leaving the unknown's slot to the solver.
+     * 
+     * @param compiled The compiled equation
+     * @param unknown The variable being solved for
+     * @param variables Values for the other variables
+     * @return Array of values indexed by slot
+     */
+    private static double[] bindParameters(CompiledExpression compiled, String unknown, Map<String, Double> variables) {
+        Map<String, Double> withUnknown = new HashMap<>(variables != null ? variables : Map.of());
+        withUnknown.put(unknown, 0.0);
+        return compiled.bind(withUnknown);
+    }
+    
+    /**
+     * Looks up the expression tree of a stored equation.
+     * 
+     * @param id The equation ID
+     * @return The expression tree
+     * @throws EquationNotFoundException if the equation is not found
+     */
+    private ExpressionNode getExpressionTree(Long id) {
+        return findVersion(id).tree();
+    }
+    
+    /**
+     * A CSV evaluation job's running counts; its state is kept by the job scheduler.
+     */
+    private static final class FileJob {
+        private final String jobId;
+        private final FileJobRequest request;
+        private final long totalBytes;
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLong failedRows = new AtomicLong();
+        private final AtomicLong bytesRead = new AtomicLong();
+        
+        FileJob(String jobId, FileJobRequest request, long totalBytes) {
+            this.jobId = jobId;
+            this.request = request;
+            this.totalBytes = totalBytes;
+        }
+        
+        void run(CompiledExpression compiled, Path input, Path output, Deadline deadline) {
+            CsvEvaluator.evaluate(compiled, input, output, CsvEvaluator.DEFAULT_CHUNK_SIZE, deadline,
+                    (chunkRows, chunkFailed, bytes) -> {
+                        rows.addAndGet(chunkRows);
+                        failedRows.addAndGet(chunkFailed);
+                        bytesRead.addAndGet(bytes);
+                        deadline.advance(chunkRows);
+                    });
+        }
+        
+        /**
+         * Counts reported as the result of the finished job.
+         */
+        Map<String, Long> counts() {
+            return Map.of("rowsProcessed", rows.get(), "failedRows", failedRows.get(), "bytesRead", bytesRead.get());
+        }
+        
+        FileJobStatus snapshot(JobStatus job) {
+            FileJobStatus snapshot = new FileJobStatus(jobId, job.getEquationId(), request, job.getStatus());
+            snapshot.setVersion(job.getVersion());
+            snapshot.setRowsProcessed(rows.get());
+            snapshot.setFailedRows(failedRows.get());
+            snapshot.setBytesRead(bytesRead.get());
+            snapshot.setTotalBytes(totalBytes);
+            snapshot.setError(job.getError());
+            snapshot.setElapsedMillis(job.getElapsedMillis());
+            snapshot.setRowsPerSecond(job.getElapsedMillis() > 0 ? rows.get() * 1000.0 / job.getElapsedMillis() : 0);
+            return snapshot;
+        }
+    }
+    
+    /**
+     * Equations a subscriber watches and the callback that receives their new results.
+     */
+    private record Subscription(Set<Long> equationIds, Consumer<List<EquationResult>> listener) { }
+    
+    /**
+     * Lookup table of an equation version, the request it was built for and its
+     * status; the table is null until it is ready.
+     */
+    private record Approximation(Version version, ApproximationRequest request, ApproximationStatus status,
+                                 LookupTable table) { }
+    
+    /**
+     * One published version of an equation: its record, inlined tree and compiled program.
+     * Versions are never modified, only replaced whole.
+     */
+    private record Version(Equation equation, ExpressionNode tree, CompiledExpression compiled) { }
+    
+    /**
+     * Equation tree with its references inlined, the IDs it referenced and the versions of them it inlined.
+     */
+    private record Inlined(ExpressionNode tree, Set<Long> references, List<Version> sources) { }
+    
+    /**
+     * Decimal scale and rounding of an equation version and the fixed-point program compiled for them.
+     */
+    private record DecimalMode(Version version, DecimalModeStatus status, FixedPointExpression program) { }
+    
+    /**
+     * Incremental evaluator bound to an equation version, with its last access time for idle eviction.
+     */
+    private static class Session {
+        
+        private final Version version;
+        private final IncrementalEvaluator evaluator;
+        private volatile long lastAccess = System.currentTimeMillis();
+        
+        Session(Version version, IncrementalEvaluator evaluator) {
+            this.version = version;
+            this.evaluator = evaluator;
+        }
+    }
 } 
\ No newline at end of file
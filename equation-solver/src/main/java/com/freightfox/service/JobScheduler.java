@@ -0,0 +1,356 @@
+package com.freightfox.service;
+
+import com.freightfox.exception.JobNotFoundException;
+import com.freightfox.exception.ServerBusyException;
+import com.freightfox.model.JobRequest;
+import com.freightfox.model.JobStatus;
+import com.freightfox.util.Deadline;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs long jobs in the background, off the request threads.
+ *
+ * <p>Jobs wait in one bounded queue in two classes. Interactive jobs are always
+ * taken before bulk ones, and one worker takes only interactive jobs, so a
+ * backlog of bulk work cannot hold them up. Interactive jobs fan out on the
+ * common fork-join pool, as a request would. Bulk jobs fan out on a smaller pool
+ * of low-priority threads, leaving processors free for evaluations arriving over HTTP.
+ *
+ * <p>Each job runs under a cancellable {@link Deadline}. Cancelling a queued job
+ * drops it; cancelling a running one makes it stop at its next check. The steps
+ * a job reports through its deadline are its progress. Finished jobs keep their
+ * result for the retention period and are then forgotten.
+ */
+@Service
+public class JobScheduler {
+    
+    private static final int DEFAULT_WORKERS = 2;
+    private static final int DEFAULT_QUEUE_CAPACITY = 1000;
+    private static final long DEFAULT_RETENTION_SECONDS = 3600;
+    private static final long REPORT_INTERVAL_MILLIS = 250;
+    
+    private final Deque<Job> interactive = new ArrayDeque<>();
+    private final Deque<Job> bulk = new ArrayDeque<>();
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final ForkJoinPool bulkPool;
+    private final ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "equation-job-reporter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final int queueCapacity;
+    private final long retentionNanos;
+    
+    /**
+     * Creates a scheduler with two workers, a queue of 1000 jobs and an hour of retention.
+     */
+    public JobScheduler() {
+        this(DEFAULT_WORKERS, 0, DEFAULT_QUEUE_CAPACITY, DEFAULT_RETENTION_SECONDS);
+    }
+    
+    /**
+     * Creates a scheduler.
+     *
+     * @param workers Jobs that run at once; with more than one, one of them is kept for interactive jobs
+     * @param bulkParallelism Threads bulk jobs fan out on; 0 uses half the processors
+     * @param queueCapacity Jobs that may wait to run
+     * @param retentionSeconds How long a finished job and its result are kept
+     */
+    @Autowired
+    public JobScheduler(
+            @Value("${equation.jobs.workers:2}") int workers,
+            @Value("${equation.jobs.bulk-parallelism:0}") int bulkParallelism,
+            @Value("${equation.jobs.queue-capacity:1000}") int queueCapacity,
+            @Value("${equation.jobs.retention-seconds:3600}") long retentionSeconds) {
+        if (workers < 1 || bulkParallelism < 0 || queueCapacity < 1 || retentionSeconds < 0) {
+            throw new IllegalArgumentException(
+                    "Job workers and queue capacity must be positive, parallelism and retention non-negative");
+        }
+        this.queueCapacity = queueCapacity;
+        this.retentionNanos = TimeUnit.SECONDS.toNanos(retentionSeconds);
+        int parallelism = bulkParallelism > 0 ? bulkParallelism
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.bulkPool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("equation-job-bulk-" + thread.getPoolIndex());
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }, null, false);
+        for (int i = 0; i < workers; i++) {
+            boolean interactiveOnly = workers > 1 && i == 0;
+            Thread worker = new Thread(() -> work(interactiveOnly), "equation-job-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            this.workers.add(worker);
+        }
+        reporter.scheduleAtFixedRate(this::report, REPORT_INTERVAL_MILLIS, REPORT_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Queues a job.
+     *
+     * @param jobId ID of the job, unique among retained jobs
+     * @param equationId The equation the job works on
+     * @param version The version of the equation the job works on
+     * @param kind What the job does, one of the {@link JobRequest} kinds
+     * @param priority {@link JobRequest#INTERACTIVE} or {@link JobRequest#BULK}
+     * @param totalSteps Steps the job will report, or null if not known in advance
+     * @param timeoutMillis Longest the job may run once started, or null for no limit
+     * @param work The job itself, which checks the deadline it is given and reports steps through it
+     * @return The status of the queued job
+     * @throws ServerBusyException if the queue is full
+     */
+    public JobStatus submit(String jobId, Long equationId, Long version, String kind, String priority, Long totalSteps,
+                            Long timeoutMillis, Function<Deadline, Object> work) {
+        Job job = new Job(jobId, equationId, version, kind, priority, totalSteps, timeoutMillis, work);
+        synchronized (this) {
+            if (interactive.size() + bulk.size() >= queueCapacity) {
+                throw new ServerBusyException("Job queue is full; retry shortly");
+            }
+            jobs.put(jobId, job);
+            (JobRequest.INTERACTIVE.equals(priority) ? interactive : bulk).addLast(job);
+            notifyAll();
+        }
+        return job.snapshot();
+    }
+    
+    /**
+     * Returns the current status of a job, with its result once it has finished.
+     *
+     * @param jobId The job ID
+     * @return The job status
+     * @throws JobNotFoundException if the job is unknown or has expired
+     */
+    public JobStatus get(String jobId) {
+        return find(jobId).snapshot();
+    }
+    
+    /**
+     * Cancels a job. A queued job is dropped at once; a running one stops at its
+     * next check. Finished jobs are left as they are.
+     *
+     * @param jobId The job ID
+     * @return The job status after the cancellation was requested
+     * @throws JobNotFoundException if the job is unknown or has expired
+     */
+    public JobStatus cancel(String jobId) {
+        Job job = find(jobId);
+        synchronized (job) {
+            if (JobStatus.QUEUED.equals(job.status)) {
+                synchronized (this) {
+                    interactive.remove(job);
+                    bulk.remove(job);
+                }
+                job.finish(JobStatus.CANCELLED, null, "Job was cancelled");
+            } else if (JobStatus.RUNNING.equals(job.status)) {
+                job.deadline.cancel();
+            }
+            return job.snapshot();
+        }
+    }
+    
+    /**
+     * Watches a job. The listener receives the job's status a few times a second
+     * while it runs, then its final status with the result, and is then dropped.
+     * A listener that throws is dropped too.
+     *
+     * @param jobId The job ID
+     * @param listener Callback receiving status updates
+     * @throws JobNotFoundException if the job is unknown or has expired
+     */
+    public void watch(String jobId, Consumer<JobStatus> listener) {
+        Job job = find(jobId);
+        synchronized (job) {
+            job.watchers.add(listener);
+        }
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        workers.forEach(Thread::interrupt);
+        bulkPool.shutdownNow();
+        reporter.shutdownNow();
+    }
+    
+    private Job find(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new JobNotFoundException("Job " + jobId + " not found");
+        }
+        return job;
+    }
+    
+    private void work(boolean interactiveOnly) {
+        try {
+            while (true) {
+                run(take(interactiveOnly));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private synchronized Job take(boolean interactiveOnly) throws InterruptedException {
+        while (interactive.isEmpty() && (interactiveOnly || bulk.isEmpty())) {
+            wait();
+        }
+        return !interactive.isEmpty() ? interactive.poll() : bulk.poll();
+    }
+    
+    private void run(Job job) throws InterruptedException {
+        Deadline deadline;
+        synchronized (job) {
+            if (!JobStatus.QUEUED.equals(job.status)) {
+                return;
+            }
+            // The timeout covers running only, not the wait in the queue
+            deadline = Deadline.cancellable(job.timeoutMillis);
+            job.deadline = deadline;
+            job.startNanos = System.nanoTime();
+            job.status = JobStatus.RUNNING;
+        }
+        
+        Throwable failure;
+        try {
+            Object result = JobRequest.INTERACTIVE.equals(job.priority)
+                    ? job.work.apply(deadline)
+                    : CompletableFuture.supplyAsync(() -> job.work.apply(deadline), bulkPool).get();
+            job.finish(JobStatus.COMPLETED, result, null);
+            return;
+        } catch (ExecutionException e) {
+            failure = e.getCause();
+        } catch (RuntimeException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            // Shutting down: stop the bulk task too
+            deadline.cancel();
+            job.finish(JobStatus.CANCELLED, null, "Job was cancelled");
+            throw e;
+        }
+        if (failure instanceof CancellationException) {
+            job.finish(JobStatus.CANCELLED, null, "Job was cancelled");
+        } else {
+            job.finish(JobStatus.FAILED, null, failure.getMessage());
+        }
+    }
+    
+    /**
+     * Sends status updates to watchers and forgets jobs whose retention has passed.
+     */
+    private void report() {
+        for (Job job : jobs.values()) {
+            JobStatus status;
+            List<Consumer<JobStatus>> listeners;
+            synchronized (job) {
+                if (job.watchers.isEmpty()) {
+                    continue;
+                }
+                status = job.snapshot();
+                listeners = new ArrayList<>(job.watchers);
+                if (job.endNanos != 0) {
+                    job.watchers.clear();
+                }
+            }
+            for (Consumer<JobStatus> listener : listeners) {
+                try {
+                    listener.accept(status);
+                } catch (RuntimeException e) {
+                    synchronized (job) {
+                        job.watchers.remove(listener);
+                    }
+                }
+            }
+        }
+        
+        long now = System.nanoTime();
+        jobs.values().removeIf(job -> job.isExpired(now, retentionNanos));
+    }
+    
+    /**
+     * A queued, running or finished job. Its state changes under its own lock.
+     */
+    private static final class Job {
+        
+        private final String jobId;
+        private final Long equationId;
+        private final Long version;
+        private final String kind;
+        private final String priority;
+        private final Long totalSteps;
+        private final Long timeoutMillis;
+        private final Function<Deadline, Object> work;
+        private final long submittedNanos = System.nanoTime();
+        private final List<Consumer<JobStatus>> watchers = new ArrayList<>();
+        private String status = JobStatus.QUEUED;
+        private Deadline deadline;
+        private Object result;
+        private String error;
+        private volatile long startNanos;
+        private volatile long endNanos;
+        
+        Job(String jobId, Long equationId, Long version, String kind, String priority, Long totalSteps,
+            Long timeoutMillis, Function<Deadline, Object> work) {
+            this.jobId = jobId;
+            this.equationId = equationId;
+            this.version = version;
+            this.kind = kind;
+            this.priority = priority;
+            this.totalSteps = totalSteps;
+            this.timeoutMillis = timeoutMillis;
+            this.work = work;
+        }
+        
+        synchronized void finish(String status, Object result, String error) {
+            this.status = status;
+            this.result = result;
+            this.error = error;
+            this.endNanos = System.nanoTime();
+        }
+        
+        /**
+         * Whether the job finished over the retention period ago and nobody is waiting for its final status.
+         */
+        synchronized boolean isExpired(long now, long retentionNanos) {
+            return endNanos != 0 && now - endNanos > retentionNanos && watchers.isEmpty();
+        }
+        
+        synchronized JobStatus snapshot() {
+            JobStatus snapshot = new JobStatus(jobId, equationId, kind, priority, status);
+            snapshot.setVersion(version);
+            snapshot.setTotalSteps(totalSteps);
+            snapshot.setResult(result);
+            snapshot.setError(error);
+            long now = endNanos != 0 ? endNanos : System.nanoTime();
+            if (startNanos != 0) {
+                snapshot.setCompletedSteps(deadline.getProgress());
+                snapshot.setQueuedMillis((startNanos - submittedNanos) / 1_000_000);
+                snapshot.setElapsedMillis((now - startNanos) / 1_000_000);
+            } else {
+                snapshot.setQueuedMillis((now - submittedNanos) / 1_000_000);
+            }
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.freightfox.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.freightfox.exception.EquationNotFoundException;
+import com.freightfox.exception.InvalidExpressionException;
+import com.freightfox.model.ChangeLogEntry;
+import com.freightfox.model.ChangeLogResponse;
+import com.freightfox.model.ReplicationStatus;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Turns this node into a read-only replica that tails the primary's change log.
+ *
+ * <p>A single background thread long-polls the primary for entries after the
+ * last applied sequence and applies them in order, so the evaluate path never
+ * waits on replication. Lag is measured as the age of the last applied change
+ * while the replica is behind, and zero once it has caught up.
+ *
+ * <p>A restarted primary starts a new log, with a new epoch, from sequence 1.
+ * When the epoch changes, or the primary is behind what was applied here, the
+ * replica replays the new log from the start while serving what it has, and
+ * once caught up removes the equations the new log never mentioned. Decimal
+ * modes and approximations are changes in the log like stores, so a replica
+ * evaluates exactly as the primary does; an equation's old settings are dropped
+ * when the new log first mentions it.
+ */
+@Service
+@ConditionalOnProperty(name = "equation.replication.primary-url")
+public class ReplicaFollower {
+    
+    private static final int BATCH_SIZE = 1000;
+    private static final long LONG_POLL_MILLIS = 1000;
+    private static final long RETRY_DELAY_MILLIS = 1000;
+    private static final Logger log = LoggerFactory.getLogger(ReplicaFollower.class);
+    
+    private final EquationServiceImpl equationService;
+    private final ObjectMapper objectMapper;
+    private final String primaryUrl;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+    private final Thread follower = new Thread(this::follow, "replica-follower");
+    
+    private volatile long appliedSequence;
+    private volatile long primarySequence;
+    private volatile long lastAppliedTimestamp;
+    private volatile long lastContact;
+    private volatile boolean running = true;
+    // Only touched by the follower thread
+    private String epoch;
+    private Set<Long> unconfirmed;
+    
+    public ReplicaFollower(
+            EquationServiceImpl equationService,
+            ObjectMapper objectMapper,
+            @Value("${equation.replication.primary-url}") String primaryUrl) {
+        this.equationService = equationService;
+        this.objectMapper = objectMapper;
+        this.primaryUrl = primaryUrl.endsWith("/") ? primaryUrl.substring(0, primaryUrl.length() - 1) : primaryUrl;
+        this.lastContact = System.currentTimeMillis();
+        equationService.setReadOnly(this.primaryUrl);
+        follower.setDaemon(true);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        follower.start();
+    }
+    
+    @PreDestroy
+    public void stop() {
+        running = false;
+        follower.interrupt();
+    }
+    
+    /**
+     * Reports how far this replica trails the primary.
+     *
+     * @return The replication status
+     */
+    public ReplicationStatus getStatus() {
+        long now = System.currentTimeMillis();
+        long applied = appliedSequence;
+        long primary = primarySequence;
+        long lag = applied >= primary ? 0 : now - lastAppliedTimestamp;
+        return new ReplicationStatus(primaryUrl, applied, primary, Math.max(0, lag), now - lastContact);
+    }
+    
+    private void follow() {
+        while (running) {
+            try {
+                poll();
+                continue;
+            } catch (IOException e) {
+                // The primary is unreachable; millisSinceContact grows until it returns
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // The entry is retried; the replica serves what it has applied so far
+                log.error("Failed to apply change {} from {}", appliedSequence + 1, primaryUrl, e);
+            }
+            try {
+                Thread.sleep(RETRY_DELAY_MILLIS);
+            } catch (InterruptedException interrupted) {
+                return;
+            }
+        }
+    }
+    
+    private void poll() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(primaryUrl + "/internal/replication/log?after="
+                        + appliedSequence + "&limit=" + BATCH_SIZE + "&waitMillis=" + LONG_POLL_MILLIS))
+                .timeout(Duration.ofMillis(LONG_POLL_MILLIS + 10_000))
+                .GET()
+                .build();
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IOException("Primary returned status " + response.statusCode());
+        }
+        ChangeLogResponse changes = objectMapper.readValue(response.body(), ChangeLogResponse.class);
+        lastContact = System.currentTimeMillis();
+        
+        if (epoch == null) {
+            epoch = changes.getEpoch();
+        } else if (!epoch.equals(changes.getEpoch()) || changes.getLastSequence() < appliedSequence) {
+            // Entries read at the old position mean nothing in the new log
+            resync(changes.getEpoch(), changes.getLastSequence());
+            return;
+        }
+        
+        for (ChangeLogEntry entry : changes.getEntries()) {
+            Long id = entry.getEquationId();
+            boolean replayed = unconfirmed != null && unconfirmed.remove(id);
+            if (replayed) {
+                // The new log sets again whatever settings the equation still has
+                equationService.dropDecimalMode(id);
+                equationService.dropApproximation(id);
+            }
+            switch (entry.getType()) {
+                case ChangeLogEntry.REMOVE -> equationService.removeEquation(id);
+                case ChangeLogEntry.DECIMAL_MODE, ChangeLogEntry.APPROXIMATION -> applySetting(entry);
+                default -> applyStore(entry, replayed);
+            }
+            lastAppliedTimestamp = entry.getTimestamp();
+            appliedSequence = entry.getSequence();
+        }
+        primarySequence = changes.getLastSequence();
+        
+        if (unconfirmed != null && appliedSequence >= primarySequence) {
+            for (Long id : unconfirmed) {
+                equationService.removeEquation(id);
+            }
+            unconfirmed = null;
+        }
+    }
+    
+    /**
+     * Stores an equation under the version number the primary gave it. Two
+     * updates racing on the primary can log their stores in the opposite order
+     * to their versions, so a store older than the version held here is
+     * skipped, except the first one a replayed log has for the equation, whose
+     * numbering starts again.
+     */
+    private void applyStore(ChangeLogEntry entry, boolean replayed) {
+        Long id = entry.getEquationId();
+        if (!replayed && entry.getVersion() != null) {
+            Long current = equationService.findVersionNumber(id);
+            if (current != null && current >= entry.getVersion()) {
+                return;
+            }
+        }
+        equationService.putEquation(id, entry.getEquation(), entry.getVersion());
+    }
+    
+    /**
+     * Sets or drops a decimal mode or approximation. The primary logs a setting
+     * after installing it, so an equation removed or replaced meanwhile may
+     * already be gone or no longer fit it here; such a setting is skipped
+     * rather than retried forever.
+     */
+    private void applySetting(ChangeLogEntry entry) {
+        Long id = entry.getEquationId();
+        try {
+            if (ChangeLogEntry.DECIMAL_MODE.equals(entry.getType())) {
+                if (entry.getDecimalMode() != null) {
+                    equationService.installDecimalMode(id, entry.getDecimalMode());
+                } else {
+                    equationService.dropDecimalMode(id);
+                }
+            } else if (entry.getApproximation() != null) {
+                equationService.installApproximation(id, entry.getApproximation());
+            } else {
+                equationService.dropApproximation(id);
+            }
+        } catch (EquationNotFoundException | InvalidExpressionException e) {
+            log.warn("Skipped {} change {} for equation {}: {}", entry.getType(), entry.getSequence(), id, e.getMessage());
+        }
+    }
+    
+    /**
+     * Starts replaying a new log from the beginning. Every equation held now is
+     * unconfirmed until the new log stores it again.
+     */
+    private void resync(String newEpoch, long lastSequence) {
+        log.warn("Primary {} started a new change log; replaying it from the start", primaryUrl);
+        if (unconfirmed == null) {
+            unconfirmed = new HashSet<>();
+        }
+        equationService.getAllEquations().forEach(equation -> unconfirmed.add(equation.getId()));
+        epoch = newEpoch;
+        appliedSequence = 0;
+        primarySequence = lastSequence;
+    }
+}
@@ -0,0 +1,94 @@
+package com.freightfox.service;
+
+import com.freightfox.exception.ServerBusyException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Bounded background queue that parses and compiles stored equations off the request thread.
+ *
+ * <p>One worker drains the queue in batches. A job is processed exactly once,
+ * by whoever claims it first: normally the worker, but a request that needs
+ * the equation before the worker reaches it claims the job and compiles it
+ * inline instead of waiting behind the rest of the queue.
+ */
+class StorePipeline {
+    
+    private final BlockingQueue<Job> queue;
+    private final int batchSize;
+    private final Consumer<Job> processor;
+    private final Thread worker = new Thread(this::drain, "equation-store");
+    
+    /**
+     * One reserved equation ID waiting to be parsed and compiled.
+     */
+    static final class Job {
+        
+        final Long id;
+        final String equation;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        
+        Job(Long id, String equation) {
+            this.id = id;
+            this.equation = equation;
+        }
+        
+        /**
+         * Claims the job for processing.
+         * 
+         * @return True for exactly one caller
+         */
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+    
+    StorePipeline(int capacity, int batchSize, Consumer<Job> processor) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.processor = processor;
+        worker.setDaemon(true);
+        worker.start();
+    }
+    
+    /**
+     * Queues a job.
+     * 
+     * @param job The job
+     * @throws ServerBusyException if the queue is full
+     */
+    void submit(Job job) {
+        if (!queue.offer(job)) {
+            throw new ServerBusyException("Store queue is full; retry shortly");
+        }
+    }
+    
+    void shutdown() {
+        worker.interrupt();
+    }
+    
+    private void drain() {
+        List<Job> batch = new ArrayList<>(batchSize);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                for (Job job : batch) {
+                    if (job.claim()) {
+                        processor.accept(job);
+                    }
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.freightfox.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.freightfox.model.Equation;
+import com.freightfox.model.WarmupSample;
+import com.freightfox.util.Deadline;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Warms up the evaluation paths before the instance reports itself ready.
+ *
+ * <p>Runs once at startup, after the web server has started but before the
+ * application is ready, so the readiness probe stays down until warm-up has
+ * finished or timed out. The workload, in order of preference:
+ * <ul>
+ *   <li>equations already stored here, for example on a replica or a cluster
+ *       member, hottest first, with synthetic variable values;</li>
+ *   <li>evaluations recorded by the previous run in the sample file;</li>
+ *   <li>a fixed set of synthetic equations when there is nothing else.</li>
+ * </ul>
+ * Recorded and synthetic equations are stored in a private scratch service, so
+ * warm-up runs the same code as real traffic without touching the store.
+ */
+@Service
+@ConditionalOnProperty(name = "equation.warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class WarmupRunner implements ApplicationRunner {
+    
+    static final List<String> SYNTHETIC_EQUATIONS = List.of(
+            "3x + 2y - z",
+            "x^2 + 3*x - 7",
+            "(a + b) * (c - d) / (e + 1)",
+            "2^x + y^0.5 - x*y",
+            "a*b*c + a*b + a + 1");
+    
+    private static final int MAX_TARGETS = 64;
+    
+    private final EquationServiceImpl equationService;
+    private final ObjectMapper objectMapper;
+    private final long timeoutMillis;
+    private final int evaluationBudget;
+    private final String sampleFile;
+    
+    private volatile long durationMillis;
+    private volatile long evaluations;
+    private volatile long firstRoundNanos;
+    private volatile long lastRoundNanos;
+    private volatile boolean timedOut;
+    
+    public WarmupRunner(
+            EquationServiceImpl equationService,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${equation.warmup.timeout-millis:10000}") long timeoutMillis,
+            @Value("${equation.warmup.evaluations:20000}") int evaluationBudget,
+            @Value("${equation.warmup.sample-file:}") String sampleFile) {
+        this.equationService = equationService;
+        this.objectMapper = objectMapper;
+        this.timeoutMillis = timeoutMillis;
+        this.evaluationBudget = evaluationBudget;
+        this.sampleFile = sampleFile;
+        
+        Gauge.builder("equation.warmup.duration", this, runner -> runner.durationMillis)
+                .description("Time spent warming up before reporting ready").baseUnit("milliseconds").register(meterRegistry);
+        Gauge.builder("equation.warmup.evaluations", this, runner -> runner.evaluations)
+                .description("Evaluations replayed during warm-up").register(meterRegistry);
+        Gauge.builder("equation.warmup.first.round", this, runner -> runner.firstRoundNanos)
+                .description("Mean time per evaluation in the first warm-up round").baseUnit("nanoseconds").register(meterRegistry);
+        Gauge.builder("equation.warmup.last.round", this, runner -> runner.lastRoundNanos)
+                .description("Mean time per evaluation in the last warm-up round").baseUnit("nanoseconds").register(meterRegistry);
+        Gauge.builder("equation.warmup.timed.out", this, runner -> runner.timedOut ? 1 : 0)
+                .description("Whether warm-up stopped at its timeout").register(meterRegistry);
+    }
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        warmUp();
+    }
+    
+    /**
+     * Replays the workload in rounds until the evaluation budget is spent or the timeout passes.
+     */
+    void warmUp() {
+        long start = System.nanoTime();
+        Deadline deadline = Deadline.after(timeoutMillis);
+        EquationServiceImpl scratch = new EquationServiceImpl();
+        try {
+            List<WarmupSample> recorded = loadSample();
+            List<Target> targets = new ArrayList<>();
+            addStoredTargets(targets, recorded);
+            Set<String> replayed = new HashSet<>();
+            for (WarmupSample sample : recorded) {
+                if (targets.size() >= MAX_TARGETS) {
+                    break;
+                }
+                if (replayed.add(sample.getEquation())) {
+                    addScratchTarget(targets, scratch, sample.getEquation(), sample.getVariables());
+                }
+            }
+            if (targets.isEmpty()) {
+                for (String equation : SYNTHETIC_EQUATIONS) {
+                    addScratchTarget(targets, scratch, equation, null);
+                }
+            }
+            
+            long done = 0;
+            while (!targets.isEmpty() && done < evaluationBudget && !deadline.isExpired()) {
+                long roundStart = System.nanoTime();
+                int count = runRound(targets);
+                long perEvaluation = (System.nanoTime() - roundStart) / Math.max(1, count);
+                if (done == 0) {
+                    firstRoundNanos = perEvaluation;
+                }
+                lastRoundNanos = perEvaluation;
+                done += count;
+                evaluations = done;
+            }
+            timedOut = done < evaluationBudget && deadline.isExpired();
+        } finally {
+            scratch.shutdownPublisher();
+            durationMillis = (System.nanoTime() - start) / 1_000_000;
+        }
+    }
+    
+    /**
+     * Evaluates every target once, plus its gradient, and each service's targets as one group.
+     * Failures such as division by zero are part of the workload and are ignored.
+     */
+    private int runRound(List<Target> targets) {
+        int count = 0;
+        Map<EquationServiceImpl, List<Long>> groups = new IdentityHashMap<>();
+        Map<EquationServiceImpl, Map<String, Double>> groupVariables = new IdentityHashMap<>();
+        for (Target target : targets) {
+            count += attempt(() -> target.service().evaluateEquation(target.id(), target.variables()));
+            count += attempt(() -> target.service().evaluateGradient(target.id(), target.variables()));
+            groups.computeIfAbsent(target.service(), key -> new ArrayList<>()).add(target.id());
+            groupVariables.computeIfAbsent(target.service(), key -> new HashMap<>()).putAll(target.variables());
+        }
+        for (Map.Entry<EquationServiceImpl, List<Long>> group : groups.entrySet()) {
+            count += attempt(() -> group.getKey().evaluateMany(group.getValue(), groupVariables.get(group.getKey())));
+        }
+        return count;
+    }
+    
+    private static int attempt(Runnable evaluation) {
+        try {
+            evaluation.run();
+        } catch (RuntimeException e) {
+            // Expected for some bindings; the code path is warm either way
+        }
+        return 1;
+    }
+    
+    /**
+     * Adds equations stored on this node, those seen most often in the recorded sample first.
+     */
+    private void addStoredTargets(List<Target> targets, List<WarmupSample> recorded) {
+        Map<String, Long> frequency = recorded.stream()
+                .collect(Collectors.groupingBy(WarmupSample::getEquation, Collectors.counting()));
+        equationService.getAllEquations().stream()
+                .sorted(Comparator.comparing((Equation equation) -> frequency.getOrDefault(equation.getEquation(), 0L))
+                        .reversed())
+                .limit(MAX_TARGETS)
+                .forEach(equation -> targets.add(new Target(equationService, equation.getId(),
+                        syntheticBindings(equationService.getVariableNames(equation.getId())))));
+    }
+    
+    private static void addScratchTarget(List<Target> targets, EquationServiceImpl scratch,
+                                         String equation, Map<String, Double> variables) {
+        try {
+            Long id = scratch.storeEquation(equation);
+            targets.add(new Target(scratch, id,
+                    variables != null ? variables : syntheticBindings(scratch.getVariableNames(id))));
+        } catch (RuntimeException e) {
+            // A recorded equation that no longer parses is skipped
+        }
+    }
+    
+    /**
+     * Distinct values above 1, so that divisors and bases of powers are unlikely to be zero or negative.
+     */
+    private static Map<String, Double> syntheticBindings(String[] names) {
+        Map<String, Double> variables = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            variables.put(names[i], 1.5 + 0.25 * i);
+        }
+        return variables;
+    }
+    
+    private List<WarmupSample> loadSample() {
+        if (sampleFile.isBlank() || !new File(sampleFile).isFile()) {
+            return List.of();
+        }
+        try {
+            return objectMapper.readValue(new File(sampleFile), new TypeReference<List<WarmupSample>>() { });
+        } catch (IOException e) {
+            return List.of();
+        }
+    }
+    
+    /**
+     * Writes this run's traffic sample for the next start. An empty sample
+     * leaves the previous file in place.
+     */
+    @PreDestroy
+    public void saveSample() {
+        List<WarmupSample> sample = equationService.getTrafficSample();
+        if (sampleFile.isBlank() || sample.isEmpty()) {
+            return;
+        }
+        try {
+            objectMapper.writeValue(new File(sampleFile), sample);
+        } catch (IOException e) {
+            // Warm-up falls back to stored or synthetic equations next time
+        }
+    }
+    
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+    
+    public long getEvaluations() {
+        return evaluations;
+    }
+    
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+    
+    private record Target(EquationServiceImpl service, Long id, Map<String, Double> variables) {
+    }
+}
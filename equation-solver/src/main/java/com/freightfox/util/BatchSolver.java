@@ -0,0 +1,62 @@
+package com.freightfox.util;
+
+import com.freightfox.exception.SolverException;
+import com.freightfox.model.SolveResult;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Solves one equation for the same unknown over many parameter rows.
+ * Rows are split into contiguous chunks that are solved in parallel; within a
+ * chunk each solve starts from the previous row's root, which is usually close
+ * because neighbouring rows in a sweep differ only slightly.
+ */
+public class BatchSolver {
+    
+    private static final int MIN_CHUNK_SIZE = 64;
+    
+    /**
+     * Solves every row, returning one result per row in input order.
+     * A row that cannot be solved yields a failed result instead of aborting the batch.
+     *
+     * @param finders Supplies one root finder per chunk, since finders are not thread-safe
+     * @param rows Variable values indexed by slot, one array per row
+     * @param target The value the expression should equal
+     * @param initialGuess Starting point for the first row of each chunk, or null
+     * @param lowerBound Lower end of the bracket, or null
+     * @param upperBound Upper end of the bracket, or null
+     * @param deadline Deadline for the whole batch; once it passes every chunk stops
+     * @return Results in row order
+     * @throws com.freightfox.exception.DeadlineExceededException if the deadline passes before all rows are solved
+     */
+    public static SolveResult[] solve(Supplier<RootFinder> finders, double[][] rows, double target,
+                                      Double initialGuess, Double lowerBound, Double upperBound,
+                                      Deadline deadline) {
+        SolveResult[] results = new SolveResult[rows.length];
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, (rows.length + parallelism * 4 - 1) / (parallelism * 4));
+        int chunks = (rows.length + chunkSize - 1) / chunkSize;
+        
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            RootFinder finder = finders.get();
+            finder.setDeadline(deadline);
+            int start = chunk * chunkSize;
+            int end = Math.min(rows.length, start + chunkSize);
+            Double guess = initialGuess;
+            
+            for (int row = start; row < end; row++) {
+                deadline.check();
+                try {
+                    SolveResult result = finder.solve(rows[row], target, guess, lowerBound, upperBound);
+                    results[row] = result;
+                    guess = result.getRoot();
+                } catch (SolverException e) {
+                    results[row] = SolveResult.failed(e.getMessage());
+                }
+                deadline.advance(1);
+            }
+        });
+        
+        return results;
+    }
+}
@@ -0,0 +1,77 @@
+package com.freightfox.util;
+
+import com.freightfox.model.ChangeLogEntry;
+import java.util.*;
+
+/**
+ * Append-only, in-memory log of changes to the equation store.
+ * Sequence numbers start at 1 and have no gaps, so a reader that remembers
+ * the last sequence it applied can resume from exactly that point.
+ * Readers may block until new entries arrive, which lets replicas long-poll.
+ *
+ * <p>The log lives only as long as the process, so each log has a random epoch.
+ * A reader that sees a new epoch knows the sequence numbers started over.
+ */
+public class ChangeLog {
+    
+    private final String epoch = UUID.randomUUID().toString();
+    private final List<ChangeLogEntry> entries = new ArrayList<>();
+    
+    /**
+     * Appends a change and wakes any waiting readers.
+     *
+     * @param type The change type
+     * @param equationId The equation the change applies to
+     * @param equation The equation text, or null for removals
+     * @return The sequence number of the new entry
+     */
+    public long append(String type, Long equationId, String equation) {
+        return append(new ChangeLogEntry(0, type, equationId, equation, 0));
+    }
+    
+    /**
+     * Appends a change built by the caller, numbering and timestamping it, and wakes any waiting readers.
+     *
+     * @param entry The change; its sequence and timestamp are overwritten
+     * @return The sequence number of the new entry
+     */
+    public synchronized long append(ChangeLogEntry entry) {
+        long sequence = entries.size() + 1;
+        entry.setSequence(sequence);
+        entry.setTimestamp(System.currentTimeMillis());
+        entries.add(entry);
+        notifyAll();
+        return sequence;
+    }
+    
+    /**
+     * Reads entries after a sequence number, waiting up to a timeout if there are none yet.
+     *
+     * @param afterSequence The last sequence the reader has seen
+     * @param limit Maximum number of entries to return
+     * @param waitMillis How long to wait for a new entry; zero returns immediately
+     * @return Entries in sequence order, possibly empty
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized List<ChangeLogEntry> readAfter(long afterSequence, int limit, long waitMillis)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + waitMillis;
+        while (entries.size() <= afterSequence) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return List.of();
+            }
+            wait(remaining);
+        }
+        int from = (int) Math.max(0, afterSequence);
+        return List.copyOf(entries.subList(from, Math.min(entries.size(), from + limit)));
+    }
+    
+    public synchronized long getLastSequence() {
+        return entries.size();
+    }
+    
+    public String getEpoch() {
+        return epoch;
+    }
+}
@@ -0,0 +1,556 @@
+package com.freightfox.util;
+
+import com.freightfox.model.*;
+import java.util.*;
+
+/**
+ * Flat postfix program compiled from an expression tree.
+ * Variables are resolved to slots once at compile time so evaluation works on
+ * plain arrays instead of walking the tree and looking names up in a map.
+ * Polynomials are additionally recognized and evaluated in Horner form; the
+ * program is still used for gradients, derivatives and ranges.
+ *
+ * <p>Constant exponents and divisors are strength-reduced while emitting: small
+ * integer powers become {@link #POWI}, {@code ^0.5} becomes {@link #SQRT}, and
+ * division by a power of two becomes multiplication by its reciprocal.
+ */
+public class CompiledExpression {
+    
+    static final byte CONST = 0;
+    static final byte VAR = 1;
+    static final byte ADD = 2;
+    static final byte SUB = 3;
+    static final byte MUL = 4;
+    static final byte DIV = 5;
+    static final byte POW = 6;
+    // Strength-reduced powers, emitted in place of a constant exponent and POW
+    static final byte POWI = 7;
+    static final byte SQRT = 8;
+    
+    private final byte[] ops;
+    private final int[] operands;
+    private final double[] constants;
+    private final String[] variables;
+    private final int maxStack;
+    private final Polynomial polynomial;
+    
+    private CompiledExpression(byte[] ops, int[] operands, double[] constants, String[] variables, int maxStack,
+                               Polynomial polynomial) {
+        this.ops = ops;
+        this.operands = operands;
+        this.constants = constants;
+        this.variables = variables;
+        this.maxStack = maxStack;
+        this.polynomial = polynomial;
+    }
+    
+    /**
+     * Compiles an expression tree into a postfix program.
+     *
+     * @param root The root node of the expression tree
+     * @return The compiled expression
+     * @throws IllegalArgumentException if the tree contains an unknown operator
+     */
+    public static CompiledExpression compile(ExpressionNode root) {
+        SortedSet<String> names = new TreeSet<>();
+        collectVariables(root, names);
+        String[] variables = names.toArray(new String[0]);
+        
+        Builder builder = new Builder(variables);
+        builder.emit(root);
+        return new CompiledExpression(
+            Arrays.copyOf(builder.ops, builder.size),
+            Arrays.copyOf(builder.operands, builder.size),
+            builder.constants.stream().mapToDouble(Double::doubleValue).toArray(),
+            variables,
+            builder.maxDepth,
+            Polynomial.recognize(root, variables));
+    }
+    
+    /**
+     * Returns the variable names referenced by the expression, in slot order.
+     *
+     * @return Sorted array of variable names
+     */
+    public String[] getVariables() {
+        return variables.clone();
+    }
+    
+    /**
+     * Returns the slot of a variable, or -1 if the expression does not reference it.
+     *
+     * @param variable The variable name
+     * @return The slot index
+     */
+    public int slotOf(String variable) {
+        int slot = Arrays.binarySearch(variables, variable);
+        return slot >= 0 ? slot : -1;
+    }
+    
+    /**
+     * Returns the Horner form used for plain evaluation, if the expression is a polynomial.
+     *
+     * @return The polynomial, or null
+     */
+    public Polynomial getPolynomial() {
+        return polynomial;
+    }
+    
+    /**
+     * Returns the stack size needed to evaluate the expression.
+     *
+     * @return The maximum stack depth
+     */
+    public int getMaxStack() {
+        return maxStack;
+    }
+    
+    /**
+     * Resolves variable values from a map into slot order.
+     *
+     * @param values Map of variable names to their values
+     * @return Array of values indexed by slot
+     * @throws IllegalArgumentException if a referenced variable is missing
+     */
+    public double[] bind(Map<String, Double> values) {
+        double[] slots = new double[variables.length];
+        for (int i = 0; i < variables.length; i++) {
+            Double value = values.get(variables[i]);
+            if (value == null) {
+                throw new IllegalArgumentException("Variable '" + variables[i] + "' not found in provided values");
+            }
+            slots[i] = value;
+        }
+        return slots;
+    }
+    
+    /**
+     * Evaluates the expression with slot-ordered variable values.
+     *
+     * @param values Variable values indexed by slot
+     * @return The result of the evaluation
+     */
+    public double evaluate(double[] values) {
+        return evaluate(values, new double[maxStack]);
+    }
+    
+    /**
+     * Evaluates the expression using a caller-supplied stack, so repeated calls
+     * do not allocate.
+     *
+     * @param values Variable values indexed by slot
+     * @param stack Scratch stack of at least {@link #getMaxStack()} entries
+     * @return The result of the evaluation
+     * @throws ArithmeticException on division by zero
+     */
+    public double evaluate(double[] values, double[] stack) {
+        if (polynomial != null) {
+            return polynomial.evaluate(values);
+        }
+        int top = -1;
+        for (int pc = 0; pc < ops.length; pc++) {
+            switch (ops[pc]) {
+                case CONST -> stack[++top] = constants[operands[pc]];
+                case VAR -> stack[++top] = values[operands[pc]];
+                case ADD -> { top--; stack[top] = stack[top] + stack[top + 1]; }
+                case SUB -> { top--; stack[top] = stack[top] - stack[top + 1]; }
+                case MUL -> { top--; stack[top] = stack[top] * stack[top + 1]; }
+                case DIV -> {
+                    top--;
+                    if (stack[top + 1] == 0) {
+                        throw new ArithmeticException("Division by zero");
+                    }
+                    stack[top] = stack[top] / stack[top + 1];
+                }
+                case POW -> { top--; stack[top] = Math.pow(stack[top], stack[top + 1]); }
+                case POWI -> stack[top] = StrengthReduction.powi(stack[top], operands[pc]);
+                case SQRT -> stack[top] = StrengthReduction.sqrt(stack[top]);
+                default -> throw new IllegalStateException("Unknown opcode: " + ops[pc]);
+            }
+        }
+        return stack[0];
+    }
+    
+    /**
+     * Evaluates the program over many rows at once. Each instruction is applied
+     * to a whole column before moving to the next, so the dispatch cost is paid
+     * once per batch and the inner loops run over contiguous arrays.
+     *
+     * @param columns Variable values indexed by slot, then by row
+     * @param rows Number of rows to evaluate
+     * @param results Output array receiving one value per row
+     * @param divisionByZero Output array flagging rows that divided by zero
+     */
+    public void evaluateColumns(double[][] columns, int rows, double[] results, boolean[] divisionByZero) {
+        if (polynomial != null) {
+            // Horner form cannot divide by zero, and one row at a time beats a column of pow calls
+            double[] row = new double[variables.length];
+            for (int r = 0; r < rows; r++) {
+                for (int slot = 0; slot < row.length; slot++) {
+                    row[slot] = columns[slot][r];
+                }
+                results[r] = polynomial.evaluate(row);
+            }
+            return;
+        }
+        double[][] stack = new double[maxStack][];
+        int top = -1;
+        for (int pc = 0; pc < ops.length; pc++) {
+            byte op = ops[pc];
+            if (op == CONST) {
+                double[] column = new double[rows];
+                Arrays.fill(column, constants[operands[pc]]);
+                stack[++top] = column;
+                continue;
+            }
+            if (op == VAR) {
+                // Copied because the operators below write into their left operand
+                stack[++top] = Arrays.copyOf(columns[operands[pc]], rows);
+                continue;
+            }
+            if (op == POWI || op == SQRT) {
+                double[] a = stack[top];
+                int exponent = operands[pc];
+                for (int r = 0; r < rows; r++) {
+                    a[r] = op == POWI ? StrengthReduction.powi(a[r], exponent) : StrengthReduction.sqrt(a[r]);
+                }
+                continue;
+            }
+            top--;
+            double[] a = stack[top];
+            double[] b = stack[top + 1];
+            switch (op) {
+                case ADD -> { for (int r = 0; r < rows; r++) a[r] += b[r]; }
+                case SUB -> { for (int r = 0; r < rows; r++) a[r] -= b[r]; }
+                case MUL -> { for (int r = 0; r < rows; r++) a[r] *= b[r]; }
+                case DIV -> {
+                    for (int r = 0; r < rows; r++) {
+                        if (b[r] == 0) {
+                            divisionByZero[r] = true;
+                        }
+                        a[r] /= b[r];
+                    }
+                }
+                case POW -> { for (int r = 0; r < rows; r++) a[r] = Math.pow(a[r], b[r]); }
+                default -> throw new IllegalStateException("Unknown opcode: " + op);
+            }
+        }
+        System.arraycopy(stack[0], 0, results, 0, rows);
+    }
+    
+    /**
+     * Evaluates the expression and all of its partial derivatives in a single
+     * forward-mode pass. Every stack entry is a dual number carrying its value
+     * and one tangent per variable slot.
+     *
+     * @param values Variable values indexed by slot
+     * @param gradient Output array receiving the partial derivative for each slot
+     * @return The result of the evaluation
+     * @throws ArithmeticException on division by zero
+     */
+    public double evaluateGradient(double[] values, double[] gradient) {
+        int n = variables.length;
+        double[] stack = new double[maxStack];
+        double[] tangents = new double[maxStack * n];
+        int top = -1;
+        
+        for (int pc = 0; pc < ops.length; pc++) {
+            switch (ops[pc]) {
+                case CONST -> {
+                    top++;
+                    stack[top] = constants[operands[pc]];
+                    Arrays.fill(tangents, top * n, top * n + n, 0.0);
+                }
+                case VAR -> {
+                    top++;
+                    stack[top] = values[operands[pc]];
+                    Arrays.fill(tangents, top * n, top * n + n, 0.0);
+                    tangents[top * n + operands[pc]] = 1.0;
+                }
+                case POWI, SQRT -> {
+                    double a = stack[top];
+                    double power;
+                    double slope;
+                    if (ops[pc] == POWI) {
+                        int exponent = operands[pc];
+                        power = StrengthReduction.powi(a, exponent);
+                        slope = exponent == 0 ? 0.0 : exponent * StrengthReduction.powi(a, exponent - 1);
+                    } else {
+                        power = StrengthReduction.sqrt(a);
+                        slope = 0.5 / power;
+                    }
+                    stack[top] = power;
+                    int da = top * n;
+                    for (int i = 0; i < n; i++) {
+                        if (tangents[da + i] != 0) {
+                            tangents[da + i] *= slope;
+                        }
+                    }
+                }
+                default -> {
+                    top--;
+                    double a = stack[top];
+                    double b = stack[top + 1];
+                    int da = top * n;
+                    int db = da + n;
+                    switch (ops[pc]) {
+                        case ADD -> {
+                            stack[top] = a + b;
+                            for (int i = 0; i < n; i++) tangents[da + i] += tangents[db + i];
+                        }
+                        case SUB -> {
+                            stack[top] = a - b;
+                            for (int i = 0; i < n; i++) tangents[da + i] -= tangents[db + i];
+                        }
+                        case MUL -> {
+                            stack[top] = a * b;
+                            for (int i = 0; i < n; i++) {
+                                tangents[da + i] = tangents[da + i] * b + a * tangents[db + i];
+                            }
+                        }
+                        case DIV -> {
+                            if (b == 0) {
+                                throw new ArithmeticException("Division by zero");
+                            }
+                            double quotient = a / b;
+                            stack[top] = quotient;
+                            for (int i = 0; i < n; i++) {
+                                tangents[da + i] = (tangents[da + i] - quotient * tangents[db + i]) / b;
+                            }
+                        }
+                        case POW -> {
+                            double power = Math.pow(a, b);
+                            stack[top] = power;
+                            for (int i = 0; i < n; i++) {
+                                double dBase = tangents[da + i];
+                                double dExponent = tangents[db + i];
+                                double d = 0.0;
+                                if (dBase != 0) {
+                                    d += b * Math.pow(a, b - 1) * dBase;
+                                }
+                                if (dExponent != 0) {
+                                    d += power * Math.log(a) * dExponent;
+                                }
+                                tangents[da + i] = d;
+                            }
+                        }
+                        default -> throw new IllegalStateException("Unknown opcode: " + ops[pc]);
+                    }
+                }
+            }
+        }
+        
+        System.arraycopy(tangents, 0, gradient, 0, n);
+        return stack[0];
+    }
+    
+    /**
+     * Evaluates the expression and its derivative with respect to one slot,
+     * using caller-supplied stacks so repeated calls do not allocate.
+     * The derivative is left in {@code tangents[0]}.
+     *
+     * @param values Variable values indexed by slot
+     * @param slot The slot to differentiate by
+     * @param stack Scratch value stack of at least {@link #getMaxStack()} entries
+     * @param tangents Scratch tangent stack of at least {@link #getMaxStack()} entries
+     * @return The result of the evaluation
+     * @throws ArithmeticException on division by zero
+     */
+    public double evaluateDerivative(double[] values, int slot, double[] stack, double[] tangents) {
+        int top = -1;
+        for (int pc = 0; pc < ops.length; pc++) {
+            switch (ops[pc]) {
+                case CONST -> {
+                    top++;
+                    stack[top] = constants[operands[pc]];
+                    tangents[top] = 0.0;
+                }
+                case VAR -> {
+                    top++;
+                    stack[top] = values[operands[pc]];
+                    tangents[top] = operands[pc] == slot ? 1.0 : 0.0;
+                }
+                case ADD -> {
+                    top--;
+                    stack[top] += stack[top + 1];
+                    tangents[top] += tangents[top + 1];
+                }
+                case SUB -> {
+                    top--;
+                    stack[top] -= stack[top + 1];
+                    tangents[top] -= tangents[top + 1];
+                }
+                case MUL -> {
+                    top--;
+                    tangents[top] = tangents[top] * stack[top + 1] + stack[top] * tangents[top + 1];
+                    stack[top] *= stack[top + 1];
+                }
+                case DIV -> {
+                    top--;
+                    double b = stack[top + 1];
+                    if (b == 0) {
+                        throw new ArithmeticException("Division by zero");
+                    }
+                    double quotient = stack[top] / b;
+                    tangents[top] = (tangents[top] - quotient * tangents[top + 1]) / b;
+                    stack[top] = quotient;
+                }
+                case POW -> {
+                    top--;
+                    double a = stack[top];
+                    double b = stack[top + 1];
+                    double power = Math.pow(a, b);
+                    double d = 0.0;
+                    if (tangents[top] != 0) {
+                        d += b * Math.pow(a, b - 1) * tangents[top];
+                    }
+                    if (tangents[top + 1] != 0) {
+                        d += power * Math.log(a) * tangents[top + 1];
+                    }
+                    stack[top] = power;
+                    tangents[top] = d;
+                }
+                case POWI -> {
+                    int exponent = operands[pc];
+                    double a = stack[top];
+                    if (tangents[top] != 0) {
+                        tangents[top] *= exponent == 0 ? 0.0 : exponent * StrengthReduction.powi(a, exponent - 1);
+                    }
+                    stack[top] = StrengthReduction.powi(a, exponent);
+                }
+                case SQRT -> {
+                    double root = StrengthReduction.sqrt(stack[top]);
+                    if (tangents[top] != 0) {
+                        tangents[top] *= 0.5 / root;
+                    }
+                    stack[top] = root;
+                }
+                default -> throw new IllegalStateException("Unknown opcode: " + ops[pc]);
+            }
+        }
+        return stack[0];
+    }
+    
+    /**
+     * Evaluates the expression over ranges of variable values in one pass.
+     *
+     * @param ranges Variable ranges indexed by slot
+     * @return The enclosing range of the result
+     */
+    public Interval evaluateInterval(Interval[] ranges) {
+        Interval[] stack = new Interval[maxStack];
+        int top = -1;
+        for (int pc = 0; pc < ops.length; pc++) {
+            switch (ops[pc]) {
+                case CONST -> stack[++top] = Interval.of(constants[operands[pc]]);
+                case VAR -> stack[++top] = ranges[operands[pc]];
+                case ADD -> { top--; stack[top] = stack[top].add(stack[top + 1]); }
+                case SUB -> { top--; stack[top] = stack[top].subtract(stack[top + 1]); }
+                case MUL -> { top--; stack[top] = stack[top].multiply(stack[top + 1]); }
+                case DIV -> { top--; stack[top] = stack[top].divide(stack[top + 1]); }
+                case POW -> { top--; stack[top] = stack[top].pow(stack[top + 1]); }
+                case POWI -> stack[top] = stack[top].pow(Interval.of(operands[pc]));
+                case SQRT -> stack[top] = stack[top].pow(Interval.of(0.5));
+                default -> throw new IllegalStateException("Unknown opcode: " + ops[pc]);
+            }
+        }
+        return stack[0];
+    }
+    
+    /**
+     * Maps an operator symbol to its opcode.
+     *
+     * @param operator The operator symbol
+     * @return The opcode
+     * @throws IllegalArgumentException if the operator is unknown
+     */
+    static byte opcodeOf(String operator) {
+        return switch (operator) {
+            case "+" -> ADD;
+            case "-" -> SUB;
+            case "*" -> MUL;
+            case "/" -> DIV;
+            case "^" -> POW;
+            default -> throw new IllegalArgumentException("Unknown operator: " + operator);
+        };
+    }
+    
+    static void collectVariables(ExpressionNode root, Set<String> names) {
+        for (ExpressionNode node : ExpressionNode.postOrder(root)) {
+            if (node instanceof VariableNode variable) {
+                names.add(variable.getVariableName());
+            }
+        }
+    }
+    
+    /**
+     * Accumulates the program while walking the tree in postfix order.
+     */
+    private static class Builder {
+        
+        private final String[] variables;
+        private final List<Double> constants = new ArrayList<>();
+        private byte[] ops = new byte[16];
+        private int[] operands = new int[16];
+        private int size;
+        private int depth;
+        private int maxDepth;
+        
+        Builder(String[] variables) {
+            this.variables = variables;
+        }
+        
+        void emit(ExpressionNode root) {
+            for (ExpressionNode node : ExpressionNode.postOrder(root)) {
+                if (node instanceof ConstantNode constant) {
+                    constants.add(constant.getValue());
+                    append(CONST, constants.size() - 1, 1);
+                } else if (node instanceof VariableNode variable) {
+                    append(VAR, Arrays.binarySearch(variables, variable.getVariableName()), 1);
+                } else if (node instanceof OperatorNode operator) {
+                    emitOperator(operator);
+                } else {
+                    throw new IllegalArgumentException("Unsupported node type: " + node.getClass().getSimpleName());
+                }
+            }
+        }
+        
+        private void emitOperator(OperatorNode operator) {
+            byte op = opcodeOf(operator.getOperator());
+            if (!(operator.getRight() instanceof ConstantNode constant)) {
+                append(op, 0, -1);
+                return;
+            }
+            // The constant operand was the last instruction emitted
+            double value = constant.getValue();
+            if (op == POW && (StrengthReduction.integerExponent(value) >= 0 || value == 0.5)) {
+                removeLastConstant();
+                int exponent = StrengthReduction.integerExponent(value);
+                append(exponent >= 0 ? POWI : SQRT, Math.max(exponent, 0), 0);
+            } else if (op == DIV && StrengthReduction.hasExactReciprocal(value)) {
+                constants.set(constants.size() - 1, 1.0 / value);
+                append(MUL, 0, -1);
+            } else {
+                append(op, 0, -1);
+            }
+        }
+        
+        private void removeLastConstant() {
+            size--;
+            depth--;
+            constants.remove(constants.size() - 1);
+        }
+        
+        private void append(byte op, int operand, int stackEffect) {
+            if (size == ops.length) {
+                ops = Arrays.copyOf(ops, size * 2);
+                operands = Arrays.copyOf(operands, size * 2);
+            }
+            ops[size] = op;
+            operands[size] = operand;
+            size++;
+            depth += stackEffect;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.freightfox.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Immutable consistent-hash ring assigning long keys to named nodes.
+ * Each node is placed at several pseudo-random points so that load stays
+ * even, and adding or removing a node only moves the keys between it and its
+ * neighbours on the ring.
+ */
+public final class ConsistentHashRing {
+    
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+    
+    private final SortedSet<String> nodes;
+    private final NavigableMap<Long, String> points;
+    private final int virtualNodes;
+    
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("Virtual node count must be positive");
+        }
+        this.nodes = Collections.unmodifiableSortedSet(new TreeSet<>(nodes));
+        this.virtualNodes = virtualNodes;
+        this.points = new TreeMap<>();
+        for (String node : this.nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                // Collisions between 64-bit points are negligible; the smaller name wins so every node agrees
+                points.merge(hash(node + "#" + i), node, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+            }
+        }
+    }
+    
+    /**
+     * Returns the node that owns a key: the first node point at or after the key's hash.
+     *
+     * @param key The key
+     * @return The owning node
+     * @throws IllegalStateException if the ring is empty
+     */
+    public String ownerOf(long key) {
+        if (points.isEmpty()) {
+            throw new IllegalStateException("Hash ring has no nodes");
+        }
+        Map.Entry<Long, String> entry = points.ceilingEntry(mix(key));
+        return entry != null ? entry.getValue() : points.firstEntry().getValue();
+    }
+    
+    public ConsistentHashRing withNode(String node) {
+        Set<String> updated = new TreeSet<>(nodes);
+        updated.add(node);
+        return new ConsistentHashRing(updated, virtualNodes);
+    }
+    
+    public ConsistentHashRing withoutNode(String node) {
+        Set<String> updated = new TreeSet<>(nodes);
+        updated.remove(node);
+        return new ConsistentHashRing(updated, virtualNodes);
+    }
+    
+    public SortedSet<String> getNodes() {
+        return nodes;
+    }
+    
+    public boolean contains(String node) {
+        return nodes.contains(node);
+    }
+    
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+    
+    /**
+     * FNV-1a over the UTF-8 bytes, finished with the same mixer as keys so that
+     * similar node names land far apart.
+     */
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+    
+    /**
+     * SplitMix64 finalizer, so that sequential IDs scatter uniformly over the ring.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+    
+    @Override
+    public String toString() {
+        return "ConsistentHashRing" + nodes;
+    }
+}
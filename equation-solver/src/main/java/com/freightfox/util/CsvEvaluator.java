@@ -0,0 +1,426 @@
+package com.freightfox.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Evaluates a compiled expression over every row of a CSV file, writing one result per row.
+ *
+ * <p>The input's first line names the columns; each variable of the expression
+ * is read from the column of the same name and other columns are ignored. The
+ * rest of the file is split on line boundaries into chunks of about
+ * {@link #DEFAULT_CHUNK_SIZE} bytes, each memory-mapped on its own. Chunks are
+ * parsed with an allocation-free number scanner and evaluated in blocks of
+ * {@link #BLOCK_SIZE} rows through the columnar evaluator. A window of chunks
+ * runs in parallel on the common fork-join pool, and their output is written
+ * in input order with one large write per chunk.
+ *
+ * <p>The output has a {@code result} header and one line per input row. Rows
+ * with a missing or malformed value, a division by zero or a result that is not
+ * finite get an empty line and are counted as failed. Blank lines are not rows.
+ * The output is written to a temporary file next to the target and moved into
+ * place when complete, so readers never see a partial file.
+ */
+public class CsvEvaluator {
+    
+    public static final int DEFAULT_CHUNK_SIZE = 8 << 20;
+    public static final int BLOCK_SIZE = 4096;
+    
+    // Longest header line accepted, which bounds the read before the first chunk
+    private static final int MAX_HEADER_BYTES = 1 << 20;
+    private static final byte[] HEADER = "result\n".getBytes(StandardCharsets.US_ASCII);
+    
+    /**
+     * Receives counts as each chunk finishes.
+     */
+    @FunctionalInterface
+    public interface Progress {
+        void advance(long rows, long failedRows, long bytes);
+    }
+    
+    /**
+     * Evaluates every row of the input, writing the results in row order.
+     *
+     * @param compiled The compiled expression
+     * @param input The CSV file to read
+     * @param output The file to write, replaced if it exists
+     * @param chunkSize Approximate bytes of input per chunk
+     * @param deadline Deadline for the whole file, checked once per chunk
+     * @param progress Receives counts after every chunk
+     * @throws IllegalArgumentException if the header is missing, too long or lacks a column for a variable
+     * @throws UncheckedIOException if a file cannot be read or written
+     * @throws com.freightfox.exception.DeadlineExceededException if the deadline passes first
+     */
+    public static void evaluate(CompiledExpression compiled, Path input, Path output, int chunkSize,
+                                Deadline deadline, Progress progress) {
+        Path partial = output.resolveSibling(output.getFileName() + ".part");
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            ByteBuffer first = ByteBuffer.allocate((int) Math.min(size, MAX_HEADER_BYTES));
+            in.read(first, 0);
+            int headerEnd = lineEnd(first.array(), first.position());
+            if (headerEnd < 0 && size > MAX_HEADER_BYTES) {
+                throw new IllegalArgumentException("CSV header is longer than " + MAX_HEADER_BYTES + " bytes");
+            }
+            int[] slotOfColumn = columns(compiled,
+                    new String(first.array(), 0, headerEnd < 0 ? first.position() : headerEnd, StandardCharsets.UTF_8));
+            
+            long dataStart = headerEnd < 0 ? size : headerEnd + 1;
+            List<long[]> chunks = chunks(in, dataStart, size, chunkSize);
+            writeFully(out, ByteBuffer.wrap(HEADER));
+            progress.advance(0, 0, dataStart);
+            
+            // A window of chunks is evaluated in parallel, then written in order before the next
+            int window = Runtime.getRuntime().availableProcessors() * 2;
+            for (int from = 0; from < chunks.size(); from += window) {
+                List<Chunk> done = IntStream.range(from, Math.min(chunks.size(), from + window)).parallel()
+                        .mapToObj(i -> {
+                            deadline.check();
+                            return new Chunk(compiled, slotOfColumn).run(in, chunks.get(i)[0], chunks.get(i)[1]);
+                        })
+                        .toList();
+                for (int i = 0; i < done.size(); i++) {
+                    Chunk chunk = done.get(i);
+                    writeFully(out, ByteBuffer.wrap(chunk.output, 0, chunk.outputLength));
+                    long[] range = chunks.get(from + i);
+                    progress.advance(chunk.rows, chunk.failedRows, range[1] - range[0]);
+                }
+            }
+            out.force(false);
+        } catch (IOException e) {
+            deleteQuietly(partial);
+            throw new UncheckedIOException("Error evaluating CSV file: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            deleteQuietly(partial);
+            throw e;
+        }
+        try {
+            Files.move(partial, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            deleteQuietly(partial);
+            throw new UncheckedIOException("Error writing " + output + ": " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Maps each header column to the slot of the variable it holds, or -1.
+     */
+    private static int[] columns(CompiledExpression compiled, String header) {
+        String[] names = header.split(",", -1);
+        int[] slotOfColumn = new int[names.length];
+        boolean[] found = new boolean[compiled.getVariables().length];
+        for (int column = 0; column < names.length; column++) {
+            String name = names[column].strip();
+            if (column == 0 && name.startsWith("\uFEFF")) {
+                name = name.substring(1);
+            }
+            slotOfColumn[column] = compiled.slotOf(name);
+            if (slotOfColumn[column] >= 0) {
+                found[slotOfColumn[column]] = true;
+            }
+        }
+        for (int slot = 0; slot < found.length; slot++) {
+            if (!found[slot]) {
+                throw new IllegalArgumentException("CSV header has no column for variable '"
+                        + compiled.getVariables()[slot] + "'");
+            }
+        }
+        return slotOfColumn;
+    }
+    
+    /**
+     * Splits {@code [start, size)} into ranges of about {@code chunkSize} bytes that end on line boundaries.
+     */
+    private static List<long[]> chunks(FileChannel in, long start, long size, int chunkSize) throws IOException {
+        List<long[]> chunks = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(64 * 1024);
+        while (start < size) {
+            long end = Math.min(size, start + chunkSize);
+            // Extend to just past the next newline so no line spans two chunks
+            while (end < size) {
+                probe.clear();
+                int read = in.read(probe, end);
+                if (read <= 0) {
+                    end = size;
+                    break;
+                }
+                int newline = lineEnd(probe.array(), read);
+                if (newline >= 0) {
+                    end += newline + 1;
+                    break;
+                }
+                end += read;
+                if (end - start > Integer.MAX_VALUE - probe.capacity()) {
+                    throw new IllegalArgumentException("CSV line at byte " + start + " is too long");
+                }
+            }
+            chunks.add(new long[] {start, end});
+            start = end;
+        }
+        return chunks;
+    }
+    
+    private static int lineEnd(byte[] bytes, int length) {
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+    
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // The partial file is only litter; the original failure is what gets reported
+        }
+    }
+    
+    /**
+     * Parsing, evaluation and formatting of one chunk, with buffers reused across its blocks.
+     */
+    private static final class Chunk {
+        
+        private final CompiledExpression compiled;
+        private final int[] slotOfColumn;
+        private final double[][] columns;
+        private final boolean[] valid = new boolean[BLOCK_SIZE];
+        private final double[] results = new double[BLOCK_SIZE];
+        private final boolean[] divisionByZero = new boolean[BLOCK_SIZE];
+        private final NumberScanner scanner = new NumberScanner();
+        private final StringBuilder formatted = new StringBuilder(32);
+        private byte[] output = new byte[1 << 16];
+        private int outputLength;
+        private long rows;
+        private long failedRows;
+        
+        Chunk(CompiledExpression compiled, int[] slotOfColumn) {
+            this.compiled = compiled;
+            this.slotOfColumn = slotOfColumn;
+            this.columns = new double[compiled.getVariables().length][BLOCK_SIZE];
+        }
+        
+        Chunk run(FileChannel in, long start, long end) {
+            MappedByteBuffer buffer;
+            try {
+                buffer = in.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error mapping CSV chunk at byte " + start + ": " + e.getMessage(), e);
+            }
+            int limit = buffer.limit();
+            int position = 0;
+            int row = 0;
+            while (position < limit) {
+                int lineEnd = position;
+                while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                int contentEnd = lineEnd > position && buffer.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+                if (contentEnd > position) {
+                    valid[row] = parseLine(buffer, position, contentEnd, row);
+                    if (++row == BLOCK_SIZE) {
+                        flush(row);
+                        row = 0;
+                    }
+                }
+                position = lineEnd + 1;
+            }
+            flush(row);
+            return this;
+        }
+        
+        /**
+         * Reads the variables of one line into the columns; false if any is missing or malformed.
+         */
+        private boolean parseLine(MappedByteBuffer buffer, int position, int end, int row) {
+            int found = 0;
+            int column = 0;
+            boolean ok = true;
+            while (true) {
+                int fieldEnd = position;
+                while (fieldEnd < end && buffer.get(fieldEnd) != ',') {
+                    fieldEnd++;
+                }
+                if (column < slotOfColumn.length && slotOfColumn[column] >= 0) {
+                    double value = scanner.parse(buffer, position, fieldEnd);
+                    if (scanner.valid) {
+                        columns[slotOfColumn[column]][row] = value;
+                        found++;
+                    } else {
+                        ok = false;
+                    }
+                }
+                if (fieldEnd >= end) {
+                    break;
+                }
+                position = fieldEnd + 1;
+                column++;
+            }
+            return ok && found == columns.length;
+        }
+        
+        private void flush(int count) {
+            if (count == 0) {
+                return;
+            }
+            Arrays.fill(divisionByZero, 0, count, false);
+            compiled.evaluateColumns(columns, count, results, divisionByZero);
+            for (int r = 0; r < count; r++) {
+                rows++;
+                if (valid[r] && !divisionByZero[r] && Double.isFinite(results[r])) {
+                    formatted.setLength(0);
+                    formatted.append(results[r]);
+                    ensureCapacity(formatted.length() + 1);
+                    for (int i = 0; i < formatted.length(); i++) {
+                        output[outputLength++] = (byte) formatted.charAt(i);
+                    }
+                } else {
+                    failedRows++;
+                    ensureCapacity(1);
+                }
+                output[outputLength++] = '\n';
+            }
+        }
+        
+        private void ensureCapacity(int extra) {
+            if (outputLength + extra > output.length) {
+                output = Arrays.copyOf(output, Math.max(output.length * 2, outputLength + extra));
+            }
+        }
+    }
+    
+    /**
+     * Parses decimal numbers straight from a buffer without allocating.
+     *
+     * <p>Numbers with at most 19 significant digits whose mantissa fits in 53
+     * bits and whose decimal exponent is within 22 take Clinger's fast path: one
+     * exact conversion and one correctly rounded multiplication or division by an
+     * exact power of ten. Anything else, including {@code NaN} and
+     * {@code Infinity}, falls back to {@link Double#parseDouble}.
+     */
+    static final class NumberScanner {
+        
+        private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+        };
+        private static final long MAX_EXACT_MANTISSA = 1L << 53;
+        
+        /** Whether the last parse found a number. */
+        boolean valid;
+        
+        double parse(ByteBuffer buffer, int start, int end) {
+            while (start < end && buffer.get(start) == ' ') {
+                start++;
+            }
+            while (end > start && buffer.get(end - 1) == ' ') {
+                end--;
+            }
+            valid = false;
+            int i = start;
+            boolean negative = false;
+            if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+                negative = buffer.get(i) == '-';
+                i++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int exponent = 0;
+            boolean seenDigit = false;
+            boolean seenPoint = false;
+            for (; i < end; i++) {
+                byte b = buffer.get(i);
+                if (b >= '0' && b <= '9') {
+                    seenDigit = true;
+                    if (mantissa == 0 && b == '0') {
+                        // Leading zeros are not significant
+                        if (seenPoint) {
+                            exponent--;
+                        }
+                    } else if (digits < 19) {
+                        mantissa = mantissa * 10 + (b - '0');
+                        digits++;
+                        if (seenPoint) {
+                            exponent--;
+                        }
+                    } else {
+                        return slow(buffer, start, end);
+                    }
+                } else if (b == '.' && !seenPoint) {
+                    seenPoint = true;
+                } else {
+                    break;
+                }
+            }
+            if (!seenDigit) {
+                return slow(buffer, start, end);
+            }
+            if (i < end) {
+                byte b = buffer.get(i);
+                if (b != 'e' && b != 'E') {
+                    return slow(buffer, start, end);
+                }
+                i++;
+                boolean negativeExponent = false;
+                if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+                    negativeExponent = buffer.get(i) == '-';
+                    i++;
+                }
+                int written = 0;
+                int exponentDigits = 0;
+                for (; i < end && buffer.get(i) >= '0' && buffer.get(i) <= '9'; i++) {
+                    if (written < 10000) {
+                        written = written * 10 + (buffer.get(i) - '0');
+                    }
+                    exponentDigits++;
+                }
+                if (exponentDigits == 0 || i < end) {
+                    return slow(buffer, start, end);
+                }
+                exponent += negativeExponent ? -written : written;
+            }
+            if (mantissa > MAX_EXACT_MANTISSA || exponent < -22 || exponent > 22) {
+                return slow(buffer, start, end);
+            }
+            valid = true;
+            double value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+            return negative ? -value : value;
+        }
+        
+        private double slow(ByteBuffer buffer, int start, int end) {
+            if (start >= end) {
+                return Double.NaN;
+            }
+            byte[] bytes = new byte[end - start];
+            buffer.get(start, bytes);
+            try {
+                double value = Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+                valid = true;
+                return value;
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.freightfox.util;
+
+import com.freightfox.exception.DeadlineExceededException;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A point in time after which long-running work should give up.
+ * Cancellation is cooperative: loops call {@link #check()} between steps, so
+ * a solve or batch whose client has stopped waiting ends at the next step
+ * instead of running to completion.
+ *
+ * <p>A deadline made for a background job can also be cancelled explicitly,
+ * and counts the units of work reported through {@link #advance(long)} so the
+ * job's progress can be polled while it runs.
+ */
+public final class Deadline {
+    
+    public static final Deadline NONE = new Deadline(0, 0, false, null);
+    
+    private final long expiresAtNanos;
+    private final long timeoutMillis;
+    private final boolean bounded;
+    // Null unless the deadline belongs to a job
+    private final LongAdder progress;
+    private volatile boolean cancelled;
+    
+    private Deadline(long expiresAtNanos, long timeoutMillis, boolean bounded, LongAdder progress) {
+        this.expiresAtNanos = expiresAtNanos;
+        this.timeoutMillis = timeoutMillis;
+        this.bounded = bounded;
+        this.progress = progress;
+    }
+    
+    /**
+     * Creates a deadline a given time from now.
+     *
+     * @param timeoutMillis Milliseconds until the deadline
+     * @return The deadline
+     */
+    public static Deadline after(long timeoutMillis) {
+        return new Deadline(System.nanoTime() + timeoutMillis * 1_000_000L, timeoutMillis, true, null);
+    }
+    
+    /**
+     * Creates a deadline for a background job, which can be cancelled and counts progress.
+     *
+     * @param timeoutMillis Milliseconds until the deadline, or null for none
+     * @return The deadline
+     */
+    public static Deadline cancellable(Long timeoutMillis) {
+        long millis = timeoutMillis != null ? timeoutMillis : 0;
+        return new Deadline(System.nanoTime() + millis * 1_000_000L, millis, timeoutMillis != null, new LongAdder());
+    }
+    
+    public boolean isExpired() {
+        return bounded && System.nanoTime() - expiresAtNanos >= 0;
+    }
+    
+    /**
+     * Asks the work to stop at its next check.
+     *
+     * @throws UnsupportedOperationException if the deadline was not made with {@link #cancellable(Long)}
+     */
+    public void cancel() {
+        if (progress == null) {
+            throw new UnsupportedOperationException("Deadline cannot be cancelled");
+        }
+        cancelled = true;
+    }
+    
+    public boolean isCancelled() {
+        return cancelled;
+    }
+    
+    /**
+     * Records finished units of work; ignored unless the deadline belongs to a job.
+     *
+     * @param units Units finished since the last call
+     */
+    public void advance(long units) {
+        if (progress != null) {
+            progress.add(units);
+        }
+    }
+    
+    public long getProgress() {
+        return progress != null ? progress.sum() : 0;
+    }
+    
+    /**
+     * Throws if the deadline has passed or the work was cancelled.
+     *
+     * @throws DeadlineExceededException if the deadline has passed
+     * @throws CancellationException if the work was cancelled
+     */
+    public void check() {
+        if (cancelled) {
+            throw new CancellationException("Job was cancelled");
+        }
+        if (isExpired()) {
+            throw new DeadlineExceededException("Evaluation did not finish within " + timeoutMillis + " ms");
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.freightfox.util;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Coalesces concurrent evaluations of one compiled equation into columnar batches.
+ *
+ * <p>There is no dispatcher thread. The first caller to arrive at an empty
+ * queue becomes the leader and waits up to the window for others to join; the
+ * caller that fills the batch, or the leader once the window closes, drains
+ * the queue and evaluates it on its own thread. Identical bindings within a
+ * batch are evaluated once. The added latency is therefore bounded by the
+ * window plus one batch evaluation.
+ */
+public class EvaluationBatcher {
+    
+    private final CompiledExpression compiled;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition drained = lock.newCondition();
+    private final List<Pending> pending = new ArrayList<>();
+    private long generation;
+    
+    /**
+     * Creates a batcher for one equation.
+     *
+     * @param compiled The compiled equation
+     * @param windowMicros How long the first caller of a batch waits for others
+     * @param maxBatchSize Number of requests that closes a batch early
+     */
+    public EvaluationBatcher(CompiledExpression compiled, long windowMicros, int maxBatchSize) {
+        if (windowMicros < 0 || maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batch window must be non-negative and batch size positive");
+        }
+        this.compiled = compiled;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatchSize = maxBatchSize;
+    }
+    
+    public CompiledExpression getCompiled() {
+        return compiled;
+    }
+    
+    /**
+     * Submits bound variable values for evaluation. The leader and the caller
+     * that fills a batch return with their future already complete; other
+     * callers' futures are completed by whichever thread evaluates their batch.
+     * A division by zero completes the future with an {@link ArithmeticException}.
+     *
+     * @param values Variable values indexed by slot
+     * @return The result of the evaluation
+     */
+    public CompletableFuture<Double> submit(double[] values) {
+        Pending request = new Pending(values);
+        List<Pending> batch = null;
+        
+        lock.lock();
+        try {
+            pending.add(request);
+            if (pending.size() >= maxBatchSize) {
+                batch = drain();
+            } else if (pending.size() == 1) {
+                batch = awaitBatch();
+            }
+        } finally {
+            lock.unlock();
+        }
+        
+        if (batch != null) {
+            evaluate(batch);
+        }
+        return request.future;
+    }
+    
+    /**
+     * Waits as leader until the window closes or another caller fills the batch.
+     *
+     * @return The drained batch, or null if another caller took it
+     */
+    private List<Pending> awaitBatch() {
+        long batchGeneration = generation;
+        long remaining = windowNanos;
+        try {
+            while (generation == batchGeneration && remaining > 0) {
+                remaining = drained.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            // Close the batch early rather than strand the requests waiting on it
+            Thread.currentThread().interrupt();
+        }
+        return generation == batchGeneration ? drain() : null;
+    }
+    
+    private List<Pending> drain() {
+        List<Pending> batch = new ArrayList<>(pending);
+        pending.clear();
+        generation++;
+        drained.signalAll();
+        return batch;
+    }
+    
+    /**
+     * Evaluates a drained batch column-wise, deduplicating identical bindings.
+     */
+    private void evaluate(List<Pending> batch) {
+        Map<Pending, Integer> distinct = new HashMap<>();
+        int[] rowOf = new int[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            rowOf[i] = distinct.computeIfAbsent(batch.get(i), key -> distinct.size());
+        }
+        
+        int rows = distinct.size();
+        int slots = compiled.getVariables().length;
+        double[][] columns = new double[slots][rows];
+        for (Map.Entry<Pending, Integer> entry : distinct.entrySet()) {
+            double[] values = entry.getKey().values;
+            for (int slot = 0; slot < slots; slot++) {
+                columns[slot][entry.getValue()] = values[slot];
+            }
+        }
+        
+        double[] results = new double[rows];
+        boolean[] divisionByZero = new boolean[rows];
+        try {
+            compiled.evaluateColumns(columns, rows, results, divisionByZero);
+        } catch (RuntimeException e) {
+            batch.forEach(request -> request.future.completeExceptionally(e));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            int row = rowOf[i];
+            if (divisionByZero[row]) {
+                batch.get(i).future.completeExceptionally(new ArithmeticException("Division by zero"));
+            } else {
+                batch.get(i).future.complete(results[row]);
+            }
+        }
+    }
+    
+    /**
+     * A queued request. Equality is by binding values so duplicates share a row.
+     */
+    private static final class Pending {
+        
+        private final double[] values;
+        private final CompletableFuture<Double> future = new CompletableFuture<>();
+        
+        Pending(double[] values) {
+            this.values = values;
+        }
+        
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Pending pending && Arrays.equals(values, pending.values);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(values);
+        }
+    }
+}
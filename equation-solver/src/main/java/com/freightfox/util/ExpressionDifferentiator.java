@@ -0,0 +1,120 @@
+package com.freightfox.util;
+
+import com.freightfox.model.*;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Utility class for symbolic differentiation of expression trees.
+ * The result is built from the same node types as the input, so it can be
+ * printed, reparsed and stored like any other equation.
+ */
+public class ExpressionDifferentiator {
+    
+    /**
+     * Differentiates an expression with respect to a variable and simplifies the result.
+     *
+     * @param node The root node of the expression tree
+     * @param variable The variable to differentiate by
+     * @return The root node of the derivative tree
+     * @throws IllegalArgumentException if the derivative cannot be expressed with the supported operators
+     */
+    public static ExpressionNode differentiate(ExpressionNode node, String variable) {
+        return ExpressionSimplifier.simplify(derive(ExpressionSimplifier.simplify(node), variable));
+    }
+    
+    private static ExpressionNode derive(ExpressionNode root, String variable) {
+        // Derivatives and dependence flags of finished subtrees, built children-first off explicit stacks
+        Deque<ExpressionNode> derivatives = new ArrayDeque<>();
+        Deque<Boolean> depends = new ArrayDeque<>();
+        for (ExpressionNode node : ExpressionNode.postOrder(root)) {
+            if (node instanceof ConstantNode) {
+                derivatives.push(new ConstantNode(0));
+                depends.push(false);
+                continue;
+            }
+            if (node instanceof VariableNode v) {
+                boolean matches = v.getVariableName().equals(variable);
+                derivatives.push(new ConstantNode(matches ? 1 : 0));
+                depends.push(matches);
+                continue;
+            }
+            if (!(node instanceof OperatorNode operator)) {
+                throw new IllegalArgumentException("Unsupported node type: " + node.getClass().getSimpleName());
+            }
+            
+            ExpressionNode u = operator.getLeft();
+            ExpressionNode v = operator.getRight();
+            ExpressionNode dv = derivatives.pop();
+            ExpressionNode du = derivatives.pop();
+            boolean vDepends = depends.pop();
+            boolean uDepends = depends.pop();
+            
+            // Terms whose derivative is identically zero are left out here, not multiplied by zero
+            if (!uDepends && !vDepends) {
+                derivatives.push(new ConstantNode(0));
+                depends.push(false);
+                continue;
+            }
+            derivatives.push(switch (operator.getOperator()) {
+                case "+", "-" -> new OperatorNode(operator.getOperator(), du, dv);
+                case "*" -> !uDepends ? new OperatorNode("*", u, dv)
+                    : !vDepends ? new OperatorNode("*", du, v)
+                    : new OperatorNode("+",
+                        new OperatorNode("*", du, v),
+                        new OperatorNode("*", u, dv));
+                case "/" -> !vDepends ? new OperatorNode("/", du, v) : new OperatorNode("/",
+                    new OperatorNode("-",
+                        new OperatorNode("*", du, v),
+                        new OperatorNode("*", u, dv)),
+                    new OperatorNode("^", v, new ConstantNode(2)));
+                case "^" -> derivePower(u, v, du, dv, uDepends, vDepends);
+                default -> throw new IllegalArgumentException("Unknown operator: " + operator.getOperator());
+            });
+            depends.push(uDepends || vDepends);
+        }
+        return derivatives.pop();
+    }
+    
+    /**
+     * Power rule for a constant exponent, exponential rule for a constant base.
+     * A variable base raised to a variable exponent needs a logarithm of a
+     * non-constant term, which the grammar has no way to write.
+     */
+    private static ExpressionNode derivePower(ExpressionNode base, ExpressionNode exponent,
+                                              ExpressionNode baseDerivative, ExpressionNode exponentDerivative,
+                                              boolean baseDepends, boolean exponentDepends) {
+        if (!exponentDepends) {
+            // d(u^c) = c * u^(c - 1) * du
+            return new OperatorNode("*",
+                new OperatorNode("*", exponent,
+                    new OperatorNode("^", base, new OperatorNode("-", exponent, new ConstantNode(1)))),
+                baseDerivative);
+        }
+        if (!baseDepends && base instanceof ConstantNode c && c.getValue() > 0) {
+            // d(c^v) = c^v * ln(c) * dv
+            return new OperatorNode("*",
+                new OperatorNode("*", new OperatorNode("^", base, exponent), new ConstantNode(Math.log(c.getValue()))),
+                exponentDerivative);
+        }
+        throw new IllegalArgumentException(
+            "Derivative of " + new OperatorNode("^", base, exponent) + " requires a logarithm, which is not supported");
+    }
+    
+    /**
+     * Checks whether a subtree references a variable.
+     *
+     * @param node The subtree to check
+     * @param variable The variable name
+     * @return true if the variable occurs in the subtree
+     */
+    public static boolean dependsOn(ExpressionNode node, String variable) {
+        for (ExpressionNode current : ExpressionNode.postOrder(node)) {
+            if (current instanceof VariableNode v && v.getVariableName().equals(variable)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
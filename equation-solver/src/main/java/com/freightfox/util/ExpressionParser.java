@@ -59,6 +59,22 @@ public class ExpressionParser {
                     inNumber = false;
                 }
                 tokens.add(String.valueOf(c));
+            } else if (c == '@') {
+                // Reference to a stored equation: '@' and the digits of its ID
+                if (currentToken.length() > 0) {
+                    tokens.add(currentToken.toString());
+                    currentToken.setLength(0);
+                    inNumber = false;
+                }
+                int end = i + 1;
+                while (end < expression.length() && Character.isDigit(expression.charAt(end))) {
+                    end++;
+                }
+                if (end == i + 1) {
+                    throw new IllegalArgumentException("Equation reference '@' must be followed by an equation ID");
+                }
+                tokens.add(expression.substring(i, end));
+                i = end - 1;
             } else if (Character.isDigit(c) || c == '.') {
                 // Number part
                 if (!inNumber && currentToken.length() > 0 && Character.isLetter(currentToken.charAt(0))) {
@@ -107,7 +123,7 @@ public class ExpressionParser {
         for (String token : tokens) {
             if (isNumber(token)) {
                 output.add(token);
-            } else if (isVariable(token)) {
+            } else if (isVariable(token) || isReference(token)) {
                 output.add(token);
             } else if (isOperator(token)) {
                 while (!operators.isEmpty() && !operators.peek().equals("(") &&
@@ -152,9 +168,16 @@ public class ExpressionParser {
         
         for (String token : postfix) {
             if (isNumber(token)) {
-                stack.push(new ConstantNode(Double.parseDouble(token)));
+                double value = Double.parseDouble(token);
+                // Also catches NaN and Infinity, which parseDouble reads from letters
+                if (!Double.isFinite(value)) {
+                    throw new IllegalArgumentException("Constant must be a finite number: " + token);
+                }
+                stack.push(new ConstantNode(value));
             } else if (isVariable(token)) {
                 stack.push(new VariableNode(token));
+            } else if (isReference(token)) {
+                stack.push(new ReferenceNode(parseReference(token)));
             } else if (isOperator(token)) {
                 if (stack.size() < 2) {
                     throw new IllegalArgumentException("Invalid expression: insufficient operands for operator " + token);
@@ -197,6 +220,30 @@ public class ExpressionParser {
         return token.length() == 1 && Character.isLetter(token.charAt(0));
     }
     
+    /**
+     * Checks if a token is a reference to a stored equation.
+     * 
+     * @param token The token to check
+     * @return true if the token is '@' followed by an equation ID
+     */
+    private static boolean isReference(String token) {
+        return token.startsWith("@");
+    }
+    
+    /**
+     * Reads the equation ID of a reference token.
+     * 
+     * @param token The reference token
+     * @return The referenced equation ID
+     */
+    private static long parseReference(String token) {
+        try {
+            return Long.parseLong(token.substring(1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid equation reference: " + token);
+        }
+    }
+    
     /**
      * Checks if a token is an operator.
      * 
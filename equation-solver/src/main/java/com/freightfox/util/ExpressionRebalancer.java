@@ -0,0 +1,129 @@
+package com.freightfox.util;
+
+import com.freightfox.model.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Utility class that turns long chains of one associative operator into balanced trees.
+ * A generated sum such as {@code a + a + ... + a} parses into a left-deep tree
+ * whose depth equals its length; rebalancing brings that down to the logarithm
+ * of the length without changing the order of the operands.
+ *
+ * <p>Only {@code +} and {@code *} chains of at least {@link #MIN_CHAIN_LENGTH}
+ * operands are rebuilt. Regrouping floating-point sums can change the last
+ * bits of a result, so ordinary expressions keep their written shape exactly.
+ */
+public class ExpressionRebalancer {
+    
+    /** Shortest chain, counted in operands, that is rebuilt as a balanced tree. */
+    public static final int MIN_CHAIN_LENGTH = 32;
+    
+    /**
+     * Rebalances every long {@code +} and {@code *} chain in a tree.
+     *
+     * @param root The root node of the expression tree
+     * @return The rebalanced tree, or the same tree if it has no long chains
+     */
+    public static ExpressionNode rebalance(ExpressionNode root) {
+        // Each finished subtree is either a plain node or a chain still open to its parent
+        Deque<Object> results = new ArrayDeque<>();
+        for (ExpressionNode node : ExpressionNode.postOrder(root)) {
+            if (!(node instanceof OperatorNode operator)) {
+                results.push(node);
+                continue;
+            }
+            Object right = results.pop();
+            Object left = results.pop();
+            String op = operator.getOperator();
+            if (op.equals("+") || op.equals("*")) {
+                results.push(Chain.join(operator, left, right));
+            } else {
+                results.push(reuse(operator, finish(left), finish(right)));
+            }
+        }
+        return finish(results.pop());
+    }
+    
+    private static ExpressionNode finish(Object result) {
+        return result instanceof Chain chain ? chain.build() : (ExpressionNode) result;
+    }
+    
+    private static ExpressionNode reuse(OperatorNode operator, ExpressionNode left, ExpressionNode right) {
+        if (left == operator.getLeft() && right == operator.getRight()) {
+            return operator;
+        }
+        return new OperatorNode(operator.getOperator(), left, right);
+    }
+    
+    /**
+     * Operands of a maximal run of one operator, in order, together with the
+     * tree as written in case the run turns out too short to rebuild.
+     */
+    private static final class Chain {
+        
+        private final String op;
+        private final Deque<ExpressionNode> operands;
+        private final ExpressionNode written;
+        
+        private Chain(String op, Deque<ExpressionNode> operands, ExpressionNode written) {
+            this.op = op;
+            this.operands = operands;
+            this.written = written;
+        }
+        
+        static Chain join(OperatorNode operator, Object left, Object right) {
+            String op = operator.getOperator();
+            Chain leftChain = left instanceof Chain chain && chain.op.equals(op) ? chain : null;
+            Chain rightChain = right instanceof Chain chain && chain.op.equals(op) ? chain : null;
+            ExpressionNode leftNode = leftChain != null ? leftChain.written : finish(left);
+            ExpressionNode rightNode = rightChain != null ? rightChain.written : finish(right);
+            
+            Deque<ExpressionNode> operands;
+            if (leftChain == null && rightChain == null) {
+                operands = new ArrayDeque<>();
+                operands.add(leftNode);
+                operands.add(rightNode);
+            } else if (rightChain == null) {
+                operands = leftChain.operands;
+                operands.addLast(rightNode);
+            } else if (leftChain == null) {
+                operands = rightChain.operands;
+                operands.addFirst(leftNode);
+            } else if (leftChain.operands.size() >= rightChain.operands.size()) {
+                // Move the smaller run into the larger so joining stays linear overall
+                operands = leftChain.operands;
+                operands.addAll(rightChain.operands);
+            } else {
+                operands = rightChain.operands;
+                for (Iterator<ExpressionNode> it = leftChain.operands.descendingIterator(); it.hasNext(); ) {
+                    operands.addFirst(it.next());
+                }
+            }
+            return new Chain(op, operands, reuse(operator, leftNode, rightNode));
+        }
+        
+        ExpressionNode build() {
+            if (operands.size() < MIN_CHAIN_LENGTH) {
+                return written;
+            }
+            // Pair neighbours level by level; the operand order is unchanged
+            List<ExpressionNode> level = new ArrayList<>(operands);
+            while (level.size() > 1) {
+                List<ExpressionNode> next = new ArrayList<>((level.size() + 1) / 2);
+                for (int i = 0; i + 1 < level.size(); i += 2) {
+                    next.add(new OperatorNode(op, level.get(i), level.get(i + 1)));
+                }
+                if (level.size() % 2 == 1) {
+                    next.add(level.get(level.size() - 1));
+                }
+                level = next;
+            }
+            return level.get(0);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.freightfox.util;
+
+import com.freightfox.model.*;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+
+/**
+ * Utility class for algebraic simplification of expression trees.
+ * Folds constant subexpressions and removes identity operations such as
+ * {@code x + 0}, {@code x * 1} and {@code x ^ 1}.
+ */
+public class ExpressionSimplifier {
+    
+    /**
+     * Simplifies an expression tree bottom-up.
+     *
+     * @param node The root node of the expression tree
+     * @return The root node of the simplified tree
+     */
+    public static ExpressionNode simplify(ExpressionNode node) {
+        // Children are simplified before their parent off an explicit stack, so deep trees are safe
+        Deque<ExpressionNode> simplified = new ArrayDeque<>();
+        for (ExpressionNode current : ExpressionNode.postOrder(node)) {
+            if (current instanceof OperatorNode operator) {
+                ExpressionNode right = simplified.pop();
+                ExpressionNode left = simplified.pop();
+                simplified.push(combine(operator, operator.getOperator(), left, right));
+            } else {
+                simplified.push(current);
+            }
+        }
+        return simplified.pop();
+    }
+    
+    /**
+     * Simplifies one operator whose operands are already simplified.
+     *
+     * @param operator The original node, reused if nothing changes; null for a rewritten node
+     */
+    private static ExpressionNode combine(OperatorNode operator, String op, ExpressionNode left, ExpressionNode right) {
+        if (left instanceof ConstantNode l && right instanceof ConstantNode r) {
+            // Leave division by zero and non-finite results in place, so they still show at evaluation time
+            if (!(op.equals("/") && r.getValue() == 0)) {
+                double value = new OperatorNode(op, l, r).evaluate(Map.of());
+                if (Double.isFinite(value)) {
+                    return new ConstantNode(value);
+                }
+            }
+        }
+        
+        switch (op) {
+            case "+" -> {
+                if (isConstant(left, 0)) return right;
+                if (isConstant(right, 0)) return left;
+            }
+            case "-" -> {
+                if (isConstant(right, 0)) return left;
+            }
+            case "*" -> {
+                // x * 0 is left alone: x may be NaN, infinite or divide by zero
+                if (isConstant(left, 1)) return right;
+                if (isConstant(right, 1)) return left;
+                // Collect constant factors: c1 * (c2 * x) -> (c1 * c2) * x
+                if (left instanceof ConstantNode c1 && right instanceof OperatorNode inner
+                        && inner.getOperator().equals("*") && inner.getLeft() instanceof ConstantNode c2
+                        && Double.isFinite(c1.getValue() * c2.getValue())) {
+                    return combine(null, "*", new ConstantNode(c1.getValue() * c2.getValue()), inner.getRight());
+                }
+                // Two constants only get here when their product is not finite; swapping them would never end
+                if (right instanceof ConstantNode && !(left instanceof ConstantNode)) {
+                    return combine(null, "*", right, left);
+                }
+            }
+            case "/" -> {
+                if (isConstant(right, 1)) return left;
+            }
+            case "^" -> {
+                // x ^ 0 is 1 even for NaN, but a base that divides must still get the chance to fail
+                if (isConstant(right, 0) && (left instanceof ConstantNode || left instanceof VariableNode)) {
+                    return new ConstantNode(1);
+                }
+                if (isConstant(right, 1)) return left;
+            }
+            default -> { }
+        }
+        
+        if (operator != null && left == operator.getLeft() && right == operator.getRight()) {
+            return operator;
+        }
+        return new OperatorNode(op, left, right);
+    }
+    
+    private static boolean isConstant(ExpressionNode node, double value) {
+        return node instanceof ConstantNode constant && constant.getValue() == value;
+    }
+}
@@ -0,0 +1,402 @@
+package com.freightfox.util;
+
+import com.freightfox.model.*;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Postfix program compiled from an expression tree that evaluates in decimal
+ * fixed point, for formulas that must be exact to the last decimal place.
+ *
+ * <p>Every value is held as a {@code long} count of units of 10<sup>-scale</sup>.
+ * Constants and inputs are read as their shortest decimal form, so {@code 0.1}
+ * is exactly one tenth, and rounded to the scale. Sums and differences are
+ * exact. Products, quotients and powers are computed exactly and rounded once
+ * to the scale with the configured rounding mode, as {@link BigDecimal} does
+ * with {@code setScale} after each operation.
+ *
+ * <p>{@link #evaluateUnscaled} allocates nothing and detects overflow without
+ * exceptions, returning {@link #OVERFLOW}. {@link #evaluate} then repeats the
+ * evaluation with {@link BigDecimal}. Both read inputs as the same shortest
+ * decimal and round after the same operations, so they agree in every rounding
+ * mode. Exponents must be whole-number constants.
+ */
+public class FixedPointExpression {
+    
+    /** Largest scale: 10^18 is the largest power of ten that fits in a long. */
+    public static final int MAX_SCALE = 18;
+    
+    /** Returned by {@link #evaluateUnscaled} when a value does not fit in a long. */
+    public static final long OVERFLOW = Long.MIN_VALUE;
+    
+    /** Largest constant exponent. */
+    public static final int MAX_EXPONENT = 64;
+    
+    static final byte CONST = 0;
+    static final byte VAR = 1;
+    static final byte ADD = 2;
+    static final byte SUB = 3;
+    static final byte MUL = 4;
+    static final byte DIV = 5;
+    static final byte POW = 6;
+    
+    // Scaled inputs below this convert from double without BigDecimal; see toUnscaled
+    private static final double FAST_INPUT_LIMIT = 0x1p40;
+    
+    private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+    private static final double[] DOUBLE_POWERS_OF_TEN = new double[MAX_SCALE + 1];
+    
+    static {
+        POWERS_OF_TEN[0] = 1;
+        DOUBLE_POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= MAX_SCALE; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+            // Exact: every power of ten up to 10^22 is a double
+            DOUBLE_POWERS_OF_TEN[i] = DOUBLE_POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+    
+    private final byte[] ops;
+    private final int[] operands;
+    private final long[] constants;
+    private final BigDecimal[] exactConstants;
+    private final int scale;
+    private final RoundingMode rounding;
+    private final int maxStack;
+    
+    private FixedPointExpression(byte[] ops, int[] operands, BigDecimal[] exactConstants, int scale,
+                                 RoundingMode rounding, int maxStack) {
+        this.ops = ops;
+        this.operands = operands;
+        this.exactConstants = exactConstants;
+        this.scale = scale;
+        this.rounding = rounding;
+        this.maxStack = maxStack;
+        this.constants = new long[exactConstants.length];
+        for (int i = 0; i < exactConstants.length; i++) {
+            BigInteger unscaled = exactConstants[i].unscaledValue();
+            constants[i] = unscaled.bitLength() < 64 && unscaled.longValue() != OVERFLOW
+                    ? unscaled.longValue() : OVERFLOW;
+        }
+    }
+    
+    /**
+     * Compiles an expression tree into a fixed-point program.
+     *
+     * @param root The root node of the expression tree
+     * @param variables Variable names in slot order, as in {@link CompiledExpression#getVariables()}
+     * @param scale Digits kept after the decimal point, from 0 to {@link #MAX_SCALE}
+     * @param rounding How results with more digits are rounded
+     * @return The compiled program
+     * @throws IllegalArgumentException if the scale is out of range, an exponent is not a whole-number
+     *         constant from 0 to {@link #MAX_EXPONENT}, or a constant needs rounding under
+     *         {@link RoundingMode#UNNECESSARY}
+     */
+    public static FixedPointExpression compile(ExpressionNode root, String[] variables, int scale,
+                                               RoundingMode rounding) {
+        if (scale < 0 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("Scale must be between 0 and " + MAX_SCALE);
+        }
+        List<BigDecimal> constants = new ArrayList<>();
+        byte[] ops = new byte[16];
+        int[] operands = new int[16];
+        int size = 0;
+        int depth = 0;
+        int maxDepth = 0;
+        
+        for (ExpressionNode node : ExpressionNode.postOrder(root)) {
+            byte op;
+            int operand = 0;
+            if (node instanceof ConstantNode constant) {
+                op = CONST;
+                operand = constants.size();
+                constants.add(toDecimal(constant.getValue(), scale, rounding));
+            } else if (node instanceof VariableNode variable) {
+                op = VAR;
+                operand = Arrays.binarySearch(variables, variable.getVariableName());
+                if (operand < 0) {
+                    throw new IllegalArgumentException("Unknown variable: " + variable.getVariableName());
+                }
+            } else if (node instanceof OperatorNode operator) {
+                op = opcodeOf(operator.getOperator());
+                if (op == POW) {
+                    // The exponent was the constant emitted last; it becomes the operand instead
+                    if (!(operator.getRight() instanceof ConstantNode exponent) || !isWholeExponent(exponent.getValue())) {
+                        throw new IllegalArgumentException("Decimal mode needs exponents that are whole-number constants from 0 to "
+                                + MAX_EXPONENT);
+                    }
+                    operand = (int) exponent.getValue();
+                    constants.remove(constants.size() - 1);
+                    size--;
+                    depth--;
+                }
+            } else {
+                throw new IllegalArgumentException("Unsupported node type: " + node.getClass().getSimpleName());
+            }
+            
+            if (size == ops.length) {
+                ops = Arrays.copyOf(ops, size * 2);
+                operands = Arrays.copyOf(operands, size * 2);
+            }
+            ops[size] = op;
+            operands[size] = operand;
+            size++;
+            depth += op == CONST || op == VAR ? 1 : op == POW ? 0 : -1;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+        return new FixedPointExpression(Arrays.copyOf(ops, size), Arrays.copyOf(operands, size),
+                constants.toArray(new BigDecimal[0]), scale, rounding, maxDepth);
+    }
+    
+    public int getScale() {
+        return scale;
+    }
+    
+    public RoundingMode getRounding() {
+        return rounding;
+    }
+    
+    public int getMaxStack() {
+        return maxStack;
+    }
+    
+    /**
+     * Evaluates the program, in fixed point unless a value overflows and with {@link BigDecimal} otherwise.
+     *
+     * @param values Variable values indexed by slot
+     * @param stack Scratch stack of at least {@link #getMaxStack()} entries
+     * @return The result, with exactly {@link #getScale()} digits after the decimal point
+     * @throws ArithmeticException on division by zero, or if rounding is needed under {@link RoundingMode#UNNECESSARY}
+     * @throws IllegalArgumentException if a value is not finite
+     */
+    public BigDecimal evaluate(double[] values, long[] stack) {
+        long unscaled = evaluateUnscaled(values, stack);
+        return unscaled != OVERFLOW ? BigDecimal.valueOf(unscaled, scale) : evaluateExact(values);
+    }
+    
+    /**
+     * Evaluates the program in fixed point without allocating.
+     *
+     * @param values Variable values indexed by slot
+     * @param stack Scratch stack of at least {@link #getMaxStack()} entries
+     * @return The result times 10^scale, or {@link #OVERFLOW} if it or any step does not fit in a long
+     * @throws ArithmeticException on division by zero, or if rounding is needed under {@link RoundingMode#UNNECESSARY}
+     * @throws IllegalArgumentException if a value is not finite
+     */
+    public long evaluateUnscaled(double[] values, long[] stack) {
+        int top = -1;
+        for (int pc = 0; pc < ops.length; pc++) {
+            long result;
+            switch (ops[pc]) {
+                case CONST -> {
+                    result = constants[operands[pc]];
+                    top++;
+                }
+                case VAR -> {
+                    result = toUnscaled(values[operands[pc]]);
+                    top++;
+                }
+                case ADD -> {
+                    top--;
+                    result = add(stack[top], stack[top + 1]);
+                }
+                case SUB -> {
+                    top--;
+                    result = stack[top + 1] == OVERFLOW ? OVERFLOW : add(stack[top], -stack[top + 1]);
+                }
+                case MUL -> {
+                    top--;
+                    long product = multiply(stack[top], stack[top + 1]);
+                    result = product == OVERFLOW ? OVERFLOW : divide(product, POWERS_OF_TEN[scale]);
+                }
+                case DIV -> {
+                    top--;
+                    if (stack[top + 1] == 0) {
+                        throw new ArithmeticException("Division by zero");
+                    }
+                    long numerator = multiply(stack[top], POWERS_OF_TEN[scale]);
+                    result = numerator == OVERFLOW ? OVERFLOW : divide(numerator, stack[top + 1]);
+                }
+                case POW -> result = power(stack[top], operands[pc]);
+                default -> throw new IllegalStateException("Unknown opcode: " + ops[pc]);
+            }
+            if (result == OVERFLOW) {
+                return OVERFLOW;
+            }
+            stack[top] = result;
+        }
+        return stack[0];
+    }
+    
+    /**
+     * Evaluates the program with {@link BigDecimal}, rounding at the same points as the fixed-point path.
+     *
+     * @param values Variable values indexed by slot
+     * @return The result, with exactly {@link #getScale()} digits after the decimal point
+     * @throws ArithmeticException on division by zero, or if rounding is needed under {@link RoundingMode#UNNECESSARY}
+     * @throws IllegalArgumentException if a value is not finite
+     */
+    public BigDecimal evaluateExact(double[] values) {
+        BigDecimal[] stack = new BigDecimal[maxStack];
+        int top = -1;
+        for (int pc = 0; pc < ops.length; pc++) {
+            switch (ops[pc]) {
+                case CONST -> stack[++top] = exactConstants[operands[pc]];
+                case VAR -> stack[++top] = toDecimal(values[operands[pc]], scale, rounding);
+                case ADD -> { top--; stack[top] = stack[top].add(stack[top + 1]); }
+                case SUB -> { top--; stack[top] = stack[top].subtract(stack[top + 1]); }
+                case MUL -> { top--; stack[top] = stack[top].multiply(stack[top + 1]).setScale(scale, rounding); }
+                case DIV -> {
+                    top--;
+                    if (stack[top + 1].signum() == 0) {
+                        throw new ArithmeticException("Division by zero");
+                    }
+                    stack[top] = stack[top].divide(stack[top + 1], scale, rounding);
+                }
+                case POW -> stack[top] = stack[top].pow(operands[pc]).setScale(scale, rounding);
+                default -> throw new IllegalStateException("Unknown opcode: " + ops[pc]);
+            }
+        }
+        return stack[0];
+    }
+    
+    /**
+     * Converts a double to units of 10^-scale as {@link #toDecimal} would, without allocating.
+     *
+     * <p>Below 2^40 units the scaled double lies within three ulps of the scaled
+     * shortest decimal, and no two multiples of 10^-scale round to the same double.
+     * So a value clear of a whole number of units and of a half rounds as its
+     * scaled double does. A value that close to a whole number N is exactly N units
+     * only if N units round to it; otherwise its shortest decimal lies just past N on
+     * the same side as the value, which decides the directed modes. One that close
+     * to a half is left to {@link BigDecimal} to break the tie exactly.
+     *
+     * @return The units, or {@link #OVERFLOW} if the conversion needs {@link BigDecimal}
+     */
+    private long toUnscaled(double value) {
+        if (!Double.isFinite(value)) {
+            throw new IllegalArgumentException("Decimal mode needs finite values, got " + value);
+        }
+        double power = DOUBLE_POWERS_OF_TEN[scale];
+        double scaled = value * power;
+        if (!(Math.abs(scaled) < FAST_INPUT_LIMIT)) {
+            return OVERFLOW;
+        }
+        double whole = Math.floor(scaled);
+        double fraction = scaled - whole;
+        double tolerance = 3 * Math.ulp(scaled);
+        long floor = (long) whole;
+        if (fraction <= tolerance || fraction >= 1 - tolerance) {
+            long nearest = fraction <= tolerance ? floor : floor + 1;
+            // Both operands are exact, so the quotient is the double nearest N units
+            double units = nearest / power;
+            if (units == value) {
+                return nearest;
+            }
+            // Just above or just below N: any fraction clear of the half will do
+            floor = value > units ? nearest : nearest - 1;
+            fraction = value > units ? tolerance : 1 - tolerance;
+        } else if (Math.abs(fraction - 0.5) <= tolerance) {
+            return OVERFLOW;
+        }
+        // Strictly between two whole units and clear of the half: round the floor up or not
+        boolean negative = scaled < 0;
+        boolean up = switch (rounding) {
+            case UP -> !negative;
+            case DOWN -> negative;
+            case CEILING -> true;
+            case FLOOR -> false;
+            case HALF_UP, HALF_DOWN, HALF_EVEN -> fraction > 0.5;
+            case UNNECESSARY -> throw new IllegalArgumentException("Value " + value + " needs rounding at scale " + scale);
+        };
+        return up ? floor + 1 : floor;
+    }
+    
+    private static BigDecimal toDecimal(double value, int scale, RoundingMode rounding) {
+        if (!Double.isFinite(value)) {
+            throw new IllegalArgumentException("Decimal mode needs finite values, got " + value);
+        }
+        try {
+            return BigDecimal.valueOf(value).setScale(scale, rounding);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Value " + value + " needs rounding at scale " + scale);
+        }
+    }
+    
+    private static long add(long a, long b) {
+        long sum = a + b;
+        return ((a ^ sum) & (b ^ sum)) < 0 ? OVERFLOW : sum;
+    }
+    
+    private static long multiply(long a, long b) {
+        long low = a * b;
+        return Math.multiplyHigh(a, b) != (low >> 63) ? OVERFLOW : low;
+    }
+    
+    /**
+     * Computes {@code a^exponent / 10^(scale * (exponent - 1))} exactly and rounds it once.
+     */
+    private long power(long base, int exponent) {
+        if (exponent == 0) {
+            return POWERS_OF_TEN[scale];
+        }
+        long numerator = base;
+        for (int i = 1; i < exponent && numerator != OVERFLOW; i++) {
+            numerator = multiply(numerator, base);
+        }
+        long digits = (long) scale * (exponent - 1);
+        if (numerator == OVERFLOW || digits > MAX_SCALE) {
+            return OVERFLOW;
+        }
+        return divide(numerator, POWERS_OF_TEN[(int) digits]);
+    }
+    
+    /**
+     * Divides and rounds with the program's rounding mode, as {@link BigDecimal#divide} does.
+     */
+    private long divide(long numerator, long divisor) {
+        long quotient = numerator / divisor;
+        long remainder = numerator % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+        boolean negative = (numerator < 0) != (divisor < 0);
+        long absRemainder = Math.abs(remainder);
+        // Compare the remainder with half the divisor without overflowing
+        int half = Long.compare(absRemainder, Math.abs(divisor) - absRemainder);
+        boolean awayFromZero = switch (rounding) {
+            case UP -> true;
+            case DOWN -> false;
+            case CEILING -> !negative;
+            case FLOOR -> negative;
+            case HALF_UP -> half >= 0;
+            case HALF_DOWN -> half > 0;
+            case HALF_EVEN -> half > 0 || (half == 0 && (quotient & 1) != 0);
+            case UNNECESSARY -> throw new ArithmeticException("Rounding necessary");
+        };
+        if (!awayFromZero) {
+            return quotient;
+        }
+        return negative ? quotient - 1 : quotient + 1;
+    }
+    
+    private static boolean isWholeExponent(double exponent) {
+        return exponent >= 0 && exponent <= MAX_EXPONENT && exponent == Math.rint(exponent);
+    }
+    
+    private static byte opcodeOf(String operator) {
+        return switch (operator) {
+            case "+" -> ADD;
+            case "-" -> SUB;
+            case "*" -> MUL;
+            case "/" -> DIV;
+            case "^" -> POW;
+            default -> throw new IllegalArgumentException("Unknown operator: " + operator);
+        };
+    }
+}
@@ -0,0 +1,244 @@
+package com.freightfox.util;
+
+import com.freightfox.model.AggregationResult;
+import com.freightfox.model.GridAxis;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Aggregates a compiled expression over a lattice of inputs without storing it.
+ *
+ * <p>Lattice points are numbered with the last axis, in slot order, varying
+ * fastest. Points are generated and evaluated in blocks of {@link #BLOCK_SIZE}
+ * through the columnar evaluator, with blocks grouped into chunks that run on
+ * the common fork-join pool. Each block keeps its own sum and extremes, which
+ * are merged in block order, so the result does not depend on scheduling.
+ */
+public class GridAggregator {
+    
+    public static final int BLOCK_SIZE = 4096;
+    
+    /** Most lattice points one aggregation may visit. */
+    public static final long MAX_POINTS = 100_000_000L;
+    
+    /**
+     * Aggregates the expression over every point of the lattice.
+     *
+     * @param compiled The compiled expression
+     * @param axes Values of the variables spanning the lattice
+     * @param fixed Values of the remaining variables
+     * @param deadline Deadline for the whole aggregation, checked once per block
+     * @return The sum, mean and extremes of the finite values, with where the extremes occur
+     * @throws IllegalArgumentException if an axis is malformed or names a variable the expression does
+     *         not reference, a variable has no value, or the lattice exceeds {@link #MAX_POINTS}
+     * @throws com.freightfox.exception.DeadlineExceededException if the deadline passes
+     */
+    public static AggregationResult aggregate(CompiledExpression compiled, Map<String, GridAxis> axes,
+                                              Map<String, Double> fixed, Deadline deadline) {
+        for (String variable : axes.keySet()) {
+            if (compiled.slotOf(variable) < 0) {
+                throw new IllegalArgumentException("Equation does not reference variable '" + variable + "'");
+            }
+        }
+        String[] variables = compiled.getVariables();
+        Axis[] slotAxes = new Axis[variables.length];
+        double[] constants = new double[variables.length];
+        long points = 1;
+        for (int slot = 0; slot < variables.length; slot++) {
+            GridAxis axis = axes.get(variables[slot]);
+            if (axis != null) {
+                slotAxes[slot] = Axis.of(variables[slot], axis);
+                points *= slotAxes[slot].points();
+                if (points > MAX_POINTS) {
+                    throw new IllegalArgumentException("Lattice cannot exceed " + MAX_POINTS + " points");
+                }
+            } else if (fixed != null && fixed.get(variables[slot]) != null) {
+                constants[slot] = fixed.get(variables[slot]);
+            } else {
+                throw new IllegalArgumentException("Variable '" + variables[slot] + "' has neither a value nor an axis");
+            }
+        }
+        
+        int blocks = (int) ((points + BLOCK_SIZE - 1) / BLOCK_SIZE);
+        Partial[] partials = new Partial[blocks];
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        int chunks = Math.min(blocks, parallelism * 4);
+        int chunkSize = (blocks + chunks - 1) / chunks;
+        long total = points;
+        
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            double[][] columns = new double[variables.length][BLOCK_SIZE];
+            double[] results = new double[BLOCK_SIZE];
+            boolean[] divisionByZero = new boolean[BLOCK_SIZE];
+            int[] position = new int[variables.length];
+            for (int slot = 0; slot < variables.length; slot++) {
+                if (slotAxes[slot] == null) {
+                    Arrays.fill(columns[slot], constants[slot]);
+                }
+            }
+            
+            for (int block = chunk * chunkSize; block < Math.min(blocks, (chunk + 1) * chunkSize); block++) {
+                deadline.check();
+                long start = (long) block * BLOCK_SIZE;
+                int rows = (int) Math.min(BLOCK_SIZE, total - start);
+                fill(slotAxes, columns, position, start, rows);
+                Arrays.fill(divisionByZero, false);
+                compiled.evaluateColumns(columns, rows, results, divisionByZero);
+                partials[block] = Partial.of(results, divisionByZero, rows, start);
+                deadline.advance(1);
+            }
+        });
+        
+        Partial merged = new Partial();
+        for (Partial partial : partials) {
+            merged.merge(partial);
+        }
+        
+        AggregationResult result = new AggregationResult(points, points - merged.count);
+        if (merged.count > 0) {
+            result.setSum(merged.sum + merged.compensation);
+            result.setMean(result.getSum() / merged.count);
+            result.setMin(merged.min);
+            result.setMax(merged.max);
+            result.setArgmin(coordinates(slotAxes, merged.argmin));
+            result.setArgmax(coordinates(slotAxes, merged.argmax));
+        }
+        return result;
+    }
+    
+    /**
+     * Writes the axis values of lattice points {@code start} to {@code start + rows - 1} into the columns.
+     */
+    private static void fill(Axis[] axes, double[][] columns, int[] position, long start, int rows) {
+        long remainder = start;
+        for (int slot = axes.length - 1; slot >= 0; slot--) {
+            if (axes[slot] != null) {
+                position[slot] = (int) (remainder % axes[slot].points());
+                remainder /= axes[slot].points();
+            }
+        }
+        for (int r = 0; r < rows; r++) {
+            for (int slot = 0; slot < axes.length; slot++) {
+                if (axes[slot] != null) {
+                    columns[slot][r] = axes[slot].valueAt(position[slot]);
+                }
+            }
+            // Advance like an odometer, the last axis fastest
+            for (int slot = axes.length - 1; slot >= 0; slot--) {
+                if (axes[slot] != null) {
+                    if (++position[slot] < axes[slot].points()) {
+                        break;
+                    }
+                    position[slot] = 0;
+                }
+            }
+        }
+    }
+    
+    private static Map<String, Double> coordinates(Axis[] axes, long index) {
+        double[] values = new double[axes.length];
+        for (int slot = axes.length - 1; slot >= 0; slot--) {
+            if (axes[slot] != null) {
+                values[slot] = axes[slot].valueAt((int) (index % axes[slot].points()));
+                index /= axes[slot].points();
+            }
+        }
+        Map<String, Double> coordinates = new LinkedHashMap<>();
+        for (int slot = 0; slot < axes.length; slot++) {
+            if (axes[slot] != null) {
+                coordinates.put(axes[slot].variable(), values[slot]);
+            }
+        }
+        return coordinates;
+    }
+    
+    /**
+     * One validated axis.
+     */
+    private record Axis(String variable, double min, double max, int points) {
+        
+        static Axis of(String variable, GridAxis axis) {
+            if (axis.getMin() == null || axis.getMax() == null || axis.getPoints() == null) {
+                throw new IllegalArgumentException("Axis for '" + variable + "' needs min, max and points");
+            }
+            if (!Double.isFinite(axis.getMin()) || !Double.isFinite(axis.getMax()) || axis.getMin() > axis.getMax()
+                    || axis.getPoints() < 1) {
+                throw new IllegalArgumentException(
+                        "Axis for '" + variable + "' must be finite with min <= max and at least one point");
+            }
+            return new Axis(variable, axis.getMin(), axis.getMax(), axis.getPoints());
+        }
+        
+        double valueAt(int index) {
+            if (index == points - 1 && points > 1) {
+                return max;
+            }
+            return points == 1 ? min : min + index * ((max - min) / (points - 1));
+        }
+    }
+    
+    /**
+     * Sum and extremes of some of the points, with the lattice index of each extreme.
+     */
+    private static final class Partial {
+        
+        long count;
+        double sum;
+        // Running Neumaier compensation of the sum
+        double compensation;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        long argmin;
+        long argmax;
+        
+        static Partial of(double[] results, boolean[] divisionByZero, int rows, long start) {
+            Partial partial = new Partial();
+            for (int r = 0; r < rows; r++) {
+                double value = results[r];
+                if (divisionByZero[r] || !Double.isFinite(value)) {
+                    continue;
+                }
+                partial.count++;
+                partial.add(value);
+                if (value < partial.min) {
+                    partial.min = value;
+                    partial.argmin = start + r;
+                }
+                if (value > partial.max) {
+                    partial.max = value;
+                    partial.argmax = start + r;
+                }
+            }
+            return partial;
+        }
+        
+        private void add(double value) {
+            double total = sum + value;
+            compensation += Math.abs(sum) >= Math.abs(value) ? (sum - total) + value : (value - total) + sum;
+            sum = total;
+        }
+        
+        /**
+         * Folds in a partial for later points; on ties the earlier extreme is kept.
+         */
+        void merge(Partial other) {
+            if (other.count == 0) {
+                return;
+            }
+            count += other.count;
+            add(other.sum);
+            compensation += other.compensation;
+            if (other.min < min) {
+                min = other.min;
+                argmin = other.argmin;
+            }
+            if (other.max > max) {
+                max = other.max;
+                argmax = other.argmax;
+            }
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.freightfox.util;
+
+import com.freightfox.model.*;
+import java.util.*;
+
+/**
+ * Evaluator that caches the value of every subtree and, when variables change,
+ * recomputes only the nodes on the paths from the changed variable occurrences
+ * up to the root.
+ *
+ * <p>Nodes are numbered in postfix order, so every child has a smaller index
+ * than its parent and recomputing dirty nodes in ascending order always sees
+ * up-to-date operands. Instances are mutable and synchronize on themselves.
+ */
+public class IncrementalEvaluator {
+    
+    private static final int NONE = -1;
+    
+    private final byte[] ops;
+    private final double[] constants;
+    private final int[] left;
+    private final int[] right;
+    private final int[] parent;
+    private final String[] variables;
+    private final int[][] occurrences;
+    
+    private final double[] values;
+    private final boolean[] failed;
+    private final double[] bindings;
+    private final boolean[] bound;
+    private final boolean[] dirty;
+    private final int[] dirtyList;
+    private int dirtyCount;
+    private int lastRecomputed;
+    
+    private IncrementalEvaluator(Flattener flat) {
+        int size = flat.size;
+        this.ops = Arrays.copyOf(flat.ops, size);
+        this.constants = Arrays.copyOf(flat.constants, size);
+        this.left = Arrays.copyOf(flat.left, size);
+        this.right = Arrays.copyOf(flat.right, size);
+        this.parent = Arrays.copyOf(flat.parent, size);
+        this.variables = flat.names;
+        this.occurrences = new int[variables.length][];
+        for (int v = 0; v < variables.length; v++) {
+            occurrences[v] = flat.occurrences.get(v).stream().mapToInt(Integer::intValue).toArray();
+        }
+        
+        this.values = new double[size];
+        this.failed = new boolean[size];
+        this.bindings = new double[variables.length];
+        this.bound = new boolean[variables.length];
+        this.dirty = new boolean[size];
+        this.dirtyList = new int[size];
+        
+        // Everything starts dirty so the first read computes the whole tree once
+        for (int i = 0; i < size; i++) {
+            dirty[i] = true;
+            dirtyList[i] = i;
+        }
+        this.dirtyCount = size;
+    }
+    
+    /**
+     * Builds an incremental evaluator for an expression tree.
+     *
+     * @param root The root node of the expression tree
+     * @return A new evaluator with no variables bound
+     */
+    public static IncrementalEvaluator of(ExpressionNode root) {
+        SortedSet<String> names = new TreeSet<>();
+        CompiledExpression.collectVariables(root, names);
+        Flattener flat = new Flattener(names.toArray(new String[0]));
+        flat.visit(root);
+        return new IncrementalEvaluator(flat);
+    }
+    
+    /**
+     * Sets several variables. Names the expression does not reference are ignored,
+     * as they are for a full evaluation.
+     *
+     * @param updates Map of variable names to their new values
+     */
+    public synchronized void setAll(Map<String, Double> updates) {
+        for (Map.Entry<String, Double> entry : updates.entrySet()) {
+            if (entry.getValue() != null) {
+                set(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+    
+    /**
+     * Sets one variable and marks the paths from its occurrences to the root dirty.
+     *
+     * @param name The variable name
+     * @param value The new value
+     */
+    public synchronized void set(String name, double value) {
+        int v = Arrays.binarySearch(variables, name);
+        if (v < 0 || (bound[v] && Double.compare(bindings[v], value) == 0)) {
+            return;
+        }
+        bindings[v] = value;
+        bound[v] = true;
+        for (int leaf : occurrences[v]) {
+            for (int node = leaf; node != NONE && !dirty[node]; node = parent[node]) {
+                dirty[node] = true;
+                dirtyList[dirtyCount++] = node;
+            }
+        }
+    }
+    
+    /**
+     * Returns the current value of the expression, recomputing dirty nodes first.
+     *
+     * @return The result of the evaluation
+     * @throws IllegalArgumentException if a referenced variable has not been set
+     * @throws ArithmeticException on division by zero
+     */
+    public synchronized double result() {
+        for (int v = 0; v < variables.length; v++) {
+            if (!bound[v]) {
+                throw new IllegalArgumentException("Variable '" + variables[v] + "' not found in provided values");
+            }
+        }
+        recompute();
+        if (failed[values.length - 1]) {
+            throw new ArithmeticException("Division by zero");
+        }
+        return values[values.length - 1];
+    }
+    
+    /**
+     * Returns the variables that still need a value before a result can be read.
+     *
+     * @return Names of unbound variables
+     */
+    public synchronized List<String> getMissingVariables() {
+        List<String> missing = new ArrayList<>();
+        for (int v = 0; v < variables.length; v++) {
+            if (!bound[v]) {
+                missing.add(variables[v]);
+            }
+        }
+        return missing;
+    }
+    
+    /**
+     * Returns the current variable bindings.
+     *
+     * @return Map of bound variable names to their values
+     */
+    public synchronized Map<String, Double> getBindings() {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (int v = 0; v < variables.length; v++) {
+            if (bound[v]) {
+                result.put(variables[v], bindings[v]);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Returns how many nodes the most recent recomputation touched.
+     *
+     * @return The node count
+     */
+    public synchronized int getLastRecomputed() {
+        return lastRecomputed;
+    }
+    
+    /**
+     * Returns the number of nodes in the tree.
+     *
+     * @return The node count
+     */
+    public int size() {
+        return values.length;
+    }
+    
+    private void recompute() {
+        if (dirtyCount == 0) {
+            return;
+        }
+        Arrays.sort(dirtyList, 0, dirtyCount);
+        for (int i = 0; i < dirtyCount; i++) {
+            int node = dirtyList[i];
+            computeNode(node);
+            dirty[node] = false;
+        }
+        lastRecomputed = dirtyCount;
+        dirtyCount = 0;
+    }
+    
+    private void computeNode(int node) {
+        byte op = ops[node];
+        if (op == CompiledExpression.CONST) {
+            values[node] = constants[node];
+            return;
+        }
+        if (op == CompiledExpression.VAR) {
+            int v = (int) constants[node];
+            values[node] = bindings[v];
+            return;
+        }
+        
+        int l = left[node];
+        int r = right[node];
+        double a = values[l];
+        double b = values[r];
+        failed[node] = failed[l] || failed[r];
+        values[node] = switch (op) {
+            case CompiledExpression.ADD -> a + b;
+            case CompiledExpression.SUB -> a - b;
+            case CompiledExpression.MUL -> a * b;
+            case CompiledExpression.DIV -> {
+                if (b == 0) {
+                    failed[node] = true;
+                    yield Double.NaN;
+                }
+                yield a / b;
+            }
+            case CompiledExpression.POW -> StrengthReduction.pow(a, b);
+            default -> throw new IllegalStateException("Unknown opcode: " + op);
+        };
+    }
+    
+    /**
+     * Numbers nodes in postfix order and records parent links and variable occurrences.
+     * Variable leaves keep their variable index in the constants array.
+     */
+    private static class Flattener {
+        
+        private byte[] ops = new byte[16];
+        private double[] constants = new double[16];
+        private int[] left = new int[16];
+        private int[] right = new int[16];
+        private int[] parent = new int[16];
+        private int size;
+        private final String[] names;
+        private final List<List<Integer>> occurrences = new ArrayList<>();
+        
+        Flattener(String[] names) {
+            this.names = names;
+            for (int v = 0; v < names.length; v++) {
+                occurrences.add(new ArrayList<>());
+            }
+        }
+        
+        int visit(ExpressionNode root) {
+            int[] stack = new int[16];
+            int top = -1;
+            for (ExpressionNode node : ExpressionNode.postOrder(root)) {
+                int index;
+                if (node instanceof OperatorNode operator) {
+                    int r = stack[top--];
+                    int l = stack[top--];
+                    index = append(CompiledExpression.opcodeOf(operator.getOperator()), 0, l, r);
+                    parent[l] = index;
+                    parent[r] = index;
+                } else if (node instanceof VariableNode variable) {
+                    int v = Arrays.binarySearch(names, variable.getVariableName());
+                    index = append(CompiledExpression.VAR, v, NONE, NONE);
+                    occurrences.get(v).add(index);
+                } else if (node instanceof ConstantNode constant) {
+                    index = append(CompiledExpression.CONST, constant.getValue(), NONE, NONE);
+                } else {
+                    throw new IllegalArgumentException("Unsupported node type: " + node.getClass().getSimpleName());
+                }
+                if (++top == stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[top] = index;
+            }
+            return stack[0];
+        }
+        
+        private int append(byte op, double constant, int l, int r) {
+            if (size == ops.length) {
+                int capacity = size * 2;
+                ops = Arrays.copyOf(ops, capacity);
+                constants = Arrays.copyOf(constants, capacity);
+                left = Arrays.copyOf(left, capacity);
+                right = Arrays.copyOf(right, capacity);
+                parent = Arrays.copyOf(parent, capacity);
+            }
+            ops[size] = op;
+            constants[size] = constant;
+            left[size] = l;
+            right[size] = r;
+            parent[size] = NONE;
+            return size++;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.freightfox.util;
+
+import com.freightfox.model.IntegrationResult;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Integrates a compiled expression over one variable with adaptive
+ * Gauss-Kronrod quadrature.
+ *
+ * <p>Every subinterval is integrated with the 15-point Kronrod rule, and the
+ * difference from the embedded 7-point Gauss rule estimates its error, scaled
+ * as in QUADPACK. The range starts as {@link #INITIAL_SUBINTERVALS} equal
+ * pieces. Each round then bisects every subinterval whose error exceeds its
+ * share of the tolerance, evaluating the new halves in parallel. Subintervals
+ * are kept in order and summed in order, so the result does not depend on
+ * scheduling.
+ */
+public class Integrator {
+    
+    public static final double DEFAULT_TOLERANCE = 1e-10;
+    public static final int DEFAULT_MAX_SUBINTERVALS = 1000;
+    public static final int INITIAL_SUBINTERVALS = 8;
+    
+    /** Points of the Kronrod rule, and so evaluations per subinterval. */
+    public static final int POINTS_PER_SUBINTERVAL = 15;
+    
+    // Below this relative error the estimate is rounding noise, so tighter tolerances cannot be met
+    private static final double RELATIVE_FLOOR = 50 * Math.ulp(1.0);
+    
+    // Kronrod nodes on [-1, 1], largest first; the odd entries and the centre are the Gauss nodes
+    private static final double[] KRONROD_NODES = {
+        0.991455371120812639206854697526329, 0.949107912342758524526189684047851,
+        0.864864423359769072789712788640926, 0.741531185599394439863864773280788,
+        0.586087235467691130294144845693013, 0.405845151377397166906606412076961,
+        0.207784955007898467600689403773245, 0.0
+    };
+    private static final double[] KRONROD_WEIGHTS = {
+        0.022935322010529224963732008058970, 0.063092092629978553290700663189204,
+        0.104790010322250183839876322541518, 0.140653259715525918745189590510238,
+        0.169004726639267902826583426598550, 0.190350578064785409913256402421014,
+        0.204432940075298892414161999234649, 0.209482141084727828012999174891714
+    };
+    private static final double[] GAUSS_WEIGHTS = {
+        0.129484966168869693270611432679082, 0.279705391489276667901467771423780,
+        0.381830050505118944950369775488975, 0.417959183673469387755102040816327
+    };
+    
+    /**
+     * One subinterval with its integral and error estimate.
+     */
+    private record Segment(double lower, double upper, double value, double error) {
+        
+        boolean canBisect() {
+            double middle = 0.5 * (lower + upper);
+            return middle > lower && middle < upper;
+        }
+    }
+    
+    /**
+     * Integrates the expression over one variable from {@code lower} to {@code upper}.
+     *
+     * @param compiled The compiled expression
+     * @param variable The variable of integration
+     * @param parameters Variable values indexed by slot; the integration variable's entry is ignored
+     * @param lower Lower limit
+     * @param upper Upper limit, which may be below the lower one
+     * @param tolerance Absolute error the estimate should fall within
+     * @param maxSubintervals Most subintervals to split the range into
+     * @param deadline Deadline checked before each subinterval
+     * @return The integral, its error estimate and whether it met the tolerance
+     * @throws IllegalArgumentException if the expression does not reference the variable, a limit
+     *         is not finite, or the expression is not finite or cannot be evaluated somewhere in the range
+     * @throws com.freightfox.exception.DeadlineExceededException if the deadline passes first
+     */
+    public static IntegrationResult integrate(CompiledExpression compiled, String variable, double[] parameters,
+                                              double lower, double upper, double tolerance, int maxSubintervals,
+                                              Deadline deadline) {
+        int slot = compiled.slotOf(variable);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Equation does not reference variable '" + variable + "'");
+        }
+        if (!Double.isFinite(lower) || !Double.isFinite(upper)) {
+            throw new IllegalArgumentException("Integration limits must be finite");
+        }
+        if (lower == upper) {
+            return new IntegrationResult(0.0, 0.0, 0, 0, true);
+        }
+        if (lower > upper) {
+            IntegrationResult reversed = integrate(compiled, variable, parameters, upper, lower, tolerance,
+                    maxSubintervals, deadline);
+            reversed.setValue(-reversed.getValue());
+            return reversed;
+        }
+        
+        int initial = Math.min(INITIAL_SUBINTERVALS, maxSubintervals);
+        double width = (upper - lower) / initial;
+        List<Segment> segments = evaluate(compiled, slot, parameters, IntStream.range(0, initial)
+                .mapToObj(i -> new double[] {lower + i * width, i == initial - 1 ? upper : lower + (i + 1) * width})
+                .toList(), deadline);
+        long evaluations = (long) initial * POINTS_PER_SUBINTERVAL;
+        
+        while (true) {
+            double value = sum(segments, false);
+            double error = sum(segments, true);
+            double target = Math.max(tolerance, RELATIVE_FLOOR * Math.abs(value));
+            if (error <= target) {
+                return new IntegrationResult(value, error, segments.size(), evaluations, true);
+            }
+            
+            // Bisect every subinterval over its share of the tolerance, worst first if the cap is near
+            double share = target / segments.size();
+            int room = maxSubintervals - segments.size();
+            List<Segment> worst = segments.stream()
+                    .filter(segment -> segment.error() > share && segment.canBisect())
+                    .sorted(Comparator.comparingDouble(Segment::error).reversed())
+                    .limit(room)
+                    .toList();
+            if (worst.isEmpty()) {
+                return new IntegrationResult(value, error, segments.size(), evaluations, false);
+            }
+            
+            List<double[]> halves = new ArrayList<>();
+            for (Segment segment : worst) {
+                double middle = 0.5 * (segment.lower() + segment.upper());
+                halves.add(new double[] {segment.lower(), middle});
+                halves.add(new double[] {middle, segment.upper()});
+            }
+            List<Segment> bisected = evaluate(compiled, slot, parameters, halves, deadline);
+            evaluations += (long) halves.size() * POINTS_PER_SUBINTERVAL;
+            
+            Set<Segment> split = new HashSet<>(worst);
+            List<Segment> next = new ArrayList<>(segments.size() + worst.size());
+            for (Segment segment : segments) {
+                if (!split.contains(segment)) {
+                    next.add(segment);
+                }
+            }
+            next.addAll(bisected);
+            next.sort(Comparator.comparingDouble(Segment::lower));
+            segments = next;
+        }
+    }
+    
+    /**
+     * Integrates each range in parallel, returning the segments in the same order.
+     */
+    private static List<Segment> evaluate(CompiledExpression compiled, int slot, double[] parameters,
+                                          List<double[]> ranges, Deadline deadline) {
+        return IntStream.range(0, ranges.size()).parallel().mapToObj(i -> {
+            deadline.check();
+            double[] range = ranges.get(i);
+            Segment segment = kronrod(compiled, slot, parameters.clone(), range[0], range[1]);
+            deadline.advance(1);
+            return segment;
+        }).toList();
+    }
+    
+    /**
+     * Applies the 15-point Kronrod rule to one subinterval, estimating its error from the 7-point Gauss rule.
+     */
+    private static Segment kronrod(CompiledExpression compiled, int slot, double[] values, double lower, double upper) {
+        double center = 0.5 * (lower + upper);
+        double halfLength = 0.5 * (upper - lower);
+        double[] stack = new double[compiled.getMaxStack()];
+        double[] left = new double[KRONROD_NODES.length - 1];
+        double[] right = new double[KRONROD_NODES.length - 1];
+        
+        double centerValue = valueAt(compiled, slot, values, stack, center);
+        double kronrod = KRONROD_WEIGHTS[7] * centerValue;
+        double gauss = GAUSS_WEIGHTS[3] * centerValue;
+        double absolute = Math.abs(kronrod);
+        for (int j = 0; j < KRONROD_NODES.length - 1; j++) {
+            double offset = halfLength * KRONROD_NODES[j];
+            left[j] = valueAt(compiled, slot, values, stack, center - offset);
+            right[j] = valueAt(compiled, slot, values, stack, center + offset);
+            kronrod += KRONROD_WEIGHTS[j] * (left[j] + right[j]);
+            absolute += KRONROD_WEIGHTS[j] * (Math.abs(left[j]) + Math.abs(right[j]));
+            if (j % 2 == 1) {
+                gauss += GAUSS_WEIGHTS[j / 2] * (left[j] + right[j]);
+            }
+        }
+        
+        // Spread of the integrand about its mean, which scales the raw Gauss-Kronrod difference
+        double mean = 0.5 * kronrod;
+        double spread = KRONROD_WEIGHTS[7] * Math.abs(centerValue - mean);
+        for (int j = 0; j < KRONROD_NODES.length - 1; j++) {
+            spread += KRONROD_WEIGHTS[j] * (Math.abs(left[j] - mean) + Math.abs(right[j] - mean));
+        }
+        
+        double error = Math.abs((kronrod - gauss) * halfLength);
+        spread *= Math.abs(halfLength);
+        absolute *= Math.abs(halfLength);
+        if (spread != 0 && error != 0) {
+            error = spread * Math.min(1, Math.pow(200 * error / spread, 1.5));
+        }
+        if (absolute > Double.MIN_NORMAL / RELATIVE_FLOOR) {
+            error = Math.max(RELATIVE_FLOOR * absolute, error);
+        }
+        return new Segment(lower, upper, kronrod * halfLength, error);
+    }
+    
+    private static double valueAt(CompiledExpression compiled, int slot, double[] values, double[] stack, double x) {
+        values[slot] = x;
+        double value;
+        try {
+            value = compiled.evaluate(values, stack);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Equation cannot be evaluated at " + x + ": " + e.getMessage());
+        }
+        if (!Double.isFinite(value)) {
+            throw new IllegalArgumentException("Equation is not finite at " + x);
+        }
+        return value;
+    }
+    
+    /**
+     * Sums the values or errors of the segments in order, with Neumaier's compensation.
+     */
+    private static double sum(List<Segment> segments, boolean errors) {
+        double sum = 0;
+        double compensation = 0;
+        for (Segment segment : segments) {
+            double term = errors ? segment.error() : segment.value();
+            double total = sum + term;
+            compensation += Math.abs(sum) >= Math.abs(term) ? (sum - total) + term : (term - total) + sum;
+            sum = total;
+        }
+        return sum + compensation;
+    }
+}
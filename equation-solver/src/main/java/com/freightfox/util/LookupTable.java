@@ -0,0 +1,180 @@
+package com.freightfox.util;
+
+/**
+ * Table of samples of a single-variable expression over a fixed range,
+ * answering evaluations inside the range by interpolation.
+ *
+ * <p>Linear tables store values only. Cubic tables also store the exact slope
+ * at every sample, from the expression's derivative, and interpolate with
+ * Hermite cubics. Their error falls with the fourth power of the spacing
+ * instead of the second, so they need far fewer samples for the same bound.
+ */
+public class LookupTable {
+    
+    public enum Interpolation { LINEAR, CUBIC }
+    
+    /** Intervals in the first table tried; each retry doubles them. */
+    public static final int INITIAL_INTERVALS = 256;
+    
+    /** Most intervals a table may have, about 8 MB for a cubic table. */
+    public static final int MAX_INTERVALS = 1 << 19;
+    
+    private final double min;
+    private final double max;
+    private final double inverseStep;
+    private final int intervals;
+    private final double[] values;
+    // Slopes multiplied by the step, so interpolation needs no extra multiply; null for linear tables
+    private final double[] scaledSlopes;
+    private final double measuredError;
+    
+    private LookupTable(double min, double max, int intervals, double[] values, double[] scaledSlopes,
+                        double measuredError) {
+        this.min = min;
+        this.max = max;
+        this.inverseStep = intervals / (max - min);
+        this.intervals = intervals;
+        this.values = values;
+        this.scaledSlopes = scaledSlopes;
+        this.measuredError = measuredError;
+    }
+    
+    /**
+     * Builds the smallest table, doubling from {@link #INITIAL_INTERVALS}, whose
+     * error stays within the bound. The error is measured against the exact
+     * expression at a quarter, half and three quarters of every interval.
+     *
+     * @param compiled A compiled expression of one variable
+     * @param min Lower end of the range
+     * @param max Upper end of the range
+     * @param maxError Largest absolute error allowed
+     * @param interpolation How to interpolate between samples
+     * @return The table
+     * @throws IllegalArgumentException if the expression has other than one variable, is not
+     *         finite somewhere in the range, or the bound needs more than {@link #MAX_INTERVALS}
+     */
+    public static LookupTable build(CompiledExpression compiled, double min, double max, double maxError,
+                                    Interpolation interpolation) {
+        if (compiled.getVariables().length != 1) {
+            throw new IllegalArgumentException("Only equations of exactly one variable can be approximated");
+        }
+        if (!Double.isFinite(min) || !Double.isFinite(max) || min >= max) {
+            throw new IllegalArgumentException("Range must be finite with min below max");
+        }
+        double error = Double.NaN;
+        for (int intervals = INITIAL_INTERVALS; intervals <= MAX_INTERVALS; intervals *= 2) {
+            LookupTable table = sample(compiled, min, max, intervals, interpolation);
+            error = table.measureError(compiled);
+            if (error <= maxError) {
+                return new LookupTable(min, max, intervals, table.values, table.scaledSlopes, error);
+            }
+        }
+        throw new IllegalArgumentException("Error bound " + maxError + " not reached with " + MAX_INTERVALS
+                + " intervals; smallest error was " + error);
+    }
+    
+    private static LookupTable sample(CompiledExpression compiled, double min, double max, int intervals,
+                                      Interpolation interpolation) {
+        double step = (max - min) / intervals;
+        double[] values = new double[intervals + 1];
+        double[] scaledSlopes = interpolation == Interpolation.CUBIC ? new double[intervals + 1] : null;
+        double[] point = new double[1];
+        double[] stack = new double[compiled.getMaxStack()];
+        double[] tangents = new double[compiled.getMaxStack()];
+        for (int i = 0; i <= intervals; i++) {
+            point[0] = i == intervals ? max : min + i * step;
+            try {
+                if (scaledSlopes != null) {
+                    values[i] = compiled.evaluateDerivative(point, 0, stack, tangents);
+                    scaledSlopes[i] = tangents[0] * step;
+                } else {
+                    values[i] = compiled.evaluate(point, stack);
+                }
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Equation cannot be evaluated at " + point[0] + ": " + e.getMessage());
+            }
+            if (!Double.isFinite(values[i]) || (scaledSlopes != null && !Double.isFinite(scaledSlopes[i]))) {
+                throw new IllegalArgumentException("Equation is not smooth and finite at " + point[0]);
+            }
+        }
+        return new LookupTable(min, max, intervals, values, scaledSlopes, Double.NaN);
+    }
+    
+    private double measureError(CompiledExpression compiled) {
+        double step = (max - min) / intervals;
+        double[] point = new double[1];
+        double[] stack = new double[compiled.getMaxStack()];
+        double error = 0;
+        for (int i = 0; i < intervals; i++) {
+            for (int quarter = 1; quarter <= 3; quarter++) {
+                point[0] = min + (i + quarter * 0.25) * step;
+                double exact;
+                try {
+                    exact = compiled.evaluate(point, stack);
+                } catch (ArithmeticException e) {
+                    throw new IllegalArgumentException("Equation cannot be evaluated at " + point[0] + ": " + e.getMessage());
+                }
+                double difference = Math.abs(evaluate(point[0]) - exact);
+                if (!(difference <= error)) {
+                    // Also catches NaN, which never compares as small enough
+                    error = Double.isNaN(difference) ? Double.POSITIVE_INFINITY : difference;
+                }
+            }
+        }
+        return error;
+    }
+    
+    /**
+     * Whether a value lies in the table's range.
+     *
+     * @param x The variable value
+     * @return True if the table can answer for it
+     */
+    public boolean covers(double x) {
+        return x >= min && x <= max;
+    }
+    
+    /**
+     * Interpolates the expression at a value inside the range.
+     *
+     * @param x The variable value, which must be covered
+     * @return The approximate result
+     */
+    public double evaluate(double x) {
+        double position = (x - min) * inverseStep;
+        int i = Math.min((int) position, intervals - 1);
+        double t = position - i;
+        double v0 = values[i];
+        double v1 = values[i + 1];
+        if (scaledSlopes == null) {
+            return v0 + t * (v1 - v0);
+        }
+        // Cubic Hermite basis in Horner form
+        double m0 = scaledSlopes[i];
+        double m1 = scaledSlopes[i + 1];
+        double c2 = 3 * (v1 - v0) - 2 * m0 - m1;
+        double c3 = 2 * (v0 - v1) + m0 + m1;
+        return v0 + t * (m0 + t * (c2 + t * c3));
+    }
+    
+    public double getMin() {
+        return min;
+    }
+    
+    public double getMax() {
+        return max;
+    }
+    
+    public int getIntervals() {
+        return intervals;
+    }
+    
+    /**
+     * Returns the largest error found when the table was verified.
+     *
+     * @return The measured absolute error
+     */
+    public double getMeasuredError() {
+        return measuredError;
+    }
+}
@@ -0,0 +1,328 @@
+package com.freightfox.util;
+
+import com.freightfox.model.Distribution;
+import com.freightfox.model.SimulationResult;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Propagates input uncertainty through a compiled expression by Monte Carlo sampling.
+ *
+ * <p>Samples are drawn and evaluated in blocks of {@link #BLOCK_SIZE} rows
+ * through the columnar evaluator, so no more than one block per worker is ever
+ * held in memory however many samples are requested. Each block has its own
+ * {@link SplittableRandom} stream seeded from the root stream, which makes a
+ * run reproducible from its seed whichever worker takes which block.
+ *
+ * <p>Two passes replay the same blocks. The first computes the count, mean,
+ * variance and extremes. The second fills the histogram between those
+ * extremes, and a finer internal histogram of {@link #PERCENTILE_BINS} bins
+ * from which percentiles are interpolated.
+ */
+public class MonteCarloSimulator {
+    
+    public static final int BLOCK_SIZE = 4096;
+    
+    /** Resolution of percentiles: one part in this many of the output range. */
+    public static final int PERCENTILE_BINS = 1 << 14;
+    
+    /**
+     * Draws the values of one variable.
+     */
+    @FunctionalInterface
+    private interface Sampler {
+        double draw(SplittableRandom random);
+    }
+    
+    /**
+     * Simulates the output distribution of an expression.
+     *
+     * @param compiled The compiled expression
+     * @param distributions Distributions of the uncertain variables
+     * @param fixed Values of the remaining variables
+     * @param samples Number of samples to draw
+     * @param seed Seed of the root random stream
+     * @param bins Number of histogram bins
+     * @param percentiles Percentiles to report, each between 0 and 100
+     * @param deadline Deadline for the whole simulation, checked once per block
+     * @return Summary statistics of the finite results
+     * @throws IllegalArgumentException if a variable has neither a value nor a valid distribution,
+     *         or a count or percentile is out of range
+     * @throws com.freightfox.exception.DeadlineExceededException if the deadline passes
+     */
+    public static SimulationResult simulate(CompiledExpression compiled, Map<String, Distribution> distributions,
+                                            Map<String, Double> fixed, long samples, long seed, int bins,
+                                            List<Double> percentiles, Deadline deadline) {
+        if (samples < 1 || bins < 1) {
+            throw new IllegalArgumentException("Samples and bins must be positive");
+        }
+        for (double percentile : percentiles) {
+            if (!(percentile >= 0 && percentile <= 100)) {
+                throw new IllegalArgumentException("Percentiles must be between 0 and 100: " + percentile);
+            }
+        }
+        String[] variables = compiled.getVariables();
+        Sampler[] samplers = new Sampler[variables.length];
+        double[] constants = new double[variables.length];
+        for (int slot = 0; slot < variables.length; slot++) {
+            Distribution distribution = distributions.get(variables[slot]);
+            if (distribution != null) {
+                samplers[slot] = samplerOf(variables[slot], distribution);
+            } else if (fixed != null && fixed.get(variables[slot]) != null) {
+                constants[slot] = fixed.get(variables[slot]);
+            } else {
+                throw new IllegalArgumentException("Variable '" + variables[slot] + "' has neither a value nor a distribution");
+            }
+        }
+        
+        int blocks = (int) ((samples + BLOCK_SIZE - 1) / BLOCK_SIZE);
+        SplittableRandom root = new SplittableRandom(seed);
+        long[] blockSeeds = new long[blocks];
+        for (int block = 0; block < blocks; block++) {
+            blockSeeds[block] = root.nextLong();
+        }
+        Simulation simulation = new Simulation(compiled, samplers, constants, samples, blockSeeds, deadline);
+        
+        // First pass: moments and extremes per block, merged in block order so the result does not depend on scheduling
+        long[] counts = new long[blocks];
+        double[] means = new double[blocks];
+        double[] squares = new double[blocks];
+        double[] minimums = new double[blocks];
+        double[] maximums = new double[blocks];
+        simulation.forEachBlock(() -> null, (ignored, block, results, valid, rows) -> {
+            long count = 0;
+            double mean = 0;
+            double m2 = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int r = 0; r < rows; r++) {
+                if (!valid[r]) {
+                    continue;
+                }
+                double value = results[r];
+                count++;
+                double delta = value - mean;
+                mean += delta / count;
+                m2 += delta * (value - mean);
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+            counts[block] = count;
+            means[block] = mean;
+            squares[block] = m2;
+            minimums[block] = min;
+            maximums[block] = max;
+        });
+        
+        long count = 0;
+        double mean = 0;
+        double m2 = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int block = 0; block < blocks; block++) {
+            if (counts[block] == 0) {
+                continue;
+            }
+            long merged = count + counts[block];
+            double delta = means[block] - mean;
+            mean += delta * counts[block] / merged;
+            m2 += squares[block] + delta * delta * ((double) count * counts[block] / merged);
+            count = merged;
+            min = Math.min(min, minimums[block]);
+            max = Math.max(max, maximums[block]);
+        }
+        
+        SimulationResult result = new SimulationResult(seed, samples, samples - count);
+        if (count == 0) {
+            return result;
+        }
+        result.setMean(mean);
+        result.setVariance(count > 1 ? m2 / (count - 1) : 0.0);
+        result.setStdDev(Math.sqrt(result.getVariance()));
+        result.setMin(min);
+        result.setMax(max);
+        
+        // Second pass: histograms between the extremes, one pair per worker chunk and summed afterwards
+        double lo = min;
+        double width = max - min;
+        double histogramScale = width > 0 ? bins / width : 0;
+        double fineScale = width > 0 ? PERCENTILE_BINS / width : 0;
+        List<long[]> histograms = simulation.forEachBlock(() -> new long[bins + PERCENTILE_BINS],
+                (histogram, block, results, valid, rows) -> {
+                    for (int r = 0; r < rows; r++) {
+                        if (valid[r]) {
+                            double offset = results[r] - lo;
+                            histogram[Math.min((int) (offset * histogramScale), bins - 1)]++;
+                            histogram[bins + Math.min((int) (offset * fineScale), PERCENTILE_BINS - 1)]++;
+                        }
+                    }
+                });
+        long[] histogram = new long[bins];
+        long[] fine = new long[PERCENTILE_BINS];
+        for (long[] partial : histograms) {
+            for (int i = 0; i < bins; i++) {
+                histogram[i] += partial[i];
+            }
+            for (int i = 0; i < PERCENTILE_BINS; i++) {
+                fine[i] += partial[bins + i];
+            }
+        }
+        result.setHistogram(new SimulationResult.Histogram(lo, width / bins, histogram));
+        
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (double percentile : percentiles) {
+            values.put(percentileKey(percentile), percentile(fine, count, percentile, lo, max));
+        }
+        result.setPercentiles(values);
+        return result;
+    }
+    
+    /**
+     * Reads a percentile from the fine histogram, interpolating within the bin that contains it.
+     */
+    private static double percentile(long[] fine, long count, double percentile, double min, double max) {
+        double width = (max - min) / fine.length;
+        double rank = percentile / 100 * count;
+        long below = 0;
+        for (int i = 0; i < fine.length; i++) {
+            if (fine[i] > 0 && below + fine[i] >= rank) {
+                double fraction = (rank - below) / fine[i];
+                return Math.min(max, Math.max(min, min + (i + fraction) * width));
+            }
+            below += fine[i];
+        }
+        return max;
+    }
+    
+    private static String percentileKey(double percentile) {
+        return percentile == Math.rint(percentile) ? "p" + (long) percentile : "p" + percentile;
+    }
+    
+    private static Sampler samplerOf(String variable, Distribution distribution) {
+        String problem = "Invalid " + distribution.getType() + " distribution for '" + variable + "'";
+        switch (distribution.getType()) {
+            case Distribution.NORMAL -> {
+                Double mean = distribution.getMean();
+                Double stdDev = distribution.getStdDev();
+                if (mean == null || stdDev == null || !Double.isFinite(mean) || !(stdDev >= 0) || Double.isInfinite(stdDev)) {
+                    throw new IllegalArgumentException(problem + ": needs a mean and a non-negative stdDev");
+                }
+                return random -> mean + stdDev * random.nextGaussian();
+            }
+            case Distribution.UNIFORM -> {
+                Double min = distribution.getMin();
+                Double max = distribution.getMax();
+                if (min == null || max == null || !Double.isFinite(min) || !Double.isFinite(max) || min >= max) {
+                    throw new IllegalArgumentException(problem + ": needs min below max");
+                }
+                double width = max - min;
+                return random -> min + width * random.nextDouble();
+            }
+            case Distribution.TRIANGULAR -> {
+                Double min = distribution.getMin();
+                Double mode = distribution.getMode();
+                Double max = distribution.getMax();
+                if (min == null || mode == null || max == null || !Double.isFinite(min) || !Double.isFinite(max)
+                        || min >= max || mode < min || mode > max) {
+                    throw new IllegalArgumentException(problem + ": needs min below max and the mode between them");
+                }
+                // Inverse of the cumulative distribution, which is quadratic on either side of the mode
+                double width = max - min;
+                double split = (mode - min) / width;
+                double left = width * (mode - min);
+                double right = width * (max - mode);
+                return random -> {
+                    double u = random.nextDouble();
+                    return u < split ? min + Math.sqrt(u * left) : max - Math.sqrt((1 - u) * right);
+                };
+            }
+            default -> throw new IllegalArgumentException("Unknown distribution type: " + distribution.getType());
+        }
+    }
+    
+    /**
+     * Receives one evaluated block together with the state of the chunk evaluating it.
+     */
+    @FunctionalInterface
+    private interface BlockConsumer<S> {
+        void accept(S state, int block, double[] results, boolean[] valid, int rows);
+    }
+    
+    /**
+     * The blocks of one simulation, replayable any number of times.
+     */
+    private static final class Simulation {
+        
+        private final CompiledExpression compiled;
+        private final Sampler[] samplers;
+        private final double[] constants;
+        private final long samples;
+        private final long[] blockSeeds;
+        private final Deadline deadline;
+        
+        Simulation(CompiledExpression compiled, Sampler[] samplers, double[] constants, long samples,
+                   long[] blockSeeds, Deadline deadline) {
+            this.compiled = compiled;
+            this.samplers = samplers;
+            this.constants = constants;
+            this.samples = samples;
+            this.blockSeeds = blockSeeds;
+            this.deadline = deadline;
+        }
+        
+        /**
+         * Evaluates every block on the common fork-join pool. Consecutive blocks are
+         * grouped into chunks, each with its own buffers and state, as in batch solving.
+         *
+         * @return The final state of every chunk
+         */
+        <S> List<S> forEachBlock(Supplier<S> states, BlockConsumer<S> consumer) {
+            int blocks = blockSeeds.length;
+            int parallelism = Runtime.getRuntime().availableProcessors();
+            int chunks = Math.min(blocks, parallelism * 4);
+            int chunkSize = (blocks + chunks - 1) / chunks;
+            
+            return IntStream.range(0, chunks).parallel().mapToObj(chunk -> {
+                S state = states.get();
+                double[][] columns = new double[samplers.length][BLOCK_SIZE];
+                double[] results = new double[BLOCK_SIZE];
+                boolean[] divisionByZero = new boolean[BLOCK_SIZE];
+                boolean[] valid = new boolean[BLOCK_SIZE];
+                for (int slot = 0; slot < samplers.length; slot++) {
+                    if (samplers[slot] == null) {
+                        Arrays.fill(columns[slot], constants[slot]);
+                    }
+                }
+                
+                for (int block = chunk * chunkSize; block < Math.min(blocks, (chunk + 1) * chunkSize); block++) {
+                    deadline.check();
+                    int rows = (int) Math.min(BLOCK_SIZE, samples - (long) block * BLOCK_SIZE);
+                    SplittableRandom random = new SplittableRandom(blockSeeds[block]);
+                    for (int slot = 0; slot < samplers.length; slot++) {
+                        Sampler sampler = samplers[slot];
+                        if (sampler != null) {
+                            double[] column = columns[slot];
+                            for (int r = 0; r < rows; r++) {
+                                column[r] = sampler.draw(random);
+                            }
+                        }
+                    }
+                    Arrays.fill(divisionByZero, false);
+                    compiled.evaluateColumns(columns, rows, results, divisionByZero);
+                    for (int r = 0; r < rows; r++) {
+                        valid[r] = !divisionByZero[r] && Double.isFinite(results[r]);
+                    }
+                    consumer.accept(state, block, results, valid, rows);
+                    deadline.advance(1);
+                }
+                return state;
+            }).toList();
+        }
+    }
+}
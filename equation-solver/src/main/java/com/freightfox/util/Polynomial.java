@@ -0,0 +1,300 @@
+package com.freightfox.util;
+
+import com.freightfox.model.*;
+
+import java.util.*;
+
+/**
+ * Polynomial in sparse form, evaluated with Horner's scheme.
+ * A formula such as {@code 3x^3 + 2x^2 - 5x + 7} evaluates as
+ * {@code ((3x + 2)x - 5)x + 7}: three multiplications and no {@code Math.pow}.
+ * Multivariate polynomials nest the scheme, one variable per level, with the
+ * coefficients of each power being polynomials in the remaining variables.
+ * Gaps between powers (as in {@code x^9 + 1}) are bridged by repeated squaring.
+ *
+ * <p>Only polynomials written out longhand, as sums of terms, are recognized.
+ * Products and powers of sums such as {@code (x - 1)^20} are left to the
+ * written form: multiplied out, their terms cancel catastrophically near the
+ * roots, while regrouping a longhand sum adds no cancellation of its own.
+ */
+public class Polynomial {
+    
+    /** Highest exponent, per variable, taken into Horner form instead of left to {@code Math.pow}. */
+    public static final int MAX_DEGREE = 64;
+    
+    /** Most terms a polynomial may have; beyond this the written form is cheaper. */
+    public static final int MAX_TERMS = 512;
+    
+    private final Horner root;
+    private final int termCount;
+    
+    private Polynomial(Horner root, int termCount) {
+        this.root = root;
+        this.termCount = termCount;
+    }
+    
+    /**
+     * Recognizes a sum of terms, each built only from constants, variables,
+     * {@code *}, division by a non-zero constant and powers with a constant
+     * non-negative integer exponent. A product, quotient or power with a sum as
+     * an operand is not expanded, and the tree is rejected. Polynomials of degree
+     * below two in every variable are not worth it and are rejected too.
+     *
+     * @param root The root node of the expression tree
+     * @param variables Variable names in slot order
+     * @return The polynomial, or null if the tree is not a polynomial worth rewriting
+     */
+    public static Polynomial recognize(ExpressionNode root, String[] variables) {
+        Deque<Map<Monomial, Double>> stack = new ArrayDeque<>();
+        for (ExpressionNode node : ExpressionNode.postOrder(root)) {
+            Map<Monomial, Double> terms;
+            if (node instanceof ConstantNode constant) {
+                terms = constant(constant.getValue(), variables.length);
+            } else if (node instanceof VariableNode variable) {
+                int slot = Arrays.binarySearch(variables, variable.getVariableName());
+                if (slot < 0) {
+                    return null;
+                }
+                int[] exponents = new int[variables.length];
+                exponents[slot] = 1;
+                terms = new HashMap<>();
+                terms.put(new Monomial(exponents), 1.0);
+            } else if (node instanceof OperatorNode operator) {
+                Map<Monomial, Double> right = stack.pop();
+                Map<Monomial, Double> left = stack.pop();
+                terms = combine(operator.getOperator(), left, right, variables.length);
+                if (terms == null || terms.size() > MAX_TERMS || !keepsEveryTerm(terms)) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+            stack.push(terms);
+        }
+        
+        Map<Monomial, Double> terms = stack.pop();
+        // A zero constant term adds nothing; a zero variable term was rejected above
+        terms.values().removeIf(coefficient -> coefficient == 0);
+        boolean nonLinear = terms.keySet().stream()
+                .anyMatch(monomial -> Arrays.stream(monomial.exponents).anyMatch(exponent -> exponent >= 2));
+        if (!nonLinear) {
+            return null;
+        }
+        List<Map.Entry<Monomial, Double>> entries = new ArrayList<>(terms.entrySet());
+        return new Polynomial(Horner.build(entries, 0, variables.length), entries.size());
+    }
+    
+    /**
+     * Evaluates the polynomial with slot-ordered variable values.
+     *
+     * @param values Variable values indexed by slot
+     * @return The result of the evaluation
+     */
+    public double evaluate(double[] values) {
+        return root.evaluate(values);
+    }
+    
+    /**
+     * Returns the number of non-zero terms after expansion.
+     *
+     * @return The term count
+     */
+    public int getTermCount() {
+        return termCount;
+    }
+    
+    private static Map<Monomial, Double> combine(String operator, Map<Monomial, Double> left,
+                                                 Map<Monomial, Double> right, int width) {
+        return switch (operator) {
+            case "+" -> add(left, right, 1.0);
+            case "-" -> add(left, right, -1.0);
+            case "*" -> isTerm(left) && isTerm(right) ? multiply(left, right) : null;
+            case "/" -> {
+                Double divisor = constantValue(right);
+                if (!isTerm(left)) {
+                    yield null;
+                }
+                if (divisor == null || divisor == 0) {
+                    // Left to the written form, which reports the division by zero
+                    yield null;
+                }
+                Map<Monomial, Double> quotient = new HashMap<>();
+                left.forEach((monomial, coefficient) -> quotient.put(monomial, coefficient / divisor));
+                yield quotient;
+            }
+            case "^" -> {
+                Double exponent = constantValue(right);
+                if (!isTerm(left) || exponent == null || exponent < 0 || exponent > MAX_DEGREE || exponent != Math.rint(exponent)) {
+                    yield null;
+                }
+                Map<Monomial, Double> power = constant(1.0, width);
+                for (int i = 0; i < exponent.intValue(); i++) {
+                    power = multiply(power, left);
+                }
+                yield power;
+            }
+            default -> null;
+        };
+    }
+    
+    private static Map<Monomial, Double> add(Map<Monomial, Double> left, Map<Monomial, Double> right, double sign) {
+        Map<Monomial, Double> sum = new HashMap<>(left);
+        right.forEach((monomial, coefficient) -> sum.merge(monomial, sign * coefficient, Double::sum));
+        return sum;
+    }
+    
+    private static Map<Monomial, Double> multiply(Map<Monomial, Double> left, Map<Monomial, Double> right) {
+        Map<Monomial, Double> product = new HashMap<>();
+        for (Map.Entry<Monomial, Double> a : left.entrySet()) {
+            for (Map.Entry<Monomial, Double> b : right.entrySet()) {
+                product.merge(a.getKey().times(b.getKey()), a.getValue() * b.getValue(), Double::sum);
+            }
+        }
+        return product;
+    }
+    
+    /**
+     * Returns whether every variable term survives with a finite, non-zero
+     * coefficient. A term that cancels ({@code x*x - x*x}), is multiplied by zero
+     * or whose coefficient overflows would evaluate differently once dropped or
+     * merged: the written form gives NaN or infinity where its variables are
+     * large, and the polynomial must give the same result everywhere.
+     */
+    private static boolean keepsEveryTerm(Map<Monomial, Double> terms) {
+        for (Map.Entry<Monomial, Double> term : terms.entrySet()) {
+            double coefficient = term.getValue();
+            if (!Double.isFinite(coefficient) || (coefficient == 0 && !term.getKey().isConstant())) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Returns whether a polynomial is a single term (or zero), which can be
+     * multiplied without expanding anything.
+     */
+    private static boolean isTerm(Map<Monomial, Double> terms) {
+        return terms.size() <= 1;
+    }
+    
+    private static Map<Monomial, Double> constant(double value, int width) {
+        // Zero is kept as a term so that multiplying by it is seen, not silently dropped
+        Map<Monomial, Double> terms = new HashMap<>();
+        terms.put(new Monomial(new int[width]), value);
+        return terms;
+    }
+    
+    /**
+     * Returns the value of a polynomial with no variable terms, or null if it has any.
+     */
+    private static Double constantValue(Map<Monomial, Double> terms) {
+        if (terms.isEmpty()) {
+            return 0.0;
+        }
+        if (terms.size() > 1) {
+            return null;
+        }
+        Map.Entry<Monomial, Double> term = terms.entrySet().iterator().next();
+        return term.getKey().isConstant() ? term.getValue() : null;
+    }
+    
+    /**
+     * Exponents of each variable, by slot, in one term.
+     */
+    private record Monomial(int[] exponents) {
+        
+        Monomial times(Monomial other) {
+            int[] sum = new int[exponents.length];
+            for (int i = 0; i < sum.length; i++) {
+                sum[i] = exponents[i] + other.exponents[i];
+            }
+            return new Monomial(sum);
+        }
+        
+        boolean isConstant() {
+            return Arrays.stream(exponents).allMatch(exponent -> exponent == 0);
+        }
+        
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Monomial monomial && Arrays.equals(exponents, monomial.exponents);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(exponents);
+        }
+    }
+    
+    /**
+     * One level of the nested scheme: a polynomial in one variable whose
+     * coefficients are polynomials in the later variables, or a constant.
+     */
+    private static final class Horner {
+        
+        private final int slot;
+        private final int[] degrees;
+        private final Horner[] coefficients;
+        private final double constant;
+        
+        private Horner(int slot, int[] degrees, Horner[] coefficients, double constant) {
+            this.slot = slot;
+            this.degrees = degrees;
+            this.coefficients = coefficients;
+            this.constant = constant;
+        }
+        
+        /**
+         * Builds the scheme for terms that do not involve variables before {@code slot}.
+         */
+        static Horner build(List<Map.Entry<Monomial, Double>> terms, int slot, int width) {
+            // Variables that none of the terms raise to a power are skipped
+            while (slot < width && allZero(terms, slot)) {
+                slot++;
+            }
+            if (slot == width) {
+                double sum = 0;
+                for (Map.Entry<Monomial, Double> term : terms) {
+                    sum += term.getValue();
+                }
+                return new Horner(-1, null, null, sum);
+            }
+            
+            TreeMap<Integer, List<Map.Entry<Monomial, Double>>> byDegree = new TreeMap<>(Comparator.reverseOrder());
+            for (Map.Entry<Monomial, Double> term : terms) {
+                byDegree.computeIfAbsent(term.getKey().exponents[slot], key -> new ArrayList<>()).add(term);
+            }
+            int[] degrees = new int[byDegree.size()];
+            Horner[] coefficients = new Horner[byDegree.size()];
+            int i = 0;
+            for (Map.Entry<Integer, List<Map.Entry<Monomial, Double>>> group : byDegree.entrySet()) {
+                degrees[i] = group.getKey();
+                coefficients[i] = build(group.getValue(), slot + 1, width);
+                i++;
+            }
+            return new Horner(slot, degrees, coefficients, 0);
+        }
+        
+        private static boolean allZero(List<Map.Entry<Monomial, Double>> terms, int slot) {
+            for (Map.Entry<Monomial, Double> term : terms) {
+                if (term.getKey().exponents[slot] != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        double evaluate(double[] values) {
+            if (coefficients == null) {
+                return constant;
+            }
+            double x = values[slot];
+            double result = coefficients[0].evaluate(values);
+            for (int i = 1; i < degrees.length; i++) {
+                result = result * StrengthReduction.powi(x, degrees[i - 1] - degrees[i]) + coefficients[i].evaluate(values);
+            }
+            return result * StrengthReduction.powi(x, degrees[degrees.length - 1]);
+        }
+    }
+}
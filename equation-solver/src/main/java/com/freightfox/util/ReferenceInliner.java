@@ -0,0 +1,93 @@
+package com.freightfox.util;
+
+import com.freightfox.model.*;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongFunction;
+
+/**
+ * Utility class that replaces references to stored equations with the
+ * equations' own trees. An equation written in terms of others is compiled
+ * from the inlined tree, so evaluating it costs the same as if the referenced
+ * text had been pasted in.
+ *
+ * <p>Referenced trees are shared rather than copied. Their size still counts
+ * in full, since every pass over the inlined tree visits each use, and trees
+ * over {@link #MAX_INLINED_NODES} nodes are refused.
+ */
+public class ReferenceInliner {
+    
+    /** Largest inlined tree, in nodes. */
+    public static final int MAX_INLINED_NODES = 1 << 20;
+    
+    /**
+     * Lists the equations a tree references.
+     *
+     * @param root The root node of the expression tree
+     * @return The referenced equation IDs, in order of first use
+     */
+    public static Set<Long> references(ExpressionNode root) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (ExpressionNode node : ExpressionNode.postOrder(root)) {
+            if (node instanceof ReferenceNode reference) {
+                ids.add(reference.getEquationId());
+            }
+        }
+        return ids;
+    }
+    
+    /**
+     * Replaces every reference in a tree with the referenced equation's tree.
+     *
+     * @param root The root node of the expression tree
+     * @param resolver Returns the tree stored for an equation ID, which must not contain references itself
+     * @return The inlined tree, or the same tree if it has no references
+     * @throws IllegalArgumentException if the inlined tree would exceed {@link #MAX_INLINED_NODES} nodes
+     */
+    public static ExpressionNode inline(ExpressionNode root, LongFunction<ExpressionNode> resolver) {
+        Map<Long, ExpressionNode> resolved = new HashMap<>();
+        Map<Long, Long> sizes = new HashMap<>();
+        Deque<ExpressionNode> results = new ArrayDeque<>();
+        long nodes = 0;
+        for (ExpressionNode node : ExpressionNode.postOrder(root)) {
+            if (node instanceof ReferenceNode reference) {
+                long id = reference.getEquationId();
+                ExpressionNode tree = resolved.computeIfAbsent(id, resolver::apply);
+                nodes += sizes.computeIfAbsent(id, key -> size(tree));
+                results.push(tree);
+            } else if (node instanceof OperatorNode operator) {
+                ExpressionNode right = results.pop();
+                ExpressionNode left = results.pop();
+                nodes++;
+                results.push(left == operator.getLeft() && right == operator.getRight()
+                        ? operator : new OperatorNode(operator.getOperator(), left, right));
+            } else {
+                nodes++;
+                results.push(node);
+            }
+            if (nodes > MAX_INLINED_NODES) {
+                throw new IllegalArgumentException("Equation would have more than " + MAX_INLINED_NODES
+                        + " nodes once its references are inlined");
+            }
+        }
+        return results.pop();
+    }
+    
+    private static long size(ExpressionNode root) {
+        long size = 0;
+        for (ExpressionNode node : ExpressionNode.postOrder(root)) {
+            if (node instanceof ReferenceNode) {
+                throw new IllegalArgumentException("Referenced equation " + node + " has not been inlined");
+            }
+            if (++size > MAX_INLINED_NODES) {
+                break;
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,283 @@
+package com.freightfox.util;
+
+import com.freightfox.exception.SolverException;
+import com.freightfox.model.SolveResult;
+
+/**
+ * Solves a compiled expression for one variable.
+ * Tries Newton-Raphson first, using the derivative from a forward-mode pass,
+ * and falls back to Brent's method inside a bracket when Newton stalls,
+ * diverges or leaves the bracket.
+ *
+ * <p>A finder owns its scratch stacks, so iterations do not allocate. It can be
+ * reused for many solves but is not thread-safe.
+ */
+public class RootFinder {
+    
+    public static final double DEFAULT_TOLERANCE = 1e-10;
+    public static final int DEFAULT_MAX_ITERATIONS = 100;
+    
+    private static final int MAX_BRACKET_EXPANSIONS = 60;
+    
+    private final CompiledExpression compiled;
+    private final int slot;
+    private final double tolerance;
+    private final int maxIterations;
+    private final double[] values;
+    private final double[] stack;
+    private final double[] tangents;
+    private double target;
+    private double derivative;
+    private Deadline deadline = Deadline.NONE;
+    
+    /**
+     * Creates a root finder for one variable of a compiled expression.
+     *
+     * @param compiled The compiled expression
+     * @param variable The variable to solve for
+     * @param tolerance Convergence tolerance on both the residual and the step size
+     * @param maxIterations Iteration cap applied to each method separately
+     * @throws IllegalArgumentException if the expression does not reference the variable
+     */
+    public RootFinder(CompiledExpression compiled, String variable, double tolerance, int maxIterations) {
+        this.slot = compiled.slotOf(variable);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Equation does not reference variable '" + variable + "'");
+        }
+        this.compiled = compiled;
+        this.tolerance = tolerance;
+        this.maxIterations = maxIterations;
+        this.values = new double[compiled.getVariables().length];
+        this.stack = new double[compiled.getMaxStack()];
+        this.tangents = new double[compiled.getMaxStack()];
+    }
+    
+    /**
+     * Returns the slot of the unknown variable in the compiled expression.
+     *
+     * @return The slot index
+     */
+    public int getSlot() {
+        return slot;
+    }
+    
+    /**
+     * Sets the deadline checked before every iteration of later solves.
+     *
+     * @param deadline The deadline, or {@link Deadline#NONE}
+     */
+    public void setDeadline(Deadline deadline) {
+        this.deadline = deadline;
+    }
+    
+    /**
+     * Finds x such that f(x) = target, with the other variables fixed.
+     *
+     * @param parameters Variable values indexed by slot; the unknown's entry is ignored
+     * @param target The value the expression should equal
+     * @param initialGuess Starting point for Newton, or null for the bracket midpoint (or zero)
+     * @param lowerBound Lower end of the bracket, or null
+     * @param upperBound Upper end of the bracket, or null
+     * @return The root and how it was found
+     * @throws SolverException if no root is found
+     * @throws com.freightfox.exception.DeadlineExceededException if the deadline passes first
+     */
+    public SolveResult solve(double[] parameters, double target, Double initialGuess,
+                             Double lowerBound, Double upperBound) {
+        if ((lowerBound == null) != (upperBound == null)) {
+            throw new SolverException("Both lowerBound and upperBound must be given for a bracket");
+        }
+        boolean bracketed = lowerBound != null;
+        if (bracketed && !(lowerBound < upperBound)) {
+            throw new SolverException("lowerBound must be less than upperBound");
+        }
+        
+        System.arraycopy(parameters, 0, values, 0, values.length);
+        this.target = target;
+        
+        double x0 = initialGuess != null ? initialGuess
+                : bracketed ? 0.5 * (lowerBound + upperBound) : 0.0;
+        
+        SolveResult newton = newton(x0, lowerBound, upperBound);
+        if (newton != null) {
+            return newton;
+        }
+        
+        double lo;
+        double hi;
+        if (bracketed) {
+            lo = lowerBound;
+            hi = upperBound;
+        } else {
+            double[] bracket = findBracket(x0);
+            lo = bracket[0];
+            hi = bracket[1];
+        }
+        return brent(lo, hi);
+    }
+    
+    /**
+     * Newton-Raphson iteration. Returns null instead of failing so the caller
+     * can fall back to a bracketed method.
+     */
+    private SolveResult newton(double x, Double lowerBound, Double upperBound) {
+        for (int iteration = 1; iteration <= maxIterations; iteration++) {
+            deadline.check();
+            double fx = residualWithDerivative(x);
+            if (!Double.isFinite(fx)) {
+                return null;
+            }
+            if (Math.abs(fx) <= tolerance) {
+                return new SolveResult(x, fx, iteration, SolveResult.NEWTON);
+            }
+            if (derivative == 0 || !Double.isFinite(derivative)) {
+                return null;
+            }
+            
+            double step = fx / derivative;
+            x -= step;
+            if (!Double.isFinite(x)
+                    || (lowerBound != null && (x < lowerBound || x > upperBound))) {
+                return null;
+            }
+            if (Math.abs(step) <= tolerance * (1 + Math.abs(x))) {
+                double fNext = residual(x);
+                if (Double.isFinite(fNext)) {
+                    return new SolveResult(x, fNext, iteration, SolveResult.NEWTON);
+                }
+                return null;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Expands a window around the starting point until the residual changes sign.
+     */
+    private double[] findBracket(double x0) {
+        double width = Math.max(1.0, Math.abs(x0)) * 0.1;
+        for (int i = 0; i < MAX_BRACKET_EXPANSIONS; i++) {
+            deadline.check();
+            double lo = x0 - width;
+            double hi = x0 + width;
+            double fLo = residual(lo);
+            double fHi = residual(hi);
+            if (Double.isFinite(fLo) && Double.isFinite(fHi) && (fLo == 0 || fHi == 0 || (fLo < 0) != (fHi < 0))) {
+                return new double[] {lo, hi};
+            }
+            width *= 2;
+        }
+        throw new SolverException("Newton's method did not converge and no sign change was found; "
+                + "provide lowerBound and upperBound");
+    }
+    
+    /**
+     * Brent's method: inverse quadratic interpolation and secant steps,
+     * safeguarded by bisection so the bracket always shrinks.
+     */
+    private SolveResult brent(double lo, double hi) {
+        double a = lo;
+        double b = hi;
+        double fa = residual(a);
+        double fb = residual(b);
+        if (!Double.isFinite(fa) || !Double.isFinite(fb)) {
+            throw new SolverException("Equation cannot be evaluated at the bracket ends");
+        }
+        if (fa == 0) {
+            return new SolveResult(a, fa, 0, SolveResult.BRENT);
+        }
+        if (fb == 0) {
+            return new SolveResult(b, fb, 0, SolveResult.BRENT);
+        }
+        if ((fa < 0) == (fb < 0)) {
+            throw new SolverException("Bracket [" + lo + ", " + hi + "] does not contain a sign change");
+        }
+        
+        double c = b;
+        double fc = fb;
+        double d = b - a;
+        double e = d;
+        
+        for (int iteration = 1; iteration <= maxIterations; iteration++) {
+            deadline.check();
+            if ((fb > 0) == (fc > 0)) {
+                c = a;
+                fc = fa;
+                d = b - a;
+                e = d;
+            }
+            if (Math.abs(fc) < Math.abs(fb)) {
+                a = b;
+                b = c;
+                c = a;
+                fa = fb;
+                fb = fc;
+                fc = fa;
+            }
+            
+            double tol = 2 * Math.ulp(b) + 0.5 * tolerance;
+            double midpoint = 0.5 * (c - b);
+            if (Math.abs(midpoint) <= tol || fb == 0) {
+                return new SolveResult(b, fb, iteration, SolveResult.BRENT);
+            }
+            
+            if (Math.abs(e) >= tol && Math.abs(fa) > Math.abs(fb)) {
+                double s = fb / fa;
+                double p;
+                double q;
+                if (a == c) {
+                    p = 2 * midpoint * s;
+                    q = 1 - s;
+                } else {
+                    double r = fb / fc;
+                    q = fa / fc;
+                    p = s * (2 * midpoint * q * (q - r) - (b - a) * (r - 1));
+                    q = (q - 1) * (r - 1) * (s - 1);
+                }
+                if (p > 0) {
+                    q = -q;
+                }
+                p = Math.abs(p);
+                if (2 * p < Math.min(3 * midpoint * q - Math.abs(tol * q), Math.abs(e * q))) {
+                    e = d;
+                    d = p / q;
+                } else {
+                    d = midpoint;
+                    e = d;
+                }
+            } else {
+                d = midpoint;
+                e = d;
+            }
+            
+            a = b;
+            fa = fb;
+            b += Math.abs(d) > tol ? d : Math.copySign(tol, midpoint);
+            fb = residual(b);
+            if (!Double.isFinite(fb)) {
+                throw new SolverException("Equation cannot be evaluated at x = " + b);
+            }
+        }
+        throw new SolverException("Brent's method did not converge within " + maxIterations + " iterations");
+    }
+    
+    private double residual(double x) {
+        values[slot] = x;
+        try {
+            return compiled.evaluate(values, stack) - target;
+        } catch (ArithmeticException e) {
+            return Double.NaN;
+        }
+    }
+    
+    private double residualWithDerivative(double x) {
+        values[slot] = x;
+        try {
+            double fx = compiled.evaluateDerivative(values, slot, stack, tangents) - target;
+            derivative = tangents[0];
+            return fx;
+        } catch (ArithmeticException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.freightfox.util;
+
+import com.freightfox.model.*;
+import java.util.*;
+
+/**
+ * Several expression trees merged into one DAG so that subexpressions shared
+ * between them are evaluated once. Nodes are hash-consed on (operator,
+ * operands), with operands of {@code +} and {@code *} put in a canonical
+ * order, and numbered children-first so a single forward sweep evaluates
+ * every root.
+ *
+ * <p>Instances are immutable and can be evaluated concurrently.
+ */
+public class SharedExpressionProgram {
+    
+    private static final byte OK = 0;
+    private static final byte MISSING = 1;
+    private static final byte DIVISION_BY_ZERO = 2;
+    
+    private final byte[] ops;
+    private final int[] left;
+    private final int[] right;
+    private final double[] constants;
+    private final String[] variables;
+    private final int[] roots;
+    private final int treeNodes;
+    
+    private SharedExpressionProgram(Builder builder, int[] roots) {
+        int size = builder.size;
+        this.ops = Arrays.copyOf(builder.ops, size);
+        this.left = Arrays.copyOf(builder.left, size);
+        this.right = Arrays.copyOf(builder.right, size);
+        this.constants = Arrays.copyOf(builder.constants, size);
+        this.variables = builder.variables;
+        this.roots = roots;
+        this.treeNodes = builder.treeNodes;
+    }
+    
+    /**
+     * Merges expression trees into one program.
+     *
+     * @param trees The expression trees, one per result
+     * @return The merged program
+     */
+    public static SharedExpressionProgram compile(List<ExpressionNode> trees) {
+        SortedSet<String> names = new TreeSet<>();
+        for (ExpressionNode tree : trees) {
+            CompiledExpression.collectVariables(tree, names);
+        }
+        Builder builder = new Builder(names.toArray(new String[0]));
+        int[] roots = new int[trees.size()];
+        for (int i = 0; i < roots.length; i++) {
+            roots[i] = builder.intern(trees.get(i));
+        }
+        return new SharedExpressionProgram(builder, roots);
+    }
+    
+    /**
+     * Returns the number of distinct nodes after sharing.
+     *
+     * @return The node count
+     */
+    public int size() {
+        return ops.length;
+    }
+    
+    /**
+     * Returns the number of nodes the trees had before sharing.
+     *
+     * @return The node count
+     */
+    public int getTreeNodes() {
+        return treeNodes;
+    }
+    
+    /**
+     * Evaluates every root against one variable environment. The variables are
+     * bound once; a root whose subtree divides by zero or needs a missing
+     * variable gets an error without affecting the other roots.
+     *
+     * @param bindings Map of variable names to their values
+     * @param results Output array receiving one value per root
+     * @param errors Output array receiving an error message per failed root, or null
+     */
+    public void evaluate(Map<String, Double> bindings, double[] results, String[] errors) {
+        double[] slots = new double[variables.length];
+        boolean[] bound = new boolean[variables.length];
+        for (int v = 0; v < variables.length; v++) {
+            Double value = bindings.get(variables[v]);
+            if (value != null) {
+                slots[v] = value;
+                bound[v] = true;
+            }
+        }
+        
+        int size = ops.length;
+        double[] values = new double[size];
+        byte[] status = new byte[size];
+        // Index of the first missing variable below each failed node, for the error message
+        int[] missing = new int[size];
+        
+        for (int node = 0; node < size; node++) {
+            switch (ops[node]) {
+                case CompiledExpression.CONST -> values[node] = constants[node];
+                case CompiledExpression.VAR -> {
+                    int v = (int) constants[node];
+                    if (bound[v]) {
+                        values[node] = slots[v];
+                    } else {
+                        status[node] = MISSING;
+                        missing[node] = v;
+                    }
+                }
+                default -> {
+                    int l = left[node];
+                    int r = right[node];
+                    if (status[l] != OK || status[r] != OK) {
+                        int failedChild = status[l] != OK ? l : r;
+                        status[node] = status[failedChild];
+                        missing[node] = missing[failedChild];
+                        continue;
+                    }
+                    double a = values[l];
+                    double b = values[r];
+                    switch (ops[node]) {
+                        case CompiledExpression.ADD -> values[node] = a + b;
+                        case CompiledExpression.SUB -> values[node] = a - b;
+                        case CompiledExpression.MUL -> values[node] = a * b;
+                        case CompiledExpression.DIV -> {
+                            if (b == 0) {
+                                status[node] = DIVISION_BY_ZERO;
+                            } else {
+                                values[node] = a / b;
+                            }
+                        }
+                        case CompiledExpression.POW -> values[node] = StrengthReduction.pow(a, b);
+                        default -> throw new IllegalStateException("Unknown opcode: " + ops[node]);
+                    }
+                }
+            }
+        }
+        
+        for (int i = 0; i < roots.length; i++) {
+            int root = roots[i];
+            results[i] = status[root] == OK ? values[root] : Double.NaN;
+            errors[i] = switch (status[root]) {
+                case MISSING -> "Variable '" + variables[missing[root]] + "' not found in provided values";
+                case DIVISION_BY_ZERO -> "Division by zero";
+                default -> null;
+            };
+        }
+    }
+    
+    /**
+     * Hash-conses nodes while walking the trees children-first.
+     * Variable leaves keep their variable index in the constants array.
+     */
+    private static class Builder {
+        
+        private final String[] variables;
+        private final Map<NodeKey, Integer> index = new HashMap<>();
+        private byte[] ops = new byte[16];
+        private int[] left = new int[16];
+        private int[] right = new int[16];
+        private double[] constants = new double[16];
+        private int size;
+        private int treeNodes;
+        
+        Builder(String[] variables) {
+            this.variables = variables;
+        }
+        
+        int intern(ExpressionNode root) {
+            int[] stack = new int[16];
+            int top = -1;
+            for (ExpressionNode node : ExpressionNode.postOrder(root)) {
+                treeNodes++;
+                int id;
+                if (node instanceof ConstantNode constant) {
+                    id = add(CompiledExpression.CONST, Double.doubleToLongBits(constant.getValue()), 0,
+                            constant.getValue(), -1, -1);
+                } else if (node instanceof VariableNode variable) {
+                    int v = Arrays.binarySearch(variables, variable.getVariableName());
+                    id = add(CompiledExpression.VAR, v, 0, v, -1, -1);
+                } else if (node instanceof OperatorNode operator) {
+                    int r = stack[top--];
+                    int l = stack[top--];
+                    byte op = CompiledExpression.opcodeOf(operator.getOperator());
+                    if ((op == CompiledExpression.ADD || op == CompiledExpression.MUL) && r < l) {
+                        // IEEE addition and multiplication are commutative, so a + b and b + a share a node
+                        int swap = l;
+                        l = r;
+                        r = swap;
+                    }
+                    id = add(op, l, r, 0, l, r);
+                } else {
+                    throw new IllegalArgumentException("Unsupported node type: " + node.getClass().getSimpleName());
+                }
+                if (++top == stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[top] = id;
+            }
+            return stack[0];
+        }
+        
+        private int add(byte op, long a, long b, double constant, int l, int r) {
+            NodeKey key = new NodeKey(op, a, b);
+            Integer existing = index.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            if (size == ops.length) {
+                int capacity = size * 2;
+                ops = Arrays.copyOf(ops, capacity);
+                left = Arrays.copyOf(left, capacity);
+                right = Arrays.copyOf(right, capacity);
+                constants = Arrays.copyOf(constants, capacity);
+            }
+            ops[size] = op;
+            left[size] = l;
+            right[size] = r;
+            constants[size] = constant;
+            index.put(key, size);
+            return size++;
+        }
+    }
+    
+    private record NodeKey(byte op, long a, long b) { }
+}
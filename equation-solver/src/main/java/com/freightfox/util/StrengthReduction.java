@@ -0,0 +1,103 @@
+package com.freightfox.util;
+
+/**
+ * Cheaper replacements for {@code Math.pow} and division.
+ * Small integer exponents become multiply chains by repeated squaring, and
+ * {@code x^0.5} becomes a square root wherever the two agree. Division by a
+ * power of two becomes multiplication by its reciprocal, which is bit-exact.
+ *
+ * <p>A multiply chain rounds once per multiplication, so {@code x^n} can differ
+ * from the nearly correctly rounded {@code Math.pow}: not at all for squares, by
+ * one ulp for cubes and by up to five ulps at the largest reduced exponent. Both
+ * agree on zeros, infinities and NaN.
+ */
+public class StrengthReduction {
+    
+    /** Largest constant integer exponent turned into multiplications; beyond it rounding error adds up. */
+    public static final int MAX_INTEGER_EXPONENT = 8;
+    
+    /**
+     * Returns the exponent as a small non-negative integer, or -1 if it is not one.
+     *
+     * @param exponent The exponent
+     * @return The integer exponent, or -1
+     */
+    public static int integerExponent(double exponent) {
+        if (exponent >= 0 && exponent <= MAX_INTEGER_EXPONENT && exponent == Math.rint(exponent)) {
+            return (int) exponent;
+        }
+        return -1;
+    }
+    
+    /**
+     * Whether dividing by a constant can be replaced by multiplying with its reciprocal
+     * without changing any result. True exactly for powers of two whose reciprocal is a normal number.
+     *
+     * @param divisor The constant divisor
+     * @return True if the reciprocal is exact
+     */
+    public static boolean hasExactReciprocal(double divisor) {
+        int exponent = Math.getExponent(divisor);
+        return exponent >= Double.MIN_EXPONENT && exponent < Double.MAX_EXPONENT
+                && Math.abs(divisor) == Math.scalb(1.0, exponent);
+    }
+    
+    /**
+     * Raises a value to a non-negative integer power by repeated squaring.
+     *
+     * @param base The base
+     * @param exponent The exponent, at least zero
+     * @return {@code base} to the power {@code exponent}
+     */
+    public static double powi(double base, int exponent) {
+        switch (exponent) {
+            case 0: return 1.0;
+            case 1: return base;
+            case 2: return base * base;
+            case 3: return base * base * base;
+            default:
+                double result = 1.0;
+                double square = base;
+                while (true) {
+                    if ((exponent & 1) != 0) {
+                        result *= square;
+                    }
+                    exponent >>= 1;
+                    if (exponent == 0) {
+                        return result;
+                    }
+                    square *= square;
+                }
+        }
+    }
+    
+    /**
+     * Computes {@code base^0.5}. {@code Math.sqrt} differs from {@code Math.pow}
+     * only at negative zero and negative infinity, which take the slow path.
+     *
+     * @param base The base
+     * @return The square root as {@code Math.pow} defines it
+     */
+    public static double sqrt(double base) {
+        return base > 0 ? Math.sqrt(base) : Math.pow(base, 0.5);
+    }
+    
+    /**
+     * Computes {@code Math.pow(base, exponent)}, taking the cheaper routes when the
+     * exponent is only known at evaluation time.
+     *
+     * @param base The base
+     * @param exponent The exponent
+     * @return {@code base} to the power {@code exponent}
+     */
+    public static double pow(double base, double exponent) {
+        int integer = integerExponent(exponent);
+        if (integer >= 0) {
+            return powi(base, integer);
+        }
+        if (exponent == 0.5) {
+            return sqrt(base);
+        }
+        return Math.pow(base, exponent);
+    }
+}
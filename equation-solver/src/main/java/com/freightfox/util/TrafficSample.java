@@ -0,0 +1,63 @@
+package com.freightfox.util;
+
+import com.freightfox.model.WarmupSample;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps a bounded sample of recent evaluations.
+ * Each call is kept with probability {@code 1 / sampleEvery}, so the hot path
+ * pays for one random draw and the sample skews toward the busiest
+ * equations. Once full, the oldest entries are overwritten.
+ */
+public class TrafficSample {
+    
+    private final WarmupSample[] samples;
+    private final int sampleEvery;
+    private int next;
+    private int size;
+    
+    public TrafficSample(int capacity, int sampleEvery) {
+        if (capacity < 1 || sampleEvery < 1) {
+            throw new IllegalArgumentException("Capacity and sampling interval must be positive");
+        }
+        this.samples = new WarmupSample[capacity];
+        this.sampleEvery = sampleEvery;
+    }
+    
+    /**
+     * Records an evaluation if it is drawn for the sample.
+     *
+     * @param equation The equation text
+     * @param variables The variable values it was evaluated with
+     */
+    public void record(String equation, Map<String, Double> variables) {
+        if (sampleEvery > 1 && ThreadLocalRandom.current().nextInt(sampleEvery) != 0) {
+            return;
+        }
+        WarmupSample sample = new WarmupSample(equation, new HashMap<>(variables));
+        synchronized (this) {
+            samples[next] = sample;
+            next = (next + 1) % samples.length;
+            size = Math.min(size + 1, samples.length);
+        }
+    }
+    
+    /**
+     * Returns the recorded evaluations, oldest first.
+     *
+     * @return A copy of the sample
+     */
+    public synchronized List<WarmupSample> snapshot() {
+        List<WarmupSample> copy = new ArrayList<>(size);
+        int start = size < samples.length ? 0 : next;
+        for (int i = 0; i < size; i++) {
+            copy.add(samples[(start + i) % samples.length]);
+        }
+        return copy;
+    }
+}
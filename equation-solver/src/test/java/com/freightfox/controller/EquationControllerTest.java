@@ -1,7 +1,9 @@
 package com.freightfox.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.freightfox.exception.JobNotFoundException;
 import com.freightfox.model.*;
+import com.freightfox.service.AdmissionControl;
 import com.freightfox.service.EquationService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,8 +11,11 @@ import org.junit.jupiter.api.DisplayName;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -18,11 +23,13 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Unit tests for EquationController REST endpoints.
  */
 @WebMvcTest(EquationController.class)
+@Import(AdmissionControl.class)
 @DisplayName("EquationController Tests")
 class EquationControllerTest {
     
@@ -56,6 +63,54 @@ class EquationControllerTest {
                 .andExpect(jsonPath("$.equationId").value(1));
     }
     
+    @Test
+    @DisplayName("Should accept references to stored equations")
+    void testStoreEquationWithReference() throws Exception {
+        when(equationService.storeEquation("@1 * d + 25")).thenReturn(2L);
+        
+        mockMvc.perform(post("/api/equations/store")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new StoreEquationRequest("@1 * d + 25"))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.equationId").value(2));
+    }
+    
+    @Test
+    @DisplayName("Should accept decimal constants")
+    void testStoreEquationWithDecimals() throws Exception {
+        when(equationService.storeEquation("w / 1000 * r + f + d * 0.35")).thenReturn(3L);
+        
+        mockMvc.perform(post("/api/equations/store")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new StoreEquationRequest("w / 1000 * r + f + d * 0.35"))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.equationId").value(3));
+    }
+    
+    @Test
+    @DisplayName("Should update an equation in place and validate the new text")
+    void testUpdateEquation() throws Exception {
+        when(equationService.updateEquation(1L, "x * 3"))
+                .thenReturn(new Equation(1L, "x * 3", new ExpressionCost(3, 2, 0), 2L));
+        when(equationService.updateEquation(999L, "x"))
+                .thenThrow(new com.freightfox.exception.EquationNotFoundException("Equation with ID 999 not found"));
+        
+        mockMvc.perform(put("/api/equations/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new StoreEquationRequest("x * 3"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.equation").value("x * 3"))
+                .andExpect(jsonPath("$.version").value(2));
+        mockMvc.perform(put("/api/equations/999")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new StoreEquationRequest("x"))))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(put("/api/equations/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new StoreEquationRequest("x $ 3"))))
+                .andExpect(status().isBadRequest());
+    }
+    
     @Test
     @DisplayName("Should return 400 for invalid equation")
     void testStoreInvalidEquation() throws Exception {
@@ -137,8 +192,9 @@ class EquationControllerTest {
     void testEvaluateEquation() throws Exception {
         // Given
         EvaluateEquationRequest request = new EvaluateEquationRequest(Map.of("x", 2.0, "y", 3.0));
-        when(equationService.evaluateEquation(1L, Map.of("x", 2.0, "y", 3.0))).thenReturn(5.0);
-        when(equationService.getEquationById(1L)).thenReturn(new Equation(1L, "x + y"));
+        EvaluateEquationResponse evaluated = new EvaluateEquationResponse(1L, "x + y", Map.of("x", 2.0, "y", 3.0), 5.0);
+        evaluated.setVersion(2L);
+        when(equationService.evaluateVersioned(1L, Map.of("x", 2.0, "y", 3.0))).thenReturn(evaluated);
         
         // When & Then
         mockMvc.perform(post("/api/equations/1/evaluate")
@@ -148,6 +204,7 @@ class EquationControllerTest {
                 .andExpect(jsonPath("$.equationId").value(1))
                 .andExpect(jsonPath("$.equation").value("x + y"))
                 .andExpect(jsonPath("$.result").value(5.0))
+                .andExpect(jsonPath("$.version").value(2))
                 .andExpect(jsonPath("$.variables.x").value(2.0))
                 .andExpect(jsonPath("$.variables.y").value(3.0));
     }
@@ -157,7 +214,7 @@ class EquationControllerTest {
     void testEvaluateNonExistentEquation() throws Exception {
         // Given
         EvaluateEquationRequest request = new EvaluateEquationRequest(Map.of("x", 2.0));
-        when(equationService.evaluateEquation(999L, Map.of("x", 2.0)))
+        when(equationService.evaluateVersioned(999L, Map.of("x", 2.0)))
                 .thenThrow(new com.freightfox.exception.EquationNotFoundException("Equation not found"));
         
         // When & Then
@@ -186,7 +243,7 @@ class EquationControllerTest {
     void testEvaluateMissingVariables() throws Exception {
         // Given
         EvaluateEquationRequest request = new EvaluateEquationRequest(Map.of("x", 2.0));
-        when(equationService.evaluateEquation(1L, Map.of("x", 2.0)))
+        when(equationService.evaluateVersioned(1L, Map.of("x", 2.0)))
                 .thenThrow(new com.freightfox.exception.InvalidExpressionException("Missing variable y"));
         
         // When & Then
@@ -202,8 +259,8 @@ class EquationControllerTest {
     void testEvaluateComplexEquation() throws Exception {
         // Given
         EvaluateEquationRequest request = new EvaluateEquationRequest(Map.of("x", 2.0, "y", 3.0, "z", 1.0));
-        when(equationService.evaluateEquation(1L, Map.of("x", 2.0, "y", 3.0, "z", 1.0))).thenReturn(10.0);
-        when(equationService.getEquationById(1L)).thenReturn(new Equation(1L, "3x + 2y - z"));
+        when(equationService.evaluateVersioned(1L, Map.of("x", 2.0, "y", 3.0, "z", 1.0)))
+                .thenReturn(new EvaluateEquationResponse(1L, "3x + 2y - z", Map.of("x", 2.0, "y", 3.0, "z", 1.0), 10.0));
         
         // When & Then
         mockMvc.perform(post("/api/equations/1/evaluate")
@@ -214,4 +271,437 @@ class EquationControllerTest {
                 .andExpect(jsonPath("$.equation").value("3x + 2y - z"))
                 .andExpect(jsonPath("$.result").value(10.0));
     }
-} 
\ No newline at end of file
+    
+    @Test
+    @DisplayName("Should store derivative of equation")
+    void testGetDerivative() throws Exception {
+        // Given
+        when(equationService.storeDerivative(1L, "x")).thenReturn(2L);
+        when(equationService.getEquationById(2L)).thenReturn(new Equation(2L, "(2 * x)"));
+        
+        // When & Then
+        mockMvc.perform(get("/api/equations/1/derivative").param("var", "x"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sourceEquationId").value(1))
+                .andExpect(jsonPath("$.variable").value("x"))
+                .andExpect(jsonPath("$.equationId").value(2))
+                .andExpect(jsonPath("$.equation").value("(2 * x)"));
+    }
+    
+    @Test
+    @DisplayName("Should evaluate gradient of equation")
+    void testEvaluateGradient() throws Exception {
+        // Given
+        EvaluateEquationRequest request = new EvaluateEquationRequest(Map.of("x", 2.0, "y", 3.0));
+        when(equationService.evaluateGradient(1L, Map.of("x", 2.0, "y", 3.0)))
+                .thenReturn(new EvaluateGradientResponse(1L, "x * y", Map.of("x", 2.0, "y", 3.0), 6.0,
+                        Map.of("x", 3.0, "y", 2.0)));
+        
+        // When & Then
+        mockMvc.perform(post("/api/equations/1/gradient")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result").value(6.0))
+                .andExpect(jsonPath("$.gradient.x").value(3.0))
+                .andExpect(jsonPath("$.gradient.y").value(2.0));
+    }
+    
+    @Test
+    @DisplayName("Should solve equation for one variable")
+    void testSolveEquation() throws Exception {
+        // Given
+        SolveEquationRequest request = new SolveEquationRequest("x", Map.of("y", 3.0));
+        when(equationService.solveEquation(eq(1L), any(SolveEquationRequest.class)))
+                .thenReturn(new SolveEquationResponse(1L, "x^2 + y^2 - 25", "x", Map.of("y", 3.0),
+                        new SolveResult(4.0, 0.0, 5, SolveResult.NEWTON)));
+        
+        // When & Then
+        mockMvc.perform(post("/api/equations/1/solve")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.variable").value("x"))
+                .andExpect(jsonPath("$.root").value(4.0))
+                .andExpect(jsonPath("$.method").value("newton"));
+    }
+    
+    @Test
+    @DisplayName("Should return 422 when no root is found")
+    void testSolveNoRoot() throws Exception {
+        // Given
+        SolveEquationRequest request = new SolveEquationRequest("x", Map.of());
+        when(equationService.solveEquation(eq(1L), any(SolveEquationRequest.class)))
+                .thenThrow(new com.freightfox.exception.SolverException("No root"));
+        
+        // When & Then
+        mockMvc.perform(post("/api/equations/1/solve")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.error").exists());
+    }
+    
+    @Test
+    @DisplayName("Should solve equation over parameter rows")
+    void testSolveBatch() throws Exception {
+        // Given
+        BatchSolveRequest request = new BatchSolveRequest("x", Map.of(),
+                List.of(Map.of("a", 4.0), Map.of("a", -1.0)));
+        when(equationService.solveBatch(eq(1L), any(BatchSolveRequest.class)))
+                .thenReturn(new BatchSolveResponse(1L, "x^2 - a", "x",
+                        List.of(new SolveResult(2.0, 0.0, 4, SolveResult.NEWTON), SolveResult.failed("No root"))));
+        
+        // When & Then
+        mockMvc.perform(post("/api/equations/1/solve-batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.solved").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.results[0].root").value(2.0))
+                .andExpect(jsonPath("$.results[1].error").value("No root"));
+    }
+    
+    @Test
+    @DisplayName("Should evaluate range of equation")
+    void testEvaluateRange() throws Exception {
+        // Given
+        when(equationService.evaluateRange(eq(1L), any())).thenReturn(new EvaluateRangeResponse(1L, "x / y",
+                Map.of("x", new double[] {-1, 1}, "y", new double[] {0, 2}),
+                new Interval(-1.0, 1.0).divide(new Interval(0.0, 2.0))));
+        
+        // When & Then
+        mockMvc.perform(post("/api/equations/1/range")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"variables\": {\"x\": [-1, 1], \"y\": [0, 2]}}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.divisionByZeroPossible").value(true))
+                .andExpect(jsonPath("$.bounded").value(false));
+    }
+    
+    @Test
+    @DisplayName("Should return 400 for malformed range")
+    void testEvaluateRangeMalformed() throws Exception {
+        mockMvc.perform(post("/api/equations/1/range")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"variables\": {\"x\": [2, 1]}}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").exists());
+    }
+    
+    @Test
+    @DisplayName("Should update evaluation session")
+    void testUpdateSession() throws Exception {
+        // Given
+        EvaluateEquationRequest request = new EvaluateEquationRequest(Map.of("x", 3.0));
+        when(equationService.updateSession("abc", Map.of("x", 3.0)))
+                .thenReturn(new EvaluationSession("abc", 1L, 1L, Map.of("x", 3.0, "y", 1.0), List.of(), 4.0, 2, 3));
+        
+        // When & Then
+        mockMvc.perform(patch("/api/equations/sessions/abc")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessionId").value("abc"))
+                .andExpect(jsonPath("$.result").value(4.0))
+                .andExpect(jsonPath("$.recomputedNodes").value(2));
+    }
+    
+    @Test
+    @DisplayName("Should return 404 for unknown session")
+    void testGetUnknownSession() throws Exception {
+        // Given
+        when(equationService.getSession("missing"))
+                .thenThrow(new com.freightfox.exception.SessionNotFoundException("Session missing not found"));
+        
+        // When & Then
+        mockMvc.perform(get("/api/equations/sessions/missing"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").exists());
+    }
+    
+    @Test
+    @DisplayName("Should evaluate many equations successfully")
+    void testEvaluateMany() throws Exception {
+        // Given
+        EvaluateManyRequest request = new EvaluateManyRequest(List.of(1L, 2L), Map.of("x", 2.0));
+        when(equationService.evaluateMany(List.of(1L, 2L), Map.of("x", 2.0)))
+                .thenReturn(List.of(new EquationResult(1L, 1L, 4.0, null),
+                        new EquationResult(2L, 1L, null, "Division by zero")));
+        
+        // When & Then
+        mockMvc.perform(post("/api/equations/evaluate-many")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].equationId").value(1))
+                .andExpect(jsonPath("$.results[0].result").value(4.0))
+                .andExpect(jsonPath("$.results[0].version").value(1))
+                .andExpect(jsonPath("$.results[1].error").value("Division by zero"))
+                .andExpect(jsonPath("$.results[1].result").doesNotExist());
+    }
+    
+    @Test
+    @DisplayName("Should return 400 for evaluate many without equation IDs")
+    void testEvaluateManyEmpty() throws Exception {
+        mockMvc.perform(post("/api/equations/evaluate-many")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"equationIds\": [], \"variables\": {}}"))
+                .andExpect(status().isBadRequest());
+    }
+    
+    @Test
+    @DisplayName("Should publish variables and report affected equations")
+    void testPublishVariables() throws Exception {
+        // Given
+        EvaluateEquationRequest request = new EvaluateEquationRequest(Map.of("x", 2.0));
+        when(equationService.publishVariables(Map.of("x", 2.0))).thenReturn(Set.of(1L));
+        
+        // When & Then
+        mockMvc.perform(post("/api/equations/variables")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.affectedEquations[0]").value(1));
+    }
+    
+    @Test
+    @DisplayName("Should open event stream for subscription")
+    void testSubscribe() throws Exception {
+        // Given
+        when(equationService.subscribe(eq(List.of(1L, 2L)), any())).thenReturn("sub");
+        
+        // When & Then
+        mockMvc.perform(get("/api/equations/subscribe").param("ids", "1,2"))
+                .andExpect(request().asyncStarted());
+    }
+    
+    @Test
+    @DisplayName("Should return 504 when a solve runs past its deadline")
+    void testSolveDeadlineExceeded() throws Exception {
+        SolveEquationRequest request = new SolveEquationRequest("x", Map.of());
+        request.setTimeoutMillis(5L);
+        when(equationService.solveEquation(eq(1L), any(SolveEquationRequest.class)))
+                .thenThrow(new com.freightfox.exception.DeadlineExceededException("Evaluation did not finish within 5 ms"));
+        
+        mockMvc.perform(post("/api/equations/1/solve")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isGatewayTimeout())
+                .andExpect(jsonPath("$.error").value("Evaluation did not finish within 5 ms"));
+    }
+    
+    @Test
+    @DisplayName("Should accept a store with 202 when stores are asynchronous")
+    void testStoreEquationAsync() throws Exception {
+        StoreEquationRequest request = new StoreEquationRequest("2 + 3");
+        when(equationService.storeEquation("2 + 3")).thenReturn(1L);
+        when(equationService.isStoreAsync()).thenReturn(true);
+        
+        mockMvc.perform(post("/api/equations/store")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.message").value("Equation accepted for processing"))
+                .andExpect(jsonPath("$.equationId").value(1));
+    }
+    
+    @Test
+    @DisplayName("Should report a failed store with its error")
+    void testGetStoreStatus() throws Exception {
+        when(equationService.getStoreStatus(1L))
+                .thenReturn(new StoreStatus(1L, StoreStatus.FAILED, "Invalid equation: Invalid character in expression: @"));
+        when(equationService.getStoreStatus(2L)).thenReturn(new StoreStatus(2L, StoreStatus.READY, null));
+        
+        mockMvc.perform(get("/api/equations/1/status"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("FAILED"))
+                .andExpect(jsonPath("$.error").value("Invalid equation: Invalid character in expression: @"));
+        mockMvc.perform(get("/api/equations/2/status"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("READY"))
+                .andExpect(jsonPath("$.error").doesNotExist());
+    }
+    
+    @Test
+    @DisplayName("Should accept an approximation request and validate its bound")
+    void testApproximate() throws Exception {
+        ApproximationRequest request = new ApproximationRequest(0.0, 10.0, 1e-6, "CUBIC");
+        when(equationService.approximate(eq(1L), any(ApproximationRequest.class)))
+                .thenReturn(new ApproximationStatus(1L, "x", request, ApproximationStatus.BUILDING));
+        
+        mockMvc.perform(put("/api/equations/1/approximation")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("BUILDING"))
+                .andExpect(jsonPath("$.variable").value("x"));
+        
+        mockMvc.perform(put("/api/equations/1/approximation")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new ApproximationRequest(0.0, 10.0, -1.0, "QUADRATIC"))))
+                .andExpect(status().isBadRequest());
+    }
+    
+    @Test
+    @DisplayName("Should manage decimal mode and return the exact decimal result")
+    void testDecimalMode() throws Exception {
+        when(equationService.setDecimalMode(eq(1L), any(DecimalModeRequest.class)))
+                .thenReturn(new DecimalModeStatus(1L, 2, "HALF_UP"));
+        EvaluateEquationResponse evaluated = new EvaluateEquationResponse(1L, "x + y", Map.of("x", 0.1, "y", 0.2), 0.3);
+        evaluated.setDecimalResult("0.30");
+        when(equationService.evaluateVersioned(1L, Map.of("x", 0.1, "y", 0.2))).thenReturn(evaluated);
+        
+        mockMvc.perform(put("/api/equations/1/decimal-mode")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new DecimalModeRequest(2, "HALF_UP"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.scale").value(2))
+                .andExpect(jsonPath("$.rounding").value("HALF_UP"));
+        mockMvc.perform(put("/api/equations/1/decimal-mode")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new DecimalModeRequest(19, "BANKERS"))))
+                .andExpect(status().isBadRequest());
+        
+        mockMvc.perform(post("/api/equations/1/evaluate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new EvaluateEquationRequest(Map.of("x", 0.1, "y", 0.2)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.result").value(0.3))
+                .andExpect(jsonPath("$.decimalResult").value("0.30"));
+        
+        mockMvc.perform(delete("/api/equations/1/decimal-mode"))
+                .andExpect(status().isNoContent());
+    }
+    
+    @Test
+    @DisplayName("Should simulate an equation and validate the request")
+    void testSimulate() throws Exception {
+        SimulationResult result = new SimulationResult(42L, 1000, 0);
+        result.setEquationId(1L);
+        result.setMean(2.0);
+        when(equationService.getEvaluationCost(1L)).thenReturn(3L);
+        when(equationService.simulate(eq(1L), any(SimulateRequest.class))).thenReturn(result);
+        
+        SimulateRequest request = new SimulateRequest(Map.of("x", Distribution.normal(2, 1)), Map.of(), 1000L);
+        mockMvc.perform(post("/api/equations/1/simulate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.mean").value(2.0))
+                .andExpect(jsonPath("$.seed").value(42));
+        
+        mockMvc.perform(post("/api/equations/1/simulate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"distributions\": {\"x\": {\"type\": \"POISSON\"}}, \"samples\": 1000}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/equations/1/simulate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new SimulateRequest(Map.of(), Map.of(), 1000L))))
+                .andExpect(status().isBadRequest());
+    }
+    
+    @Test
+    @DisplayName("Should integrate an equation and validate the limits")
+    void testIntegrate() throws Exception {
+        IntegrationResult result = new IntegrationResult(18.0, 1e-13, 8, 120, true);
+        when(equationService.getEvaluationCost(1L)).thenReturn(3L);
+        when(equationService.integrate(eq(1L), any(IntegrateRequest.class))).thenReturn(result);
+        
+        mockMvc.perform(post("/api/equations/1/integrate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new IntegrateRequest("x", 0.0, 3.0, Map.of()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.value").value(18.0))
+                .andExpect(jsonPath("$.converged").value(true));
+        
+        mockMvc.perform(post("/api/equations/1/integrate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new IntegrateRequest("x", 0.0, null, Map.of()))))
+                .andExpect(status().isBadRequest());
+    }
+    
+    @Test
+    @DisplayName("Should aggregate an equation and validate the axes")
+    void testAggregate() throws Exception {
+        AggregationResult result = new AggregationResult(10, 0);
+        result.setSum(55.0);
+        when(equationService.getEvaluationCost(1L)).thenReturn(3L);
+        when(equationService.aggregate(eq(1L), any(AggregateRequest.class))).thenReturn(result);
+        
+        mockMvc.perform(post("/api/equations/1/aggregate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        new AggregateRequest(Map.of("x", new GridAxis(0.0, 9.0, 10)), Map.of()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sum").value(55.0))
+                .andExpect(jsonPath("$.argmax").doesNotExist());
+        
+        mockMvc.perform(post("/api/equations/1/aggregate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        new AggregateRequest(Map.of("x", new GridAxis(0.0, 9.0, 0)), Map.of()))))
+                .andExpect(status().isBadRequest());
+    }
+    
+    @Test
+    @DisplayName("Should start a file job and report its progress")
+    void testFileJob() throws Exception {
+        FileJobRequest request = new FileJobRequest("input.csv", "output.csv");
+        FileJobStatus status = new FileJobStatus("1-abc", 1L, request, FileJobStatus.QUEUED);
+        when(equationService.startFileJob(eq(1L), any(FileJobRequest.class))).thenReturn(status);
+        when(equationService.getFileJob("1-abc")).thenReturn(status);
+        when(equationService.getFileJob("1-missing")).thenThrow(new JobNotFoundException("Job 1-missing not found"));
+        
+        mockMvc.perform(post("/api/equations/1/file-jobs")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.jobId").value("1-abc"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+        
+        mockMvc.perform(get("/api/equations/file-jobs/1-abc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inputPath").value("input.csv"));
+        mockMvc.perform(get("/api/equations/file-jobs/1-missing"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/equations/1/file-jobs")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new FileJobRequest("", "output.csv"))))
+                .andExpect(status().isBadRequest());
+    }
+    
+    @Test
+    @DisplayName("Should submit, poll and cancel background jobs")
+    void testJobs() throws Exception {
+        JobStatus status = new JobStatus("1-abc", 1L, JobRequest.AGGREGATE, JobRequest.BULK, JobStatus.QUEUED);
+        when(equationService.submitJob(eq(1L), any(JobRequest.class))).thenReturn(status);
+        when(equationService.getJob("1-abc")).thenReturn(status);
+        when(equationService.cancelJob("1-abc"))
+                .thenReturn(new JobStatus("1-abc", 1L, JobRequest.AGGREGATE, JobRequest.BULK, JobStatus.CANCELLED));
+        when(equationService.getJob("1-missing")).thenThrow(new JobNotFoundException("Job 1-missing not found"));
+        
+        JobRequest request = new JobRequest(JobRequest.AGGREGATE, JobRequest.BULK);
+        request.setAggregate(new AggregateRequest(Map.of("x", new GridAxis(0.0, 1.0, 11)), Map.of()));
+        mockMvc.perform(post("/api/equations/1/jobs")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.jobId").value("1-abc"))
+                .andExpect(jsonPath("$.kind").value("AGGREGATE"));
+        
+        mockMvc.perform(get("/api/equations/jobs/1-abc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+        mockMvc.perform(delete("/api/equations/jobs/1-abc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("CANCELLED"));
+        mockMvc.perform(get("/api/equations/jobs/1-missing"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/equations/1/jobs")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new JobRequest("EVALUATE", JobRequest.BULK))))
+                .andExpect(status().isBadRequest());
+    }
+}
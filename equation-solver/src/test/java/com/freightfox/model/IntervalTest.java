@@ -0,0 +1,89 @@
+package com.freightfox.model;
+
+import com.freightfox.util.CompiledExpression;
+import com.freightfox.util.ExpressionParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+
+/**
+ * Unit tests for interval evaluation of expression trees.
+ */
+@DisplayName("Interval Tests")
+class IntervalTest {
+    
+    private static Interval rangeOf(String expression, Map<String, Interval> ranges) {
+        return ExpressionParser.parseExpression(expression).evaluateInterval(ranges);
+    }
+    
+    @Test
+    @DisplayName("Should enclose linear expression")
+    void testLinear() {
+        Interval range = rangeOf("3x + 2y - z", Map.of(
+                "x", new Interval(0, 1), "y", new Interval(-1, 1), "z", new Interval(2, 3)));
+        
+        assertEquals(-5.0, range.getLo(), 1e-9);
+        assertEquals(3.0, range.getHi(), 1e-9);
+        assertTrue(range.isBounded());
+        assertFalse(range.isDivisionByZeroPossible());
+    }
+    
+    @Test
+    @DisplayName("Should give tight bounds for even power crossing zero")
+    void testEvenPower() {
+        Interval range = rangeOf("x^2", Map.of("x", new Interval(-2, 3)));
+        
+        assertEquals(0.0, range.getLo(), 1e-9);
+        assertEquals(9.0, range.getHi(), 1e-9);
+    }
+    
+    @Test
+    @DisplayName("Should flag division by an interval crossing zero")
+    void testDivisionCrossingZero() {
+        Interval range = rangeOf("1 / x", Map.of("x", new Interval(-1, 1)));
+        
+        assertTrue(range.isDivisionByZeroPossible());
+        assertFalse(range.isBounded());
+    }
+    
+    @Test
+    @DisplayName("Should bound division by interval touching zero on one side")
+    void testDivisionTouchingZero() {
+        Interval range = rangeOf("1 / x", Map.of("x", new Interval(0, 2)));
+        
+        assertTrue(range.isDivisionByZeroPossible());
+        assertEquals(0.5, range.getLo(), 1e-9);
+        assertEquals(Double.POSITIVE_INFINITY, range.getHi());
+    }
+    
+    @Test
+    @DisplayName("Should flag fractional power of a possibly negative base")
+    void testFractionalPower() {
+        Interval range = rangeOf("x^0.5", Map.of("x", new Interval(-1, 4)));
+        
+        assertTrue(range.isUndefinedPossible());
+        assertEquals(2.0, range.getHi(), 1e-9);
+    }
+    
+    @Test
+    @DisplayName("Should enclose sampled values and match compiled evaluation")
+    void testEnclosesSamples() {
+        ExpressionNode node = ExpressionParser.parseExpression("x * y - x^3 / (y + 4) + 2^x");
+        Interval x = new Interval(-1.5, 2);
+        Interval y = new Interval(-1, 3);
+        Interval range = node.evaluateInterval(Map.of("x", x, "y", y));
+        
+        for (double xi = x.getLo(); xi <= x.getHi(); xi += 0.05) {
+            for (double yi = y.getLo(); yi <= y.getHi(); yi += 0.05) {
+                assertTrue(range.contains(node.evaluate(Map.of("x", xi, "y", yi))));
+            }
+        }
+        
+        CompiledExpression compiled = CompiledExpression.compile(node);
+        Interval compiledRange = compiled.evaluateInterval(new Interval[] {x, y});
+        assertEquals(range.getLo(), compiledRange.getLo());
+        assertEquals(range.getHi(), compiledRange.getHi());
+    }
+}
@@ -0,0 +1,42 @@
+package com.freightfox.service;
+
+import com.freightfox.exception.ServerBusyException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for cost-based admission control.
+ */
+@DisplayName("AdmissionControl Tests")
+class AdmissionControlTest {
+    
+    @Test
+    @DisplayName("Should shed requests once the budget is spent and admit them again after release")
+    void testBudget() {
+        AdmissionControl admission = new AdmissionControl(100, 10);
+        
+        AdmissionControl.Permit first = admission.admit(60);
+        assertEquals(40, admission.getAvailableUnits());
+        assertThrows(ServerBusyException.class, () -> admission.admit(60));
+        
+        first.close();
+        first.close();
+        assertEquals(100, admission.getAvailableUnits());
+        try (AdmissionControl.Permit second = admission.admit(60)) {
+            assertEquals(40, admission.getAvailableUnits());
+        }
+    }
+    
+    @Test
+    @DisplayName("Should charge oversized requests the whole budget so they run alone")
+    void testOversizedRequest() {
+        AdmissionControl admission = new AdmissionControl(100, 10);
+        
+        try (AdmissionControl.Permit permit = admission.admit(1_000_000)) {
+            assertEquals(0, admission.getAvailableUnits());
+            assertThrows(ServerBusyException.class, () -> admission.admit(1));
+        }
+        assertEquals(100, admission.getAvailableUnits());
+    }
+}
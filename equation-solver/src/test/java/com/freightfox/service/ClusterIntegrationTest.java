@@ -0,0 +1,186 @@
+package com.freightfox.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.freightfox.EquationSolverApplication;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs two cluster nodes on localhost and checks routing and rebalancing.
+ */
+@DisplayName("Cluster Integration Tests")
+class ClusterIntegrationTest {
+    
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+    
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+    
+    private String startNode(int index, String seeds) throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        String url = "http://localhost:" + port;
+        nodes.add(new SpringApplicationBuilder(EquationSolverApplication.class).run(
+                "--server.port=" + port,
+                "--equation.cluster.enabled=true",
+                "--equation.cluster.self-url=" + url,
+                "--equation.cluster.node-index=" + index,
+                "--equation.cluster.seeds=" + seeds));
+        return url;
+    }
+    
+    private HttpResponse<String> send(String method, String url, String body, boolean local) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+        if (local) {
+            request.header(ClusterMembership.HOP_HEADER, "test");
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+    
+    private JsonNode json(HttpResponse<String> response) throws IOException {
+        return objectMapper.readTree(response.body());
+    }
+    
+    @Test
+    @DisplayName("Should route requests to owners and rebalance on join and leave")
+    void testRoutingAndRebalancing() throws Exception {
+        String first = startNode(1, "");
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            HttpResponse<String> stored = send("POST", first + "/api/equations/store", "{\"equation\": \"x + " + i + "\"}", false);
+            ids.add(json(stored).get("equationId").asLong());
+        }
+        
+        // Equations keep their version numbers when they move
+        for (int i = 0; i < ids.size(); i++) {
+            send("PUT", first + "/api/equations/" + ids.get(i), "{\"equation\": \"x + " + i + "\"}", false);
+        }
+        
+        String second = startNode(2, first);
+        for (Long id : ids) {
+            assertEquals(2, json(send("GET", second + "/api/equations/" + id, null, false)).get("version").asLong());
+        }
+        int movedToSecond = json(send("GET", second + "/api/equations", null, true)).get("equations").size();
+        int keptOnFirst = json(send("GET", first + "/api/equations", null, true)).get("equations").size();
+        assertTrue(movedToSecond > 0 && keptOnFirst > 0);
+        assertEquals(30, movedToSecond + keptOnFirst);
+        
+        // Either node serves every equation and the full list
+        for (int i = 0; i < ids.size(); i++) {
+            String node = i % 2 == 0 ? first : second;
+            HttpResponse<String> result = send("POST", node + "/api/equations/" + ids.get(i) + "/evaluate",
+                    "{\"variables\": {\"x\": 1}}", false);
+            assertEquals(200, result.statusCode());
+            assertEquals(1.0 + i, json(result).get("result").asDouble(), 1e-9);
+        }
+        assertEquals(30, json(send("GET", first + "/api/equations", null, false)).get("equations").size());
+        
+        HttpResponse<String> many = send("POST", second + "/api/equations/evaluate-many",
+                objectMapper.writeValueAsString(Map.of("equationIds", ids, "variables", Map.of("x", 2.0))), false);
+        assertEquals(200, many.statusCode());
+        assertEquals(2.0 + 29, json(many).get("results").get(29).get("result").asDouble(), 1e-9);
+        
+        // Sessions follow their equation
+        HttpResponse<String> session = send("POST", first + "/api/equations/" + ids.get(0) + "/sessions",
+                "{\"variables\": {\"x\": 1}}", false);
+        String sessionId = json(session).get("sessionId").asText();
+        HttpResponse<String> updated = send("PATCH", second + "/api/equations/sessions/" + sessionId,
+                "{\"variables\": {\"x\": 5}}", false);
+        assertEquals(5.0, json(updated).get("result").asDouble(), 1e-9);
+        
+        // So do jobs, and one of the nodes streams the job's events through from the other
+        HttpResponse<String> job = send("POST", first + "/api/equations/" + ids.get(0) + "/jobs",
+                "{\"kind\": \"INTEGRATE\", \"integrate\": {\"variable\": \"x\", \"lower\": 0, \"upper\": 2}}", false);
+        String jobId = json(job).get("jobId").asText();
+        for (String node : List.of(first, second)) {
+            HttpResponse<String> events = send("GET", node + "/api/equations/jobs/" + jobId + "/events", null, false);
+            assertEquals(200, events.statusCode());
+            assertTrue(events.headers().firstValue("Content-Type").orElse("").startsWith("text/event-stream"));
+            assertTrue(events.body().contains("event:result"));
+        }
+        
+        // Leaving hands everything back
+        nodes.remove(1).close();
+        assertEquals(30, json(send("GET", first + "/api/equations", null, true)).get("equations").size());
+        assertEquals(404, send("GET", first + "/api/equations/999999", null, false).statusCode());
+    }
+    
+    @Test
+    @DisplayName("Should carry decimal modes and approximations with a moved equation")
+    void testSettingsMoved() throws Exception {
+        String first = startNode(1, "");
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            HttpResponse<String> stored = send("POST", first + "/api/equations/store", "{\"equation\": \"x * 0." + i + "\"}", false);
+            Long id = json(stored).get("equationId").asLong();
+            send("PUT", first + "/api/equations/" + id + "/decimal-mode", "{\"scale\": 2, \"rounding\": \"HALF_UP\"}", false);
+            send("PUT", first + "/api/equations/" + id + "/approximation",
+                    "{\"min\": 0, \"max\": 1, \"maxError\": 0.001, \"interpolation\": \"LINEAR\"}", false);
+            ids.add(id);
+        }
+        
+        String second = startNode(2, first);
+        assertTrue(json(send("GET", second + "/api/equations", null, true)).get("equations").size() > 0);
+        for (int i = 0; i < ids.size(); i++) {
+            for (String node : List.of(first, second)) {
+                assertEquals(200, send("GET", node + "/api/equations/" + ids.get(i) + "/decimal-mode", null, false).statusCode());
+                assertEquals(200, send("GET", node + "/api/equations/" + ids.get(i) + "/approximation", null, false).statusCode());
+                HttpResponse<String> result = send("POST", node + "/api/equations/" + ids.get(i) + "/evaluate",
+                        "{\"variables\": {\"x\": 3}}", false);
+                assertEquals(String.format("%d.%d0", 3 * i / 10, 3 * i % 10), json(result).get("decimalResult").asText());
+            }
+        }
+    }
+    
+    @Test
+    @DisplayName("Should refuse equation references, which could not follow their target between nodes")
+    void testReferencesRefused() throws Exception {
+        String first = startNode(1, "");
+        String second = startNode(2, first);
+        long id = json(send("POST", first + "/api/equations/store", "{\"equation\": \"x * 2\"}", false))
+                .get("equationId").asLong();
+        
+        for (String node : List.of(first, second)) {
+            HttpResponse<String> stored = send("POST", node + "/api/equations/store",
+                    "{\"equation\": \"@" + id + " + 1\"}", false);
+            assertEquals(400, stored.statusCode());
+            assertTrue(json(stored).get("error").asText().contains("not supported in cluster mode"));
+            HttpResponse<String> updated = send("PUT", node + "/api/equations/" + id,
+                    "{\"equation\": \"@" + id + " + 1\"}", false);
+            assertEquals(400, updated.statusCode());
+        }
+        assertEquals(200, send("GET", second + "/api/equations/" + id, null, false).statusCode());
+    }
+    
+    @Test
+    @DisplayName("Should refuse a node whose index another member already uses")
+    void testDuplicateNodeIndex() throws Exception {
+        String first = startNode(1, "");
+        
+        assertThrows(IllegalStateException.class, () -> startNode(1, first));
+        assertEquals(1, json(send("GET", first + "/internal/cluster/members", null, true)).get("members").size());
+    }
+}
@@ -1,15 +1,60 @@
 package com.freightfox.service;
 
+import com.freightfox.exception.DeadlineExceededException;
 import com.freightfox.exception.EquationNotFoundException;
 import com.freightfox.exception.InvalidExpressionException;
+import com.freightfox.exception.JobNotFoundException;
+import com.freightfox.exception.ReadOnlyReplicaException;
+import com.freightfox.exception.SessionNotFoundException;
+import com.freightfox.model.AggregateRequest;
+import com.freightfox.model.AggregationResult;
+import com.freightfox.model.ApproximationRequest;
+import com.freightfox.model.ApproximationStatus;
+import com.freightfox.model.BatchSolveRequest;
+import com.freightfox.model.BatchSolveResponse;
+import com.freightfox.model.ChangeLogEntry;
+import com.freightfox.model.ChangeLogResponse;
+import com.freightfox.model.DecimalModeRequest;
+import com.freightfox.model.DecimalModeStatus;
+import com.freightfox.model.Distribution;
 import com.freightfox.model.Equation;
+import com.freightfox.model.EquationResult;
+import com.freightfox.model.EvaluateRangeResponse;
+import com.freightfox.model.EvaluationSession;
+import com.freightfox.model.ExpressionCost;
+import com.freightfox.model.FileJobRequest;
+import com.freightfox.model.FileJobStatus;
+import com.freightfox.model.GridAxis;
+import com.freightfox.model.IntegrateRequest;
+import com.freightfox.model.IntegrationResult;
+import com.freightfox.model.Interval;
+import com.freightfox.model.JobRequest;
+import com.freightfox.model.JobStatus;
+import com.freightfox.model.SimulateRequest;
+import com.freightfox.model.SimulationResult;
+import com.freightfox.model.SolveEquationRequest;
+import com.freightfox.model.SolveEquationResponse;
+import com.freightfox.model.StoreStatus;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Unit tests for EquationService implementation.
@@ -24,6 +69,11 @@ class EquationServiceTest {
         equationService = new EquationServiceImpl();
     }
     
+    @AfterEach
+    void tearDown() {
+        ((EquationServiceImpl) equationService).shutdownPublisher();
+    }
+    
     @Test
     @DisplayName("Should store equation successfully")
     void testStoreEquation() {
@@ -160,4 +210,823 @@ class EquationServiceTest {
         assertEquals(5.0, equationService.evaluateEquation(id1, variables1), 0.001);
         assertEquals(20.0, equationService.evaluateEquation(id2, variables2), 0.001);
     }
-} 
\ No newline at end of file
+    
+    @Test
+    @DisplayName("Should store derivative as a new equation")
+    void testStoreDerivative() {
+        Long id = equationService.storeEquation("x^3 + 2x");
+        Long derivativeId = equationService.storeDerivative(id, "x");
+        
+        assertNotEquals(id, derivativeId);
+        assertEquals(derivativeId, equationService.storeDerivative(id, "x"));
+        assertEquals(14.0, equationService.evaluateEquation(derivativeId, Map.of("x", 2.0)), 0.001);
+    }
+    
+    @Test
+    @DisplayName("Should evaluate gradient")
+    void testEvaluateGradient() {
+        Long id = equationService.storeEquation("x * y + y^2");
+        var result = equationService.evaluateGradient(id, Map.of("x", 2.0, "y", 3.0));
+        
+        assertEquals(15.0, result.getResult(), 0.001);
+        assertEquals(1L, result.getVersion());
+        assertEquals(3.0, result.getGradient().get("x"), 0.001);
+        assertEquals(8.0, result.getGradient().get("y"), 0.001);
+    }
+    
+    @Test
+    @DisplayName("Should solve equation for one variable")
+    void testSolveEquation() {
+        Long id = equationService.storeEquation("x^2 + y^2 - 25");
+        SolveEquationRequest request = new SolveEquationRequest("x", Map.of("y", 3.0));
+        request.setInitialGuess(1.0);
+        
+        SolveEquationResponse result = equationService.solveEquation(id, request);
+        assertEquals(4.0, result.getRoot(), 0.001);
+        assertEquals("x^2 + y^2 - 25", result.getEquation());
+    }
+    
+    @Test
+    @DisplayName("Should throw exception when solving with missing variables")
+    void testSolveWithMissingVariables() {
+        Long id = equationService.storeEquation("x + y");
+        assertThrows(InvalidExpressionException.class, () -> {
+            equationService.solveEquation(id, new SolveEquationRequest("x", Map.of()));
+        });
+    }
+    
+    @Test
+    @DisplayName("Should solve equation over many parameter rows")
+    void testSolveBatch() {
+        Long id = equationService.storeEquation("x^2 - a");
+        List<Map<String, Double>> rows = new java.util.ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            rows.add(Map.of("a", (double) i));
+        }
+        rows.add(Map.of("a", -1.0));
+        BatchSolveRequest request = new BatchSolveRequest("x", Map.of(), rows);
+        request.setInitialGuess(1.0);
+        
+        BatchSolveResponse response = equationService.solveBatch(id, request);
+        List<BatchSolveResponse.RowResult> results = response.getResults();
+        
+        assertEquals(501, results.size());
+        for (int i = 0; i < 500; i++) {
+            assertEquals(Math.sqrt(i + 1), Math.abs(results.get(i).getRoot()), 1e-6);
+        }
+        assertNotNull(results.get(500).getError());
+        assertEquals(500, response.getSolved());
+    }
+    
+    @Test
+    @DisplayName("Should evaluate range over input box")
+    void testEvaluateRange() {
+        Long id = equationService.storeEquation("x^2 + y");
+        EvaluateRangeResponse range = equationService.evaluateRange(id, Map.of("x", new Interval(-1, 2), "y", new Interval(0, 1)));
+        
+        assertEquals(0.0, range.getRange()[0], 0.001);
+        assertEquals(5.0, range.getRange()[1], 0.001);
+        assertArrayEquals(new double[] {-1, 2}, range.getVariables().get("x"));
+    }
+    
+    @Test
+    @DisplayName("Should throw exception for missing range")
+    void testEvaluateRangeMissingVariable() {
+        Long id = equationService.storeEquation("x + y");
+        assertThrows(InvalidExpressionException.class, () -> {
+            equationService.evaluateRange(id, Map.of("x", new Interval(0, 1)));
+        });
+    }
+    
+    @Test
+    @DisplayName("Should recompute only changed paths in evaluation session")
+    void testEvaluationSession() {
+        Long id = equationService.storeEquation("a*b + c*d + e*f + g*h");
+        EvaluationSession session = equationService.createSession(id, Map.of("a", 1.0, "b", 2.0, "c", 3.0, "d", 4.0));
+        
+        assertNull(session.getResult());
+        assertEquals(List.of("e", "f", "g", "h"), session.getMissingVariables());
+        
+        session = equationService.updateSession(session.getSessionId(), Map.of("e", 5.0, "f", 6.0, "g", 7.0, "h", 8.0));
+        assertEquals(100.0, session.getResult(), 0.001);
+        assertEquals(session.getTotalNodes(), session.getRecomputedNodes());
+        
+        session = equationService.updateSession(session.getSessionId(), Map.of("a", 2.0));
+        assertEquals(102.0, session.getResult(), 0.001);
+        // Only a, a*b and the three additions above it
+        assertEquals(5, session.getRecomputedNodes());
+        assertEquals(102.0, equationService.getSession(session.getSessionId()).getResult(), 0.001);
+    }
+    
+    @Test
+    @DisplayName("Should report division by zero in session and recover after update")
+    void testEvaluationSessionDivisionByZero() {
+        Long id = equationService.storeEquation("x / y");
+        EvaluationSession session = equationService.createSession(id, Map.of("x", 1.0, "y", 2.0));
+        String sessionId = session.getSessionId();
+        
+        assertThrows(InvalidExpressionException.class, () -> {
+            equationService.updateSession(sessionId, Map.of("y", 0.0));
+        });
+        assertEquals(0.25, equationService.updateSession(sessionId, Map.of("y", 4.0)).getResult(), 0.001);
+    }
+    
+    @Test
+    @DisplayName("Should throw exception for closed session")
+    void testClosedSession() {
+        Long id = equationService.storeEquation("x + 1");
+        String sessionId = equationService.createSession(id, Map.of()).getSessionId();
+        equationService.closeSession(sessionId);
+        
+        assertThrows(SessionNotFoundException.class, () -> {
+            equationService.getSession(sessionId);
+        });
+    }
+    
+    @Test
+    @DisplayName("Should evaluate many equations against shared variables")
+    void testEvaluateMany() {
+        Long first = equationService.storeEquation("x * y + 1");
+        Long second = equationService.storeEquation("y * x - 1");
+        Long third = equationService.storeEquation("z / (x - 2)");
+        
+        List<EquationResult> results = equationService.evaluateMany(
+                List.of(first, second, third), Map.of("x", 2.0, "y", 3.0));
+        
+        assertEquals(3, results.size());
+        assertEquals(first, results.get(0).getEquationId());
+        assertEquals(7.0, results.get(0).getResult(), 0.001);
+        assertEquals(5.0, results.get(1).getResult(), 0.001);
+        assertNull(results.get(2).getResult());
+        assertEquals("Variable 'z' not found in provided values", results.get(2).getError());
+        
+        results = equationService.evaluateMany(List.of(third), Map.of("x", 2.0, "z", 1.0));
+        assertEquals("Division by zero", results.get(0).getError());
+    }
+    
+    @Test
+    @DisplayName("Should evaluate large groups in chunks preserving order")
+    void testEvaluateManyChunked() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            ids.add(equationService.storeEquation("x * " + i));
+        }
+        
+        List<EquationResult> results = equationService.evaluateMany(ids, Map.of("x", 2.0));
+        
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(ids.get(i), results.get(i).getEquationId());
+            assertEquals(2.0 * i, results.get(i).getResult(), 0.001);
+        }
+    }
+    
+    @Test
+    @DisplayName("Should throw exception when evaluating many with unknown equation")
+    void testEvaluateManyNotFound() {
+        Long id = equationService.storeEquation("x + 1");
+        
+        assertThrows(EquationNotFoundException.class, () -> {
+            equationService.evaluateMany(List.of(id, 999L), Map.of("x", 1.0));
+        });
+    }
+    
+    @Test
+    @DisplayName("Should report affected equations when publishing variables")
+    void testPublishVariables() {
+        Long first = equationService.storeEquation("x + 1");
+        Long second = equationService.storeEquation("x * y");
+        Long third = equationService.storeEquation("z - 1");
+        
+        assertEquals(Set.of(first, second), equationService.publishVariables(Map.of("x", 1.0)));
+        assertEquals(Set.of(second, third), equationService.publishVariables(Map.of("y", 2.0, "z", 3.0)));
+        // Republishing an unchanged value affects nothing
+        assertEquals(Set.of(), equationService.publishVariables(Map.of("x", 1.0)));
+    }
+    
+    @Test
+    @DisplayName("Should push coalesced results to subscribers")
+    void testSubscribe() throws InterruptedException {
+        Long first = equationService.storeEquation("x + 1");
+        Long second = equationService.storeEquation("y * 2");
+        BlockingQueue<List<EquationResult>> events = new LinkedBlockingQueue<>();
+        
+        equationService.subscribe(List.of(first, second), events::add);
+        List<EquationResult> initial = events.poll(5, TimeUnit.SECONDS);
+        assertEquals(2, initial.size());
+        assertEquals("Variable 'x' not found in provided values", initial.get(0).getError());
+        
+        equationService.publishVariables(Map.of("x", 1.0));
+        equationService.publishVariables(Map.of("x", 2.0));
+        
+        List<EquationResult> update;
+        do {
+            update = events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(update);
+            // Only the equation that references x is re-evaluated
+            assertEquals(1, update.size());
+            assertEquals(first, update.get(0).getEquationId());
+        } while (update.get(0).getResult() != 3.0);
+    }
+    
+    @Test
+    @DisplayName("Should stop notifying after unsubscribe")
+    void testUnsubscribe() throws InterruptedException {
+        Long id = equationService.storeEquation("x + 1");
+        BlockingQueue<List<EquationResult>> events = new LinkedBlockingQueue<>();
+        String subscriptionId = equationService.subscribe(List.of(id), events::add);
+        events.take();
+        
+        equationService.unsubscribe(subscriptionId);
+        equationService.publishVariables(Map.of("x", 1.0));
+        
+        assertNull(events.poll(300, TimeUnit.MILLISECONDS));
+    }
+    
+    @Test
+    @DisplayName("Should evaluate through the batcher when batching is enabled")
+    void testBatchedEvaluation() throws Exception {
+        EquationService batched = new EquationServiceImpl(true, 200, 16);
+        Long id = batched.storeEquation("x / (y - 1)");
+        
+        List<CompletableFuture<Double>> results = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            double x = i;
+            results.add(CompletableFuture.supplyAsync(() -> batched.evaluateEquation(id, Map.of("x", x, "y", 3.0))));
+        }
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i / 2.0, results.get(i).get(), 0.001);
+        }
+        
+        assertThrows(InvalidExpressionException.class, () -> {
+            batched.evaluateEquation(id, Map.of("x", 1.0, "y", 1.0));
+        });
+        assertThrows(InvalidExpressionException.class, () -> {
+            batched.evaluateEquation(id, Map.of("x", 1.0));
+        });
+    }
+    
+    @Test
+    @DisplayName("Should record stores in the change log")
+    void testReadChangeLog() {
+        Long first = equationService.storeEquation("x + 1");
+        Long second = equationService.storeEquation("y * 2");
+        
+        ChangeLogResponse log = equationService.readChangeLog(0, 10, 0);
+        assertEquals(2, log.getLastSequence());
+        assertEquals(first, log.getEntries().get(0).getEquationId());
+        assertEquals(ChangeLogEntry.STORE, log.getEntries().get(0).getType());
+        assertEquals("y * 2", log.getEntries().get(1).getEquation());
+        
+        log = equationService.readChangeLog(1, 10, 0);
+        assertEquals(1, log.getEntries().size());
+        assertEquals(second, log.getEntries().get(0).getEquationId());
+        assertTrue(equationService.readChangeLog(2, 10, 0).getEntries().isEmpty());
+    }
+    
+    @Test
+    @DisplayName("Should record decimal mode and approximation changes in the change log")
+    void testSettingsChangeLog() {
+        Long id = equationService.storeEquation("x * 0.1");
+        equationService.setDecimalMode(id, new DecimalModeRequest(2, "HALF_UP"));
+        equationService.approximate(id, new ApproximationRequest(0.0, 1.0, 1e-3, "LINEAR"));
+        equationService.removeDecimalMode(id);
+        
+        List<ChangeLogEntry> entries = equationService.readChangeLog(1, 10, 0).getEntries();
+        assertEquals(3, entries.size());
+        assertEquals(ChangeLogEntry.DECIMAL_MODE, entries.get(0).getType());
+        assertEquals(2, entries.get(0).getDecimalMode().getScale());
+        assertEquals(ChangeLogEntry.APPROXIMATION, entries.get(1).getType());
+        assertEquals(1e-3, entries.get(1).getApproximation().getMaxError());
+        assertEquals(ChangeLogEntry.DECIMAL_MODE, entries.get(2).getType());
+        assertNull(entries.get(2).getDecimalMode());
+    }
+    
+    @Test
+    @DisplayName("Should refuse decimal mode and approximation changes on a replica")
+    void testSettingsReadOnly() {
+        Long id = equationService.storeEquation("x * 0.1");
+        equationService.setDecimalMode(id, new DecimalModeRequest(2, "HALF_UP"));
+        ((EquationServiceImpl) equationService).setReadOnly("http://primary");
+        
+        assertThrows(ReadOnlyReplicaException.class,
+                () -> equationService.setDecimalMode(id, new DecimalModeRequest(3, "HALF_UP")));
+        assertThrows(ReadOnlyReplicaException.class, () -> equationService.removeDecimalMode(id));
+        assertThrows(ReadOnlyReplicaException.class,
+                () -> equationService.approximate(id, new ApproximationRequest(0.0, 1.0, 1e-3, "LINEAR")));
+        assertThrows(ReadOnlyReplicaException.class, () -> equationService.removeApproximation(id));
+        assertEquals(2, equationService.getDecimalMode(id).getScale());
+    }
+    
+    @Test
+    @DisplayName("Should move decimal mode to each new version of an equation as it is updated")
+    void testDecimalModeFollowsUpdates() throws Exception {
+        Long id = equationService.storeEquation("x * 0.1");
+        List<CompletableFuture<Void>> writers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            int offset = i;
+            writers.add(CompletableFuture.runAsync(() -> {
+                for (int j = 0; j < 50; j++) {
+                    equationService.updateEquation(id, "x * 0.1 + " + (offset * 100 + j));
+                    equationService.setDecimalMode(id, new DecimalModeRequest(2, "HALF_UP"));
+                }
+            }));
+        }
+        CompletableFuture.allOf(writers.toArray(new CompletableFuture[0])).get();
+        
+        // Whichever update won, its version has the mode
+        assertEquals(2, equationService.getDecimalMode(id).getScale());
+        assertNotNull(equationService.evaluateDecimal(id, Map.of("x", 1.0)));
+    }
+    
+    @Test
+    @DisplayName("Should store and evaluate a 50,000-term generated sum")
+    void testLongGeneratedSum() {
+        String equation = String.join(" + ", Collections.nCopies(50000, "a"));
+        Long id = equationService.storeEquation(equation);
+        
+        assertEquals(100000.0, equationService.evaluateEquation(id, Map.of("a", 2.0)), 1e-9);
+        assertEquals(50000.0, equationService.evaluateGradient(id, Map.of("a", 2.0)).getGradient().get("a"), 1e-9);
+        EvaluateRangeResponse range = equationService.evaluateRange(id, Map.of("a", new Interval(0, 1)));
+        assertEquals(50000.0, range.getRange()[1], 1e-9);
+    }
+    
+    @Test
+    @DisplayName("Should compute the cost model when storing an equation")
+    void testEquationCost() {
+        Long id = equationService.storeEquation("x^2 + 3*x");
+        
+        ExpressionCost cost = equationService.getEquationById(id).getCost();
+        assertEquals(7, cost.getNodeCount());
+        assertEquals(3, cost.getDepth());
+        assertEquals(1, cost.getPowCount());
+        assertEquals(7 + ExpressionCost.POW_WEIGHT - 1, equationService.getEvaluationCost(id));
+    }
+    
+    @Test
+    @DisplayName("Should stop a batch solve when its deadline passes")
+    void testSolveBatchDeadline() {
+        Long id = equationService.storeEquation("x^3 - a");
+        List<Map<String, Double>> rows = new ArrayList<>();
+        for (int i = 0; i < 200000; i++) {
+            rows.add(Map.of("a", (double) i));
+        }
+        BatchSolveRequest request = new BatchSolveRequest("x", Map.of(), rows);
+        request.setTimeoutMillis(1L);
+        
+        assertThrows(DeadlineExceededException.class, () -> equationService.solveBatch(id, request));
+    }
+    
+    @Test
+    @DisplayName("Should return an ID at once and evaluate it when stores are asynchronous")
+    void testAsyncStore() {
+        EquationServiceImpl async = new EquationServiceImpl(false, 0, 1, true, 100, 8, "");
+        try {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                ids.add(async.storeEquation("x * " + i));
+            }
+            assertTrue(async.isStoreAsync());
+            
+            // Whether the pipeline got there first or not, the equation is usable at once
+            assertEquals(98.0, async.evaluateEquation(ids.get(49), Map.of("x", 2.0)), 0.001);
+            for (int i = 0; i < ids.size(); i++) {
+                assertEquals("x * " + i, async.getEquationById(ids.get(i)).getEquation());
+                assertEquals(StoreStatus.READY, async.getStoreStatus(ids.get(i)).getStatus());
+            }
+            assertThrows(EquationNotFoundException.class, () -> async.getStoreStatus(999L));
+        } finally {
+            async.shutdownPublisher();
+        }
+    }
+    
+    @Test
+    @DisplayName("Should report an invalid equation stored asynchronously as failed")
+    void testAsyncStoreFailure() {
+        EquationServiceImpl async = new EquationServiceImpl(false, 0, 1, true, 100, 8, "");
+        try {
+            Long id = async.storeEquation("2 + @ 3");
+            
+            assertThrows(InvalidExpressionException.class, () -> async.evaluateEquation(id, Map.of()));
+            StoreStatus status = async.getStoreStatus(id);
+            assertEquals(StoreStatus.FAILED, status.getStatus());
+            assertTrue(status.getError().startsWith("Invalid equation"));
+            assertTrue(async.getAllEquations().isEmpty());
+        } finally {
+            async.shutdownPublisher();
+        }
+    }
+    
+    @Test
+    @DisplayName("Should answer from a lookup table inside its range and exactly outside it")
+    void testApproximation() throws Exception {
+        Long id = equationService.storeEquation("x^3 - 2*x + 1");
+        ApproximationStatus building = equationService.approximate(id, new ApproximationRequest(-2.0, 2.0, 1e-9, "CUBIC"));
+        assertEquals(ApproximationStatus.BUILDING, building.getStatus());
+        
+        ApproximationStatus status = building;
+        for (int i = 0; i < 200 && ApproximationStatus.BUILDING.equals(status.getStatus()); i++) {
+            Thread.sleep(10);
+            status = equationService.getApproximation(id);
+        }
+        assertEquals(ApproximationStatus.READY, status.getStatus());
+        assertTrue(status.getMeasuredError() <= 1e-9);
+        
+        assertEquals(3.375 - 3 + 1, equationService.evaluateEquation(id, Map.of("x", 1.5)), 1e-9);
+        assertEquals(27 - 6 + 1, equationService.evaluateEquation(id, Map.of("x", 3.0)));
+        
+        equationService.removeApproximation(id);
+        assertThrows(EquationNotFoundException.class, () -> equationService.getApproximation(id));
+    }
+    
+    @Test
+    @DisplayName("Should evaluate exactly in decimal mode until it is removed")
+    void testDecimalMode() {
+        Long id = equationService.storeEquation("p * q + f");
+        assertNull(equationService.evaluateDecimal(id, Map.of("p", 0.1, "q", 3.0, "f", 0.2)));
+        
+        DecimalModeStatus status = equationService.setDecimalMode(id, new DecimalModeRequest(2, "HALF_UP"));
+        assertEquals(2, status.getScale());
+        assertEquals("HALF_UP", equationService.getDecimalMode(id).getRounding());
+        assertEquals(new BigDecimal("0.50"), equationService.evaluateDecimal(id, Map.of("p", 0.1, "q", 3.0, "f", 0.2)));
+        assertEquals(new BigDecimal("1.01"), equationService.evaluateDecimal(id, Map.of("p", 1.005, "q", 1.0, "f", 0.0)));
+        assertThrows(InvalidExpressionException.class, () -> equationService.evaluateDecimal(id, Map.of("p", 1.0)));
+        
+        equationService.removeDecimalMode(id);
+        assertNull(equationService.evaluateDecimal(id, Map.of("p", 0.1, "q", 3.0, "f", 0.2)));
+        assertThrows(EquationNotFoundException.class, () -> equationService.getDecimalMode(id));
+        assertThrows(EquationNotFoundException.class, () -> equationService.removeDecimalMode(id));
+    }
+    
+    @Test
+    @DisplayName("Should refuse decimal mode for non-constant exponents and report division by zero")
+    void testDecimalModeErrors() {
+        Long power = equationService.storeEquation("x ^ y");
+        assertThrows(InvalidExpressionException.class,
+                () -> equationService.setDecimalMode(power, new DecimalModeRequest(2, "HALF_EVEN")));
+        assertThrows(EquationNotFoundException.class,
+                () -> equationService.setDecimalMode(999L, new DecimalModeRequest(2, "HALF_EVEN")));
+        
+        Long quotient = equationService.storeEquation("x / y");
+        equationService.setDecimalMode(quotient, new DecimalModeRequest(2, "HALF_EVEN"));
+        assertThrows(InvalidExpressionException.class,
+                () -> equationService.evaluateDecimal(quotient, Map.of("x", 1.0, "y", 0.001)));
+    }
+    
+    @Test
+    @DisplayName("Should refuse to approximate an equation of several variables")
+    void testApproximationRejected() throws Exception {
+        Long id = equationService.storeEquation("x * y");
+        assertThrows(InvalidExpressionException.class,
+                () -> equationService.approximate(id, new ApproximationRequest(0.0, 1.0, 1e-6, "LINEAR")));
+        
+        Long reciprocal = equationService.storeEquation("1 / x");
+        equationService.approximate(reciprocal, new ApproximationRequest(-1.0, 1.0, 1e-6, "LINEAR"));
+        ApproximationStatus status = equationService.getApproximation(reciprocal);
+        for (int i = 0; i < 200 && ApproximationStatus.BUILDING.equals(status.getStatus()); i++) {
+            Thread.sleep(10);
+            status = equationService.getApproximation(reciprocal);
+        }
+        assertEquals(ApproximationStatus.FAILED, status.getStatus());
+        assertNotNull(status.getError());
+    }
+    
+    @Test
+    @DisplayName("Should simulate an equation with sampled and fixed variables")
+    void testSimulate() {
+        Long id = equationService.storeEquation("a * x + b");
+        SimulateRequest request = new SimulateRequest(
+                Map.of("x", Distribution.uniform(0, 1)), Map.of("a", 4.0, "b", 1.0), 200_000L);
+        request.setSeed(9L);
+        
+        SimulationResult result = equationService.simulate(id, request);
+        
+        assertEquals(id, result.getEquationId());
+        assertEquals(9L, result.getSeed());
+        assertEquals(3.0, result.getMean(), 0.02);
+        assertEquals(16 / 12.0, result.getVariance(), 0.02);
+        assertEquals(Set.of("p5", "p25", "p50", "p75", "p95"), result.getPercentiles().keySet());
+        assertEquals(3.0, result.getPercentiles().get("p50"), 0.02);
+        
+        SimulateRequest missing = new SimulateRequest(Map.of("x", Distribution.uniform(0, 1)), Map.of(), 10L);
+        assertThrows(InvalidExpressionException.class, () -> equationService.simulate(id, missing));
+    }
+    
+    @Test
+    @DisplayName("Should integrate an equation over one variable")
+    void testIntegrate() {
+        Long id = equationService.storeEquation("c * x^2");
+        IntegrationResult result = equationService.integrate(id, new IntegrateRequest("x", 0.0, 3.0, Map.of("c", 2.0)));
+        
+        assertEquals(id, result.getEquationId());
+        assertEquals("x", result.getVariable());
+        assertEquals(18.0, result.getValue(), 1e-10);
+        assertTrue(result.isConverged());
+        
+        assertThrows(InvalidExpressionException.class,
+                () -> equationService.integrate(id, new IntegrateRequest("x", 0.0, 3.0, Map.of())));
+    }
+    
+    @Test
+    @DisplayName("Should aggregate an equation over a lattice")
+    void testAggregate() {
+        Long id = equationService.storeEquation("x + y");
+        AggregationResult result = equationService.aggregate(id, new AggregateRequest(
+                Map.of("x", new GridAxis(0.0, 9.0, 10)), Map.of("y", 1.0)));
+        
+        assertEquals(id, result.getEquationId());
+        assertEquals(10, result.getPoints());
+        assertEquals(55.0, result.getSum());
+        assertEquals(Map.of("x", 9.0), result.getArgmax());
+        
+        assertThrows(InvalidExpressionException.class, () -> equationService.aggregate(id, new AggregateRequest(
+                Map.of("x", new GridAxis(0.0, 9.0, 10)), Map.of())));
+    }
+    
+    @Test
+    @DisplayName("Should evaluate a CSV file in the job directory and report progress")
+    void testFileJob(@TempDir Path directory) throws Exception {
+        EquationServiceImpl jobs = new EquationServiceImpl(false, 0, 1, false, 1, 1, directory.toString());
+        Long id = jobs.storeEquation("x * y");
+        Files.writeString(directory.resolve("input.csv"), "x,y\n1,2\n3,4\n5,0.5\n");
+        
+        FileJobStatus status = jobs.startFileJob(id, new FileJobRequest("input.csv", "output.csv"));
+        for (int i = 0; i < 200 && !FileJobStatus.COMPLETED.equals(status.getStatus()); i++) {
+            Thread.sleep(10);
+            status = jobs.getFileJob(status.getJobId());
+        }
+        
+        assertEquals(FileJobStatus.COMPLETED, status.getStatus());
+        assertEquals(3, status.getRowsProcessed());
+        assertEquals(status.getTotalBytes(), status.getBytesRead());
+        assertEquals(List.of("result", "2.0", "12.0", "2.5"), Files.readAllLines(directory.resolve("output.csv")));
+        assertThrows(JobNotFoundException.class, () -> jobs.getFileJob("1-missing"));
+    }
+    
+    @Test
+    @DisplayName("Should refuse file jobs outside the job directory or when disabled")
+    void testFileJobRejected(@TempDir Path directory) throws Exception {
+        Long id = equationService.storeEquation("x");
+        assertThrows(InvalidExpressionException.class,
+                () -> equationService.startFileJob(id, new FileJobRequest("input.csv", "output.csv")));
+        
+        EquationServiceImpl jobs = new EquationServiceImpl(false, 0, 1, false, 1, 1, directory.resolve("jobs").toString());
+        Files.createDirectory(directory.resolve("jobs"));
+        Files.writeString(directory.resolve("secret.csv"), "x\n1\n");
+        Long jobEquation = jobs.storeEquation("x");
+        assertThrows(InvalidExpressionException.class,
+                () -> jobs.startFileJob(jobEquation, new FileJobRequest("../secret.csv", "output.csv")));
+        assertThrows(InvalidExpressionException.class,
+                () -> jobs.startFileJob(jobEquation, new FileJobRequest("missing.csv", "output.csv")));
+    }
+    
+    @Test
+    @DisplayName("Should run a simulation as a background job and keep its result")
+    void testSubmitJob() throws Exception {
+        Long id = equationService.storeEquation("a * x + b");
+        SimulateRequest simulate = new SimulateRequest(
+                Map.of("x", Distribution.uniform(0, 1)), Map.of("a", 4.0, "b", 1.0), 10_000L);
+        simulate.setSeed(9L);
+        JobRequest request = new JobRequest(JobRequest.SIMULATE, JobRequest.INTERACTIVE);
+        request.setSimulate(simulate);
+        
+        JobStatus status = equationService.submitJob(id, request);
+        assertEquals(6L, status.getTotalSteps());
+        for (int i = 0; i < 500 && !JobStatus.COMPLETED.equals(status.getStatus()); i++) {
+            Thread.sleep(10);
+            status = equationService.getJob(status.getJobId());
+        }
+        
+        assertEquals(JobStatus.COMPLETED, status.getStatus());
+        assertEquals(6, status.getCompletedSteps());
+        assertEquals(equationService.simulate(id, simulate).getMean(), ((SimulationResult) status.getResult()).getMean());
+        assertThrows(InvalidExpressionException.class,
+                () -> equationService.submitJob(id, new JobRequest(JobRequest.INTEGRATE, JobRequest.BULK)));
+        assertThrows(JobNotFoundException.class, () -> equationService.cancelJob("1-missing"));
+    }
+    
+    @Test
+    @DisplayName("Should start its own job threads only for a job and stop them on shutdown")
+    void testOwnJobSchedulerShutdown() throws Exception {
+        Set<Thread> before = Thread.getAllStackTraces().keySet();
+        EquationServiceImpl service = new EquationServiceImpl();
+        Long id = service.storeEquation("x * 2");
+        service.evaluateEquation(id, Map.of("x", 1.0));
+        assertTrue(newJobThreads(before).isEmpty());
+        
+        IntegrateRequest integrate = new IntegrateRequest("x", 0.0, 1.0, Map.of());
+        JobRequest request = new JobRequest(JobRequest.INTEGRATE, JobRequest.INTERACTIVE);
+        request.setIntegrate(integrate);
+        service.submitJob(id, request);
+        assertFalse(newJobThreads(before).isEmpty());
+        
+        service.shutdownPublisher();
+        for (int i = 0; i < 500 && !newJobThreads(before).isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of(), newJobThreads(before).stream().map(Thread::getName).toList());
+    }
+    
+    private static List<Thread> newJobThreads(Set<Thread> before) {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("equation-job") && !before.contains(thread))
+                .toList();
+    }
+    
+    @Test
+    @DisplayName("Should inline referenced equations and recompile dependents when one is replaced")
+    void testEquationReferences() {
+        EquationServiceImpl service = new EquationServiceImpl();
+        Long rate = service.storeEquation("r * 2");
+        Long cost = service.storeEquation("@" + rate + " * d + 3");
+        Long total = service.storeEquation("@" + cost + " + @" + rate);
+        
+        assertEquals("@" + rate + " * d + 3", service.getEquationById(cost).getEquation());
+        assertEquals(10 * 4 + 3 + 4, service.evaluateEquation(total, Map.of("r", 2.0, "d", 10.0)));
+        
+        service.putEquation(rate, "r * 3", null);
+        assertEquals(6 * 10 + 3, service.evaluateEquation(cost, Map.of("r", 2.0, "d", 10.0)));
+        assertEquals(6 * 10 + 3 + 6, service.evaluateEquation(total, Map.of("r", 2.0, "d", 10.0)));
+        
+        // Removing a referenced equation leaves dependents on their inlined copy
+        service.removeEquation(rate);
+        assertEquals(6 * 10 + 3, service.evaluateEquation(cost, Map.of("r", 2.0, "d", 10.0)));
+    }
+    
+    @Test
+    @DisplayName("Should reject missing and circular references")
+    void testInvalidReferences() {
+        EquationServiceImpl service = new EquationServiceImpl();
+        Long rate = service.storeEquation("r * 2");
+        Long cost = service.storeEquation("@" + rate + " * d");
+        
+        assertThrows(InvalidExpressionException.class, () -> service.storeEquation("@999 + 1"));
+        assertThrows(InvalidExpressionException.class, () -> service.putEquation(rate, "@" + cost + " + 1", null));
+        assertThrows(InvalidExpressionException.class, () -> service.putEquation(rate, "@" + rate + " + 1", null));
+        assertEquals(20.0, service.evaluateEquation(cost, Map.of("r", 2.0, "d", 5.0)));
+    }
+    
+    @Test
+    @DisplayName("Should update an equation in place with a new version and drop caches of the old one")
+    void testUpdateEquation() {
+        Long id = equationService.storeEquation("x * 2");
+        Long dependent = equationService.storeEquation("@" + id + " + 1");
+        Long derivative = equationService.storeDerivative(id, "x");
+        equationService.setDecimalMode(id, new DecimalModeRequest(2, "HALF_EVEN"));
+        equationService.setDecimalMode(dependent, new DecimalModeRequest(1, "HALF_EVEN"));
+        assertEquals(1L, equationService.evaluateVersioned(id, Map.of("x", 5.0)).getVersion());
+        
+        Equation updated = equationService.updateEquation(id, "x * x");
+        assertEquals(2L, updated.getVersion());
+        assertEquals("x * x", equationService.getEquationById(id).getEquation());
+        assertEquals(25.0, equationService.evaluateVersioned(id, Map.of("x", 5.0)).getResult());
+        assertEquals(2L, equationService.getEquationById(dependent).getVersion());
+        assertEquals(26.0, equationService.evaluateEquation(dependent, Map.of("x", 5.0)));
+        // Decimal modes carry over to the new versions, of the equation and of its dependents
+        assertEquals("25.00", equationService.evaluateVersioned(id, Map.of("x", 5.0)).getDecimalResult());
+        assertEquals("26.0", equationService.evaluateVersioned(dependent, Map.of("x", 5.0)).getDecimalResult());
+        assertThrows(InvalidExpressionException.class, () -> equationService.updateEquation(id, "x ^ y"));
+        Long newDerivative = equationService.storeDerivative(id, "x");
+        assertNotEquals(derivative, newDerivative);
+        assertEquals(10.0, equationService.evaluateEquation(newDerivative, Map.of("x", 5.0)));
+        
+        assertThrows(InvalidExpressionException.class, () -> equationService.updateEquation(id, "x * ("));
+        assertEquals(2L, equationService.getEquationById(id).getVersion());
+        assertThrows(EquationNotFoundException.class, () -> equationService.updateEquation(999L, "x"));
+    }
+    
+    @Test
+    @DisplayName("Should report the version each kind of evaluation ran on")
+    void testVersionsReported() throws Exception {
+        Long id = equationService.storeEquation("a * x + b");
+        Long other = equationService.storeEquation("x");
+        equationService.updateEquation(other, "x + 1");
+        EvaluationSession session = equationService.createSession(id, Map.of("a", 1.0, "x", 2.0, "b", 3.0));
+        assertEquals(1L, session.getVersion());
+        assertFalse(session.isStale());
+        
+        List<EquationResult> many = equationService.evaluateMany(List.of(id, other), Map.of("a", 1.0, "x", 2.0, "b", 3.0));
+        assertEquals(1L, many.get(0).getVersion());
+        assertEquals(2L, many.get(1).getVersion());
+        
+        SimulateRequest simulate = new SimulateRequest(
+                Map.of("x", Distribution.uniform(0, 1)), Map.of("a", 4.0, "b", 1.0), 1_000L);
+        JobRequest request = new JobRequest(JobRequest.SIMULATE, JobRequest.BULK);
+        request.setSimulate(simulate);
+        JobStatus job = equationService.submitJob(id, request);
+        assertEquals(1L, job.getVersion());
+        
+        // The session and the queued job keep the version they started on
+        equationService.updateEquation(id, "a * x - b");
+        session = equationService.updateSession(session.getSessionId(), Map.of("b", 4.0));
+        assertEquals(1L, session.getVersion());
+        assertTrue(session.isStale());
+        assertEquals(6.0, session.getResult());
+        for (int i = 0; i < 500 && !JobStatus.COMPLETED.equals(job.getStatus()); i++) {
+            Thread.sleep(10);
+            job = equationService.getJob(job.getJobId());
+        }
+        assertEquals(1L, ((SimulationResult) job.getResult()).getVersion());
+        assertEquals(3.0, ((SimulationResult) job.getResult()).getMean(), 0.2);
+        
+        assertEquals(2L, equationService.simulate(id, simulate).getVersion());
+        assertEquals(2L, equationService.integrate(id, new IntegrateRequest("x", 0.0, 1.0, Map.of("a", 1.0, "b", 1.0)))
+                .getVersion());
+        assertEquals(2L, equationService.aggregate(id, new AggregateRequest(
+                Map.of("x", new GridAxis(0.0, 1.0, 2)), Map.of("a", 1.0, "b", 1.0))).getVersion());
+    }
+    
+    @Test
+    @DisplayName("Should keep the version number of an equation stored from elsewhere")
+    void testPutEquationVersion() {
+        EquationServiceImpl service = (EquationServiceImpl) equationService;
+        service.putEquation(42L, "x * 2", 7L);
+        assertEquals(7L, service.getEquationById(42L).getVersion());
+        assertEquals(7L, service.readChangeLog(0, 10, 0).getEntries().get(0).getVersion());
+        assertEquals(7L, service.exportEquation(42L).getVersion());
+        
+        service.updateEquation(42L, "x * 3");
+        assertEquals(8L, service.findVersionNumber(42L));
+        assertEquals(8L, service.readChangeLog(1, 10, 0).getEntries().get(0).getVersion());
+        assertNull(service.findVersionNumber(43L));
+    }
+    
+    @Test
+    @DisplayName("Should never let two concurrent updates close a reference cycle")
+    void testConcurrentCircularUpdates() throws Exception {
+        Long a = equationService.storeEquation("x");
+        Long b = equationService.storeEquation("y");
+        for (int i = 0; i < 200; i++) {
+            CountDownLatch start = new CountDownLatch(1);
+            CompletableFuture<Void> first = CompletableFuture.runAsync(() -> updateQuietly(start, a, "@" + b + " + 1"));
+            CompletableFuture<Void> second = CompletableFuture.runAsync(() -> updateQuietly(start, b, "@" + a + " + 1"));
+            start.countDown();
+            CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+            
+            boolean aReferences = equationService.getEquationById(a).getEquation().contains("@");
+            boolean bReferences = equationService.getEquationById(b).getEquation().contains("@");
+            assertFalse(aReferences && bReferences);
+            equationService.updateEquation(a, "x");
+            equationService.updateEquation(b, "y");
+        }
+    }
+    
+    private void updateQuietly(CountDownLatch start, Long id, String equation) {
+        try {
+            start.await();
+            equationService.updateEquation(id, equation);
+        } catch (InvalidExpressionException e) {
+            // The other update won
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    @Test
+    @DisplayName("Should rebuild an approximation for the new version and refuse updates it cannot follow")
+    void testUpdateApproximation() throws Exception {
+        Long id = equationService.storeEquation("x^2");
+        equationService.approximate(id, new ApproximationRequest(0.0, 4.0, 1e-9, "CUBIC"));
+        
+        equationService.updateEquation(id, "x^3");
+        ApproximationStatus status = equationService.getApproximation(id);
+        for (int i = 0; i < 200 && ApproximationStatus.BUILDING.equals(status.getStatus()); i++) {
+            Thread.sleep(10);
+            status = equationService.getApproximation(id);
+        }
+        assertEquals(ApproximationStatus.READY, status.getStatus());
+        assertEquals(8.0, equationService.evaluateEquation(id, Map.of("x", 2.0)), 1e-9);
+        
+        assertThrows(InvalidExpressionException.class, () -> equationService.updateEquation(id, "x * y"));
+        assertEquals("x^3", equationService.getEquationById(id).getEquation());
+    }
+    
+    @Test
+    @DisplayName("Should answer every evaluation from one whole version while updates are published")
+    void testUpdateConsistency() throws Exception {
+        Long id = equationService.storeEquation("x * 1");
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            for (int version = 2; version <= 500; version++) {
+                // Version n multiplies by n, so a result names the version it came from
+                equationService.updateEquation(id, "x * " + version);
+            }
+        });
+        
+        List<CompletableFuture<Void>> readers = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            readers.add(CompletableFuture.runAsync(() -> {
+                long lastVersion = 0;
+                while (!writer.isDone()) {
+                    var response = equationService.evaluateVersioned(id, Map.of("x", 3.0));
+                    assertEquals(3.0 * response.getVersion(), response.getResult());
+                    assertTrue(response.getVersion() >= lastVersion);
+                    lastVersion = response.getVersion();
+                }
+            }));
+        }
+        writer.get(30, TimeUnit.SECONDS);
+        for (CompletableFuture<Void> reader : readers) {
+            reader.get(30, TimeUnit.SECONDS);
+        }
+        assertEquals(500L, equationService.getEquationById(id).getVersion());
+    }
+}
@@ -0,0 +1,182 @@
+package com.freightfox.service;
+
+import com.freightfox.exception.JobNotFoundException;
+import com.freightfox.exception.ServerBusyException;
+import com.freightfox.model.JobRequest;
+import com.freightfox.model.JobStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the background job scheduler.
+ */
+@DisplayName("JobScheduler Tests")
+class JobSchedulerTest {
+    
+    @Test
+    @DisplayName("Should run a job in the background and keep its result and progress")
+    void testCompletedJob() throws InterruptedException {
+        JobScheduler scheduler = new JobScheduler(2, 1, 10, 60);
+        
+        JobStatus queued = scheduler.submit("1-a", 1L, 1L, JobRequest.SIMULATE, JobRequest.BULK, 3L, null, deadline -> {
+            deadline.advance(3);
+            return 42.0;
+        });
+        assertEquals(1L, queued.getEquationId());
+        assertEquals(1L, queued.getVersion());
+        assertEquals(3L, queued.getTotalSteps());
+        
+        JobStatus status = await(scheduler, "1-a");
+        assertEquals(JobStatus.COMPLETED, status.getStatus());
+        assertEquals(42.0, status.getResult());
+        assertEquals(3, status.getCompletedSteps());
+        assertThrows(JobNotFoundException.class, () -> scheduler.get("1-missing"));
+        scheduler.shutdown();
+    }
+    
+    @Test
+    @DisplayName("Should take queued interactive jobs before bulk ones")
+    void testPriority() throws InterruptedException {
+        JobScheduler scheduler = new JobScheduler(1, 1, 10, 60);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = new CopyOnWriteArrayList<>();
+        
+        scheduler.submit("1-blocker", 1L, 1L, JobRequest.SIMULATE, JobRequest.BULK, null, null, deadline -> {
+            awaitQuietly(release);
+            return null;
+        });
+        scheduler.submit("1-bulk", 1L, 1L, JobRequest.SIMULATE, JobRequest.BULK, null, null, deadline -> order.add("bulk"));
+        scheduler.submit("1-interactive", 1L, 1L, JobRequest.SIMULATE, JobRequest.INTERACTIVE, null, null,
+                deadline -> order.add("interactive"));
+        release.countDown();
+        
+        await(scheduler, "1-bulk");
+        assertEquals(List.of("interactive", "bulk"), order);
+        scheduler.shutdown();
+    }
+    
+    @Test
+    @DisplayName("Should keep a worker free for interactive jobs while bulk jobs run")
+    void testReservedWorker() throws InterruptedException {
+        JobScheduler scheduler = new JobScheduler(2, 1, 10, 60);
+        CountDownLatch release = new CountDownLatch(1);
+        
+        scheduler.submit("1-bulk", 1L, 1L, JobRequest.SIMULATE, JobRequest.BULK, null, null, deadline -> {
+            awaitQuietly(release);
+            return null;
+        });
+        scheduler.submit("1-interactive", 1L, 1L, JobRequest.SIMULATE, JobRequest.INTERACTIVE, null, null,
+                deadline -> 1.0);
+        
+        assertEquals(JobStatus.COMPLETED, await(scheduler, "1-interactive").getStatus());
+        assertEquals(JobStatus.RUNNING, scheduler.get("1-bulk").getStatus());
+        release.countDown();
+        scheduler.shutdown();
+    }
+    
+    @Test
+    @DisplayName("Should stop a running job at its next check and drop a queued one when cancelled")
+    void testCancel() throws InterruptedException {
+        JobScheduler scheduler = new JobScheduler(1, 1, 10, 60);
+        CountDownLatch started = new CountDownLatch(1);
+        
+        scheduler.submit("1-running", 1L, 1L, JobRequest.SIMULATE, JobRequest.BULK, null, null, deadline -> {
+            started.countDown();
+            while (true) {
+                deadline.advance(1);
+                deadline.check();
+            }
+        });
+        scheduler.submit("1-queued", 1L, 1L, JobRequest.SIMULATE, JobRequest.BULK, null, null, deadline -> {
+            fail("Cancelled job should not run");
+            return null;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        
+        assertEquals(JobStatus.CANCELLED, scheduler.cancel("1-queued").getStatus());
+        scheduler.cancel("1-running");
+        JobStatus status = await(scheduler, "1-running");
+        assertEquals(JobStatus.CANCELLED, status.getStatus());
+        assertTrue(status.getCompletedSteps() > 0);
+        scheduler.shutdown();
+    }
+    
+    @Test
+    @DisplayName("Should report failures and reject jobs once the queue is full")
+    void testFailureAndFullQueue() throws InterruptedException {
+        JobScheduler scheduler = new JobScheduler(1, 1, 1, 60);
+        CountDownLatch release = new CountDownLatch(1);
+        
+        scheduler.submit("1-failing", 1L, 1L, JobRequest.SIMULATE, JobRequest.BULK, null, null, deadline -> {
+            awaitQuietly(release);
+            throw new IllegalArgumentException("No such variable");
+        });
+        // Once the first job is running, the queue has room for exactly one more
+        while (!JobStatus.RUNNING.equals(scheduler.get("1-failing").getStatus())) {
+            Thread.sleep(5);
+        }
+        scheduler.submit("1-queued", 1L, 1L, JobRequest.SIMULATE, JobRequest.BULK, null, null, deadline -> null);
+        assertThrows(ServerBusyException.class, () -> scheduler.submit("1-rejected", 1L, 1L, JobRequest.SIMULATE,
+                JobRequest.BULK, null, null, deadline -> null));
+        release.countDown();
+        
+        JobStatus status = await(scheduler, "1-failing");
+        assertEquals(JobStatus.FAILED, status.getStatus());
+        assertEquals("No such variable", status.getError());
+        scheduler.shutdown();
+    }
+    
+    @Test
+    @DisplayName("Should send watchers the final status and forget jobs after retention")
+    void testWatchAndExpiry() throws InterruptedException {
+        JobScheduler scheduler = new JobScheduler(1, 1, 10, 0);
+        CountDownLatch finished = new CountDownLatch(1);
+        List<JobStatus> updates = new CopyOnWriteArrayList<>();
+        
+        scheduler.submit("1-a", 1L, 1L, JobRequest.INTEGRATE, JobRequest.INTERACTIVE, null, null, deadline -> 7.0);
+        scheduler.watch("1-a", status -> {
+            updates.add(status);
+            if (JobStatus.COMPLETED.equals(status.getStatus())) {
+                finished.countDown();
+            }
+        });
+        
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(7.0, updates.get(updates.size() - 1).getResult());
+        for (int i = 0; i < 200; i++) {
+            try {
+                scheduler.get("1-a");
+                Thread.sleep(10);
+            } catch (JobNotFoundException e) {
+                scheduler.shutdown();
+                return;
+            }
+        }
+        fail("Finished job was not forgotten");
+    }
+    
+    private static JobStatus await(JobScheduler scheduler, String jobId) throws InterruptedException {
+        JobStatus status = scheduler.get(jobId);
+        for (int i = 0; i < 500 && (JobStatus.QUEUED.equals(status.getStatus())
+                || JobStatus.RUNNING.equals(status.getStatus())); i++) {
+            Thread.sleep(10);
+            status = scheduler.get(jobId);
+        }
+        return status;
+    }
+    
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
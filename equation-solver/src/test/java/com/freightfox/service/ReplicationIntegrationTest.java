@@ -0,0 +1,156 @@
+package com.freightfox.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.freightfox.EquationSolverApplication;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a primary and a replica on localhost and checks log shipping.
+ */
+@DisplayName("Replication Integration Tests")
+class ReplicationIntegrationTest {
+    
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+    
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+    
+    private String startNode(String... properties) throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        return startNode(port, properties);
+    }
+    
+    private String startNode(int port, String... properties) {
+        List<String> args = new ArrayList<>(List.of(properties));
+        args.add("--server.port=" + port);
+        nodes.add(new SpringApplicationBuilder(EquationSolverApplication.class).run(args.toArray(new String[0])));
+        return "http://localhost:" + port;
+    }
+    
+    private HttpResponse<String> send(String method, String url, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+    
+    private JsonNode json(HttpResponse<String> response) throws IOException {
+        return objectMapper.readTree(response.body());
+    }
+    
+    private void awaitCaughtUp(String replica, long sequence) throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (json(send("GET", replica + "/internal/replication/status", null)).get("appliedSequence").asLong() < sequence) {
+            assertTrue(System.currentTimeMillis() < deadline, "replica did not catch up");
+            Thread.sleep(20);
+        }
+    }
+    
+    @Test
+    @DisplayName("Should replicate stores and redirect writes to the primary")
+    void testLogShipping() throws Exception {
+        String primary = startNode();
+        Long first = json(send("POST", primary + "/api/equations/store", "{\"equation\": \"x + 1\"}")).get("equationId").asLong();
+        
+        String replica = startNode("--equation.replication.primary-url=" + primary);
+        awaitCaughtUp(replica, 1);
+        
+        HttpResponse<String> result = send("POST", replica + "/api/equations/" + first + "/evaluate", "{\"variables\": {\"x\": 2}}");
+        assertEquals(3.0, json(result).get("result").asDouble(), 1e-9);
+        
+        // Changes after the replica started arrive through the long poll
+        Long second = json(send("POST", primary + "/api/equations/store", "{\"equation\": \"x * 10\"}")).get("equationId").asLong();
+        awaitCaughtUp(replica, 2);
+        assertEquals("x * 10", json(send("GET", replica + "/api/equations/" + second, null)).get("equation").asText());
+        
+        // Updates keep the primary's version numbers
+        send("PUT", primary + "/api/equations/" + first, "{\"equation\": \"x + 2\"}");
+        awaitCaughtUp(replica, 3);
+        assertEquals(2, json(send("GET", replica + "/api/equations/" + first, null)).get("version").asLong());
+        assertEquals(2, json(send("GET", replica + "/api/equations", null)).get("equations").size());
+        
+        JsonNode status = json(send("GET", replica + "/internal/replication/status", null));
+        assertEquals(0, status.get("sequenceLag").asLong());
+        assertEquals(0, status.get("lagMillis").asLong());
+        
+        HttpResponse<String> write = send("POST", replica + "/api/equations/store", "{\"equation\": \"y\"}");
+        assertEquals(307, write.statusCode());
+        assertEquals(primary + "/api/equations/store", write.headers().firstValue("Location").orElseThrow());
+        assertEquals(404, send("GET", primary + "/internal/replication/status", null).statusCode());
+    }
+    
+    @Test
+    @DisplayName("Should replicate decimal modes and approximations and redirect their changes")
+    void testSettingsShipping() throws Exception {
+        String primary = startNode();
+        String replica = startNode("--equation.replication.primary-url=" + primary);
+        Long id = json(send("POST", primary + "/api/equations/store", "{\"equation\": \"x * 0.1\"}")).get("equationId").asLong();
+        send("PUT", primary + "/api/equations/" + id + "/decimal-mode", "{\"scale\": 2, \"rounding\": \"HALF_UP\"}");
+        send("PUT", primary + "/api/equations/" + id + "/approximation",
+                "{\"min\": 0, \"max\": 1, \"maxError\": 0.001, \"interpolation\": \"LINEAR\"}");
+        awaitCaughtUp(replica, 3);
+        
+        assertEquals(2, json(send("GET", replica + "/api/equations/" + id + "/decimal-mode", null)).get("scale").asInt());
+        assertEquals(200, send("GET", replica + "/api/equations/" + id + "/approximation", null).statusCode());
+        HttpResponse<String> result = send("POST", replica + "/api/equations/" + id + "/evaluate", "{\"variables\": {\"x\": 3}}");
+        assertEquals("0.30", json(result).get("decimalResult").asText());
+        
+        HttpResponse<String> write = send("PUT", replica + "/api/equations/" + id + "/decimal-mode", "{\"scale\": 4}");
+        assertEquals(307, write.statusCode());
+        assertEquals(307, send("DELETE", replica + "/api/equations/" + id + "/approximation", null).statusCode());
+        
+        send("DELETE", primary + "/api/equations/" + id + "/decimal-mode", null);
+        awaitCaughtUp(replica, 4);
+        assertEquals(404, send("GET", replica + "/api/equations/" + id + "/decimal-mode", null).statusCode());
+        assertEquals(200, send("GET", replica + "/api/equations/" + id + "/approximation", null).statusCode());
+    }
+    
+    @Test
+    @DisplayName("Should replay a restarted primary's new log and drop what it no longer has")
+    void testPrimaryRestart() throws Exception {
+        String primary = startNode();
+        send("POST", primary + "/api/equations/store", "{\"equation\": \"x + 1\"}");
+        send("POST", primary + "/api/equations/store", "{\"equation\": \"x + 2\"}");
+        Long third = json(send("POST", primary + "/api/equations/store", "{\"equation\": \"x + 3\"}")).get("equationId").asLong();
+        String replica = startNode("--equation.replication.primary-url=" + primary);
+        awaitCaughtUp(replica, 3);
+        
+        // The new primary's log starts again at 1, below what the replica applied
+        int port = URI.create(primary).getPort();
+        nodes.remove(0).close();
+        startNode(port);
+        Long first = json(send("POST", primary + "/api/equations/store", "{\"equation\": \"x * 7\"}")).get("equationId").asLong();
+        
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (send("GET", replica + "/api/equations/" + third, null).statusCode() != 404) {
+            assertTrue(System.currentTimeMillis() < deadline, "replica did not resync");
+            Thread.sleep(20);
+        }
+        assertEquals("x * 7", json(send("GET", replica + "/api/equations/" + first, null)).get("equation").asText());
+        assertEquals(1, json(send("GET", replica + "/api/equations", null)).get("equations").size());
+        assertEquals(0, json(send("GET", replica + "/internal/replication/status", null)).get("sequenceLag").asLong());
+    }
+}
@@ -0,0 +1,85 @@
+package com.freightfox.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Unit tests for the startup warm-up.
+ */
+@DisplayName("WarmupRunner Tests")
+class WarmupRunnerTest {
+    
+    private EquationServiceImpl equationService;
+    private SimpleMeterRegistry meterRegistry;
+    
+    @TempDir
+    Path tempDir;
+    
+    @BeforeEach
+    void setUp() {
+        equationService = new EquationServiceImpl();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        equationService.shutdownPublisher();
+    }
+    
+    @Test
+    @DisplayName("Should replay synthetic equations without storing them and report metrics")
+    void testSyntheticWarmup() {
+        WarmupRunner runner = new WarmupRunner(equationService, new ObjectMapper(), meterRegistry, 10000, 2000, "");
+        
+        runner.warmUp();
+        
+        assertTrue(runner.getEvaluations() >= 2000);
+        assertFalse(runner.isTimedOut());
+        assertTrue(equationService.getAllEquations().isEmpty());
+        assertEquals(runner.getEvaluations(), meterRegistry.get("equation.warmup.evaluations").gauge().value());
+        assertTrue(meterRegistry.get("equation.warmup.first.round").gauge().value() > 0);
+    }
+    
+    @Test
+    @DisplayName("Should stop at the timeout")
+    void testTimeout() {
+        WarmupRunner runner = new WarmupRunner(equationService, new ObjectMapper(), meterRegistry, 0, 1_000_000, "");
+        
+        runner.warmUp();
+        
+        assertTrue(runner.isTimedOut());
+        assertEquals(1.0, meterRegistry.get("equation.warmup.timed.out").gauge().value());
+    }
+    
+    @Test
+    @DisplayName("Should save recorded traffic and replay it on the next start")
+    void testRecordedSampleRoundTrip() throws Exception {
+        Path sampleFile = tempDir.resolve("warmup.json");
+        Long id = equationService.storeEquation("m*c^2");
+        for (int i = 0; i < 2000; i++) {
+            equationService.evaluateEquation(id, Map.of("m", 2.0, "c", 3.0));
+        }
+        new WarmupRunner(equationService, new ObjectMapper(), meterRegistry, 10000, 100, sampleFile.toString())
+                .saveSample();
+        assertTrue(Files.readString(sampleFile).contains("m*c^2"));
+        
+        EquationServiceImpl restarted = new EquationServiceImpl();
+        WarmupRunner runner = new WarmupRunner(restarted, new ObjectMapper(), new SimpleMeterRegistry(),
+                10000, 100, sampleFile.toString());
+        runner.warmUp();
+        
+        assertTrue(runner.getEvaluations() >= 100);
+        assertTrue(restarted.getAllEquations().isEmpty());
+        restarted.shutdownPublisher();
+    }
+}
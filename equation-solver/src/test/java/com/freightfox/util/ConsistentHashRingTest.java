@@ -0,0 +1,68 @@
+package com.freightfox.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for the consistent-hash ring.
+ */
+@DisplayName("ConsistentHashRing Tests")
+class ConsistentHashRingTest {
+    
+    private static final List<String> NODES = List.of("http://a:8080", "http://b:8080", "http://c:8080");
+    
+    @Test
+    @DisplayName("Should spread sequential keys evenly across nodes")
+    void testDistribution() {
+        ConsistentHashRing ring = new ConsistentHashRing(NODES, ConsistentHashRing.DEFAULT_VIRTUAL_NODES);
+        Map<String, Integer> counts = new HashMap<>();
+        for (long key = 0; key < 30000; key++) {
+            counts.merge(ring.ownerOf(key), 1, Integer::sum);
+        }
+        
+        assertEquals(3, counts.size());
+        counts.values().forEach(count -> assertTrue(count > 7000 && count < 13000, "count " + count));
+    }
+    
+    @Test
+    @DisplayName("Should move only keys taken by a joining node")
+    void testMinimalMovement() {
+        ConsistentHashRing before = new ConsistentHashRing(NODES, ConsistentHashRing.DEFAULT_VIRTUAL_NODES);
+        ConsistentHashRing after = before.withNode("http://d:8080");
+        int moved = 0;
+        for (long key = 0; key < 10000; key++) {
+            String owner = after.ownerOf(key);
+            if (!owner.equals(before.ownerOf(key))) {
+                assertEquals("http://d:8080", owner);
+                moved++;
+            }
+        }
+        
+        // Roughly a quarter of the keys belong to the new node
+        assertTrue(moved > 1500 && moved < 3500, "moved " + moved);
+        assertEquals(before.getNodes(), after.withoutNode("http://d:8080").getNodes());
+    }
+    
+    @Test
+    @DisplayName("Should agree on owners regardless of insertion order")
+    void testDeterministic() {
+        ConsistentHashRing forward = new ConsistentHashRing(NODES, 16);
+        ConsistentHashRing reverse = new ConsistentHashRing(List.of(NODES.get(2), NODES.get(1), NODES.get(0)), 16);
+        for (long key = 0; key < 1000; key++) {
+            assertEquals(forward.ownerOf(key), reverse.ownerOf(key));
+        }
+    }
+    
+    @Test
+    @DisplayName("Should throw exception for empty ring")
+    void testEmptyRing() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of(), 16);
+        
+        assertThrows(IllegalStateException.class, () -> ring.ownerOf(1));
+    }
+}
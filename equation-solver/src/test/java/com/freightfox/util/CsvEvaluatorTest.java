@@ -0,0 +1,107 @@
+package com.freightfox.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CSV file evaluation.
+ */
+@DisplayName("CsvEvaluator Tests")
+class CsvEvaluatorTest {
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    @DisplayName("Should write one result per row in row order across many chunks")
+    void testManyChunks() throws IOException {
+        StringBuilder csv = new StringBuilder("id,x,y\n");
+        for (int i = 0; i < 10_000; i++) {
+            csv.append(i).append(',').append(i * 0.5).append(',').append(i % 7).append('\n');
+        }
+        Path input = write("input.csv", csv.toString());
+        Path output = directory.resolve("output.csv");
+        AtomicLong rows = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        
+        CsvEvaluator.evaluate(compile("2*x + y"), input, output, 256, Deadline.NONE, (chunkRows, failed, chunkBytes) -> {
+            rows.addAndGet(chunkRows);
+            bytes.addAndGet(chunkBytes);
+        });
+        
+        List<String> lines = Files.readAllLines(output);
+        assertEquals("result", lines.get(0));
+        assertEquals(10_001, lines.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i + (i % 7), Double.parseDouble(lines.get(i + 1)));
+        }
+        assertEquals(10_000, rows.get());
+        assertEquals(Files.size(input), bytes.get());
+        assertFalse(Files.exists(directory.resolve("output.csv.part")));
+    }
+    
+    @Test
+    @DisplayName("Should leave failed rows empty and skip blank lines")
+    void testFailedRows() throws IOException {
+        Path input = write("input.csv", "x,y\r\n1,2\r\n\r\n3,0\r\nabc,1\r\n4\r\n 5 , 1e1 \r\n6,1");
+        Path output = directory.resolve("output.csv");
+        AtomicLong failed = new AtomicLong();
+        
+        CsvEvaluator.evaluate(compile("x / y"), input, output, CsvEvaluator.DEFAULT_CHUNK_SIZE, Deadline.NONE,
+                (rows, chunkFailed, bytes) -> failed.addAndGet(chunkFailed));
+        
+        assertEquals(List.of("result", "0.5", "", "", "", "0.5", "6.0"), Files.readAllLines(output));
+        assertEquals(3, failed.get());
+    }
+    
+    @Test
+    @DisplayName("Should reject a header without a column for every variable")
+    void testMissingColumn() throws IOException {
+        Path input = write("input.csv", "x,z\n1,2\n");
+        Path output = directory.resolve("output.csv");
+        
+        assertThrows(IllegalArgumentException.class, () -> CsvEvaluator.evaluate(compile("x + y"), input, output,
+                CsvEvaluator.DEFAULT_CHUNK_SIZE, Deadline.NONE, (rows, failed, bytes) -> { }));
+        assertFalse(Files.exists(output));
+        assertFalse(Files.exists(directory.resolve("output.csv.part")));
+    }
+    
+    @Test
+    @DisplayName("Should scan numbers exactly as Double.parseDouble does")
+    void testNumberScanner() {
+        CsvEvaluator.NumberScanner scanner = new CsvEvaluator.NumberScanner();
+        String[] numbers = {"0", "-0", "42", "+7", "3.25", "-0.001", ".5", "5.", "1e10", "2.5E-3", "123456789012345678",
+                "0.1", "0.30000000000000004", "1e300", "4.9e-324", "9007199254740993", "NaN", "-Infinity", "  12 "};
+        for (String number : numbers) {
+            ByteBuffer buffer = ByteBuffer.wrap(number.getBytes(StandardCharsets.US_ASCII));
+            double value = scanner.parse(buffer, 0, buffer.limit());
+            assertTrue(scanner.valid, number);
+            assertEquals(Double.doubleToLongBits(Double.parseDouble(number.strip())), Double.doubleToLongBits(value),
+                    number);
+        }
+        for (String malformed : new String[] {"", "-", "1e", "1.2.3", "x1", "1,5"}) {
+            ByteBuffer buffer = ByteBuffer.wrap(malformed.getBytes(StandardCharsets.US_ASCII));
+            scanner.parse(buffer, 0, buffer.limit());
+            assertFalse(scanner.valid, malformed);
+        }
+    }
+    
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(directory.resolve(name), content);
+    }
+    
+    private static CompiledExpression compile(String equation) {
+        return CompiledExpression.compile(ExpressionParser.parseExpression(equation));
+    }
+}
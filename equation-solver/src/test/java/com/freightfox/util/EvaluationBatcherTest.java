@@ -0,0 +1,90 @@
+package com.freightfox.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Unit tests for columnar evaluation and request coalescing.
+ */
+@DisplayName("EvaluationBatcher Tests")
+class EvaluationBatcherTest {
+    
+    private static CompiledExpression compile(String expression) {
+        return CompiledExpression.compile(ExpressionParser.parseExpression(expression));
+    }
+    
+    @Test
+    @DisplayName("Should evaluate columns like row-at-a-time evaluation")
+    void testEvaluateColumns() {
+        CompiledExpression compiled = compile("(x + y) * x / (y - 2) ^ 2");
+        double[][] columns = {{1, 2, 3}, {3, 2, 5}};
+        double[] results = new double[3];
+        boolean[] divisionByZero = new boolean[3];
+        
+        compiled.evaluateColumns(columns, 3, results, divisionByZero);
+        
+        assertEquals(compiled.evaluate(new double[] {1, 3}), results[0], 1e-12);
+        assertTrue(divisionByZero[1]);
+        assertEquals(compiled.evaluate(new double[] {3, 5}), results[2], 1e-12);
+    }
+    
+    @Test
+    @DisplayName("Should complete a lone request after the window")
+    void testSingleRequest() {
+        EvaluationBatcher batcher = new EvaluationBatcher(compile("x * 2"), 100, 8);
+        
+        assertEquals(6.0, batcher.submit(new double[] {3}).join(), 1e-12);
+    }
+    
+    @Test
+    @DisplayName("Should fail only the requests that divide by zero")
+    void testDivisionByZero() {
+        EvaluationBatcher batcher = new EvaluationBatcher(compile("1 / x"), 0, 8);
+        
+        CompletionException e = assertThrows(CompletionException.class, () -> {
+            batcher.submit(new double[] {0}).join();
+        });
+        assertInstanceOf(ArithmeticException.class, e.getCause());
+        assertEquals(0.5, batcher.submit(new double[] {2}).join(), 1e-12);
+    }
+    
+    @Test
+    @DisplayName("Should give every concurrent caller its own result")
+    void testConcurrentRequests() throws Exception {
+        CompiledExpression compiled = compile("x * x + y");
+        EvaluationBatcher batcher = new EvaluationBatcher(compiled, 500, 16);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Double>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                // Repeated bindings exercise deduplication within a batch
+                double[] values = compiled.bind(Map.of("x", (double) (i % 10), "y", 1.0));
+                results.add(executor.submit(() -> {
+                    start.await();
+                    CompletableFuture<Double> future = batcher.submit(values);
+                    return future.join();
+                }));
+            }
+            start.countDown();
+            
+            for (int i = 0; i < results.size(); i++) {
+                double x = i % 10;
+                assertEquals(x * x + 1, results.get(i).get(), 1e-12);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
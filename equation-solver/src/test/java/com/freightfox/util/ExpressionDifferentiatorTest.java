@@ -0,0 +1,133 @@
+package com.freightfox.util;
+
+import com.freightfox.model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+
+/**
+ * Unit tests for symbolic differentiation and the compiled gradient evaluator.
+ */
+@DisplayName("ExpressionDifferentiator Tests")
+class ExpressionDifferentiatorTest {
+    
+    private static double derivativeAt(String expression, String variable, Map<String, Double> values) {
+        ExpressionNode derivative = ExpressionDifferentiator.differentiate(
+                ExpressionParser.parseExpression(expression), variable);
+        return derivative.evaluate(values);
+    }
+    
+    @Test
+    @DisplayName("Should differentiate polynomial")
+    void testPolynomial() {
+        // d/dx (3x^2 + 2x - 5) = 6x + 2
+        assertEquals(14.0, derivativeAt("3x^2 + 2x - 5", "x", Map.of("x", 2.0)), 1e-9);
+    }
+    
+    @Test
+    @DisplayName("Should differentiate product and quotient")
+    void testProductAndQuotient() {
+        Map<String, Double> values = Map.of("x", 2.0, "y", 3.0);
+        // d/dx (x * y) = y
+        assertEquals(3.0, derivativeAt("x * y", "x", values), 1e-9);
+        // d/dx (x / y) = 1 / y
+        assertEquals(1.0 / 3.0, derivativeAt("x / y", "x", values), 1e-9);
+        // d/dy (x / y) = -x / y^2
+        assertEquals(-2.0 / 9.0, derivativeAt("x / y", "y", values), 1e-9);
+    }
+    
+    @Test
+    @DisplayName("Should differentiate constant base exponential")
+    void testExponential() {
+        // d/dx 2^x = 2^x * ln 2
+        assertEquals(8.0 * Math.log(2), derivativeAt("2^x", "x", Map.of("x", 3.0)), 1e-9);
+    }
+    
+    @Test
+    @DisplayName("Should simplify derivative of linear expression to a constant")
+    void testSimplification() {
+        ExpressionNode derivative = ExpressionDifferentiator.differentiate(
+                ExpressionParser.parseExpression("3x + 2y - z"), "x");
+        assertInstanceOf(ConstantNode.class, derivative);
+        assertEquals(3.0, ((ConstantNode) derivative).getValue());
+    }
+    
+    @Test
+    @DisplayName("Should not simplify away division by zero or NaN")
+    void testSimplificationKeepsErrors() {
+        Map<String, Double> values = Map.of("x", 0.0, "y", 0.0);
+        assertThrows(ArithmeticException.class,
+                () -> ExpressionSimplifier.simplify(ExpressionParser.parseExpression("(1 / y) * 0")).evaluate(values));
+        assertThrows(ArithmeticException.class,
+                () -> ExpressionSimplifier.simplify(ExpressionParser.parseExpression("0 / x")).evaluate(values));
+        assertTrue(Double.isNaN(ExpressionSimplifier.simplify(
+                ExpressionParser.parseExpression("0 * (0 - 8) ^ (1 / 3)")).evaluate(values)));
+        assertTrue(Double.isNaN(ExpressionSimplifier.simplify(
+                ExpressionParser.parseExpression("1 ^ ((0 - 8) ^ (1 / 3) * x)")).evaluate(values)));
+        assertEquals(0.0, ExpressionSimplifier.simplify(ExpressionParser.parseExpression("2 * 0 + x")).evaluate(values));
+        assertThrows(ArithmeticException.class,
+                () -> ExpressionSimplifier.simplify(ExpressionParser.parseExpression("(1 / y) ^ 0")).evaluate(values));
+        assertEquals(1.0, ExpressionSimplifier.simplify(ExpressionParser.parseExpression("x ^ 0")).evaluate(Map.of()));
+    }
+    
+    @Test
+    @DisplayName("Should leave constant products that overflow unfolded")
+    void testOverflowingConstantProduct() {
+        ExpressionNode simplified = ExpressionSimplifier.simplify(ExpressionParser.parseExpression("(10^200)*(10^200)*x"));
+        assertEquals(Double.POSITIVE_INFINITY, simplified.evaluate(Map.of("x", 2.0)));
+        
+        ExpressionNode derivative = ExpressionDifferentiator.differentiate(
+                ExpressionParser.parseExpression("x*(10^200)*(10^200)"), "x");
+        assertEquals(Double.POSITIVE_INFINITY, derivative.evaluate(Map.of("x", 2.0)));
+        assertEquals(derivative.evaluate(Map.of()), ExpressionParser.parseExpression(derivative.toString()).evaluate(Map.of()));
+    }
+    
+    @Test
+    @DisplayName("Should print derivative in a form the parser accepts")
+    void testDerivativeRoundTrip() {
+        ExpressionNode derivative = ExpressionDifferentiator.differentiate(
+                ExpressionParser.parseExpression("x / y"), "y");
+        ExpressionNode reparsed = ExpressionParser.parseExpression(derivative.toString());
+        Map<String, Double> values = Map.of("x", 2.0, "y", 3.0);
+        assertEquals(derivative.evaluate(values), reparsed.evaluate(values), 1e-12);
+    }
+    
+    @Test
+    @DisplayName("Should not fold constants to values the parser cannot read back")
+    void testNonFiniteConstants() {
+        Map<String, Double> values = Map.of("x", 2.0);
+        for (String expression : new String[] {"(10 ^ 200) ^ 2 * x", "(0 - 8) ^ (1 / 3) * x"}) {
+            ExpressionNode derivative = ExpressionDifferentiator.differentiate(
+                    ExpressionParser.parseExpression(expression), "x");
+            for (ExpressionNode node : ExpressionNode.postOrder(derivative)) {
+                assertFalse(node instanceof ConstantNode constant && !Double.isFinite(constant.getValue()), expression);
+            }
+            ExpressionNode reparsed = ExpressionParser.parseExpression(derivative.toString());
+            assertEquals(derivative.evaluate(values), reparsed.evaluate(values));
+        }
+    }
+    
+    @Test
+    @DisplayName("Should reject variable base raised to variable exponent")
+    void testUnsupportedPower() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            ExpressionDifferentiator.differentiate(ExpressionParser.parseExpression("x^x"), "x");
+        });
+    }
+    
+    @Test
+    @DisplayName("Should compute value and all partials in one pass")
+    void testCompiledGradient() {
+        CompiledExpression compiled = CompiledExpression.compile(
+                ExpressionParser.parseExpression("x^2 * y + y / x"));
+        double[] gradient = new double[2];
+        double value = compiled.evaluateGradient(compiled.bind(Map.of("x", 2.0, "y", 3.0)), gradient);
+        
+        assertEquals(13.5, value, 1e-12);
+        // d/dx = 2xy - y/x^2, d/dy = x^2 + 1/x
+        assertEquals(12.0 - 0.75, gradient[compiled.slotOf("x")], 1e-12);
+        assertEquals(4.5, gradient[compiled.slotOf("y")], 1e-12);
+    }
+}
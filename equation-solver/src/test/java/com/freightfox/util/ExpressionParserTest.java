@@ -159,6 +159,16 @@ class ExpressionParserTest {
         });
     }
     
+    @Test
+    @DisplayName("Should reject constants that are not finite numbers")
+    void testNonFiniteConstant() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            ExpressionParser.parseExpression("1" + "0".repeat(400) + " * x");
+        });
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.parseExpression("NaN + x"));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.parseExpression("x * Infinity"));
+    }
+    
     @Test
     @DisplayName("Should handle division by zero")
     void testDivisionByZero() {
@@ -167,4 +177,33 @@ class ExpressionParserTest {
             node.evaluate(Map.of());
         });
     }
-} 
\ No newline at end of file
+    
+    @Test
+    @DisplayName("Should evaluate and print a very deep tree without overflowing the stack")
+    void testDeepTree() {
+        StringBuilder expression = new StringBuilder("x");
+        for (int i = 1; i < 50000; i++) {
+            expression.append(i % 2 == 0 ? " + x" : " - 1");
+        }
+        ExpressionNode node = ExpressionParser.parseExpression(expression.toString());
+        
+        assertEquals(25000.0, node.evaluate(Map.of("x", 2.0)), 1e-9);
+        String printed = node.toString();
+        assertTrue(printed.startsWith("((((") && printed.contains("(x - 1.0) + x) - 1.0)") && printed.endsWith(" + x) - 1.0)"));
+        CompiledExpression compiled = CompiledExpression.compile(node);
+        assertEquals(25000.0, compiled.evaluate(compiled.bind(Map.of("x", 2.0))), 1e-9);
+        assertNotNull(ExpressionDifferentiator.differentiate(node, "x"));
+    }
+    
+    @Test
+    @DisplayName("Should parse references to stored equations")
+    void testReferences() {
+        ExpressionNode node = ExpressionParser.parseExpression("@12 * x + @3");
+        
+        assertEquals("((@12 * x) + @3)", node.toString());
+        assertEquals(java.util.Set.of(12L, 3L), ReferenceInliner.references(node));
+        assertThrows(IllegalArgumentException.class, () -> node.evaluate(Map.of("x", 1.0)));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.parseExpression("@ + 1"));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionParser.parseExpression("@99999999999999999999"));
+    }
+}
@@ -0,0 +1,70 @@
+package com.freightfox.util;
+
+import com.freightfox.model.ExpressionNode;
+import com.freightfox.model.OperatorNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+
+/**
+ * Unit tests for associative chain rebalancing.
+ */
+@DisplayName("ExpressionRebalancer Tests")
+class ExpressionRebalancerTest {
+    
+    @Test
+    @DisplayName("Should leave short expressions untouched")
+    void testShortExpressionUnchanged() {
+        ExpressionNode tree = ExpressionParser.parseExpression("a + b + c * d * e - f");
+        assertSame(tree, ExpressionRebalancer.rebalance(tree));
+    }
+    
+    @Test
+    @DisplayName("Should rebalance a long sum to logarithmic depth")
+    void testLongSumBalanced() {
+        ExpressionNode tree = ExpressionParser.parseExpression(chain("x", " + ", 1000));
+        ExpressionNode balanced = ExpressionRebalancer.rebalance(tree);
+        
+        assertEquals(999, depth(tree));
+        assertEquals(10, depth(balanced));
+        assertEquals(3000.0, balanced.evaluate(Map.of("x", 3.0)), 1e-9);
+    }
+    
+    @Test
+    @DisplayName("Should keep operand order and rebalance nested chains")
+    void testNestedChains() {
+        String product = "(" + chain("y", " * ", 40) + ")";
+        ExpressionNode tree = ExpressionParser.parseExpression(chain("x", " + ", 40) + " - " + product);
+        ExpressionNode balanced = ExpressionRebalancer.rebalance(tree);
+        
+        assertTrue(depth(balanced) <= 8);
+        Map<String, Double> variables = Map.of("x", 0.5, "y", 1.01);
+        assertEquals(tree.evaluate(variables), balanced.evaluate(variables), 1e-9);
+        assertEquals(tree.toString().replaceAll("[()]", ""), balanced.toString().replaceAll("[()]", ""));
+    }
+    
+    private static String chain(String operand, String operator, int count) {
+        StringBuilder text = new StringBuilder(operand);
+        for (int i = 1; i < count; i++) {
+            text.append(operator).append(operand);
+        }
+        return text.toString();
+    }
+    
+    private static int depth(ExpressionNode root) {
+        // Operator levels, computed without recursion so the unbalanced tree can be measured
+        Deque<Integer> depths = new ArrayDeque<>();
+        for (ExpressionNode node : ExpressionNode.postOrder(root)) {
+            if (node instanceof OperatorNode) {
+                depths.push(Math.max(depths.pop(), depths.pop()) + 1);
+            } else {
+                depths.push(0);
+            }
+        }
+        return depths.pop();
+    }
+}
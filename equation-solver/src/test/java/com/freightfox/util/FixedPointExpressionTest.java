@@ -0,0 +1,166 @@
+package com.freightfox.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for fixed-point decimal evaluation.
+ */
+@DisplayName("FixedPointExpression Tests")
+class FixedPointExpressionTest {
+    
+    @Test
+    @DisplayName("Should add and multiply decimal amounts without drift")
+    void testExactAmounts() {
+        FixedPointExpression program = compile("p * q + f", 2, RoundingMode.HALF_EVEN);
+        
+        // p, f, q in slot order
+        assertEquals(new BigDecimal("0.50"), evaluate(program, 0.2, 0.1, 3));
+        assertEquals(new BigDecimal("0.30"), evaluate(compile("0.1 + 0.2", 2, RoundingMode.HALF_EVEN)));
+        assertNotEquals(0.3, 0.1 + 0.2);
+    }
+    
+    @Test
+    @DisplayName("Should round quotients with the configured mode")
+    void testDivisionRounding() {
+        assertEquals(new BigDecimal("0.33"), evaluate(compile("x / 3", 2, RoundingMode.HALF_EVEN), 1));
+        assertEquals(new BigDecimal("0.34"), evaluate(compile("x / 3", 2, RoundingMode.UP), 1));
+        assertEquals(new BigDecimal("-0.34"), evaluate(compile("x / 3", 2, RoundingMode.FLOOR), -1));
+        assertEquals(new BigDecimal("-0.33"), evaluate(compile("x / 3", 2, RoundingMode.CEILING), -1));
+        assertEquals(new BigDecimal("0.12"), evaluate(compile("x / 8", 2, RoundingMode.HALF_EVEN), 1));
+        assertEquals(new BigDecimal("0.13"), evaluate(compile("x / 8", 2, RoundingMode.HALF_UP), 1));
+        assertEquals(new BigDecimal("2"), evaluate(compile("x / 2", 0, RoundingMode.HALF_DOWN), 5));
+        assertEquals(new BigDecimal("3"), evaluate(compile("x / 2", 0, RoundingMode.HALF_UP), 5));
+    }
+    
+    @Test
+    @DisplayName("Should read inputs as their shortest decimal form, breaking ties exactly")
+    void testInputRounding() {
+        FixedPointExpression program = compile("x", 2, RoundingMode.HALF_UP);
+        
+        // 1.005 and 2.675 are stored just below the tie as doubles
+        assertEquals(new BigDecimal("1.01"), evaluate(program, 1.005));
+        assertEquals(new BigDecimal("2.68"), evaluate(program, 2.675));
+        assertEquals(new BigDecimal("-2.68"), evaluate(program, -2.675));
+        assertEquals(new BigDecimal("19.99"), evaluate(program, 19.99));
+    }
+    
+    @Test
+    @DisplayName("Should read full-precision inputs the same way on both paths")
+    void testDirectedInputRounding() {
+        FixedPointExpression ceiling = compile("x", 2, RoundingMode.CEILING);
+        long[] stack = new long[ceiling.getMaxStack()];
+        
+        // 0.1 + 0.2 is 0.30000000000000004, a hair above 0.30
+        assertEquals(31L, ceiling.evaluateUnscaled(new double[] {0.1 + 0.2}, stack));
+        assertEquals(new BigDecimal("0.31"), ceiling.evaluateExact(new double[] {0.1 + 0.2}));
+        assertEquals(new BigDecimal("0.30"), evaluate(compile("x", 2, RoundingMode.FLOOR), 0.1 + 0.2));
+        assertEquals(new BigDecimal("0.30"), evaluate(ceiling, 0.3));
+        assertEquals(new BigDecimal("-0.31"), evaluate(compile("x", 2, RoundingMode.UP), -(0.1 + 0.2)));
+        assertEquals(new BigDecimal("-0.30"), evaluate(compile("x", 2, RoundingMode.DOWN), -(0.1 + 0.2)));
+        assertThrows(IllegalArgumentException.class, () -> evaluate(compile("x", 2, RoundingMode.UNNECESSARY), 0.1 + 0.2));
+        assertEquals(new BigDecimal("0.30"), evaluate(compile("x", 2, RoundingMode.UNNECESSARY), 0.3));
+        
+        Random random = new Random(17);
+        for (RoundingMode rounding : RoundingMode.values()) {
+            for (int scale : new int[] {0, 2, 6}) {
+                FixedPointExpression program = compile("x", scale, rounding);
+                for (int i = 0; i < 2000; i++) {
+                    // An amount a few ulps away from a whole number of units, 16 or 17 digits long
+                    double amount = Math.round((random.nextDouble() * 2 - 1) * 1e8) / 1e3;
+                    double value = amount;
+                    for (int steps = random.nextInt(7) - 3; steps != 0; steps -= Integer.signum(steps)) {
+                        value = steps > 0 ? Math.nextUp(value) : Math.nextDown(value);
+                    }
+                    double[] values = {value};
+                    BigDecimal expected;
+                    try {
+                        expected = program.evaluateExact(values);
+                    } catch (IllegalArgumentException e) {
+                        assertThrows(IllegalArgumentException.class, () -> program.evaluate(values, stack),
+                                value + " at scale " + scale + " " + rounding);
+                        continue;
+                    }
+                    long unscaled = program.evaluateUnscaled(values, stack);
+                    if (unscaled != FixedPointExpression.OVERFLOW) {
+                        assertEquals(expected, BigDecimal.valueOf(unscaled, scale), value + " at scale " + scale + " " + rounding);
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    @DisplayName("Should match BigDecimal for every rounding mode")
+    void testMatchesBigDecimal() {
+        String[] equations = {"a * b / c", "(a - b) ^ 3 / c + 0.125", "a / b / c * 1.5", "a * a * b - c ^ 2", "a ^ 0 + b ^ 1 / c"};
+        Random random = new Random(48);
+        for (RoundingMode rounding : RoundingMode.values()) {
+            if (rounding == RoundingMode.UNNECESSARY) {
+                continue;
+            }
+            for (int scale : new int[] {0, 2, 4, 9}) {
+                for (String equation : equations) {
+                    FixedPointExpression program = compile(equation, scale, rounding);
+                    long[] stack = new long[program.getMaxStack()];
+                    for (int i = 0; i < 500; i++) {
+                        double[] values = {randomAmount(random), randomAmount(random), randomAmount(random)};
+                        if (BigDecimal.valueOf(values[2]).setScale(scale, rounding).signum() == 0
+                                || BigDecimal.valueOf(values[1]).setScale(scale, rounding).signum() == 0) {
+                            continue;
+                        }
+                        assertEquals(program.evaluateExact(values), program.evaluate(values, stack),
+                                equation + " at scale " + scale + " " + rounding);
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    @DisplayName("Should fall back to BigDecimal when a value does not fit in a long")
+    void testOverflowFallback() {
+        FixedPointExpression program = compile("x * x - x", 9, RoundingMode.HALF_EVEN);
+        long[] stack = new long[program.getMaxStack()];
+        
+        assertEquals(750_000_000L, program.evaluateUnscaled(new double[] {1.5}, stack));
+        // 10^14 units squared is past the range of a long even before rescaling
+        assertEquals(FixedPointExpression.OVERFLOW, program.evaluateUnscaled(new double[] {100_000}, stack));
+        assertEquals(new BigDecimal("9999900000.000000000"), program.evaluate(new double[] {100_000}, stack));
+        assertEquals(new BigDecimal("1E+30").setScale(0), compile("x * 10", 0, RoundingMode.DOWN)
+                .evaluate(new double[] {1e29}, new long[2]));
+    }
+    
+    @Test
+    @DisplayName("Should reject unsupported exponents, bad scales and invalid values")
+    void testErrors() {
+        assertThrows(IllegalArgumentException.class, () -> compile("x ^ y", 2, RoundingMode.HALF_EVEN));
+        assertThrows(IllegalArgumentException.class, () -> compile("x ^ 0.5", 2, RoundingMode.HALF_EVEN));
+        assertThrows(IllegalArgumentException.class, () -> compile("x", 19, RoundingMode.HALF_EVEN));
+        assertThrows(IllegalArgumentException.class, () -> compile("x * 0.125", 2, RoundingMode.UNNECESSARY));
+        assertThrows(ArithmeticException.class, () -> evaluate(compile("x / 3", 2, RoundingMode.UNNECESSARY), 1));
+        assertThrows(ArithmeticException.class, () -> evaluate(compile("x / y", 2, RoundingMode.HALF_EVEN), 1, 0.001));
+        assertThrows(IllegalArgumentException.class, () -> evaluate(compile("x", 2, RoundingMode.HALF_EVEN), Double.NaN));
+    }
+    
+    private static double randomAmount(Random random) {
+        // Up to three decimals, sometimes large enough to overflow the scaled long
+        double magnitude = random.nextInt(10) == 0 ? 1e12 : 1e3;
+        return Math.round((random.nextDouble() * 2 - 1) * magnitude * 1000) / 1000.0;
+    }
+    
+    private static BigDecimal evaluate(FixedPointExpression program, double... values) {
+        return program.evaluate(values, new long[program.getMaxStack()]);
+    }
+    
+    private static FixedPointExpression compile(String equation, int scale, RoundingMode rounding) {
+        CompiledExpression compiled = CompiledExpression.compile(ExpressionParser.parseExpression(equation));
+        return FixedPointExpression.compile(ExpressionParser.parseExpression(equation), compiled.getVariables(), scale, rounding);
+    }
+}
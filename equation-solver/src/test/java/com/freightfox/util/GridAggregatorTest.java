@@ -0,0 +1,85 @@
+package com.freightfox.util;
+
+import com.freightfox.model.AggregationResult;
+import com.freightfox.model.GridAxis;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for lattice aggregation.
+ */
+@DisplayName("GridAggregator Tests")
+class GridAggregatorTest {
+    
+    @Test
+    @DisplayName("Should match a direct loop over the lattice")
+    void testMatchesLoop() {
+        AggregationResult result = aggregate("x * y - z",
+                Map.of("x", new GridAxis(-1.0, 1.0, 201), "y", new GridAxis(0.0, 3.0, 31)), Map.of("z", 0.5));
+        
+        double sum = 0;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < 201; i++) {
+            for (int j = 0; j < 31; j++) {
+                double value = (-1 + i * 0.01) * (j * 0.1) - 0.5;
+                sum += value;
+                max = Math.max(max, value);
+            }
+        }
+        assertEquals(201 * 31, result.getPoints());
+        assertEquals(0, result.getFailed());
+        assertEquals(sum, result.getSum(), 1e-9);
+        assertEquals(sum / (201 * 31), result.getMean(), 1e-12);
+        assertEquals(max, result.getMax(), 1e-12);
+        assertEquals(-3.5, result.getMin(), 1e-12);
+        assertEquals(Map.of("x", 1.0, "y", 3.0), result.getArgmax());
+        assertEquals(Map.of("x", -1.0, "y", 3.0), result.getArgmin());
+    }
+    
+    @Test
+    @DisplayName("Should report the first extreme in lattice order")
+    void testFirstExtreme() {
+        AggregationResult result = aggregate("x^2", Map.of("x", new GridAxis(-2.0, 2.0, 100_001)), Map.of());
+        
+        assertEquals(4.0, result.getMax());
+        assertEquals(Map.of("x", -2.0), result.getArgmax());
+        assertEquals(0.0, result.getMin(), 1e-18);
+    }
+    
+    @Test
+    @DisplayName("Should leave out points that divide by zero")
+    void testFailures() {
+        AggregationResult result = aggregate("1 / x", Map.of("x", new GridAxis(-1.0, 1.0, 3)), Map.of());
+        
+        assertEquals(3, result.getPoints());
+        assertEquals(1, result.getFailed());
+        assertEquals(0.0, result.getSum());
+        
+        AggregationResult none = aggregate("1 / x", Map.of("x", new GridAxis(0.0, 0.0, 1)), Map.of());
+        assertEquals(1, none.getFailed());
+        assertNull(none.getSum());
+        assertNull(none.getArgmax());
+    }
+    
+    @Test
+    @DisplayName("Should reject malformed axes, missing variables and oversized lattices")
+    void testInvalid() {
+        assertThrows(IllegalArgumentException.class,
+                () -> aggregate("x + y", Map.of("x", new GridAxis(0.0, 1.0, 10)), Map.of()));
+        assertThrows(IllegalArgumentException.class,
+                () -> aggregate("x", Map.of("x", new GridAxis(1.0, 0.0, 10)), Map.of()));
+        assertThrows(IllegalArgumentException.class,
+                () -> aggregate("x", Map.of("x", new GridAxis(0.0, 1.0, 10), "w", new GridAxis(0.0, 1.0, 2)), Map.of()));
+        assertThrows(IllegalArgumentException.class, () -> aggregate("x * y",
+                Map.of("x", new GridAxis(0.0, 1.0, 100_000), "y", new GridAxis(0.0, 1.0, 100_000)), Map.of()));
+    }
+    
+    private static AggregationResult aggregate(String equation, Map<String, GridAxis> axes, Map<String, Double> fixed) {
+        return GridAggregator.aggregate(CompiledExpression.compile(ExpressionParser.parseExpression(equation)),
+                axes, fixed, Deadline.NONE);
+    }
+}
@@ -0,0 +1,92 @@
+package com.freightfox.util;
+
+import com.freightfox.model.IntegrationResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for adaptive Gauss-Kronrod integration.
+ */
+@DisplayName("Integrator Tests")
+class IntegratorTest {
+    
+    @Test
+    @DisplayName("Should integrate a polynomial exactly on the first pass")
+    void testPolynomial() {
+        IntegrationResult result = integrate("3*x^2 + 2*x", Map.of(), 0, 2, 1e-10, 1000);
+        
+        assertEquals(12.0, result.getValue(), 1e-12);
+        assertTrue(result.isConverged());
+        assertEquals(Integrator.INITIAL_SUBINTERVALS, result.getSubintervals());
+        assertEquals(Integrator.INITIAL_SUBINTERVALS * Integrator.POINTS_PER_SUBINTERVAL, result.getEvaluations());
+    }
+    
+    @Test
+    @DisplayName("Should refine around a sharp peak until the tolerance is met")
+    void testAdaptive() {
+        // Integral of 1 / (1 + 10000 x^2) over [-1, 1] is atan(100) / 50
+        IntegrationResult result = integrate("1 / (1 + 10000 * x^2)", Map.of(), -1, 1, 1e-12, 1000);
+        
+        assertTrue(result.isConverged());
+        assertTrue(result.getSubintervals() > Integrator.INITIAL_SUBINTERVALS);
+        assertTrue(result.getErrorEstimate() <= 1e-12);
+        assertEquals(Math.atan(100) / 50, result.getValue(), 1e-12);
+    }
+    
+    @Test
+    @DisplayName("Should hold the other variables fixed")
+    void testParameters() {
+        CompiledExpression compiled = compile("a * x + b");
+        double[] parameters = compiled.bind(Map.of("a", 2.0, "b", 5.0, "x", 0.0));
+        
+        IntegrationResult result = Integrator.integrate(compiled, "x", parameters, 1, 3, 1e-10, 1000, Deadline.NONE);
+        
+        assertEquals(18.0, result.getValue(), 1e-12);
+    }
+    
+    @Test
+    @DisplayName("Should negate the integral when the limits are reversed")
+    void testReversed() {
+        assertEquals(-12.0, integrate("3*x^2 + 2*x", Map.of(), 2, 0, 1e-10, 1000).getValue(), 1e-12);
+        assertEquals(0.0, integrate("x", Map.of(), 1, 1, 1e-10, 1000).getValue());
+    }
+    
+    @Test
+    @DisplayName("Should report an unconverged estimate when the subinterval cap is reached")
+    void testNotConverged() {
+        IntegrationResult result = integrate("1 / (1 + 10000 * x^2)", Map.of(), -1, 1, 1e-14, 10);
+        
+        assertFalse(result.isConverged());
+        assertEquals(10, result.getSubintervals());
+        assertEquals(Math.atan(100) / 50, result.getValue(), 1e-3);
+    }
+    
+    @Test
+    @DisplayName("Should reject unknown variables and integrands that are not finite")
+    void testInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> integrate("y", Map.of("y", 1.0), 0, 1, 1e-10, 1000));
+        assertThrows(IllegalArgumentException.class, () -> integrate("x^0.5", Map.of(), -1, 1, 1e-10, 1000));
+        assertThrows(IllegalArgumentException.class,
+                () -> integrate("x", Map.of(), 0, Double.POSITIVE_INFINITY, 1e-10, 1000));
+    }
+    
+    private static IntegrationResult integrate(String equation, Map<String, Double> fixed, double lower, double upper,
+                                               double tolerance, int maxSubintervals) {
+        CompiledExpression compiled = compile(equation);
+        double[] parameters = new double[compiled.getVariables().length];
+        fixed.forEach((name, value) -> {
+            if (compiled.slotOf(name) >= 0) {
+                parameters[compiled.slotOf(name)] = value;
+            }
+        });
+        return Integrator.integrate(compiled, "x", parameters, lower, upper, tolerance, maxSubintervals, Deadline.NONE);
+    }
+    
+    private static CompiledExpression compile(String equation) {
+        return CompiledExpression.compile(ExpressionParser.parseExpression(equation));
+    }
+}
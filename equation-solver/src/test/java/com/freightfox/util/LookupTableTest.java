@@ -0,0 +1,64 @@
+package com.freightfox.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for lookup-table approximation.
+ */
+@DisplayName("LookupTable Tests")
+class LookupTableTest {
+    
+    @Test
+    @DisplayName("Should stay within the error bound with either interpolation")
+    void testWithinBound() {
+        CompiledExpression compiled = compile("1 / (1 + x^2)");
+        for (LookupTable.Interpolation interpolation : LookupTable.Interpolation.values()) {
+            LookupTable table = LookupTable.build(compiled, -4, 4, 1e-7, interpolation);
+            
+            assertTrue(table.getMeasuredError() <= 1e-7);
+            for (double x = -4; x <= 4; x += 0.001) {
+                assertEquals(1 / (1 + x * x), table.evaluate(x), 1e-7);
+            }
+            assertEquals(1 / 17.0, table.evaluate(4), 1e-12);
+        }
+    }
+    
+    @Test
+    @DisplayName("Should need far fewer cubic intervals than linear ones")
+    void testCubicSmaller() {
+        CompiledExpression compiled = compile("x^3 - 2*x");
+        LookupTable linear = LookupTable.build(compiled, -2, 2, 1e-8, LookupTable.Interpolation.LINEAR);
+        LookupTable cubic = LookupTable.build(compiled, -2, 2, 1e-8, LookupTable.Interpolation.CUBIC);
+        
+        assertEquals(LookupTable.INITIAL_INTERVALS, cubic.getIntervals());
+        assertTrue(linear.getIntervals() >= 64 * cubic.getIntervals());
+    }
+    
+    @Test
+    @DisplayName("Should report the range it covers")
+    void testCovers() {
+        LookupTable table = LookupTable.build(compile("x^2"), 0, 1, 1e-6, LookupTable.Interpolation.CUBIC);
+        
+        assertTrue(table.covers(0));
+        assertTrue(table.covers(1));
+        assertFalse(table.covers(1.0001));
+        assertFalse(table.covers(Double.NaN));
+    }
+    
+    @Test
+    @DisplayName("Should refuse equations that are not finite or not univariate")
+    void testRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> LookupTable.build(compile("1 / x"), -1, 1, 1e-3, LookupTable.Interpolation.LINEAR));
+        assertThrows(IllegalArgumentException.class,
+                () -> LookupTable.build(compile("x * y"), 0, 1, 1e-3, LookupTable.Interpolation.LINEAR));
+        assertThrows(IllegalArgumentException.class,
+                () -> LookupTable.build(compile("x^2"), 1, 1, 1e-3, LookupTable.Interpolation.LINEAR));
+    }
+    
+    private static CompiledExpression compile(String equation) {
+        return CompiledExpression.compile(ExpressionParser.parseExpression(equation));
+    }
+}
@@ -0,0 +1,119 @@
+package com.freightfox.util;
+
+import com.freightfox.model.Distribution;
+import com.freightfox.model.SimulationResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for Monte Carlo simulation.
+ */
+@DisplayName("MonteCarloSimulator Tests")
+class MonteCarloSimulatorTest {
+    
+    private static final List<Double> QUARTILES = List.of(25.0, 50.0, 75.0);
+    
+    @Test
+    @DisplayName("Should match the moments and quantiles of a normal input")
+    void testNormal() {
+        SimulationResult result = simulate("2*x + 1", Map.of("x", Distribution.normal(3, 0.5)), Map.of(), 1_000_000, 7);
+        
+        assertEquals(1_000_000, result.getSamples());
+        assertEquals(0, result.getFailed());
+        assertEquals(7.0, result.getMean(), 0.01);
+        assertEquals(1.0, result.getVariance(), 0.01);
+        assertEquals(1.0, result.getStdDev(), 0.005);
+        // Quartiles of a normal distribution lie 0.6745 standard deviations from the mean
+        assertEquals(6.3255, result.getPercentiles().get("p25"), 0.01);
+        assertEquals(7.0, result.getPercentiles().get("p50"), 0.01);
+        assertEquals(7.6745, result.getPercentiles().get("p75"), 0.01);
+    }
+    
+    @Test
+    @DisplayName("Should combine sampled and fixed variables")
+    void testUniformWithFixed() {
+        SimulationResult result = simulate("x + y * z",
+                Map.of("x", Distribution.uniform(0, 1), "z", Distribution.triangular(0, 0, 3)),
+                Map.of("y", 2.0), 500_000, 11);
+        
+        // Means 1/2 and 1, variances 1/12 and 4 * 1/2
+        assertEquals(2.5, result.getMean(), 0.01);
+        assertEquals(1 / 12.0 + 2.0, result.getVariance(), 0.02);
+        assertTrue(result.getMin() >= 0 && result.getMax() <= 7);
+    }
+    
+    @Test
+    @DisplayName("Should fill a histogram that counts every finite sample")
+    void testHistogram() {
+        SimulationResult result = simulate("x", Map.of("x", Distribution.uniform(-1, 1)), Map.of(), 100_000, 3);
+        
+        SimulationResult.Histogram histogram = result.getHistogram();
+        assertEquals(20, histogram.getCounts().length);
+        assertEquals(result.getMin(), histogram.getMin());
+        assertEquals((result.getMax() - result.getMin()) / 20, histogram.getBinWidth(), 1e-12);
+        long total = 0;
+        for (long count : histogram.getCounts()) {
+            assertEquals(5000, count, 500);
+            total += count;
+        }
+        assertEquals(100_000, total);
+    }
+    
+    @Test
+    @DisplayName("Should give the same result for the same seed")
+    void testReproducible() {
+        Map<String, Distribution> distributions = Map.of("x", Distribution.normal(0, 1), "y", Distribution.uniform(1, 2));
+        SimulationResult first = simulate("x^2 / y", distributions, Map.of(), 123_457, 42);
+        SimulationResult second = simulate("x^2 / y", distributions, Map.of(), 123_457, 42);
+        SimulationResult other = simulate("x^2 / y", distributions, Map.of(), 123_457, 43);
+        
+        assertEquals(first.getMean(), second.getMean());
+        assertEquals(first.getVariance(), second.getVariance());
+        assertEquals(first.getPercentiles(), second.getPercentiles());
+        assertArrayEquals(first.getHistogram().getCounts(), second.getHistogram().getCounts());
+        assertNotEquals(first.getMean(), other.getMean());
+    }
+    
+    @Test
+    @DisplayName("Should count samples that divide by zero or are not finite as failed")
+    void testFailures() {
+        SimulationResult undefined = simulate("x^0.5", Map.of("x", Distribution.uniform(-1, 1)), Map.of(), 100_000, 5);
+        assertEquals(50_000, undefined.getFailed(), 1000);
+        assertTrue(undefined.getMin() >= 0);
+        
+        SimulationResult allFailed = simulate("1 / x", Map.of("x", Distribution.normal(0, 0)), Map.of(), 10_000, 5);
+        assertEquals(10_000, allFailed.getFailed());
+        assertNull(allFailed.getMean());
+        assertNull(allFailed.getHistogram());
+    }
+    
+    @Test
+    @DisplayName("Should reject missing variables and malformed distributions")
+    void testInvalid() {
+        assertThrows(IllegalArgumentException.class,
+                () -> simulate("x + y", Map.of("x", Distribution.normal(0, 1)), Map.of(), 10, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> simulate("x", Map.of("x", Distribution.normal(0, -1)), Map.of(), 10, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> simulate("x", Map.of("x", Distribution.uniform(1, 1)), Map.of(), 10, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> simulate("x", Map.of("x", Distribution.triangular(0, 2, 1)), Map.of(), 10, 1));
+        assertThrows(IllegalArgumentException.class, () -> MonteCarloSimulator.simulate(compile("x"),
+                Map.of("x", Distribution.normal(0, 1)), Map.of(), 10, 1, 20, List.of(101.0), Deadline.NONE));
+    }
+    
+    private static SimulationResult simulate(String equation, Map<String, Distribution> distributions,
+                                             Map<String, Double> fixed, long samples, long seed) {
+        return MonteCarloSimulator.simulate(compile(equation), distributions, fixed, samples, seed,
+                20, QUARTILES, Deadline.NONE);
+    }
+    
+    private static CompiledExpression compile(String equation) {
+        return CompiledExpression.compile(ExpressionParser.parseExpression(equation));
+    }
+}
@@ -0,0 +1,96 @@
+package com.freightfox.util;
+
+import com.freightfox.model.ExpressionNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+
+/**
+ * Unit tests for polynomial recognition and Horner evaluation.
+ */
+@DisplayName("Polynomial Tests")
+class PolynomialTest {
+    
+    @Test
+    @DisplayName("Should evaluate a univariate polynomial in Horner form")
+    void testUnivariate() {
+        CompiledExpression compiled = compile("3x^3 + 2x^2 - 5x + 7");
+        Polynomial polynomial = compiled.getPolynomial();
+        
+        assertNotNull(polynomial);
+        assertEquals(4, polynomial.getTermCount());
+        for (double x = -3; x <= 3; x += 0.5) {
+            assertEquals(3 * x * x * x + 2 * x * x - 5 * x + 7, polynomial.evaluate(new double[] { x }), 1e-9);
+        }
+    }
+    
+    @Test
+    @DisplayName("Should evaluate a multivariate polynomial in nested Horner form")
+    void testMultivariate() {
+        String equation = "x^2*y - 3*x*y^2 + y^3/2 + 4*x - 1";
+        ExpressionNode tree = ExpressionParser.parseExpression(equation);
+        CompiledExpression compiled = CompiledExpression.compile(tree);
+        
+        assertNotNull(compiled.getPolynomial());
+        for (double x = -2; x <= 2; x += 0.75) {
+            for (double y = -2; y <= 2; y += 0.75) {
+                double expected = tree.evaluate(Map.of("x", x, "y", y));
+                assertEquals(expected, compiled.evaluate(new double[] { x, y }), 1e-9);
+            }
+        }
+    }
+    
+    @Test
+    @DisplayName("Should leave cancelling, zeroed and overflowing terms to the written form")
+    void testDroppedTerms() {
+        assertNull(compile("x*x - x*x + y*y").getPolynomial());
+        assertTrue(Double.isNaN(compile("x*x - x*x + y*y").evaluate(new double[] { 1e200, 2 })));
+        assertNull(compile("0*x^2 + y^2").getPolynomial());
+        assertTrue(Double.isNaN(compile("0*x^2 + y^2").evaluate(new double[] { Double.POSITIVE_INFINITY, 2 })));
+        assertNull(compile("1e300*x^2 + 1e300*x^2".replace("1e300", "1" + "0".repeat(308))).getPolynomial());
+        assertEquals(2, compile("x^2 + 0 + x - 0").getPolynomial().getTermCount());
+    }
+    
+    @Test
+    @DisplayName("Should bridge sparse powers and leave factored forms unexpanded")
+    void testFactoredForms() {
+        assertEquals(2, compile("x^40 + 1").getPolynomial().getTermCount());
+        assertEquals(Math.pow(1.1, 40) + 1, compile("x^40 + 1").evaluate(new double[] { 1.1 }), 1e-9);
+        assertEquals(3, compile("2*x^2*y/4 + x*y + y^2").getPolynomial().getTermCount());
+        
+        assertNull(compile("(x + 1)^3").getPolynomial());
+        assertNull(compile("(x + 1)*(x - 1)").getPolynomial());
+        assertNull(compile("(x^2 + x)/2").getPolynomial());
+        // Expanded, these would cancel down to rounding noise
+        assertEquals(1e-40, compile("(x - 1)^20").evaluate(new double[] { 1.01 }), 1e-50);
+        assertEquals(1e-6, compile("(x - 100000)^2").evaluate(new double[] { 100000.001 }), 1e-12);
+    }
+    
+    @Test
+    @DisplayName("Should leave non-polynomials and linear expressions to the program")
+    void testRejected() {
+        assertNull(compile("x^y").getPolynomial());
+        assertNull(compile("x^0.5 + x^2").getPolynomial());
+        assertNull(compile("x^(0 - 1)").getPolynomial());
+        assertNull(compile("x^2 / y").getPolynomial());
+        assertNull(compile("x^2 / (1 - 1)").getPolynomial());
+        assertNull(compile("3x + 2y - z").getPolynomial());
+        assertNull(compile("(x + y + z)^60").getPolynomial());
+    }
+    
+    @Test
+    @DisplayName("Should use Horner form for column evaluation")
+    void testColumns() {
+        CompiledExpression compiled = compile("x^2 + x*y");
+        double[] results = new double[3];
+        compiled.evaluateColumns(new double[][] { { 1, 2, 3 }, { 4, 5, 6 } }, 3, results, new boolean[3]);
+        
+        assertArrayEquals(new double[] { 5, 14, 27 }, results, 1e-12);
+    }
+    
+    private static CompiledExpression compile(String equation) {
+        return CompiledExpression.compile(ExpressionParser.parseExpression(equation));
+    }
+}
@@ -0,0 +1,59 @@
+package com.freightfox.util;
+
+import com.freightfox.model.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for inlining references to stored equations.
+ */
+@DisplayName("ReferenceInliner Tests")
+class ReferenceInlinerTest {
+    
+    @Test
+    @DisplayName("Should replace each reference with the referenced tree")
+    void testInline() {
+        ExpressionNode rate = ExpressionParser.parseExpression("r * 1.5");
+        ExpressionNode source = ExpressionParser.parseExpression("@7 * d + @7");
+        
+        ExpressionNode inlined = ReferenceInliner.inline(source, id -> {
+            assertEquals(7L, id);
+            return rate;
+        });
+        
+        assertEquals("(((r * 1.5) * d) + (r * 1.5))", inlined.toString());
+        assertTrue(ReferenceInliner.references(inlined).isEmpty());
+        CompiledExpression compiled = CompiledExpression.compile(inlined);
+        assertEquals(2 * 1.5 * 10 + 2 * 1.5, compiled.evaluate(compiled.bind(Map.of("r", 2.0, "d", 10.0))));
+    }
+    
+    @Test
+    @DisplayName("Should return a tree without references unchanged")
+    void testNoReferences() {
+        ExpressionNode source = ExpressionParser.parseExpression("x + 1");
+        
+        assertSame(source, ReferenceInliner.inline(source, id -> fail("Nothing to resolve")));
+        assertEquals(List.of(), List.copyOf(ReferenceInliner.references(source)));
+    }
+    
+    @Test
+    @DisplayName("Should refuse trees that grow too large once inlined")
+    void testSizeLimit() {
+        // Shared halves keep this small in memory, but it has 2^21 - 1 nodes as a tree
+        ExpressionNode large = new VariableNode("x");
+        for (int i = 0; i < 20; i++) {
+            large = new OperatorNode("+", large, large);
+        }
+        ExpressionNode tree = large;
+        
+        assertThrows(IllegalArgumentException.class,
+                () -> ReferenceInliner.inline(ExpressionParser.parseExpression("@1 + 1"), id -> tree));
+        assertThrows(IllegalArgumentException.class,
+                () -> ReferenceInliner.inline(ExpressionParser.parseExpression("@1 + 1"), id -> new ReferenceNode(2)));
+    }
+}
@@ -0,0 +1,69 @@
+package com.freightfox.util;
+
+import com.freightfox.exception.SolverException;
+import com.freightfox.model.SolveResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+
+/**
+ * Unit tests for the Newton / Brent root finder.
+ */
+@DisplayName("RootFinder Tests")
+class RootFinderTest {
+    
+    private static RootFinder finderFor(String expression, String variable) {
+        CompiledExpression compiled = CompiledExpression.compile(ExpressionParser.parseExpression(expression));
+        return new RootFinder(compiled, variable, RootFinder.DEFAULT_TOLERANCE, RootFinder.DEFAULT_MAX_ITERATIONS);
+    }
+    
+    @Test
+    @DisplayName("Should solve with Newton's method")
+    void testNewton() {
+        RootFinder finder = finderFor("x^2 - 2", "x");
+        SolveResult result = finder.solve(new double[1], 0.0, 1.0, null, null);
+        
+        assertEquals(Math.sqrt(2), result.getRoot(), 1e-9);
+        assertEquals(SolveResult.NEWTON, result.getMethod());
+    }
+    
+    @Test
+    @DisplayName("Should solve for a target value with other variables fixed")
+    void testTargetWithParameters() {
+        CompiledExpression compiled = CompiledExpression.compile(ExpressionParser.parseExpression("a * x + b"));
+        RootFinder finder = new RootFinder(compiled, "x", 1e-12, 50);
+        double[] parameters = compiled.bind(Map.of("a", 2.0, "b", 1.0, "x", 0.0));
+        
+        SolveResult result = finder.solve(parameters, 7.0, null, null, null);
+        assertEquals(3.0, result.getRoot(), 1e-9);
+    }
+    
+    @Test
+    @DisplayName("Should fall back to Brent's method when the derivative vanishes")
+    void testBrentFallback() {
+        // Newton starting at x = 0 hits a zero derivative immediately
+        RootFinder finder = finderFor("x^3 - 3x - 5", "x");
+        SolveResult result = finder.solve(new double[1], 0.0, 1.0, 2.0, 3.0);
+        
+        assertEquals(SolveResult.BRENT, result.getMethod());
+        assertEquals(0.0, result.getResidual(), 1e-9);
+        assertTrue(result.getRoot() > 2.0 && result.getRoot() < 3.0);
+    }
+    
+    @Test
+    @DisplayName("Should fail when the bracket has no sign change")
+    void testBracketWithoutSignChange() {
+        RootFinder finder = finderFor("x^2 + 1", "x");
+        assertThrows(SolverException.class, () -> {
+            finder.solve(new double[1], 0.0, null, -1.0, 1.0);
+        });
+    }
+    
+    @Test
+    @DisplayName("Should reject a variable the equation does not reference")
+    void testUnknownVariable() {
+        assertThrows(IllegalArgumentException.class, () -> finderFor("x + 1", "y"));
+    }
+}
@@ -0,0 +1,89 @@
+package com.freightfox.util;
+
+import com.freightfox.model.Interval;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+/**
+ * Unit tests for strength reduction of powers and divisions.
+ */
+@DisplayName("StrengthReduction Tests")
+class StrengthReductionTest {
+    
+    @Test
+    @DisplayName("Should match Math.pow for small integer exponents within a few ulps")
+    void testPowi() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            double base = (random.nextDouble() - 0.5) * 20;
+            int exponent = random.nextInt(StrengthReduction.MAX_INTEGER_EXPONENT + 1);
+            double expected = Math.pow(base, exponent);
+            assertEquals(expected, StrengthReduction.powi(base, exponent), 5 * Math.ulp(expected));
+        }
+        for (double special : new double[] { 0.0, -0.0, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY }) {
+            for (int exponent = 0; exponent <= 5; exponent++) {
+                assertEquals(Math.pow(special, exponent), StrengthReduction.powi(special, exponent));
+            }
+        }
+        assertEquals(Double.doubleToLongBits(Math.pow(1.1, 2)), Double.doubleToLongBits(StrengthReduction.powi(1.1, 2)));
+    }
+    
+    @Test
+    @DisplayName("Should take the square root only where it agrees with Math.pow")
+    void testSqrt() {
+        for (double base : new double[] { 0.0, -0.0, -4.0, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY }) {
+            assertEquals(Math.pow(base, 0.5), StrengthReduction.sqrt(base));
+        }
+        assertEquals(3.0, StrengthReduction.sqrt(9.0));
+    }
+    
+    @Test
+    @DisplayName("Should accept only divisors with an exact reciprocal")
+    void testHasExactReciprocal() {
+        assertTrue(StrengthReduction.hasExactReciprocal(2.0));
+        assertTrue(StrengthReduction.hasExactReciprocal(-0.25));
+        assertTrue(StrengthReduction.hasExactReciprocal(1024.0));
+        assertFalse(StrengthReduction.hasExactReciprocal(3.0));
+        assertFalse(StrengthReduction.hasExactReciprocal(0.1));
+        assertFalse(StrengthReduction.hasExactReciprocal(0.0));
+        assertFalse(StrengthReduction.hasExactReciprocal(Double.MIN_VALUE));
+        assertFalse(StrengthReduction.hasExactReciprocal(Math.scalb(1.0, Double.MAX_EXPONENT)));
+        assertFalse(StrengthReduction.hasExactReciprocal(Double.POSITIVE_INFINITY));
+    }
+    
+    @Test
+    @DisplayName("Should compile reduced powers and divisions with the same values and derivatives")
+    void testCompiledRewrites() {
+        CompiledExpression compiled = compile("x^3 + y^0.5 - x/4 + y/3");
+        double[] values = { 2.0, 9.0 };
+        double[] gradient = new double[2];
+        
+        assertEquals(8 + 3 - 0.5 + 3, compiled.evaluate(values), 1e-12);
+        assertEquals(8 + 3 - 0.5 + 3, compiled.evaluateGradient(values, gradient), 1e-12);
+        assertEquals(12 - 0.25, gradient[0], 1e-12);
+        assertEquals(0.5 / 3 + 1.0 / 3, gradient[1], 1e-12);
+        
+        double[] stack = new double[compiled.getMaxStack()];
+        double[] tangents = new double[compiled.getMaxStack()];
+        compiled.evaluateDerivative(values, 0, stack, tangents);
+        assertEquals(11.75, tangents[0], 1e-12);
+        
+        Interval range = compile("x^2").evaluateInterval(new Interval[] { new Interval(-1, 2) });
+        assertEquals(0.0, range.getLo(), 1e-12);
+        assertEquals(4.0, range.getHi(), 1e-12);
+    }
+    
+    @Test
+    @DisplayName("Should keep division by a zero constant an error")
+    void testDivisionByZeroConstant() {
+        assertThrows(ArithmeticException.class, () -> compile("x / 0").evaluate(new double[] { 1.0 }));
+        assertEquals(Double.doubleToLongBits(0.1 / 8), Double.doubleToLongBits(compile("x / 8").evaluate(new double[] { 0.1 })));
+    }
+    
+    private static CompiledExpression compile(String equation) {
+        return CompiledExpression.compile(ExpressionParser.parseExpression(equation));
+    }
+}